@@ -29,6 +29,20 @@ package ch.mazluc.util;
  * and resetting the output format. Color codes are defined as constants and
  * color codes with 16 or 256 bit format are not supported.
  * </p>
+ * <p>
+ * Everything is printed on an {@link OutputSink}: by default a
+ * {@link BufferedTerminalSink} on the standard output, which reaches the
+ * terminal only when {@link ANSIUtility#flush()} is called, once per frame
+ * or turn.
+ * </p>
+ * <p>
+ * The application sets the sink of the process, with
+ * {@link ANSIUtility#setSink(OutputSink)}. Simulations, servers and tests
+ * print elsewhere with {@link ANSIUtility#setThreadSink(OutputSink)}
+ * instead, such as on a {@link DiscardSink} or a {@link CaptureSink}: the
+ * sink is their thread's, and the threads it starts', so that they never
+ * silence nor steal the output of a game played next to them.
+ * </p>
  * <b>Usage</b>:
  * <pre>
  * {@code
@@ -36,14 +50,17 @@ package ch.mazluc.util;
  * ANSIUtility.moveTo(10, 10);                                          // move the cursor to row 10 and column 10
  * ANSIUtility.printcf("%s", ANSIUtility.RED, "Hello World!");         // print in red
  * ANSIUtility.printbcf("Your name is %s", ANSIUtility.BLUE, "Luca");   // print in blue background
+ * ANSIUtility.printcf(template, ANSIUtility.RED).arg(6).end();         // print a compiled template in red
  * ANSIUtility.reset();                                                 // reset the output format
+ * ANSIUtility.flush();                                                 // write everything on the terminal
  * String s = ANSIUtility.colorize("Hello World!", ANSIUtility.GREEN);  // colorize a string
  * String p = ANSIUtility.decolorize(s);                                // de-colorize a string
+ * int w = ANSIUtility.visibleWidth(s);                                 // columns taken on the terminal
  * }
  * </pre>
  *
  * @author Luca Mazza
- * @version 1.2
+ * @version 1.3
  * @since 1.0
  */
 public class ANSIUtility {
@@ -173,6 +190,27 @@ public class ANSIUtility {
      */
     public static final String REVERSOFF = "\u001B[27m";
 
+    /**
+     * The sink of the process, everything is printed on unless a thread has a sink of its own.
+     */
+    private static volatile OutputSink sink = new BufferedTerminalSink(System.out);
+
+    /**
+     * The sinks of the threads printing elsewhere than on the shared sink,
+     * inherited by the threads they start.
+     */
+    private static final InheritableThreadLocal<OutputSink> THREAD_SINK = new InheritableThreadLocal<>();
+
+    /**
+     * Whether a thread ever had a sink of its own: until then, the thread local is not even looked up.
+     */
+    private static volatile boolean threadSinks;
+
+    /**
+     * The writer of the {@link MessageTemplate}s, one per thread, reused for every message.
+     */
+    private static final ThreadLocal<MessageWriter> WRITER = ThreadLocal.withInitial(MessageWriter::new);
+
     /**
      * Private constructor to prevent instantiation,
      * as the class is a utility class and its use is
@@ -182,33 +220,152 @@ public class ANSIUtility {
         throw new IllegalStateException("Utility class");
     }
 
+    /**
+     * Sets the sink of the process, everything is printed on unless a
+     * thread has a sink of its own. Meant for the application only: other
+     * code sets the sink of its thread.
+     * The previous sink is flushed before being replaced.
+     *
+     * @param newSink the new sink
+     * @throws IllegalArgumentException if the sink is null
+     */
+    public static void setSink(final OutputSink newSink) {
+        if (newSink == null) throw new IllegalArgumentException("sink cannot be null");
+        sink.flush();
+        sink = newSink;
+    }
+
+    /**
+     * Returns the sink of the process.
+     *
+     * @return the sink
+     */
+    public static OutputSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Sets the sink the calling thread, and the threads it starts from now
+     * on, print on instead of the shared one, such as a {@link DiscardSink}
+     * for the threads simulating games while the game being played still
+     * prints.
+     *
+     * @param threadSink the sink of the thread, null to print on the shared sink again
+     */
+    public static void setThreadSink(final OutputSink threadSink) {
+        if (threadSink == null) {
+            THREAD_SINK.remove();
+        } else {
+            threadSinks = true;
+            THREAD_SINK.set(threadSink);
+        }
+    }
+
+    /**
+     * Returns the sink of the calling thread, to set it back once done
+     * printing elsewhere.
+     *
+     * @return the sink of the thread, null if it prints on the shared sink
+     */
+    public static OutputSink getThreadSink() {
+        return threadSinks ? THREAD_SINK.get() : null;
+    }
+
+    /**
+     * Returns the sink the calling thread prints on: its own, if set,
+     * or the shared one. Unless a thread ever had its own sink, the thread
+     * local is not even looked up.
+     *
+     * @return the sink
+     */
+    private static OutputSink sink() {
+        if (!threadSinks) return sink;
+        final OutputSink own = THREAD_SINK.get();
+        return own == null ? sink : own;
+    }
+
+    /**
+     * Checks if the sink throws away the output, so that callers
+     * can avoid building it.
+     *
+     * @return true if the output is discarded, false otherwise
+     */
+    public static boolean isDiscarding() {
+        return sink().isDiscarding();
+    }
+
+    /**
+     * Prints a string on the sink.
+     *
+     * @param s the string to print
+     */
+    public static void print(final CharSequence s) {
+        sink().print(s);
+    }
+
+    /**
+     * Prints a string on the sink, followed by a new line.
+     *
+     * @param s the string to print
+     */
+    public static void println(final CharSequence s) {
+        sink().println(s);
+    }
+
+    /**
+     * Prints a new line on the sink.
+     */
+    public static void println() {
+        sink().println("");
+    }
+
+    /**
+     * Prints a formatted string on the sink, as a `printf` function would.
+     * If the sink discards the output, the string is not even formatted.
+     *
+     * @param format the format string
+     * @param args the arguments to the `printf` function
+     */
+    public static void printf(final String format, Object... args) {
+        final OutputSink s = sink();
+        if (!s.isDiscarding()) s.print(String.format(format, args));
+    }
+
+    /**
+     * Writes everything printed so far on the terminal.
+     * Called once per frame or turn, typically before waiting for the user.
+     */
+    public static void flush() {
+        sink().flush();
+    }
+
     /**
      * Resets the output format to the default.
      */
     public static void resetf() {
-        System.out.print(RESET);
+        sink().print(RESET);
     }
 
     /**
      * Clears the screen
      */
     public static void clearScreen() {
-        System.out.print(CLS);
-        System.out.println(HOME);
+        sink().print(CLS);
+        sink().println(HOME);
     }
 
     /**
      * Sets the output format to bold.
      */
     public static void setBold() {
-        System.out.print(BOLD);
+        sink().print(BOLD);
     }
 
     /**
      * Sets the output format to normal.
      */
     public static void setNormal() {
-        System.out.print(NORMAL);
+        sink().print(NORMAL);
     }
 
     /**
@@ -222,7 +379,7 @@ public class ANSIUtility {
      */
     public static void moveTo(final int row, final int col) {
         if (row > 0 && col > 0) {
-            System.out.print(ESC + row + ";" + col + "H");
+            sink().print(ESC + row + ";" + col + "H");
         }
     }
 
@@ -236,7 +393,7 @@ public class ANSIUtility {
      */
     public static void setForegroundColor(final int code) {
         if (isColorCodeValid(code)) {
-            System.out.print(ESC + code + "m");
+            sink().print(ESC + code + "m");
         }
     }
 
@@ -247,7 +404,7 @@ public class ANSIUtility {
      */
     public static void setBackgroundColor(final int code) {
         if (isColorCodeValid(code)) {
-            System.out.print(ESC + (code + 10) + "m");
+            sink().print(ESC + (code + 10) + "m");
         }
     }
 
@@ -262,7 +419,7 @@ public class ANSIUtility {
      */
     public static void setColor(final int bg, final int fg) {
         if (isColorCodeValid(bg) && isColorCodeValid(fg)) {
-            System.out.print(ESC + fg + ";" + (bg + 10) + "m");
+            sink().print(ESC + fg + ";" + (bg + 10) + "m");
         }
     }
 
@@ -279,31 +436,87 @@ public class ANSIUtility {
     /**
      * Prints a color formatted string, as a `printf` function would, with the
      * addition of a color foreground.
+     * If the sink discards the output, nothing is formatted.
      *
      * @param format the format string
      * @param color the ANSI color code
      * @param args the arguments to the `printf` function
      */
     public static void printcf(final String format, final int color, Object... args) {
-            setForegroundColor(color);
-        System.out.printf(format, args);
+        if (isDiscarding()) return;
+        setForegroundColor(color);
+        sink().print(String.format(format, args));
         resetf();
     }
 
     /**
      * Prints a color formatted string, as a `printf` function would, with the
      * addition of a color background.
+     * If the sink discards the output, nothing is formatted.
      *
      * @param format the format string
      * @param color the ANSI color code
      * @param args the arguments to the `printf` function
      */
     public static void printbcf(final String format, final int color, Object... args) {
+        if (isDiscarding()) return;
         setBackgroundColor(color);
-        System.out.printf(format, args);
+        sink().print(String.format(format, args));
         resetf();
     }
 
+    /**
+     * Prints a compiled message template, with the addition of a color foreground.
+     * The arguments are given to the returned writer, which prints the message at
+     * {@link MessageWriter#end()}; if the sink discards the output, the writer
+     * ignores them.
+     *
+     * @param template the message template
+     * @param color the ANSI color code
+     * @return the writer of the arguments
+     */
+    public static MessageWriter printcf(final MessageTemplate template, final int color) {
+        final OutputSink s = sink();
+        if (s.isDiscarding()) return MessageWriter.DISCARD;
+        final MessageWriter writer = WRITER.get();
+        final StringBuilder buffer = writer.begin(template, s, RESET);
+        if (isColorCodeValid(color)) buffer.append(ESC).append(color).append('m');
+        return writer;
+    }
+
+    /**
+     * Prints a compiled message template, with the addition of a color background.
+     * The arguments are given to the returned writer, which prints the message at
+     * {@link MessageWriter#end()}; if the sink discards the output, the writer
+     * ignores them.
+     *
+     * @param template the message template
+     * @param color the ANSI color code
+     * @return the writer of the arguments
+     */
+    public static MessageWriter printbcf(final MessageTemplate template, final int color) {
+        final OutputSink s = sink();
+        if (s.isDiscarding()) return MessageWriter.DISCARD;
+        final MessageWriter writer = WRITER.get();
+        final StringBuilder buffer = writer.begin(template, s, RESET);
+        if (isColorCodeValid(color)) buffer.append(ESC).append(color + 10).append('m');
+        return writer;
+    }
+
+    /**
+     * Prints a compiled message template, without colors.
+     *
+     * @param template the message template
+     * @return the writer of the arguments
+     */
+    public static MessageWriter print(final MessageTemplate template) {
+        final OutputSink s = sink();
+        if (s.isDiscarding()) return MessageWriter.DISCARD;
+        final MessageWriter writer = WRITER.get();
+        writer.begin(template, s, null);
+        return writer;
+    }
+
     /**
      * Colorize a string with the given ANSI color code.
      *
@@ -317,12 +530,145 @@ public class ANSIUtility {
 
     /**
      * De-colorize a string.
+     * If the string contains no escape sequence, it is returned as is.
      *
      * @param s the string to de-colorize
      * @return the de-colorized string
      */
     public static String decolorize(final String s){
-        return s.replaceAll("\u001B\\[[\\d;]*[^\\d;]","");
+        if (s.indexOf('\u001B') < 0) return s;
+        final StringBuilder sb = new StringBuilder(s.length());
+        appendStripped(sb, s);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the length of the escape sequence starting at the given index,
+     * that is an ESC, a '[', any number of digits and ';', and a final character.
+     * Anything else is not an escape sequence and has length 0.
+     *
+     * @param s the string
+     * @param i the index
+     * @return the length of the escape sequence, 0 if there is none
+     */
+    private static int escapeLength(final CharSequence s, final int i) {
+        if (s.charAt(i) != '\u001B' || i + 1 >= s.length() || s.charAt(i + 1) != '[') return 0;
+        int j = i + 2;
+        while (j < s.length() && (Character.isDigit(s.charAt(j)) || s.charAt(j) == ';')) j++;
+        return j < s.length() ? j + 1 - i : 0;
+    }
+
+    /**
+     * Appends a string to a {@link StringBuilder}, without its escape sequences.
+     *
+     * @param sb the builder to append to
+     * @param s the string to de-colorize
+     */
+    public static void appendStripped(final StringBuilder sb, final CharSequence s) {
+        int i = 0;
+        while (i < s.length()) {
+            final int escape = escapeLength(s, i);
+            if (escape > 0) {
+                i += escape;
+            } else {
+                sb.append(s.charAt(i++));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of columns a string takes on the terminal.
+     * Escape sequences take no column, a surrogate pair is a single character,
+     * wide characters (CJK, emoji) take two columns and combining marks none.
+     * The building glyphs ⇧ and □ take one column each.
+     *
+     * @param s the string
+     * @return the visible width
+     */
+    public static int visibleWidth(final CharSequence s) {
+        int width = 0;
+        int i = 0;
+        while (i < s.length()) {
+            final int escape = escapeLength(s, i);
+            if (escape > 0) {
+                i += escape;
+                continue;
+            }
+            final char c = s.charAt(i++);
+            if (c < 0x300) {
+                width++;
+            } else if (Character.isHighSurrogate(c) && i < s.length() && Character.isLowSurrogate(s.charAt(i))) {
+                width += columns(Character.toCodePoint(c, s.charAt(i++)));
+            } else {
+                width += columns(c);
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Returns the number of columns a character takes on the terminal.
+     *
+     * @param cp the code point
+     * @return 0, 1 or 2
+     */
+    private static int columns(final int cp) {
+        if (cp >= 0x300 && cp <= 0x36F || cp >= 0x200B && cp <= 0x200F || cp >= 0xFE00 && cp <= 0xFE0F) return 0;
+        if (cp >= 0x1100 && cp <= 0x115F || cp >= 0x2E80 && cp <= 0xA4CF || cp >= 0xAC00 && cp <= 0xD7A3 ||
+                cp >= 0xF900 && cp <= 0xFAFF || cp >= 0xFE30 && cp <= 0xFE4F || cp >= 0xFF00 && cp <= 0xFF60 ||
+                cp >= 0xFFE0 && cp <= 0xFFE6 || cp >= 0x1F300 && cp <= 0x1F64F || cp >= 0x1F900 && cp <= 0x1F9FF ||
+                cp >= 0x20000 && cp <= 0x3FFFD) return 2;
+        return 1;
+    }
+
+    /**
+     * Appends a number of spaces to a {@link StringBuilder}.
+     * Nothing is appended if the number is not positive.
+     *
+     * @param sb the builder to append to
+     * @param n the number of spaces
+     */
+    public static void pad(final StringBuilder sb, final int n) {
+        for (int i = 0; i < n; i++) sb.append(' ');
+    }
+
+    /**
+     * Appends a string to a {@link StringBuilder}, followed by the spaces
+     * needed to take the given number of columns on the terminal.
+     * The escape sequences of the string are kept, and not counted.
+     *
+     * @param sb the builder to append to
+     * @param s the string, may be colorized
+     * @param width the number of columns
+     */
+    public static void appendPadded(final StringBuilder sb, final CharSequence s, final int width) {
+        sb.append(s);
+        pad(sb, width - visibleWidth(s));
+    }
+
+    /**
+     * Checks if a string, without its escape sequences, is equal to
+     * a plain string, ignoring case.
+     *
+     * @param s the string, may be colorized
+     * @param plain the plain string
+     * @return true if they are equal, false otherwise
+     */
+    public static boolean equalsIgnoreCaseStripped(final CharSequence s, final CharSequence plain) {
+        int i = 0;
+        int j = 0;
+        while (i < s.length()) {
+            final int escape = escapeLength(s, i);
+            if (escape > 0) {
+                i += escape;
+                continue;
+            }
+            if (j == plain.length()) return false;
+            final char a = s.charAt(i++);
+            final char b = plain.charAt(j++);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return j == plain.length();
     }
 
 }
\ No newline at end of file
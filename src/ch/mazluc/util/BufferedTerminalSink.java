@@ -0,0 +1,137 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * {@link OutputSink} that collects the output in a character buffer and
+ * writes it to the terminal only when flushed, typically once per frame
+ * or turn.
+ * </p>
+ * <p>
+ * Printing only copies characters in the buffer: the terminal is written,
+ * and its lock taken, once per flush instead of once per line.
+ * If the buffer grows over its limit it is flushed anyway, so memory
+ * stays bounded.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * OutputSink sink = new BufferedTerminalSink(System.out);  // buffer the standard output
+ * sink.println("Hello World!");                            // buffered
+ * sink.flush();                                            // written on the terminal
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class BufferedTerminalSink implements OutputSink {
+
+    /**
+     * The initial size of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * The size over which the buffer is flushed without waiting for {@link BufferedTerminalSink#flush()}.
+     */
+    private static final int FLUSH_THRESHOLD = 256 * 1024;
+
+    /**
+     * The writer of the terminal.
+     */
+    private final Writer out;
+
+    /**
+     * The buffered characters.
+     */
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    /**
+     * The number of buffered characters.
+     */
+    private int length;
+
+    /**
+     * Creates a new sink writing on the given stream.
+     *
+     * @param out the stream, usually {@code System.out}
+     */
+    public BufferedTerminalSink(final OutputStream out) {
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        this.out = new OutputStreamWriter(out);
+    }
+
+    /**
+     * Makes room in the buffer for more characters.
+     *
+     * @param more the number of characters to add
+     */
+    private void ensureCapacity(final int more) {
+        if (this.length + more > FLUSH_THRESHOLD) this.flush();
+        if (this.length + more > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.length + more));
+        }
+    }
+
+    @Override
+    public void print(final CharSequence s) {
+        final int n = s.length();
+        this.ensureCapacity(n);
+        if (s instanceof String str) {
+            str.getChars(0, n, this.buffer, this.length);
+        } else if (s instanceof StringBuilder sb) {
+            sb.getChars(0, n, this.buffer, this.length);
+        } else {
+            for (int i = 0; i < n; i++) this.buffer[this.length + i] = s.charAt(i);
+        }
+        this.length += n;
+    }
+
+    @Override
+    public void print(final char c) {
+        this.ensureCapacity(1);
+        this.buffer[this.length++] = c;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            this.out.write(this.buffer, 0, this.length);
+            this.out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.length = 0;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Reader of the compact binary format written by a {@link ByteWriter}.
+ * </p>
+ * <p>
+ * The reader works on a range of an existing array, without copying it,
+ * and can be {@link ByteReader#reset(byte[], int, int) reset} on another
+ * range to be reused. Reading past the end of the range, or a malformed
+ * varint, throws an {@link IllegalArgumentException}.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ByteReader in = new ByteReader(data);
+ * int count = in.readVarInt();
+ * long delta = in.readZigZag();
+ * String name = in.readString();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class ByteReader {
+
+    /**
+     * The bytes read.
+     */
+    private byte[] buffer;
+
+    /**
+     * The position of the next byte to read.
+     */
+    private int position;
+
+    /**
+     * The position after the last byte that can be read.
+     */
+    private int limit;
+
+    /**
+     * Creates a reader of a whole array.
+     *
+     * @param buffer the bytes to read
+     */
+    public ByteReader(final byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Creates a reader of a range of an array.
+     *
+     * @param buffer the bytes to read
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     */
+    public ByteReader(final byte[] buffer, final int offset, final int length) {
+        this.reset(buffer, offset, length);
+    }
+
+    /**
+     * Makes the reader read another range.
+     *
+     * @param buffer the bytes to read
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return this reader
+     */
+    public ByteReader reset(final byte[] buffer, final int offset, final int length) {
+        if (buffer == null) throw new IllegalArgumentException("buffer cannot be null");
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IllegalArgumentException("Range out of the buffer");
+        }
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte, from 0 to 255
+     */
+    public int readByte() {
+        if (this.position >= this.limit) throw new IllegalArgumentException("Unexpected end of data");
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link ByteWriter#writeVarInt(int)}.
+     *
+     * @return the value
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link ByteWriter#writeVarLong(long)}.
+     *
+     * @return the value
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final int b = this.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads a signed value written by {@link ByteWriter#writeZigZag(long)}.
+     *
+     * @return the value
+     */
+    public long readZigZag() {
+        final long value = this.readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an int written by {@link ByteWriter#writeInt(int)}.
+     *
+     * @return the value
+     */
+    public int readInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | this.readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Reads a long written by {@link ByteWriter#writeLong(long)}.
+     *
+     * @return the value
+     */
+    public long readLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | this.readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Reads a string written by {@link ByteWriter#writeString(String)}.
+     *
+     * @return the string
+     */
+    public String readString() {
+        final int length = this.readVarInt();
+        if (length < 0 || length > this.remaining()) throw new IllegalArgumentException("Unexpected end of data");
+        final String s = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+        this.position += length;
+        return s;
+    }
+
+    /**
+     * Returns the number of bytes left to read.
+     *
+     * @return the number of bytes
+     */
+    public int remaining() {
+        return this.limit - this.position;
+    }
+
+    /**
+     * Returns the position of the next byte to read, in the array.
+     *
+     * @return the position
+     */
+    public int position() {
+        return this.position;
+    }
+}
@@ -0,0 +1,239 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Growable buffer of bytes, with the writers of a compact binary format.
+ * </p>
+ * <p>
+ * Integers are written as varints (7 bits per byte, the highest bit telling
+ * if another byte follows), so small values take a single byte; signed
+ * values are zig-zag encoded first, so that small negative values are small
+ * as well. Everything can be read back with a {@link ByteReader}.
+ * </p>
+ * <p>
+ * The buffer can be {@link ByteWriter#reset() reset} and reused, so that
+ * writing the same kind of record over and over allocates nothing.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ByteWriter out = new ByteWriter();
+ * out.writeVarInt(300);                 // 2 bytes
+ * out.writeZigZag(-1);                  // 1 byte
+ * out.writeString("Hello");             // length and UTF-8 bytes
+ * byte[] data = out.toByteArray();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class ByteWriter {
+
+    /**
+     * The bytes written.
+     */
+    private byte[] buffer;
+
+    /**
+     * The number of bytes written.
+     */
+    private int size;
+
+    /**
+     * Creates an empty writer.
+     */
+    public ByteWriter() {
+        this(256);
+    }
+
+    /**
+     * Creates an empty writer, with the given initial capacity.
+     *
+     * @param capacity the initial capacity, in bytes
+     */
+    public ByteWriter(final int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Makes room for the given number of bytes.
+     *
+     * @param n the number of bytes about to be written
+     */
+    private void ensure(final int n) {
+        if (this.size + n > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + n));
+        }
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b the byte, only the lowest 8 bits are written
+     * @return this writer
+     */
+    public ByteWriter writeByte(final int b) {
+        this.ensure(1);
+        this.buffer[this.size++] = (byte) b;
+        return this;
+    }
+
+    /**
+     * Writes some bytes as they are.
+     *
+     * @param bytes the bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return this writer
+     */
+    public ByteWriter writeBytes(final byte[] bytes, final int offset, final int length) {
+        this.ensure(length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+        return this;
+    }
+
+    /**
+     * Writes an unsigned varint, of 1 to 5 bytes.
+     *
+     * @param value the value, treated as unsigned
+     * @return this writer
+     */
+    public ByteWriter writeVarInt(int value) {
+        this.ensure(5);
+        while ((value & ~0x7F) != 0) {
+            this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes an unsigned varint, of 1 to 10 bytes.
+     *
+     * @param value the value, treated as unsigned
+     * @return this writer
+     */
+    public ByteWriter writeVarLong(long value) {
+        this.ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes a signed value as a zig-zag varint: 0, -1, 1, -2... become 0, 1, 2, 3...
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public ByteWriter writeZigZag(final long value) {
+        return this.writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes an int as 4 bytes, big endian.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public ByteWriter writeInt(final int value) {
+        this.ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.buffer[this.size++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a long as 8 bytes, big endian.
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public ByteWriter writeLong(final long value) {
+        this.ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.buffer[this.size++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a string as the varint length of its UTF-8 encoding, followed by the encoding.
+     *
+     * @param s the string
+     * @return this writer
+     */
+    public ByteWriter writeString(final String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        this.writeVarInt(bytes.length);
+        return this.writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the internal buffer, valid up to {@link ByteWriter#size()}, without copying it.
+     *
+     * @return the buffer
+     */
+    public byte[] array() {
+        return this.buffer;
+    }
+
+    /**
+     * Forgets the bytes written, keeping the buffer.
+     */
+    public void reset() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns a copy of the bytes written.
+     *
+     * @return the bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+}
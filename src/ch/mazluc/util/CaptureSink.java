@@ -0,0 +1,81 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+/**
+ * <p>
+ * {@link OutputSink} that keeps everything printed in memory,
+ * so that tests can check what would have been shown to the user.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * CaptureSink sink = new CaptureSink();
+ * ANSIUtility.setThreadSink(sink);
+ * ANSIUtility.println("Hello World!");
+ * sink.getCaptured();                   // "Hello World!" followed by a line separator
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class CaptureSink implements OutputSink {
+
+    /**
+     * The captured output.
+     */
+    private final StringBuilder captured = new StringBuilder();
+
+    @Override
+    public void print(final CharSequence s) {
+        this.captured.append(s);
+    }
+
+    @Override
+    public void print(final char c) {
+        this.captured.append(c);
+    }
+
+    @Override
+    public void flush() {
+        // nothing to write, the output stays captured
+    }
+
+    /**
+     * Returns everything printed since the creation or the last {@link CaptureSink#clear()}.
+     *
+     * @return the captured output
+     */
+    public String getCaptured() {
+        return this.captured.toString();
+    }
+
+    /**
+     * Forgets the captured output.
+     */
+    public void clear() {
+        this.captured.setLength(0);
+    }
+}
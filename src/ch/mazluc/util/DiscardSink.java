@@ -0,0 +1,82 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+/**
+ * <p>
+ * {@link OutputSink} that throws away everything printed.
+ * </p>
+ * <p>
+ * Used by simulations, where nobody looks at the output:
+ * {@link ANSIUtility} checks {@link OutputSink#isDiscarding()} and
+ * skips formatting altogether.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ANSIUtility.setThreadSink(DiscardSink.INSTANCE);  // silence the output of the thread
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public final class DiscardSink implements OutputSink {
+
+    /**
+     * The only instance of the sink, which has no state.
+     */
+    public static final DiscardSink INSTANCE = new DiscardSink();
+
+    /**
+     * Private constructor, use {@link DiscardSink#INSTANCE}.
+     */
+    private DiscardSink() {
+    }
+
+    @Override
+    public void print(final CharSequence s) {
+        // does nothing
+    }
+
+    @Override
+    public void print(final char c) {
+        // does nothing
+    }
+
+    @Override
+    public void println(final CharSequence s) {
+        // does nothing
+    }
+
+    @Override
+    public void flush() {
+        // does nothing
+    }
+
+    @Override
+    public boolean isDiscarding() {
+        return true;
+    }
+}
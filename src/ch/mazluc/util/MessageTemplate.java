@@ -0,0 +1,246 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Message template, compiled once from a {@code printf}-like format string.
+ * </p>
+ * <p>
+ * The format is split, at compile time, into literal segments and argument
+ * slots, so printing a message does not parse the format again: the
+ * arguments are appended by a {@link MessageWriter}, with primitive-typed
+ * methods, straight into a reusable buffer.
+ * </p>
+ * <p>
+ * The supported conversions are a subset of {@link java.util.Formatter}'s:
+ * {@code %s}, {@code %d}, {@code %c}, {@code %f} (with optional precision,
+ * 6 by default), {@code %n} and {@code %%}, each with an optional width and
+ * the {@code -} flag to align on the left.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * MessageTemplate t = MessageTemplate.compile("%s's Turn [Balance: %.2f]%n");  // compile once
+ * ANSIUtility.printbcf(t, ANSIUtility.GREEN).arg("Luca").arg(2000.0).end();    // print many times
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public final class MessageTemplate {
+
+    /**
+     * The format string the template was compiled from.
+     */
+    private final String format;
+
+    /**
+     * The literal segments; the literal {@code i} precedes the argument {@code i},
+     * the last one follows the last argument.
+     */
+    private final String[] literals;
+
+    /**
+     * The conversion of every argument: one of {@code s}, {@code d}, {@code c}, {@code f}.
+     */
+    private final char[] conversions;
+
+    /**
+     * The minimum width of every argument, 0 if none.
+     */
+    private final int[] widths;
+
+    /**
+     * The precision of every argument, -1 if none.
+     */
+    private final int[] precisions;
+
+    /**
+     * Whether every argument is aligned on the left.
+     */
+    private final boolean[] leftAligned;
+
+    /**
+     * Private constructor, use {@link MessageTemplate#compile(String)}.
+     *
+     * @param format the format string
+     * @param literals the literal segments
+     * @param conversions the conversions
+     * @param widths the widths
+     * @param precisions the precisions
+     * @param leftAligned the alignments
+     */
+    private MessageTemplate(final String format, final String[] literals, final char[] conversions,
+                            final int[] widths, final int[] precisions, final boolean[] leftAligned) {
+        this.format = format;
+        this.literals = literals;
+        this.conversions = conversions;
+        this.widths = widths;
+        this.precisions = precisions;
+        this.leftAligned = leftAligned;
+    }
+
+    /**
+     * Compiles a format string into a template.
+     *
+     * @param format the format string
+     * @return the template
+     * @throws IllegalArgumentException if the format is null or uses an unsupported conversion
+     */
+    public static MessageTemplate compile(final String format) {
+        if (format == null) throw new IllegalArgumentException("format cannot be null");
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder conversions = new StringBuilder();
+        final List<int[]> specs = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < format.length()) {
+            final char c = format.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            boolean left = false;
+            if (i < format.length() && format.charAt(i) == '-') {
+                left = true;
+                i++;
+            }
+            int width = 0;
+            while (i < format.length() && Character.isDigit(format.charAt(i))) {
+                width = width * 10 + (format.charAt(i++) - '0');
+            }
+            int precision = -1;
+            if (i < format.length() && format.charAt(i) == '.') {
+                i++;
+                precision = 0;
+                while (i < format.length() && Character.isDigit(format.charAt(i))) {
+                    precision = precision * 10 + (format.charAt(i++) - '0');
+                }
+            }
+            if (i == format.length()) throw new IllegalArgumentException("Incomplete conversion in: " + format);
+            final char conversion = format.charAt(i++);
+            switch (conversion) {
+                case 'n' -> literal.append(System.lineSeparator());
+                case '%' -> literal.append('%');
+                case 's', 'd', 'c', 'f' -> {
+                    if (precision >= 0 && conversion != 'f') {
+                        throw new IllegalArgumentException("Precision not supported for %" + conversion);
+                    }
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    conversions.append(conversion);
+                    specs.add(new int[]{width, conversion == 'f' && precision < 0 ? 6 : precision, left ? 1 : 0});
+                }
+                default -> throw new IllegalArgumentException("Unsupported conversion %" + conversion);
+            }
+        }
+        literals.add(literal.toString());
+        final int n = specs.size();
+        final int[] widths = new int[n];
+        final int[] precisions = new int[n];
+        final boolean[] leftAligned = new boolean[n];
+        for (int a = 0; a < n; a++) {
+            widths[a] = specs.get(a)[0];
+            precisions[a] = specs.get(a)[1];
+            leftAligned[a] = specs.get(a)[2] == 1;
+        }
+        return new MessageTemplate(format, literals.toArray(new String[0]),
+                conversions.toString().toCharArray(), widths, precisions, leftAligned);
+    }
+
+    /**
+     * Returns the number of arguments of the template.
+     *
+     * @return the number of arguments
+     */
+    public int getArgumentCount() {
+        return this.conversions.length;
+    }
+
+    /**
+     * Returns the literal segment preceding the given argument;
+     * the segment after the last argument has index {@link MessageTemplate#getArgumentCount()}.
+     *
+     * @param i the index of the segment
+     * @return the literal segment
+     */
+    String getLiteral(final int i) {
+        return this.literals[i];
+    }
+
+    /**
+     * Returns the conversion of the given argument.
+     *
+     * @param i the index of the argument
+     * @return the conversion
+     */
+    char getConversion(final int i) {
+        return this.conversions[i];
+    }
+
+    /**
+     * Returns the minimum width of the given argument.
+     *
+     * @param i the index of the argument
+     * @return the width, 0 if none
+     */
+    int getWidth(final int i) {
+        return this.widths[i];
+    }
+
+    /**
+     * Returns the precision of the given argument.
+     *
+     * @param i the index of the argument
+     * @return the precision, -1 if none
+     */
+    int getPrecision(final int i) {
+        return this.precisions[i];
+    }
+
+    /**
+     * Checks if the given argument is aligned on the left.
+     *
+     * @param i the index of the argument
+     * @return true if aligned on the left, false otherwise
+     */
+    boolean isLeftAligned(final int i) {
+        return this.leftAligned[i];
+    }
+
+    /**
+     * Returns the format string the template was compiled from.
+     *
+     * @return the format string
+     */
+    @Override
+    public String toString() {
+        return this.format;
+    }
+}
@@ -0,0 +1,286 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+/**
+ * <p>
+ * Writes the arguments of a {@link MessageTemplate} into a reusable buffer.
+ * </p>
+ * <p>
+ * A writer is obtained from {@link ANSIUtility}, receives the arguments
+ * in order, with one of the primitive-typed {@code arg} methods, and
+ * prints the whole message on the sink at {@link MessageWriter#end()}.
+ * The buffer is kept and reused for the next message, so printing a
+ * message allocates nothing but what {@link StringBuilder} needs to grow.
+ * </p>
+ * <p>
+ * When the sink discards the output, {@link MessageWriter#DISCARD} is
+ * returned instead, which ignores everything.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ANSIUtility.printcf(template, ANSIUtility.RED)  // start a message
+ *         .arg("Dice").arg(6)                     // append the arguments
+ *         .end();                                 // print it
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class MessageWriter {
+
+    /**
+     * Writer ignoring all the arguments, used when the output is discarded.
+     */
+    public static final MessageWriter DISCARD = new MessageWriter() {
+        @Override
+        public MessageWriter arg(final String value) {
+            return this;
+        }
+
+        @Override
+        public MessageWriter arg(final int value) {
+            return this;
+        }
+
+        @Override
+        public MessageWriter arg(final long value) {
+            return this;
+        }
+
+        @Override
+        public MessageWriter arg(final double value) {
+            return this;
+        }
+
+        @Override
+        public MessageWriter arg(final char value) {
+            return this;
+        }
+
+        @Override
+        public void end() {
+            // does nothing
+        }
+    };
+
+    /**
+     * Powers of ten, used to round the {@code %f} arguments.
+     */
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    /**
+     * The buffer the message is written into.
+     */
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * The template of the current message.
+     */
+    private MessageTemplate template;
+
+    /**
+     * The sink the current message is printed on.
+     */
+    private OutputSink sink;
+
+    /**
+     * The string appended after the current message, may be null.
+     */
+    private String suffix;
+
+    /**
+     * The index of the next argument.
+     */
+    private int next;
+
+    /**
+     * Starts a new message, clearing the buffer.
+     *
+     * @param template the template of the message
+     * @param sink the sink to print the message on
+     * @param suffix the string to append after the message, may be null
+     * @return the buffer, for the caller to write a prefix
+     */
+    StringBuilder begin(final MessageTemplate template, final OutputSink sink, final String suffix) {
+        this.template = template;
+        this.sink = sink;
+        this.suffix = suffix;
+        this.next = 0;
+        this.buffer.setLength(0);
+        return this.buffer;
+    }
+
+    /**
+     * Appends the literal preceding the next argument and checks
+     * that the argument fits the conversion.
+     *
+     * @param numeric whether the argument is a number
+     * @param conversion the conversion the argument would naturally use
+     * @return the position of the argument in the buffer
+     */
+    private int open(final boolean numeric, final char conversion) {
+        if (this.template == null || this.next >= this.template.getArgumentCount()) {
+            throw new IllegalStateException("Too many arguments");
+        }
+        final char c = this.template.getConversion(this.next);
+        if (c != 's' && c != conversion && !(numeric && c == 'f' && conversion == 'd')) {
+            throw new IllegalArgumentException("%" + c + " is not compatible with the argument " + this.next);
+        }
+        this.buffer.append(this.template.getLiteral(this.next));
+        return this.buffer.length();
+    }
+
+    /**
+     * Pads the argument just appended to its width.
+     *
+     * @param start the position of the argument in the buffer
+     * @return this writer
+     */
+    private MessageWriter close(final int start) {
+        final int padding = this.template.getWidth(this.next) - (this.buffer.length() - start);
+        if (padding > 0) {
+            if (this.template.isLeftAligned(this.next)) {
+                for (int i = 0; i < padding; i++) this.buffer.append(' ');
+            } else {
+                for (int i = 0; i < padding; i++) this.buffer.insert(start, ' ');
+            }
+        }
+        this.next++;
+        return this;
+    }
+
+    /**
+     * Appends a string argument.
+     *
+     * @param value the argument
+     * @return this writer
+     */
+    public MessageWriter arg(final String value) {
+        final int start = this.open(false, 's');
+        this.buffer.append(value);
+        return this.close(start);
+    }
+
+    /**
+     * Appends an int argument.
+     *
+     * @param value the argument
+     * @return this writer
+     */
+    public MessageWriter arg(final int value) {
+        return this.arg((long) value);
+    }
+
+    /**
+     * Appends a long argument.
+     *
+     * @param value the argument
+     * @return this writer
+     */
+    public MessageWriter arg(final long value) {
+        final int start = this.open(true, 'd');
+        if (this.template.getConversion(this.next) == 'f') {
+            this.appendFixed(value, this.template.getPrecision(this.next));
+        } else {
+            this.buffer.append(value);
+        }
+        return this.close(start);
+    }
+
+    /**
+     * Appends a double argument.
+     * With {@code %s} it is printed as {@link Double#toString(double)} would.
+     *
+     * @param value the argument
+     * @return this writer
+     */
+    public MessageWriter arg(final double value) {
+        final int start = this.open(true, 'f');
+        if (this.template.getConversion(this.next) == 'f') {
+            this.appendFixed(value, this.template.getPrecision(this.next));
+        } else {
+            this.buffer.append(value);
+        }
+        return this.close(start);
+    }
+
+    /**
+     * Appends a char argument.
+     *
+     * @param value the argument
+     * @return this writer
+     */
+    public MessageWriter arg(final char value) {
+        final int start = this.open(false, 'c');
+        this.buffer.append(value);
+        return this.close(start);
+    }
+
+    /**
+     * Appends the remaining literal and prints the message on the sink.
+     *
+     * @throws IllegalStateException if some arguments are missing
+     */
+    public void end() {
+        if (this.template == null) throw new IllegalStateException("No message started");
+        if (this.next != this.template.getArgumentCount()) {
+            throw new IllegalStateException("Missing arguments: " + (this.template.getArgumentCount() - this.next));
+        }
+        this.buffer.append(this.template.getLiteral(this.next));
+        if (this.suffix != null) this.buffer.append(this.suffix);
+        this.sink.print(this.buffer);
+        this.template = null;
+        this.sink = null;
+    }
+
+    /**
+     * Appends a number with a fixed number of decimals, rounding half up
+     * the binary value (so 1.005 is printed as 1.00, where {@code String.format} prints 1.01).
+     * Numbers too large to be scaled in a long fall back to {@link String#format(String, Object...)}.
+     *
+     * @param value the number
+     * @param precision the number of decimals
+     */
+    private void appendFixed(final double value, final int precision) {
+        final double scaled = Math.abs(value) * (precision < POW10.length ? POW10[precision] : 0);
+        if (precision >= POW10.length || Double.isNaN(value) || scaled >= 1e17) {
+            this.buffer.append(String.format("%." + precision + "f", value));
+            return;
+        }
+        final long units = Math.round(scaled);
+        if (Double.doubleToRawLongBits(value) < 0) this.buffer.append('-');
+        this.buffer.append(units / POW10[precision]);
+        if (precision > 0) {
+            this.buffer.append('.');
+            final long decimals = units % POW10[precision];
+            for (long p = POW10[precision - 1]; p > 1 && decimals < p; p /= 10) this.buffer.append('0');
+            this.buffer.append(decimals);
+        }
+    }
+}
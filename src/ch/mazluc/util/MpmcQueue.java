@@ -0,0 +1,189 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Bounded lock-free queue, for many producers and many consumers.
+ * </p>
+ * <p>
+ * The elements are kept in a ring whose every slot has a sequence number
+ * telling whether it is free for the lap of the producers or full for the
+ * lap of the consumers. A producer claims the next slot by a compare-and-set
+ * on the tail, writes the element and publishes it by advancing the sequence
+ * of the slot; a consumer does the same on the head. Producers and consumers
+ * meet only on the slot they share, no thread ever waits for another, and
+ * nothing is allocated once the queue is created.
+ * </p>
+ * <p>
+ * A full queue refuses the element instead of growing, so that the memory
+ * held and the time spent waiting in the queue stay bounded.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * MpmcQueue<Ticket> queue = new MpmcQueue<>(1 << 16);
+ * if (!queue.offer(ticket)) reject(ticket);   // from any thread
+ * Ticket next = queue.poll();                 // from any thread, null if empty
+ * }
+ * </pre>
+ *
+ * @param <E> the type of the elements
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class MpmcQueue<E> {
+
+    /**
+     * The elements, by slot.
+     */
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * The sequence number of every slot: its index plus the laps of the ring
+     * when free for a producer, one more when full for a consumer.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * The mask of the indexes of the slots.
+     */
+    private final int mask;
+
+    /**
+     * The number of elements ever claimed by the producers.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of elements ever claimed by the consumers.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity the maximum number of elements, rounded up to a power of 2
+     * @throws IllegalArgumentException if the capacity is not between 2 and 2^30
+     */
+    public MpmcQueue(final int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) this.sequences.lazySet(i, i);
+    }
+
+    /**
+     * Adds an element at the tail of the queue, if there is room for it.
+     *
+     * @param element the element
+     * @return true if the element was added, false if the queue is full
+     * @throws IllegalArgumentException if the element is null
+     */
+    public boolean offer(final E element) {
+        if (element == null) throw new IllegalArgumentException("element cannot be null");
+        long position = this.tail.get();
+        while (true) {
+            final int slot = (int) position & this.mask;
+            final long distance = this.sequences.get(slot) - position;
+            if (distance == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(slot, element);
+                    this.sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (distance < 0) {
+                // the slot still holds the element of the last lap
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the queue.
+     *
+     * @return the element, null if the queue is empty
+     */
+    public E poll() {
+        long position = this.head.get();
+        while (true) {
+            final int slot = (int) position & this.mask;
+            final long distance = this.sequences.get(slot) - (position + 1);
+            if (distance == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final E element = this.elements.get(slot);
+                    this.elements.lazySet(slot, null);
+                    this.sequences.set(slot, position + this.mask + 1);
+                    return element;
+                }
+                position = this.head.get();
+            } else if (distance < 0) {
+                // the slot was not filled yet
+                return null;
+            } else {
+                position = this.head.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in the queue, exact only when no thread changes it.
+     *
+     * @return the number of elements
+     */
+    public int size() {
+        while (true) {
+            final long h = this.head.get();
+            final long t = this.tail.get();
+            if (this.head.get() == h) return (int) Math.max(0, Math.min(t - h, this.mask + 1L));
+        }
+    }
+
+    /**
+     * Returns whether the queue is empty, exact only when no thread changes it.
+     *
+     * @return true if the queue holds no element
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns the maximum number of elements.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+}
@@ -0,0 +1,92 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+/**
+ * <p>
+ * Destination of everything printed through {@link ANSIUtility}.
+ * </p>
+ * <p>
+ * Implementations decide when (and whether) the output reaches the
+ * terminal: {@link BufferedTerminalSink} collects the output and writes
+ * it once per {@link OutputSink#flush()}, {@link DiscardSink} throws it
+ * away, {@link CaptureSink} keeps it in memory for tests.
+ * </p>
+ * <p>
+ * Sinks are not thread safe: a sink is meant to be used by a single
+ * game loop at a time.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ANSIUtility.setSink(new BufferedTerminalSink(System.out));  // buffer the output
+ * ANSIUtility.println("Hello World!");                        // print to the sink
+ * ANSIUtility.flush();                                        // write it on the terminal
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public interface OutputSink {
+
+    /**
+     * Prints a sequence of characters.
+     *
+     * @param s the characters to print
+     */
+    void print(CharSequence s);
+
+    /**
+     * Prints a character.
+     *
+     * @param c the character to print
+     */
+    void print(char c);
+
+    /**
+     * Prints a sequence of characters followed by a line separator.
+     *
+     * @param s the characters to print
+     */
+    default void println(final CharSequence s) {
+        this.print(s);
+        this.print(System.lineSeparator());
+    }
+
+    /**
+     * Writes everything printed so far to its final destination.
+     */
+    void flush();
+
+    /**
+     * Checks if the sink throws away everything printed, in which case
+     * callers can skip building the output at all.
+     *
+     * @return true if the output is discarded, false otherwise
+     */
+    default boolean isDiscarding() {
+        return false;
+    }
+}
@@ -0,0 +1,335 @@
+package ch.mazluc.util;
+/*
+ * MIT License
+ *
+ * Copyright (c) 2024 Luca Mazza
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+/**
+ * <p>
+ * Hierarchical hashed timing wheel: timers scheduled and cancelled in O(1),
+ * for the many deadlines of a thread that is already woken up regularly,
+ * such as an event loop.
+ * </p>
+ * <p>
+ * Time is cut in ticks. The wheel has {@value #LEVELS} levels of
+ * {@value #SLOTS} slots: a timer due within {@value #SLOTS} ticks waits in
+ * the slot of its tick on the first level, a later one in the slot of its
+ * block of ticks on the first level that spans it. Every slot is a doubly
+ * linked list, so scheduling and cancelling a timer is linking or unlinking
+ * a node, whatever the number of timers. When the first level comes round,
+ * the next slot of the second level is cascaded down into it, and so on up:
+ * every timer is moved at most once per level. Timers further than the
+ * wheel spans wait on the last level and are cascaded again until due.
+ * </p>
+ * <p>
+ * The wheel has no thread: the owner calls {@link TimingWheel#advance(long)}
+ * with the current time, which runs the tasks of the timers due, in order.
+ * A timer fires on the first tick at or after its deadline, so at most a
+ * tick late. The wheel is not thread safe.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * TimingWheel wheel = new TimingWheel(10_000_000, System.nanoTime());   // ticks of 10 ms
+ * TimingWheel.Timer timer = wheel.schedule(30_000_000_000L, task);       // in 30 s
+ * timer.cancel();
+ * wheel.advance(System.nanoTime());                                      // on every wake-up
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.3
+ * @since 1.3
+ */
+public class TimingWheel {
+
+    /**
+     * The bits of the index of a slot in a level.
+     */
+    private static final int BITS = 6;
+
+    /**
+     * The number of slots of a level.
+     */
+    public static final int SLOTS = 1 << BITS;
+
+    /**
+     * The number of levels.
+     */
+    public static final int LEVELS = 4;
+
+    /**
+     * The mask of the index of a slot.
+     */
+    private static final int MASK = SLOTS - 1;
+
+    /**
+     * The length of a tick, in nanoseconds.
+     */
+    private final long tickNanos;
+
+    /**
+     * The time of tick 0, in nanoseconds.
+     */
+    private final long originNanos;
+
+    /**
+     * The sentinel of the list of every slot, by level then by index.
+     */
+    private final Timer[] slots = new Timer[LEVELS * SLOTS];
+
+    /**
+     * The last tick processed.
+     */
+    private long tick;
+
+    /**
+     * The number of timers scheduled and not fired nor cancelled.
+     */
+    private int size;
+
+    /**
+     * <p>
+     * Creates a wheel.
+     * </p>
+     *
+     * @param tickNanos the length of a tick, in nanoseconds
+     * @param originNanos the current time, in nanoseconds, as later given to {@link TimingWheel#advance(long)}
+     */
+    public TimingWheel(final long tickNanos, final long originNanos) {
+        if (tickNanos < 1) throw new IllegalArgumentException("tickNanos must be positive");
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+        for (int i = 0; i < this.slots.length; i++) {
+            final Timer sentinel = new Timer(this, 0, null);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            this.slots[i] = sentinel;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the length of a tick.
+     * </p>
+     *
+     * @return the length, in nanoseconds
+     */
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
+    /**
+     * <p>
+     * Returns the number of timers waiting.
+     * </p>
+     *
+     * @return the number of timers scheduled and not fired nor cancelled
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * <p>
+     * Returns whether no timer is waiting.
+     * </p>
+     *
+     * @return true if there are no timers
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * <p>
+     * Schedules a task, from the time of the last {@link TimingWheel#advance(long)}.
+     * </p>
+     *
+     * @param delayNanos the delay, in nanoseconds; a task is never run before the next tick
+     * @param task the task
+     * @return the timer, to cancel it
+     */
+    public Timer schedule(final long delayNanos, final Runnable task) {
+        if (task == null) throw new IllegalArgumentException("task cannot be null");
+        final long ticks = Math.max(1, (Math.max(0, delayNanos) + this.tickNanos - 1) / this.tickNanos);
+        final Timer timer = new Timer(this, this.tick + ticks, task);
+        this.insert(timer);
+        this.size++;
+        return timer;
+    }
+
+    /**
+     * <p>
+     * Links a timer in the slot of its deadline.
+     * </p>
+     *
+     * @param timer the timer, due not before the current tick
+     */
+    private void insert(final Timer timer) {
+        final long delta = timer.deadline - this.tick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) level++;
+        final long index = delta < 1L << (BITS * LEVELS)
+                ? timer.deadline >>> (BITS * level)
+                // beyond the wheel: the last slot of the last level to come round
+                : (this.tick >>> (BITS * level)) + MASK;
+        final Timer sentinel = this.slots[level * SLOTS + (int) (index & MASK)];
+        timer.next = sentinel;
+        timer.previous = sentinel.previous;
+        sentinel.previous.next = timer;
+        sentinel.previous = timer;
+    }
+
+    /**
+     * <p>
+     * Processes the ticks up to a time, running the tasks of the timers due.
+     * A task can schedule and cancel timers.
+     * </p>
+     *
+     * @param nowNanos the current time, in nanoseconds
+     * @return the number of tasks run
+     */
+    public int advance(final long nowNanos) {
+        final long target = Math.floorDiv(nowNanos - this.originNanos, this.tickNanos);
+        int fired = 0;
+        while (this.tick < target) {
+            this.tick++;
+            for (int level = 1; level < LEVELS && (this.tick & ((1L << (BITS * level)) - 1)) == 0; level++) {
+                this.cascade(this.slots[level * SLOTS + (int) ((this.tick >>> (BITS * level)) & MASK)]);
+            }
+            final Timer sentinel = this.slots[(int) (this.tick & MASK)];
+            while (sentinel.next != sentinel) {
+                final Timer timer = sentinel.next;
+                timer.unlink();
+                this.size--;
+                fired++;
+                timer.task.run();
+            }
+            if (this.size == 0) this.tick = Math.max(this.tick, target);
+        }
+        return fired;
+    }
+
+    /**
+     * <p>
+     * Moves the timers of a slot down to the slots of their deadline.
+     * </p>
+     *
+     * @param sentinel the sentinel of the slot
+     */
+    private void cascade(final Timer sentinel) {
+        Timer timer = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (timer != sentinel) {
+            final Timer next = timer.next;
+            this.insert(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * <p>
+     * A task scheduled on a {@link TimingWheel}.
+     * </p>
+     */
+    public static final class Timer {
+
+        /**
+         * The wheel of the timer.
+         */
+        private final TimingWheel wheel;
+
+        /**
+         * The tick the timer is due.
+         */
+        private final long deadline;
+
+        /**
+         * The task, null for the sentinel of a slot.
+         */
+        private final Runnable task;
+
+        /**
+         * The previous timer in the slot, null once fired or cancelled.
+         */
+        private Timer previous;
+
+        /**
+         * The next timer in the slot, null once fired or cancelled.
+         */
+        private Timer next;
+
+        /**
+         * <p>
+         * Creates a timer.
+         * </p>
+         *
+         * @param wheel the wheel of the timer
+         * @param deadline the tick the timer is due
+         * @param task the task
+         */
+        private Timer(final TimingWheel wheel, final long deadline, final Runnable task) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * <p>
+         * Returns whether the timer is still waiting.
+         * </p>
+         *
+         * @return false once fired or cancelled
+         */
+        public boolean isPending() {
+            return this.next != null;
+        }
+
+        /**
+         * <p>
+         * Cancels the timer, if still waiting.
+         * </p>
+         *
+         * @return true if the timer was waiting
+         */
+        public boolean cancel() {
+            if (this.next == null) return false;
+            this.unlink();
+            this.wheel.size--;
+            return true;
+        }
+
+        /**
+         * <p>
+         * Unlinks the timer from its slot.
+         * </p>
+         */
+        private void unlink() {
+            this.previous.next = this.next;
+            this.next.previous = this.previous;
+            this.previous = null;
+            this.next = null;
+        }
+    }
+}
@@ -12,14 +12,15 @@ package ch.supsi.game.monopoly;
  * It has a starting fund of 1'000'000.
  * </p>
  * <p>
- * The bank has a static implementation, use it accordingly.
+ * Every {@link Game} has its own bank, so that more games
+ * (or simulations of a game) can run side by side.
  * </p>
  * <p>
  * <b>Usage</b>:
  * </p>
  * <pre>
  * {@code
- * Bank bank = Bank.getInstance();          // get the bank instance
+ * Bank bank = new Bank();                  // create the bank of a game
  * bank.deposit(500);                       // give some money to the bank
  * bank.withdraw(100);                      // take some money from the bank
  * System.out.print(bank.getBalance());     // prints: "Bank: 1000400.00"
@@ -32,40 +33,26 @@ package ch.supsi.game.monopoly;
  */
 public final class Bank {
 
-    /**
-     * The instance of the bank.
-     */
-    private static Bank instance;
-
     /**
      * The amount of money held in the bank.
      */
     private double balance;
 
     /**
-     * <p>
-     * Private constructor for class Bank.
-     * Prevents instantiation, as for Singleton specification.
-     * </p>
+     * The hash of the state of the game the bank updates.
      */
-    private Bank() {
-        this.balance = Math.max(Constant.BANK_START_AMOUNT, 1_000_000);
-    }
+    private StateHash stateHash = StateHash.NONE;
 
     /**
      * <p>
-     * Returns the singleton instance of the bank.
+     * Constructor for class Bank.
      * </p>
      * <p>
-     * If the bank is not yet instantiated, it is instantiated,
-     * otherwise the existing instance is returned.
+     * The bank starts with {@link Constant#BANK_START_AMOUNT}.
      * </p>
-     *
-     * @return the singleton instance of the bank
      */
-    public static Bank getInstance() {
-        if (instance == null) instance = new Bank();
-        return instance;
+    public Bank() {
+        this.balance = Math.max(Constant.BANK_START_AMOUNT, 1_000_000);
     }
 
     /**
@@ -82,7 +69,7 @@ public final class Bank {
         if (amount < 1) {
             return;
         }
-        this.balance += amount;
+        this.setFunds(this.balance + amount);
     }
 
     /**
@@ -99,7 +86,7 @@ public final class Bank {
         if (amount < 1) {
             return;
         }
-        this.balance -= amount;
+        this.setFunds(this.balance - amount);
     }
 
     /**
@@ -112,4 +99,54 @@ public final class Bank {
     public String getBalance() {
         return String.format("Bank: %.2f", this.balance);
     }
+
+    /**
+     * <p>
+     * Returns the money of the bank.
+     * </p>
+     *
+     * @return the current balance
+     */
+    public double getFunds() {
+        return this.balance;
+    }
+
+    /**
+     * <p>
+     * Sets the money of the bank, as when a saved game is loaded.
+     * </p>
+     *
+     * @param funds the balance
+     */
+    public void setFunds(final double funds) {
+        this.stateHash.replace(StateHash.BANK, 0, StateHash.amount(this.balance), StateHash.amount(funds));
+        this.balance = funds;
+    }
+
+    /**
+     * <p>
+     * Sets the hash of the state of the game the bank updates,
+     * moving the funds of the bank into it.
+     * </p>
+     *
+     * @param stateHash the hash of the game
+     */
+    public void setStateHash(final StateHash stateHash) {
+        if (stateHash == null) throw new IllegalArgumentException("stateHash cannot be null");
+        final long key = this.getStateKey();
+        this.stateHash.toggle(key);
+        this.stateHash = stateHash;
+        stateHash.toggle(key);
+    }
+
+    /**
+     * <p>
+     * Returns the key of the funds of the bank, their part of the {@link StateHash} of the game.
+     * </p>
+     *
+     * @return the key
+     */
+    public long getStateKey() {
+        return StateHash.key(StateHash.BANK, 0, StateHash.amount(this.balance));
+    }
 }
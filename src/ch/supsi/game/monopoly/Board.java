@@ -3,6 +3,7 @@ package ch.supsi.game.monopoly;
 import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.cells.*;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Random;
 import java.util.Set;
@@ -56,10 +57,25 @@ public class Board {
      */
     private Cell[] cells;
 
+    /**
+     * The last rendering of the board, null if never rendered.
+     */
+    private String rendered;
+
+    /**
+     * The state of the board the last rendering was made of, see {@link Board#captureRenderState(int[])}.
+     */
+    private int[] renderedState = new int[0];
+
+    /**
+     * Scratch array the current state of the board is captured in.
+     */
+    private int[] currentState = new int[0];
+
     /**
      * Random generator instance.
      */
-    private final Random random = new Random();
+    private final Random random;
 
     /**
      * The different names a propriety cell can assume, instances of {@link ProprietyName}.
@@ -100,6 +116,16 @@ public class Board {
             new ProprietyName("Electric Company", ANSIUtility.DEFAULT)
     };
 
+    /**
+     * The names of the stations, in the order north, south, east, west.
+     */
+    private static final ProprietyName[] stationNames = {
+            new ProprietyName("North Station", ANSIUtility.DEFAULT),
+            new ProprietyName("South Station", ANSIUtility.DEFAULT),
+            new ProprietyName("East Station", ANSIUtility.DEFAULT),
+            new ProprietyName("West Station", ANSIUtility.DEFAULT)
+    };
+
     /**
      * <p>
      * Constructor of the Board class.
@@ -113,11 +139,71 @@ public class Board {
      * </p>
      */
     public Board() {
+        this(new Random());
+    }
+
+    /**
+     * <p>
+     * Constructor of the Board class, generating the random cells
+     * with the given random generator.
+     * </p>
+     * <p>
+     * A seeded generator always generates the same board.
+     * </p>
+     *
+     * @param random the random generator
+     */
+    public Board(final Random random) {
+        if (random == null) throw new IllegalArgumentException("random cannot be null");
+        this.random = random;
         this.boardCells = new Cell[Constant.BOARD_HEIGHT][Constant.BOARD_WIDTH];
         this.cells = new Cell[Constant.BOARD_SIZE];
         initBoard();
     }
 
+    /**
+     * <p>
+     * Constructor of the Board class, from an already defined
+     * working cell array.
+     * </p>
+     * <p>
+     * Used to rebuild a known board, instead of generating a random one.
+     * </p>
+     *
+     * @param cells the cells of the board, in playing order
+     * @throws IllegalArgumentException if the cells are not {@link Constant#BOARD_SIZE}
+     */
+    public Board(final Cell[] cells) {
+        if (cells == null || cells.length != Constant.BOARD_SIZE) {
+            throw new IllegalArgumentException("The board must have " + Constant.BOARD_SIZE + " cells");
+        }
+        for (Cell cell : cells) {
+            if (cell == null) throw new IllegalArgumentException("Cells cannot be null");
+        }
+        this.random = new Random();
+        this.boardCells = new Cell[Constant.BOARD_HEIGHT][Constant.BOARD_WIDTH];
+        this.cells = cells.clone();
+        this.layoutBoard();
+    }
+
+    /**
+     * <p>
+     * Returns all the names a propriety can have on a board: the names
+     * of the random proprieties, followed by the names of the stations.
+     * </p>
+     * <p>
+     * The names are always the same, in the same order, so the position
+     * of a name can stand for the name itself.
+     * </p>
+     *
+     * @return a copy of the names
+     */
+    public static ProprietyName[] getKnownNames() {
+        final ProprietyName[] names = Arrays.copyOf(nameBank, nameBank.length + stationNames.length);
+        System.arraycopy(stationNames, 0, names, nameBank.length, stationNames.length);
+        return names;
+    }
+
     /**
      * <p>
      * Returns a random rent between 50 and 150.
@@ -186,6 +272,16 @@ public class Board {
         this.initCardCells();
         this.initTaxEvasionCells();
         this.initRandomProprietyCells();
+        this.layoutBoard();
+    }
+
+    /**
+     * <p>
+     * Lays the working cells out on the representation matrix,
+     * clockwise, starting from the bottom right.
+     * </p>
+     */
+    private void layoutBoard() {
         int row = Constant.BOARD_HEIGHT - 1;
         int col = Constant.BOARD_WIDTH - 1;
         int rowAdd = 0;
@@ -294,21 +390,21 @@ public class Board {
      */
     private void initFixedProprietyCells() {
         final Cell nStation = new ProprietyCell(
-                new ProprietyName("North Station", ANSIUtility.DEFAULT), getRandomRent(),
+                stationNames[0], getRandomRent(),
                 getRandomPurchasePrice(),
                 getRandomHousePrice(),
                 getRandomHotelPrice(),
                 false
         );
         final Cell sStation = new ProprietyCell(
-                new ProprietyName("South Station", ANSIUtility.DEFAULT),
+                stationNames[1],
                 getRandomRent(),getRandomPurchasePrice(),
                 getRandomHousePrice(),
                 getRandomHotelPrice(),
                 false
         );
         final Cell eStation = new ProprietyCell(
-                new ProprietyName("East Station", ANSIUtility.DEFAULT),
+                stationNames[2],
                 getRandomRent(),
                 getRandomPurchasePrice(),
                 getRandomHousePrice(),
@@ -316,7 +412,7 @@ public class Board {
                 false
         );
         final Cell wStation = new ProprietyCell(
-                new ProprietyName("West Station", ANSIUtility.DEFAULT),
+                stationNames[3],
                 getRandomRent(),
                 getRandomPurchasePrice(),
                 getRandomHousePrice(),
@@ -335,9 +431,11 @@ public class Board {
      * </p>
      * <p>
      * The random propriety cells are inserted in random positions in the board.
+     * Every name is used once per board, so the shared name bank is never modified.
      * </p>
      */
     private void initRandomProprietyCells() {
+        final boolean[] taken = new boolean[nameBank.length];
         int i = 0;
         while (i < Constant.PROPRIETY_CELLS_QTY) {
             int pos = this.random.nextInt(1, Constant.BOARD_SIZE);
@@ -347,7 +445,7 @@ public class Board {
             int nameIndex;
             do {
                 nameIndex = this.random.nextInt(0, nameBank.length);
-            } while (nameBank[nameIndex].isBlacklisted());
+            } while (taken[nameIndex]);
             if (nameBank[nameIndex].getColor() == 0) {
                 this.cells[pos] = new ProprietyCell(
                         nameBank[nameIndex],
@@ -366,7 +464,7 @@ public class Board {
                         getRandomHotelPrice()
                 );
             }
-            nameBank[nameIndex].setBlacklisted(true);
+            taken[nameIndex] = true;
             i++;
         }
     }
@@ -429,7 +527,7 @@ public class Board {
         for (int d = 0; d < Constant.CELL_DETAILS; d++) {
             for (int col = 0; col < Constant.BOARD_WIDTH; col++) {
                 if (this.boardCells[row][col] == null) {
-                    sb.append(" ".repeat(Constant.CELL_WIDTH));
+                    ANSIUtility.pad(sb, Constant.CELL_WIDTH);
                     continue;
                 }
                 sb.append("|");
@@ -437,9 +535,7 @@ public class Board {
                 if (this.boardCells[row][col] instanceof ProprietyCell)
                     detail = getProprietyCellDetail(row, col, d);
                 else detail = getCellDetail(row, col, d);
-                sb.append(detail);
-                String tmp = ANSIUtility.decolorize(detail);
-                sb.append(" ".repeat(Math.max(0, (Constant.CELL_WIDTH - 2) - tmp.length())));
+                ANSIUtility.appendPadded(sb, detail, Constant.CELL_WIDTH - 2);
                 sb.append("|");
 
             }
@@ -535,6 +631,7 @@ public class Board {
      */
     public void setCells(final Cell[] cells) {
         this.cells = cells;
+        this.rendered = null;
     }
 
     /**
@@ -549,16 +646,91 @@ public class Board {
         return this.cells[index];
     }
 
+    /**
+     * <p>
+     * Returns the index on the board of a given cell.
+     * </p>
+     *
+     * @param cell the cell to look for
+     * @return the index of the cell, -1 if the cell is not on the board
+     */
+    public int indexOf(final Cell cell) {
+        for (int i = 0; i < this.cells.length; i++) {
+            if (this.cells[i] == cell) return i;
+        }
+        return -1;
+    }
+
     /**
      * <p>
      * Returns the board, as a String.
      * </p>
+     * <p>
+     * The board is rendered again only if something shown on it changed
+     * since the last rendering (players, owners, buildings), otherwise the
+     * last rendering is returned. Rendering the board in advance, while the
+     * user thinks, makes the next call immediate.
+     * </p>
      *
      * @return * the output of {@link Board#generateBoard()}, as a string.
      */
     @Override
     public String toString() {
-        return generateBoard();
+        int length = 0;
+        for (Cell cell : this.cells) length += cell.getPlayers().length + 2;
+        if (this.currentState.length != length) this.currentState = new int[length];
+        this.captureRenderState(this.currentState);
+        if (this.rendered == null || !Arrays.equals(this.currentState, this.renderedState)) {
+            this.rendered = generateBoard();
+            final int[] tmp = this.renderedState;
+            this.renderedState = this.currentState;
+            this.currentState = tmp;
+        }
+        return this.rendered;
+    }
+
+    /**
+     * <p>
+     * Captures, in an array, everything that can change on the rendered board:
+     * for every cell, the symbol and the evader and prison flags of its players,
+     * and for proprieties, the symbol of the owner and the building level.
+     * </p>
+     *
+     * @param state the array to fill, of as many entries per cell as its places for players, plus 2
+     */
+    private void captureRenderState(final int[] state) {
+        int k = 0;
+        for (Cell cell : this.cells) {
+            for (Player player : cell.getPlayers()) {
+                state[k++] = player == null ? 0 :
+                        player.getSymbol() << 2 | (player.isEvader() ? 2 : 0) | (player.isInPrison() ? 1 : 0);
+            }
+            if (cell instanceof ProprietyCell pc) {
+                state[k++] = pc.getOwner() == null ? 0 : pc.getOwner().getSymbol();
+                state[k++] = pc.getBuildingLevel();
+            } else {
+                state[k++] = 0;
+                state[k++] = 0;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Places the players on the cells of their positions, removing
+     * everybody else from the board, as when a saved game is loaded.
+     * </p>
+     * <p>
+     * Bankrupt players are not placed, as they already left the board.
+     * </p>
+     *
+     * @param players the players
+     */
+    public void placePlayers(final Player[] players) {
+        for (Cell cell : this.cells) cell.clearPlayers();
+        for (Player player : players) {
+            if (player != null && !player.isBankrupt()) this.cells[player.getPosition()].setPlayer(player);
+        }
     }
 
     /**
@@ -580,21 +752,22 @@ public class Board {
 
     /**
      * <p>
-     * Removes all proprieties of a player.
+     * Removes all proprieties of a player, and the player from the board.
+     * </p>
+     * <p>
+     * Only the proprieties in the player's own index are visited,
+     * so the cost depends on the proprieties owned, not on the board size.
      * </p>
      *
      * @param player the player
      */
     public void stripAllProprietiesOfPlayer (Player player) {
-        for (Cell cell : this.cells) {
-            if (cell instanceof ProprietyCell pc && (pc.getOwner() != null && pc.getOwner().equals(player))) {
-                pc.removeBuildings();
-                pc.setOwner(null);
-            }
-            for (Player player1 : cell.getPlayers()) {
-                if (player1 != null && player1.equals(player))
-                    cell.removePlayer(player1);
-            }
+        for (int i = 0; i < player.getOwnedCount(); i++) {
+            final ProprietyCell pc = player.getOwnedPropriety(i);
+            pc.removeBuildings();
+            pc.setOwner(null);
         }
+        player.clearProprieties();
+        this.cells[player.getPosition()].removePlayer(player);
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Controller asking the user for every decision, through a {@link ScannerUtils}.
+ * </p>
+ * <p>
+ * The default controller of a {@link Game}: the prompts are the ones the
+ * game always showed, so scripted inputs and recorded games play the same.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new ConsoleController(game.getScannerUtils()));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class ConsoleController implements PlayerController {
+
+    /**
+     * The utility reading the user's input.
+     */
+    private final ScannerUtils scannerUtils;
+
+    /**
+     * <p>
+     * Creates a controller reading the user's input with the given utility.
+     * </p>
+     *
+     * @param scannerUtils the utility reading the user's input
+     */
+    public ConsoleController(final ScannerUtils scannerUtils) {
+        if (scannerUtils == null) throw new IllegalArgumentException("scannerUtils cannot be null");
+        this.scannerUtils = scannerUtils;
+    }
+
+    @Override
+    public int chooseOption(final Game game, final Player player) {
+        return this.scannerUtils.readOption();
+    }
+
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return this.scannerUtils.readBoolean();
+    }
+
+    /**
+     * <p>
+     * Asks whether to build and, if so, shows the options and reads the choice.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player, who can build
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        if (!this.scannerUtils.readBoolean()) return -1;
+        player.showBuildOptions(options);
+        return this.scannerUtils.readIntInRange(
+                1, options.length, Constant.NUMBER_PROMPT + options.length + ": ") - 1;
+    }
+
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return this.scannerUtils.readBoolean();
+    }
+}
@@ -1,5 +1,7 @@
 package ch.supsi.game.monopoly;
 
+import ch.mazluc.util.MessageTemplate;
+
 /**
  * <p>
  * Constants storage utility class.
@@ -20,6 +22,31 @@ public final class Constant {
      */
     public static final String PRESS_ENTER_TO_CONTINUE = "Press enter to continue...";
 
+    /**
+     * The end of the prompt of the options of a turn.
+     */
+    public static final String OPTION_PROMPT = "Option: ";
+
+    /**
+     * The prompt of a yes or no question.
+     */
+    public static final String YES_NO_PROMPT = "Y/n: ";
+
+    /**
+     * The start of the prompt of a number, followed by the highest one.
+     */
+    public static final String NUMBER_PROMPT = "Insert number between 1-";
+
+    /**
+     * The end of the prompt of the name of a player.
+     */
+    public static final String NAME_PROMPT = " name: ";
+
+    /**
+     * The end of the prompt of the symbol of a player.
+     */
+    public static final String SYMBOL_PROMPT = " symbol: ";
+
     // BANK ------------------------------------------------------------------------------------------------------------
     /**
      * The start amount of money in the bank.
@@ -60,6 +87,16 @@ public final class Constant {
      */
     public static final int PLAYER_NUMBER = 4;
 
+    /**
+     * The file a quit game is saved to, and resumed from.
+     */
+    public static final String AUTOSAVE_FILE = "monopoly.sav";
+
+    /**
+     * The question asked when a quit game was saved.
+     */
+    public static final String RESUME_QUESTION = "A game quit last time was saved. Resume it?";
+
     /**
      * The number of dices in the game.
      */
@@ -258,7 +295,7 @@ public final class Constant {
     /**
      * Message displayed when a player is created.
      */
-    public static final String PLAYER_CREATED = "Player %s (%c) created%n%n";
+    public static final MessageTemplate PLAYER_CREATED = MessageTemplate.compile("Player %s (%c) created%n%n");
 
     /**
      * The title of the start screen.
@@ -278,12 +315,32 @@ public final class Constant {
     /**
      * The turn information string.
      */
-    public static final String TURN_INFORMATION = "%s's Turn [Balance: %.2f]%n";
+    public static final MessageTemplate TURN_INFORMATION = MessageTemplate.compile("%s's Turn [Balance: %.2f]%n");
 
     /**
      * The message displayed when a die is rolled.
      */
-    public static final String DICE_ROLL = "Dice %d rolled: %s%n";
+    public static final MessageTemplate DICE_ROLL = MessageTemplate.compile("Dice %d rolled: %s%n");
+
+    /**
+     * The message displayed when a player pays the bank.
+     */
+    public static final MessageTemplate PAID_TO_BANK = MessageTemplate.compile("Paid %s$ to the bank.%n");
+
+    /**
+     * The message displayed when a player pays the rent to the owner of a propriety.
+     */
+    public static final MessageTemplate PAID_TO_OWNER = MessageTemplate.compile("Paid %s$ to %s%n");
+
+    /**
+     * The message displayed when a player receives money passing on the start cell.
+     */
+    public static final MessageTemplate START_RECEIVED = MessageTemplate.compile("Received %s$ by passing on the start cell.%n");
+
+    /**
+     * The message displayed when an evader caught pays their debt.
+     */
+    public static final MessageTemplate DEBT_PAID = MessageTemplate.compile("Paid %.2f to repair your debt%n");
 
     /**
      * The message displayed when a player gets out of prison by paying a fee.
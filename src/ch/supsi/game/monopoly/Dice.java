@@ -36,7 +36,7 @@ public class Dice {
     /**
      * The random number generator instance.
      */
-    private final Random random = new Random();
+    private final Random random;
 
     /**
      * The current value of the dice
@@ -58,6 +58,26 @@ public class Dice {
      * @param hiBound the upper bound of the dice
      */
     public Dice(final int loBound, final int hiBound) {
+        this(loBound, hiBound, new Random());
+    }
+
+    /**
+     * <p>
+     * Constructor of the Dice class, rolling with the given random generator.
+     * </p>
+     * <p>
+     * Dices sharing a seeded generator roll the same sequence of values
+     * every game, so that recorded games can be replayed.
+     * </p>
+     *
+     * @param loBound the lower bound of the dice
+     * @param hiBound the upper bound of the dice
+     * @param random the random generator
+     */
+    public Dice(final int loBound, final int hiBound, final Random random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random cannot be null");
+        }
         if (loBound < 1) {
             throw new IllegalArgumentException("Lower bound must be at least 1");
         }
@@ -66,6 +86,7 @@ public class Dice {
         }
         this.loBound = Math.min(loBound, hiBound);
         this.hiBound = Math.max(loBound, hiBound);
+        this.random = random;
     }
 
     /**
@@ -79,6 +100,21 @@ public class Dice {
         return this.currentValue;
     }
 
+    /**
+     * <p>
+     * Sets the current value of the dice, as when a saved game is loaded.
+     * </p>
+     *
+     * @param currentValue the value, between the bounds of the dice, or 0 if never rolled
+     * @throws IllegalArgumentException if the value is out of the bounds
+     */
+    public void setCurrentValue(final int currentValue) {
+        if (currentValue != 0 && (currentValue < this.loBound || currentValue > this.hiBound)) {
+            throw new IllegalArgumentException("Value must be between " + this.loBound + " and " + this.hiBound);
+        }
+        this.currentValue = currentValue;
+    }
+
     /**
      * <p>
      * Rolls the dice, updating the current value of the dice, in {@link Dice#currentValue}.
@@ -5,12 +5,17 @@ import ch.supsi.game.monopoly.cards.Card;
 import ch.supsi.game.monopoly.cards.Deck;
 import ch.supsi.game.monopoly.cells.Cell;
 import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.cells.TaxEvasionCell;
+import ch.supsi.game.monopoly.event.GameEventBus;
+import ch.supsi.game.monopoly.event.GameEventListener;
 import ch.supsi.game.monopoly.exception.EmptyDeckException;
 import ch.supsi.game.monopoly.exception.IllegalCardException;
 import ch.supsi.game.monopoly.exception.NoCellFoundException;
+import ch.supsi.game.monopoly.input.AsyncInputProvider;
+import ch.supsi.game.monopoly.input.ConsoleInputProvider;
+import ch.supsi.game.monopoly.input.InputProvider;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.util.Random;
 
 /**
  * <p>
@@ -22,6 +27,10 @@ import java.beans.PropertyChangeListener;
  * a list of {@link Player}s and an instance of {@link ScannerUtils}.
  * </p>
  * <p>
+ * Everything happening in the game is fired on its {@link GameEventBus},
+ * on which the game itself listens to keep the board up to date.
+ * </p>
+ * <p>
  * Firstly the players are created, by assigning them a name and a symbol,
  * and then the game starts.
  * The game is then played.
@@ -40,7 +49,7 @@ import java.beans.PropertyChangeListener;
  * @author Luca Mazza
  * @version 1.4.0
  */
-public class Game implements PropertyChangeListener {
+public class Game implements GameEventListener {
 
     /**
      * List of players in the game
@@ -77,6 +86,36 @@ public class Game implements PropertyChangeListener {
      */
     private final ScannerUtils scannerUtils;
 
+    /**
+     * The event bus of the game.
+     */
+    private final GameEventBus events;
+
+    /**
+     * The leaderboard of the game, kept up to date through the event bus.
+     */
+    private final Leaderboard leaderboard;
+
+    /**
+     * The work done while the user thinks.
+     */
+    private final Speculator speculator;
+
+    /**
+     * The random generator of the dices.
+     */
+    private final Random random;
+
+    /**
+     * The Zobrist hash of the state of the game, kept up to date by its components.
+     */
+    private final StateHash stateHash = new StateHash();
+
+    /**
+     * The controller taking the decisions of the players.
+     */
+    private PlayerController controller;
+
     /**
      * Stores the index of the current player.
      */
@@ -92,23 +131,91 @@ public class Game implements PropertyChangeListener {
      * Constructor of the Game class.
      * </p>
      * <p>
-     * The number of players is set to {@link Constant#PLAYER_NUMBER} by default,
-     * then all the game's components are instantiated.
+     * The game seats the given number of players, {@link Constant#PLAYER_NUMBER}
+     * in the usual game, then all the game's components are instantiated.
      * </p>
      *
-     * @param playersNumber the number of players
+     * @param playersNumber the number of players, at least 2
+     * @throws IllegalArgumentException if there are less than 2 players
      */
     public Game(final int playersNumber) {
-        this.board = new Board();
-        this.players = new Player[Math.max(playersNumber, Constant.PLAYER_NUMBER)];
+        this(new Board(), playersNumber);
+    }
+
+    /**
+     * <p>
+     * Constructor of the Game class, played on a given board.
+     * </p>
+     * <p>
+     * The game seats the given number of players, {@link Constant#PLAYER_NUMBER}
+     * in the usual game, then all the other game's components are instantiated.
+     * </p>
+     * <p>
+     * The console is read in background, so that the game
+     * can speculate while the user thinks, and the dices are rolled with
+     * a {@link GameRandom}, so that the game can be saved.
+     * </p>
+     *
+     * @param board the board to play on
+     * @param playersNumber the number of players
+     */
+    public Game(final Board board, final int playersNumber) {
+        this(board, playersNumber, new AsyncInputProvider(new ConsoleInputProvider()), new GameRandom());
+    }
+
+    /**
+     * <p>
+     * Constructor of the Game class, played on a given board, reading the
+     * user's input from the given provider and rolling the dices with the
+     * given random generator.
+     * </p>
+     * <p>
+     * With a seeded board and random generator, the same input
+     * always plays the same game.
+     * </p>
+     * <p>
+     * If the input is an {@link AsyncInputProvider}, the {@link Speculator}
+     * of the game works while waiting for it.
+     * </p>
+     *
+     * @param board the board to play on
+     * @param playersNumber the number of players, at least 2
+     * @param input the source of the user's input
+     * @param random the random generator of the dices
+     * @throws IllegalArgumentException if the board or the random generator is null,
+     *                                  or if there are less than 2 players
+     */
+    public Game(final Board board, final int playersNumber, final InputProvider input, final Random random) {
+        if (board == null) throw new IllegalArgumentException("board cannot be null");
+        if (random == null) throw new IllegalArgumentException("random cannot be null");
+        if (playersNumber < 2) throw new IllegalArgumentException("A game needs at least 2 players");
+        this.board = board;
+        this.random = random;
+        this.players = new Player[playersNumber];
         this.dices = new Dice[Constant.NUMBER_OF_DICES];
-        this.bank = Bank.getInstance();
+        this.bank = new Bank();
         for (int i = 0; i < Constant.NUMBER_OF_DICES; i++) {
-            this.dices[i] = new Dice(Constant.DICE_MIN_VALUE, Constant.DICE_MAX_VALUE);
+            this.dices[i] = new Dice(Constant.DICE_MIN_VALUE, Constant.DICE_MAX_VALUE, random);
         }
-        this.scannerUtils = new ScannerUtils();
+        this.scannerUtils = new ScannerUtils(input);
+        this.controller = new ConsoleController(this.scannerUtils);
         this.chanceCards = new Deck("Probabilita.txt");
         this.unexpectedCards = new Deck("Imprevisti.txt");
+        this.bank.setStateHash(this.stateHash);
+        this.chanceCards.setStateHash(this.stateHash);
+        this.unexpectedCards.setStateHash(this.stateHash);
+        for (int i = 0; i < Constant.BOARD_SIZE; i++) {
+            if (board.getCell(i) instanceof ProprietyCell pc) pc.setStateHash(this.stateHash);
+            if (board.getCell(i) instanceof TaxEvasionCell tc) tc.setStateHash(this.stateHash, i);
+        }
+        this.stateHash.toggle(this.getTurnKey());
+        this.events = new GameEventBus();
+        this.events.register(this);
+        this.leaderboard = new Leaderboard(this.players.length);
+        this.events.register(this.leaderboard);
+        this.speculator = new Speculator(this);
+        this.events.register(this.speculator);
+        if (input instanceof AsyncInputProvider async) async.setIdleWork(this.speculator::restart);
     }
 
     /**
@@ -118,7 +225,34 @@ public class Game implements PropertyChangeListener {
      * </p>
      */
     private void getNextPlayer() {
-        this.indexOfCurrentPlayer = (++this.indexOfCurrentPlayer) % this.players.length;
+        this.setTurn((this.indexOfCurrentPlayer + 1) % this.players.length, this.isGameRunning);
+    }
+
+    /**
+     * <p>
+     * Sets whose turn it is and whether the game is running, updating the hash of the game.
+     * </p>
+     *
+     * @param indexOfCurrentPlayer the index of the current player
+     * @param running whether the game is still running
+     */
+    private void setTurn(final int indexOfCurrentPlayer, final boolean running) {
+        final long before = this.getTurnKey();
+        this.indexOfCurrentPlayer = indexOfCurrentPlayer;
+        this.isGameRunning = running;
+        this.stateHash.toggle(before ^ this.getTurnKey());
+    }
+
+    /**
+     * <p>
+     * Returns the key of whose turn it is and of whether the game is running,
+     * their part of the {@link StateHash} of the game.
+     * </p>
+     *
+     * @return the key
+     */
+    private long getTurnKey() {
+        return StateHash.key(StateHash.TURN, 0, this.indexOfCurrentPlayer << 1 | (this.isGameRunning ? 1 : 0));
     }
 
     /**
@@ -137,29 +271,112 @@ public class Game implements PropertyChangeListener {
         int i = 0;
         while (i < this.players.length) {
             final Player tmp = new Player(
-                    this.scannerUtils.readNonBlankString("Player #" + (i + 1) + " name: "),
-                    this.scannerUtils.readNonBlankChar("Player #" + (i + 1) + " symbol: ")
+                    this.scannerUtils.readNonBlankString("Player #" + (i + 1) + Constant.NAME_PROMPT),
+                    this.scannerUtils.readNonBlankChar("Player #" + (i + 1) + Constant.SYMBOL_PROMPT)
             );
             if (i > 0 && this.isNotUniquePlayer(tmp, i)) {
                 ANSIUtility.printbcf(Constant.PLAYER_ALREADY_EXISTING, ANSIUtility.RED, tmp.getName());
                 continue;
             }
-            this.players[i] = tmp;
-            this.bank.withdraw(Constant.PLAYER_START_AMOUNT);
-            this.players[i].receive(Constant.PLAYER_START_AMOUNT);
-            ANSIUtility.printcf(
-                    Constant.PLAYER_CREATED,
-                    ANSIUtility.WHITE,
-                    this.players[i].getName(),
-                    this.players[i].getSymbol()
-            );
-            this.initPlayer(i);
+            this.addPlayer(i, tmp);
             i++;
         }
-        for (Player player : this.players) {
-            player.addPropertyChangeListener(this);
+        this.shuffleDecks();
+    }
+
+    /**
+     * <p>
+     * Initializes the game with the given players' names and symbols,
+     * without reading anything from the user.
+     * </p>
+     * <p>
+     * Used by simulations and tests, which already know who plays.
+     * </p>
+     *
+     * @param names the names of the players
+     * @param symbols the symbols of the players
+     * @throws IllegalArgumentException if the names and symbols do not match the number of players,
+     *                                  or if two players share the same symbol
+     */
+    public void init(final String[] names, final char[] symbols) {
+        if (names == null || symbols == null ||
+                names.length != this.players.length || symbols.length != this.players.length) {
+            throw new IllegalArgumentException("Expected " + this.players.length + " names and symbols");
+        }
+        for (int i = 0; i < this.players.length; i++) {
+            final Player tmp = new Player(names[i], symbols[i]);
+            if (this.isNotUniquePlayer(tmp, i)) {
+                throw new IllegalArgumentException("Player symbol " + symbols[i] + " is taken");
+            }
+            this.addPlayer(i, tmp);
         }
+        this.shuffleDecks();
+    }
+
+    /**
+     * <p>
+     * Seats the players with the given names and symbols, without giving them
+     * any money nor printing anything, as when a saved game is loaded.
+     * </p>
+     * <p>
+     * The state of the players is then restored, with
+     * {@link Player#restoreState(double, int, boolean, boolean, double, int, boolean)}.
+     * </p>
+     *
+     * @param names the names of the players
+     * @param symbols the symbols of the players
+     * @throws IllegalArgumentException if the names and symbols do not match the number of players,
+     *                                  or if two players share the same symbol
+     * @throws IllegalStateException if the players are already seated
+     */
+    public void seat(final String[] names, final char[] symbols) {
+        if (names == null || symbols == null ||
+                names.length != this.players.length || symbols.length != this.players.length) {
+            throw new IllegalArgumentException("Expected " + this.players.length + " names and symbols");
+        }
+        if (this.leaderboard.size() > 0) throw new IllegalStateException("The players are already seated");
+        for (int i = 0; i < this.players.length; i++) {
+            final Player tmp = new Player(names[i], symbols[i]);
+            if (this.isNotUniquePlayer(tmp, i)) {
+                throw new IllegalArgumentException("Player symbol " + symbols[i] + " is taken");
+            }
+            this.players[i] = tmp;
+            this.leaderboard.add(tmp);
+            tmp.setEventBus(this.events);
+            tmp.setStateHash(this.stateHash);
+        }
+    }
+
+    /**
+     * <p>
+     * Adds a player to the game, at the given index.
+     * </p>
+     * <p>
+     * The bank gives the player their start amount,
+     * and the player is placed on the start cell.
+     * </p>
+     *
+     * @param i the index of the player
+     * @param player the player
+     */
+    private void addPlayer(final int i, final Player player) {
+        this.players[i] = player;
+        this.bank.withdraw(Constant.PLAYER_START_AMOUNT);
+        this.players[i].receive(Constant.PLAYER_START_AMOUNT);
+        this.leaderboard.add(player);
+        ANSIUtility.printcf(Constant.PLAYER_CREATED, ANSIUtility.WHITE)
+                .arg(this.players[i].getName())
+                .arg(this.players[i].getSymbol())
+                .end();
+        this.initPlayer(i);
+    }
 
+    /**
+     * <p>
+     * Shuffles the chance and unexpected decks.
+     * </p>
+     */
+    private void shuffleDecks() {
         try {
             this.chanceCards.shuffle();
             this.unexpectedCards.shuffle();
@@ -202,24 +419,6 @@ public class Game implements PropertyChangeListener {
         ANSIUtility.resetf();
     }
 
-    /**
-     * <p>
-     * Sorts the players by their balance, in order to display them accordingly
-     * in the leaderboard.
-     * </p>
-     */
-    private void sortPlayersByBalance() {
-        for (int i = 0; i < players.length - 1; i++) {
-            for (int j = 0; j < players.length - i - 1; j++) {
-                if (this.players[j].getBalance() < this.players[j + 1].getBalance()) {
-                    Player tmp = this.players[j];
-                    players[j] = this.players[j + 1];
-                    players[j + 1] = tmp;
-                }
-            }
-        }
-    }
-
     /**
      * <p>
      * Prints the leaderboard on the console, with the players ordered by balance.
@@ -229,8 +428,8 @@ public class Game implements PropertyChangeListener {
         ANSIUtility.clearScreen();
         ANSIUtility.setBold();
         ANSIUtility.printbcf("Leaderboard%n", ANSIUtility.RED);
-        this.sortPlayersByBalance();
-        for (Player player : this.players) {
+        for (int i = 0; i < this.leaderboard.size(); i++) {
+            final Player player = this.leaderboard.getByBalance(i);
             ANSIUtility.printcf("%-20s: %.2f%n", ANSIUtility.BRIGHT_WHITE, player.getName(), player.getBalance());
         }
     }
@@ -243,24 +442,22 @@ public class Game implements PropertyChangeListener {
      * their balance, followed by the bank's balance and the board.
      */
     private void printUI() {
-        System.out.println();
-        ANSIUtility.printbcf(
-                Constant.TURN_INFORMATION,
-                ANSIUtility.GREEN,
-                this.players[this.indexOfCurrentPlayer].getName(),
-                this.players[this.indexOfCurrentPlayer].getBalance()
-        );
+        ANSIUtility.println();
+        ANSIUtility.printbcf(Constant.TURN_INFORMATION, ANSIUtility.GREEN)
+                .arg(this.players[this.indexOfCurrentPlayer].getName())
+                .arg(this.players[this.indexOfCurrentPlayer].getBalance())
+                .end();
         ANSIUtility.printcf("%s%n", ANSIUtility.WHITE, this.bank.getBalance());
-        System.out.println(this.board);
+        if (!ANSIUtility.isDiscarding()) ANSIUtility.println(this.board.toString());
     }
 
     /**
      * <p>
-     * Checks if any player has lost.
+     * Checks if the player at the given index has lost.
      * </p>
      */
     private boolean hasPlayerLost(final int index) {
-        return this.players[index].getBalance() <= 0;
+        return !this.leaderboard.isAlive(this.players[index]);
     }
 
     /**
@@ -268,13 +465,17 @@ public class Game implements PropertyChangeListener {
      * Initializes the player's position on the board,
      * setting it to the start cell.
      * </p>
+     * <p>
+     * The player is attached to the game's event bus, so that
+     * the "moved" event places them on the board.
+     * </p>
      *
      * @param i the index of the player.
      */
     private void initPlayer(final int i) {
-        this.board.getCells()[this.players[i].getPosition()].removePlayer(this.players[i]);
-        this.players[i].move(0);
-        this.board.getCells()[this.players[i].getPosition()].setPlayer(this.players[i]);
+        this.players[i].setEventBus(this.events);
+        this.players[i].setStateHash(this.stateHash);
+        this.players[i].setPosition(Constant.START_POSITION);
     }
 
     /**
@@ -293,10 +494,34 @@ public class Game implements PropertyChangeListener {
         this.checkIfEvaderIsCaught(currentPlayer);
         if (currentPlayer.isInPrison()) this.playerInPrisonCase(currentPlayer);
         if (!currentPlayer.isInPrison())this.playerNotInPrisonCase(currentPlayer);
+        this.landingCase(currentPlayer);
+    }
+
+    /**
+     * <p>
+     * Game case, in which the player landed on their cell: the effect of
+     * the cell is applied, the player can build, and the turn ends.
+     * </p>
+     *
+     * @param currentPlayer the player
+     */
+    private void landingCase(final Player currentPlayer) {
         this.board.getCell(currentPlayer.getPosition()).applyEffect(currentPlayer, this);
         this.playerBuildingCase(currentPlayer);
+        this.endTurn(currentPlayer);
+    }
+
+    /**
+     * <p>
+     * Ends the turn of the player, passing it to the next one.
+     * </p>
+     *
+     * @param currentPlayer the player
+     */
+    private void endTurn(final Player currentPlayer) {
         this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
         this.getNextPlayer();
+        this.events.turnEnded(currentPlayer);
     }
 
     /**
@@ -307,7 +532,11 @@ public class Game implements PropertyChangeListener {
     private void rollDices() {
         for (int i = 0; i < this.dices.length; i++) {
             this.dices[i].roll();
-            ANSIUtility.printcf(Constant.DICE_ROLL, ANSIUtility.BRIGHT_YELLOW, (i + 1), this.dices[i]);
+            this.events.rolled(this.players[this.indexOfCurrentPlayer], i, this.dices[i].getCurrentValue());
+            ANSIUtility.printcf(Constant.DICE_ROLL, ANSIUtility.BRIGHT_YELLOW)
+                    .arg(i + 1)
+                    .arg(this.dices[i].getCurrentValue())
+                    .end();
         }
     }
 
@@ -332,8 +561,8 @@ public class Game implements PropertyChangeListener {
                 this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
                 final double amount = currentPlayer.getAmountEvaded() * Constant.DEBT_INTEREST_RATE;
                 currentPlayer.pay(amount);
-                Bank.getInstance().deposit(amount);
-                ANSIUtility.printcf("Paid %.2f to repair your debt%n", ANSIUtility.BRIGHT_YELLOW,amount);
+                this.bank.deposit(amount);
+                ANSIUtility.printcf(Constant.DEBT_PAID, ANSIUtility.BRIGHT_YELLOW).arg(amount).end();
                 currentPlayer.setEvader(false);
                 currentPlayer.setAmountEvaded(0);
             }
@@ -389,49 +618,78 @@ public class Game implements PropertyChangeListener {
         currentPlayer.move(this.getDicesValue());
         if (this.hasPlayerPassedStart())
             this.board.getCell(Constant.START_POSITION).applyEffect(currentPlayer, this);
-        System.out.println(this.board);
+        if (!ANSIUtility.isDiscarding()) ANSIUtility.println(this.board.toString());
         if (this.board.getCell(currentPlayer.getPosition()) instanceof ProprietyCell pc &&
                 pc.getOwner() == null && currentPlayer.getBalance() > pc.getPurchasePrice()) {
-            System.out.printf("Buy %s for %.2f$%n",
+            ANSIUtility.printf("Buy %s for %.2f$ (returns %.0f%% of its price a round)%n",
                     this.board.getCell(currentPlayer.getPosition()).getTitle(),
-                    pc.getPurchasePrice());
-            if (this.scannerUtils.readBoolean()) {
-                currentPlayer.pay(pc.getPurchasePrice());
-                this.bank.deposit(pc.getPurchasePrice());
-                pc.setOwner(currentPlayer);
-                currentPlayer.addColor(pc);
-                ANSIUtility.printcf("You have bought %s%n", ANSIUtility.GREEN, pc.getTitle());
-            }
+                    pc.getPurchasePrice(), this.speculator.getPurchaseValuation(pc) * 100);
+            if (this.controller.buy(this, currentPlayer, pc)) this.buy(currentPlayer, pc);
         }
     }
 
+    /**
+     * <p>
+     * Sells the propriety the player landed on to them.
+     * </p>
+     * <p>
+     * Called by the game when the controller decides to buy, and by the
+     * simulations resuming a turn cut at that decision.
+     * </p>
+     *
+     * @param currentPlayer the player
+     * @param pc the free propriety the player is on
+     */
+    public void buy(final Player currentPlayer, final ProprietyCell pc) {
+        currentPlayer.pay(pc.getPurchasePrice());
+        this.bank.deposit(pc.getPurchasePrice());
+        pc.setOwner(currentPlayer);
+        currentPlayer.addPropriety(currentPlayer.getPosition(), pc);
+        this.events.bought(currentPlayer, currentPlayer.getPosition(), pc.getPurchasePrice());
+        ANSIUtility.printcf("You have bought %s%n", ANSIUtility.GREEN, pc.getTitle());
+    }
+
     /**
      * <p>
      * Game case, in which the player builds a building on a cell.
      * </p>
      * <p>
-     * If the player can build, a prompt is shown asking if he wants to do so.
-     * The prompt shows all proprieties the player can build upon.
+     * If the player can build, the controller is asked whether and where to
+     * build, among all the proprieties the player can build upon.
      * </p>
      *
      * @param currentPlayer the player
      */
     private void playerBuildingCase(final Player currentPlayer) {
         if (currentPlayer.canBuild()) {
-            System.out.println("Would you want to build ?");
-            if (scannerUtils.readBoolean()) {
-                currentPlayer.showBuildOptions(currentPlayer.getBuildOptions(board));
-                int choice = scannerUtils.readIntInRange(
-                        1, currentPlayer.getBuildOptions(board).length,
-                        "Insert number between 1-" + currentPlayer.getBuildOptions(board).length + ": "
-                );
-                if (currentPlayer.getBuildOptions(board)[choice - 1] instanceof ProprietyCell pc) {
-                    pc.addBuilding(currentPlayer);
-                }
+            ANSIUtility.println("Would you want to build ?");
+            final Cell[] options = currentPlayer.getBuildOptions(this.board);
+            final int choice = this.controller.build(this, currentPlayer, options);
+            if (choice >= 0 && choice < options.length && options[choice] instanceof ProprietyCell pc) {
+                this.build(currentPlayer, pc);
             }
         }
     }
 
+    /**
+     * <p>
+     * Builds the next building of a propriety of the player.
+     * </p>
+     * <p>
+     * Called by the game when the controller decides where to build, and
+     * by the simulations resuming a turn cut at that decision.
+     * </p>
+     *
+     * @param currentPlayer the player
+     * @param pc the propriety, among the build options of the player
+     */
+    public void build(final Player currentPlayer, final ProprietyCell pc) {
+        final int level = pc.getBuildingLevel();
+        pc.addBuilding(currentPlayer);
+        if (pc.getBuildingLevel() != level)
+            this.events.built(currentPlayer, this.board.indexOf(pc), pc.getBuildingLevel());
+    }
+
     /**
      * <p>
      * Checks if the player has passed the start cell.
@@ -472,19 +730,13 @@ public class Game implements PropertyChangeListener {
 
     /**
      * <p>
-     * Checks if the game is over.
+     * Checks if the game is over, that is when at most one player is still alive.
      * When so sets the {@link Game#isGameRunning} to false.
      * </p>
      */
     private void isGameOver() {
-        int counter = 0;
-        for (Player player : players) {
-            if (player.getBalance() < 0) {
-                counter++;
-            }
-        }
-        if (counter == players.length - 1) {
-            this.isGameRunning = false;
+        if (this.leaderboard.getAliveCount() <= 1) {
+            this.setTurn(this.indexOfCurrentPlayer, false);
         }
     }
 
@@ -504,34 +756,148 @@ public class Game implements PropertyChangeListener {
     public void start() {
         this.printStartMessage();
         this.init();
-        do {
-            while (this.hasPlayerLost(this.indexOfCurrentPlayer)) {
-                this.playerGameOver(this.indexOfCurrentPlayer);
-                this.getNextPlayer();
-            }
-            this.printUI();
-            int option = this.scannerUtils.readOption();
-            switch (option) {
-                case 1:
-                    this.diceRollCase();
-                    break;
-                case 2:
-                    ANSIUtility.printcf("%s", ANSIUtility.BRIGHT_YELLOW, this.players[this.indexOfCurrentPlayer]);
-                    this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
-                    break;
-                case 3:
-                    System.out.println("\n" + getProprietiesOfPlayer(this.players[this.indexOfCurrentPlayer]));
-                    this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
-                    break;
-                case 4:
-                    this.isGameRunning = false;
-                    break;
-                default:
-                    ANSIUtility.printcf("Invalid option, try again", ANSIUtility.RED);
-                    break;
-            }
-            this.isGameOver();
-        } while (this.isGameRunning);
+        this.play();
+    }
+
+    /**
+     * <p>
+     * Plays the game cycle, with the players already seated, until the game is over.
+     * </p>
+     * <p>
+     * Used by {@link Game#start()}, and to go on playing a game that was
+     * loaded or recovered.
+     * </p>
+     */
+    public void play() {
+        this.begin();
+        while (this.step()) {
+            // every step is a decision of the current player
+        }
+        this.finish();
+    }
+
+    /**
+     * <p>
+     * Begins to play, with the players already seated: fires the "game
+     * started" event, and skips the players that already lost.
+     * </p>
+     * <p>
+     * A game driven from outside, such as a table of a server, calls
+     * {@link Game#step()} once for every decision of its players instead of
+     * {@link Game#play()}, so that no thread waits for them.
+     * </p>
+     */
+    public void begin() {
+        this.events.gameStarted();
+        this.skipLostPlayers();
+    }
+
+    /**
+     * <p>
+     * Plays one decision of the current player, as chosen by the
+     * {@link PlayerController} of the game: a whole turn if they roll.
+     * </p>
+     * <p>
+     * Afterwards the current player is the next one still playing. The step
+     * ending the game fires the "game ended" event.
+     * </p>
+     *
+     * @return true if the game is still running
+     */
+    public boolean step() {
+        this.printUI();
+        final int option = this.controller.chooseOption(this, this.players[this.indexOfCurrentPlayer]);
+        switch (option) {
+            case PlayerController.ROLL:
+                this.diceRollCase();
+                break;
+            case PlayerController.SHOW_BALANCE:
+                ANSIUtility.printcf("%s", ANSIUtility.BRIGHT_YELLOW, this.players[this.indexOfCurrentPlayer]);
+                this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
+                break;
+            case PlayerController.SHOW_PROPRIETIES:
+                ANSIUtility.println("\n" + this.players[this.indexOfCurrentPlayer].getProprietiesListing());
+                this.scannerUtils.readKey(Constant.PRESS_ENTER_TO_CONTINUE);
+                break;
+            case PlayerController.QUIT:
+                this.setTurn(this.indexOfCurrentPlayer, false);
+                break;
+            default:
+                ANSIUtility.printcf("Invalid option, try again", ANSIUtility.RED);
+                break;
+        }
+        return this.endStep();
+    }
+
+    /**
+     * <p>
+     * Finishes the turn of the current player cut after they landed on
+     * their cell and decided whether to buy it: applies the effect of the
+     * cell, lets them build and passes the turn, as {@link Game#step()} would.
+     * </p>
+     * <p>
+     * Used by the simulations, such as the rollouts of a bot, that restore
+     * a {@link ch.supsi.game.monopoly.persistence.GameSnapshot snapshot}
+     * taken at the decision and play on from there.
+     * </p>
+     *
+     * @return true if the game is still running
+     */
+    public boolean finishTurn() {
+        this.landingCase(this.players[this.indexOfCurrentPlayer]);
+        return this.endStep();
+    }
+
+    /**
+     * <p>
+     * Passes the turn of the current player cut after they decided where
+     * to build, as {@link Game#step()} would.
+     * </p>
+     *
+     * @return true if the game is still running
+     * @see Game#finishTurn()
+     */
+    public boolean passTurn() {
+        this.endTurn(this.players[this.indexOfCurrentPlayer]);
+        return this.endStep();
+    }
+
+    /**
+     * <p>
+     * Ends a step: checks whether the game is over, firing the "game
+     * ended" event if so, or skips the players that lost.
+     * </p>
+     *
+     * @return true if the game is still running
+     */
+    private boolean endStep() {
+        this.isGameOver();
+        if (this.isGameRunning) {
+            this.skipLostPlayers();
+        } else {
+            this.events.gameEnded();
+        }
+        return this.isGameRunning;
+    }
+
+    /**
+     * <p>
+     * Skips the players that lost, the first time declaring them bankrupt.
+     * </p>
+     */
+    private void skipLostPlayers() {
+        while (this.hasPlayerLost(this.indexOfCurrentPlayer)) {
+            this.playerGameOver(this.indexOfCurrentPlayer);
+            this.getNextPlayer();
+        }
+    }
+
+    /**
+     * <p>
+     * Ends the game: prints the leaderboard and quits.
+     * </p>
+     */
+    public void finish() {
         this.printLeaderboard();
         this.scannerUtils.readKey("Game ended, press enter to exit...");
         this.quit();
@@ -541,34 +907,200 @@ public class Game implements PropertyChangeListener {
      * <p>
      * Resets all the propriety of the player that lost.
      * </p>
+     * <p>
+     * The first time the player is found to have lost,
+     * the "bankrupted" event is fired.
+     * </p>
      * @param playerIndex index of the player that lost
      */
     private void playerGameOver(final int playerIndex) {
         if (playerIndex >= this.players.length) return;
         final Player player = this.players[playerIndex];
-        this.board.stripAllProprietiesOfPlayer(player);
+        if (!player.isBankrupt()) {
+            this.board.stripAllProprietiesOfPlayer(player);
+            player.setBankrupt(true);
+            this.events.bankrupted(player);
+        }
         this.printUI();
     }
 
     /**
      * <p>
-     * Returns, as a String, all proprieties owned by the player.
+     * Returns the player whose turn it is.
      * </p>
      *
-     * @param player the player
-     * @return the list of the propriety owned by the player
+     * @return the current player, null if the players are not initialized yet
      */
-    private String getProprietiesOfPlayer(final Player player) {
-        final StringBuilder sb = new StringBuilder();
-        final Cell[] cells = this.board.getCells();
-        int tmp = 0;
-        for (Cell cell : cells) {
-            if (cell instanceof ProprietyCell pc && (pc.getOwner() != null && pc.getOwner().equals(player))) {
-                sb.append((++tmp)).append(" ").append(pc.getTitle()).append("\n");
+    public Player getCurrentPlayer() {
+        return this.players[this.indexOfCurrentPlayer];
+    }
 
-            }
+    /**
+     * <p>
+     * Returns the index of the player whose turn it is.
+     * </p>
+     *
+     * @return the index of the current player
+     */
+    public int getIndexOfCurrentPlayer() {
+        return this.indexOfCurrentPlayer;
+    }
+
+    /**
+     * <p>
+     * Returns whether the game is still running.
+     * </p>
+     *
+     * @return false once the game is over
+     */
+    public boolean isRunning() {
+        return this.isGameRunning;
+    }
+
+    /**
+     * <p>
+     * Restores whose turn it is and whether the game is running,
+     * as when a saved game is loaded.
+     * </p>
+     *
+     * @param indexOfCurrentPlayer the index of the current player
+     * @param running whether the game is still running
+     * @throws IllegalArgumentException if the index is not the one of a player
+     */
+    public void restoreTurn(final int indexOfCurrentPlayer, final boolean running) {
+        if (indexOfCurrentPlayer < 0 || indexOfCurrentPlayer >= this.players.length) {
+            throw new IllegalArgumentException("Player index must be between 0 and " + (this.players.length - 1));
+        }
+        this.setTurn(indexOfCurrentPlayer, running);
+    }
+
+    /**
+     * <p>
+     * Returns the Zobrist hash of the state of the game: the players, the
+     * bank, the proprieties, the decks and whose turn it is.
+     * </p>
+     * <p>
+     * The hash is kept up to date by every change, so reading it is O(1);
+     * two games in the same state have the same hash, however they got there.
+     * </p>
+     *
+     * @return the hash
+     * @see StateHash
+     */
+    public long getStateHash() {
+        return this.stateHash.get();
+    }
+
+    /**
+     * <p>
+     * Computes the hash of the state of the game from scratch, walking all its components.
+     * </p>
+     * <p>
+     * Equal to {@link Game#getStateHash()}, and much slower: meant to check it.
+     * </p>
+     *
+     * @return the hash
+     */
+    public long computeStateHash() {
+        long hash = this.bank.getStateKey() ^ this.getTurnKey()
+                ^ this.chanceCards.getStateKey() ^ this.unexpectedCards.getStateKey();
+        for (Player player : this.players) {
+            if (player != null) hash ^= player.getStateKey();
+        }
+        for (int i = 0; i < Constant.BOARD_SIZE; i++) {
+            if (this.board.getCell(i) instanceof ProprietyCell pc) hash ^= pc.getStateKey();
+            if (this.board.getCell(i) instanceof TaxEvasionCell tc) hash ^= tc.getStateKey();
         }
-        return sb.toString();
+        return hash;
+    }
+
+    /**
+     * <p>
+     * Returns the random generator of the dices.
+     * </p>
+     *
+     * @return the random generator
+     */
+    public Random getRandom() {
+        return this.random;
+    }
+
+    /**
+     * <p>
+     * Returns the dices of the game.
+     * </p>
+     *
+     * @return the dices
+     */
+    public Dice[] getDices() {
+        return this.dices;
+    }
+
+    /**
+     * <p>
+     * Returns the deck of the chance cards.
+     * </p>
+     *
+     * @return the chance deck
+     */
+    public Deck getChanceDeck() {
+        return this.chanceCards;
+    }
+
+    /**
+     * <p>
+     * Returns the deck of the unexpected cards.
+     * </p>
+     *
+     * @return the unexpected deck
+     */
+    public Deck getUnexpectedDeck() {
+        return this.unexpectedCards;
+    }
+
+    /**
+     * <p>
+     * Returns the work the game does while the user thinks.
+     * </p>
+     *
+     * @return the speculator of the game
+     */
+    public Speculator getSpeculator() {
+        return this.speculator;
+    }
+
+    /**
+     * <p>
+     * Returns the utility reading the user's input.
+     * </p>
+     *
+     * @return the scanner utility of the game
+     */
+    public ScannerUtils getScannerUtils() {
+        return this.scannerUtils;
+    }
+
+    /**
+     * <p>
+     * Returns the controller taking the decisions of the players.
+     * </p>
+     *
+     * @return the controller, a {@link ConsoleController} unless set
+     */
+    public PlayerController getController() {
+        return this.controller;
+    }
+
+    /**
+     * <p>
+     * Sets the controller taking the decisions of the players.
+     * </p>
+     *
+     * @param controller the controller
+     */
+    public void setController(final PlayerController controller) {
+        if (controller == null) throw new IllegalArgumentException("controller cannot be null");
+        this.controller = controller;
     }
 
     /**
@@ -581,7 +1113,7 @@ public class Game implements PropertyChangeListener {
         Cell c;
         for (int i = 0; i < this.board.getCells().length; i++) {
             c = this.board.getCells()[i];
-            if (ANSIUtility.decolorize(c.getTitle()).toLowerCase().equals(name)) {
+            if (ANSIUtility.equalsIgnoreCaseStripped(c.getTitle(), name)) {
                 return i;
             }
         }
@@ -603,6 +1135,7 @@ public class Game implements PropertyChangeListener {
             this.chanceCards.shuffle();
             final Card card = this.chanceCards.pick();
             this.chanceCards.putBack(card);
+            this.events.cardPicked(this.players[this.indexOfCurrentPlayer], this.chanceCards, card);
             return card;
         } catch (EmptyDeckException | IllegalCardException e) { return null; }
     }
@@ -622,45 +1155,92 @@ public class Game implements PropertyChangeListener {
             this.unexpectedCards.shuffle();
             final Card card = this.unexpectedCards.pick();
             this.unexpectedCards.putBack(card);
+            this.events.cardPicked(this.players[this.indexOfCurrentPlayer], this.unexpectedCards, card);
             return card;
         } catch (EmptyDeckException | IllegalCardException e) { return null; }
     }
 
     /**
      * <p>
-     * When the game is over, this method removes all {@link PropertyChangeListener}s
-     * and closes the scanner.
+     * Returns the bank of the game.
      * </p>
+     *
+     * @return the bank
      */
-    public void quit() {
-        for (Player player : this.players) player.removePropertyChangeListener(this);
-        this.scannerUtils.closeScanner();
+    public Bank getBank() {
+        return this.bank;
+    }
+
+    /**
+     * <p>
+     * Returns the board of the game.
+     * </p>
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return this.board;
+    }
+
+    /**
+     * <p>
+     * Returns the leaderboard of the game.
+     * </p>
+     *
+     * @return the leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        return this.leaderboard;
     }
 
     /**
      * <p>
-     * The behaviour of this method is triggered when a {@link PropertyChangeEvent}
-     * with the name `"position"` is fired.
+     * Returns the players of the game, in turn order.
      * </p>
+     *
+     * @return the players
+     */
+    public Player[] getPlayers() {
+        return this.players;
+    }
+
+    /**
      * <p>
-     * Checks if the {@link PropertyChangeEvent} matches the name
-     * and moves the player in the board using {@code oldValue} and
-     * {@code newValue}.
+     * Returns the event bus of the game, on which listeners
+     * must be registered before the game starts.
      * </p>
      *
-     * @param evt a PropertyChangeEvent object describing the event source
-     *            and the property that has changed
+     * @return the event bus
+     */
+    public GameEventBus getEventBus() {
+        return this.events;
+    }
+
+    /**
+     * <p>
+     * When the game is over, this method detaches the game from its
+     * {@link GameEventBus}, flushes the output and closes the scanner.
+     * </p>
+     */
+    public void quit() {
+        this.events.unregister(this);
+        ANSIUtility.flush();
+        this.scannerUtils.closeScanner();
+    }
+
+    /**
+     * <p>
+     * Moves the player that fired the "moved" event from the
+     * cell at {@code from} to the cell at {@code to}.
+     * </p>
+     *
+     * @param player the player that moved
+     * @param from the previous position
+     * @param to the new position
      */
     @Override
-    public void propertyChange(final PropertyChangeEvent evt) {
-        if (!evt.getPropertyName().equals("position")) {
-            return;
-        }
-        if (evt.getOldValue() instanceof Integer && evt.getNewValue() instanceof Integer) {
-            final int oldPosition = (int) evt.getOldValue();
-            final int newPosition = (int) evt.getNewValue();
-            this.board.getCell(oldPosition).removePlayer(this.players[this.indexOfCurrentPlayer]);
-            this.board.getCell(newPosition).setPlayer(this.players[this.indexOfCurrentPlayer]);
-        }
+    public void onMoved(final Player player, final int from, final int to) {
+        this.board.getCell(from).removePlayer(player);
+        this.board.getCell(to).setPlayer(player);
     }
-}
\ No newline at end of file
+}
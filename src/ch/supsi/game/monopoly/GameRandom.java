@@ -0,0 +1,184 @@
+package ch.supsi.game.monopoly;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Random generator of a game, whose internal state can be read and restored.
+ * </p>
+ * <p>
+ * The generator is the same 48-bit linear congruential generator of
+ * {@link Random}, so a {@code GameRandom} built with a seed generates
+ * exactly the same values as {@code new Random(seed)}. Unlike {@link Random},
+ * its state is exposed, so that a saved game goes on rolling the same dices
+ * it would have rolled.
+ * </p>
+ * <p>
+ * The generator is meant to be used by the game thread only, and is not
+ * thread safe. The second value cached by {@link Random#nextGaussian()} is
+ * not part of the state, as the game never uses it.
+ * </p>
+ * <p>
+ * The generator also counts its draws, the steps of the generator: as a
+ * turn draws only a few times, the number of draws tells the state after a
+ * turn in a byte, and {@link GameRandom#advance(long)} reaches it again.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameRandom random = new GameRandom(42);
+ * long state = random.getState();  // remember the state
+ * random.nextInt(6);
+ * random.setState(state);          // the next value is generated again
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameRandom extends Random {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The multiplier of the generator, the same as {@link Random}.
+     */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+
+    /**
+     * The addend of the generator, the same as {@link Random}.
+     */
+    private static final long ADDEND = 0xBL;
+
+    /**
+     * The mask keeping the 48 bits of the state.
+     */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * The 48-bit state of the generator.
+     * Not initialized here, as {@link Random} sets it through {@link GameRandom#setSeed(long)}.
+     */
+    private long state;
+
+    /**
+     * The number of steps of the generator since its creation.
+     */
+    private long draws;
+
+    /**
+     * <p>
+     * Creates a generator with a seed that is very likely different from any other.
+     * </p>
+     */
+    public GameRandom() {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * <p>
+     * Creates a generator with the given seed.
+     * </p>
+     *
+     * @param seed the seed
+     */
+    public GameRandom(final long seed) {
+        super(seed);
+    }
+
+    /**
+     * <p>
+     * Sets the seed of the generator, scrambled as {@link Random#setSeed(long)} does.
+     * </p>
+     *
+     * @param seed the seed
+     */
+    @Override
+    public void setSeed(final long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * <p>
+     * Generates the next pseudorandom bits.
+     * </p>
+     *
+     * @param bits the number of bits
+     * @return the pseudorandom bits
+     */
+    @Override
+    protected int next(final int bits) {
+        this.state = (this.state * MULTIPLIER + ADDEND) & MASK;
+        this.draws++;
+        return (int) (this.state >>> (48 - bits));
+    }
+
+    /**
+     * <p>
+     * Returns the internal state of the generator.
+     * </p>
+     *
+     * @return the state, of 48 bits
+     */
+    public long getState() {
+        return this.state;
+    }
+
+    /**
+     * <p>
+     * Restores an internal state returned by {@link GameRandom#getState()}.
+     * </p>
+     *
+     * @param state the state
+     * @throws IllegalArgumentException if the state has more than 48 bits
+     */
+    public void setState(final long state) {
+        if ((state & ~MASK) != 0) throw new IllegalArgumentException("The state must be of 48 bits");
+        this.state = state;
+    }
+
+    /**
+     * <p>
+     * Returns the number of steps of the generator since its creation,
+     * counting the steps skipped by {@link GameRandom#advance(long)}.
+     * </p>
+     *
+     * @return the number of draws
+     */
+    public long getDraws() {
+        return this.draws;
+    }
+
+    /**
+     * <p>
+     * Moves the generator forward, as if it had drawn the given number of times.
+     * </p>
+     * <p>
+     * The steps are composed by squaring, in a time logarithmic in their number.
+     * </p>
+     *
+     * @param steps the number of steps
+     * @throws IllegalArgumentException if the number of steps is negative
+     */
+    public void advance(final long steps) {
+        if (steps < 0) throw new IllegalArgumentException("steps cannot be negative");
+        long multiplier = 1;
+        long addend = 0;
+        long stepMultiplier = MULTIPLIER;
+        long stepAddend = ADDEND;
+        for (long n = steps; n != 0; n >>>= 1) {
+            if ((n & 1) != 0) {
+                multiplier = (multiplier * stepMultiplier) & MASK;
+                addend = (addend * stepMultiplier + stepAddend) & MASK;
+            }
+            stepAddend = ((stepMultiplier + 1) * stepAddend) & MASK;
+            stepMultiplier = (stepMultiplier * stepMultiplier) & MASK;
+        }
+        this.state = (this.state * multiplier + addend) & MASK;
+        this.draws += steps;
+    }
+}
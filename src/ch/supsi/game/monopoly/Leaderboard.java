@@ -0,0 +1,361 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.event.GameEventListener;
+
+/**
+ * <p>
+ * This class represents the leaderboard of a game "Monopoly".
+ * </p>
+ * <p>
+ * The leaderboard listens on the game's event bus and keeps two rankings
+ * of the players, one by balance and one by net worth (balance plus the
+ * value of proprieties and buildings), together with the number of players
+ * still alive.
+ * </p>
+ * <p>
+ * Every time the money or the proprieties of a player change, only that
+ * player is moved up or down in the rankings, by as many places as it
+ * gains or loses, so reading any position of the rankings or the number
+ * of players alive is O(1). The players array of the game is never
+ * reordered, so the turn order is preserved.
+ * </p>
+ * <p>
+ * A player is alive while their balance is positive and they have not
+ * gone bankrupt.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Leaderboard leaderboard = new Leaderboard(4);  // leaderboard for 4 players
+ * bus.register(leaderboard);                     // listen to the game's events
+ * leaderboard.add(player);                       // add the players, in turn order
+ * leaderboard.getByBalance(0);                   // the richest player
+ * leaderboard.getAliveCount();                   // the number of players alive
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class Leaderboard implements GameEventListener {
+
+    /**
+     * The players, ordered by balance, descending.
+     */
+    private final Player[] byBalance;
+
+    /**
+     * The players, ordered by net worth, descending.
+     */
+    private final Player[] byNetWorth;
+
+    /**
+     * The position of every player (by seat) in {@link Leaderboard#byBalance}.
+     */
+    private final int[] balanceRank;
+
+    /**
+     * The position of every player (by seat) in {@link Leaderboard#byNetWorth}.
+     */
+    private final int[] netWorthRank;
+
+    /**
+     * The net worth of every player (by seat), as last computed.
+     */
+    private final double[] netWorth;
+
+    /**
+     * Whether every player (by seat) is alive.
+     */
+    private final boolean[] alive;
+
+    /**
+     * The number of players added to the leaderboard.
+     */
+    private int size;
+
+    /**
+     * The number of players alive.
+     */
+    private int aliveCount;
+
+    /**
+     * <p>
+     * Constructor of the Leaderboard class.
+     * </p>
+     *
+     * @param playersNumber the number of players of the game
+     */
+    public Leaderboard(final int playersNumber) {
+        if (playersNumber < 1) throw new IllegalArgumentException("There must be at least one player");
+        this.byBalance = new Player[playersNumber];
+        this.byNetWorth = new Player[playersNumber];
+        this.balanceRank = new int[playersNumber];
+        this.netWorthRank = new int[playersNumber];
+        this.netWorth = new double[playersNumber];
+        this.alive = new boolean[playersNumber];
+    }
+
+    /**
+     * <p>
+     * Adds a player to the leaderboard.
+     * </p>
+     * <p>
+     * The seat of the player is assigned in order of addition.
+     * </p>
+     *
+     * @param player the player
+     * @throws IllegalStateException if the leaderboard is full
+     */
+    public void add(final Player player) {
+        if (this.size == this.byBalance.length) throw new IllegalStateException("Leaderboard is full");
+        final int seat = this.size++;
+        player.setSeat(seat);
+        this.byBalance[seat] = player;
+        this.byNetWorth[seat] = player;
+        this.balanceRank[seat] = seat;
+        this.netWorthRank[seat] = seat;
+        this.update(player);
+    }
+
+    /**
+     * <p>
+     * Updates the position of a player in the rankings and their alive flag.
+     * </p>
+     *
+     * @param player the player
+     */
+    private void update(final Player player) {
+        final int seat = player.getSeat();
+        if (seat < 0 || seat >= this.size || this.byBalance[this.balanceRank[seat]] != player) return;
+        final boolean isAlive = !player.isBankrupt() && player.getBalance() > 0;
+        if (isAlive != this.alive[seat]) {
+            this.alive[seat] = isAlive;
+            this.aliveCount += isAlive ? 1 : -1;
+        }
+        this.netWorth[seat] = player.getNetWorth();
+        this.reposition(this.byBalance, this.balanceRank, seat, false);
+        this.reposition(this.byNetWorth, this.netWorthRank, seat, true);
+    }
+
+    /**
+     * <p>
+     * Recomputes the rankings and the alive flags of all the players,
+     * after their state changed without firing any event, as when
+     * a saved game is loaded.
+     * </p>
+     */
+    public void refresh() {
+        this.aliveCount = 0;
+        for (int seat = 0; seat < this.size; seat++) {
+            final Player player = this.byBalance[this.balanceRank[seat]];
+            this.alive[seat] = !player.isBankrupt() && player.getBalance() > 0;
+            if (this.alive[seat]) this.aliveCount++;
+            this.netWorth[seat] = player.getNetWorth();
+        }
+        this.sort(this.byBalance, this.balanceRank, false);
+        this.sort(this.byNetWorth, this.netWorthRank, true);
+    }
+
+    /**
+     * <p>
+     * Sorts a whole ranking, by insertion, as only a handful of players play.
+     * </p>
+     *
+     * @param ranking the ranking
+     * @param rank the position of every player in the ranking
+     * @param byNetWorth whether the ranking is by net worth or by balance
+     */
+    private void sort(final Player[] ranking, final int[] rank, final boolean byNetWorth) {
+        for (int i = 1; i < this.size; i++) {
+            final Player player = ranking[i];
+            final double key = this.keyOf(player, byNetWorth);
+            int j = i;
+            while (j > 0 && this.keyOf(ranking[j - 1], byNetWorth) < key) {
+                ranking[j] = ranking[j - 1];
+                j--;
+            }
+            ranking[j] = player;
+        }
+        for (int i = 0; i < this.size; i++) rank[ranking[i].getSeat()] = i;
+    }
+
+    /**
+     * <p>
+     * Moves a player up or down a ranking until it is in order again.
+     * </p>
+     *
+     * @param ranking the ranking
+     * @param rank the position of every player in the ranking
+     * @param seat the seat of the player
+     * @param byNetWorth whether the ranking is by net worth or by balance
+     */
+    private void reposition(final Player[] ranking, final int[] rank, final int seat, final boolean byNetWorth) {
+        int i = rank[seat];
+        final Player player = ranking[i];
+        final double key = this.keyOf(player, byNetWorth);
+        while (i > 0 && this.keyOf(ranking[i - 1], byNetWorth) < key) {
+            ranking[i] = ranking[i - 1];
+            rank[ranking[i].getSeat()] = i;
+            i--;
+        }
+        while (i < this.size - 1 && this.keyOf(ranking[i + 1], byNetWorth) > key) {
+            ranking[i] = ranking[i + 1];
+            rank[ranking[i].getSeat()] = i;
+            i++;
+        }
+        ranking[i] = player;
+        rank[seat] = i;
+    }
+
+    /**
+     * <p>
+     * Returns the ranking key of a player.
+     * </p>
+     *
+     * @param player the player
+     * @param byNetWorth whether the key is the net worth or the balance
+     * @return the key
+     */
+    private double keyOf(final Player player, final boolean byNetWorth) {
+        return byNetWorth ? this.netWorth[player.getSeat()] : player.getBalance();
+    }
+
+    /**
+     * <p>
+     * Returns the number of players in the leaderboard.
+     * </p>
+     *
+     * @return the number of players
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * <p>
+     * Returns the number of players still alive.
+     * </p>
+     *
+     * @return the number of players alive
+     */
+    public int getAliveCount() {
+        return this.aliveCount;
+    }
+
+    /**
+     * <p>
+     * Returns whether a player is still alive.
+     * </p>
+     *
+     * @param player the player
+     * @return true if the player is alive
+     */
+    public boolean isAlive(final Player player) {
+        return this.alive[player.getSeat()];
+    }
+
+    /**
+     * <p>
+     * Returns the player at the given position of the ranking by balance.
+     * </p>
+     *
+     * @param rank the position, 0 being the richest
+     * @return the player
+     */
+    public Player getByBalance(final int rank) {
+        if (rank < 0 || rank >= this.size) throw new IndexOutOfBoundsException(rank);
+        return this.byBalance[rank];
+    }
+
+    /**
+     * <p>
+     * Returns the player at the given position of the ranking by net worth.
+     * </p>
+     *
+     * @param rank the position, 0 being the wealthiest
+     * @return the player
+     */
+    public Player getByNetWorth(final int rank) {
+        if (rank < 0 || rank >= this.size) throw new IndexOutOfBoundsException(rank);
+        return this.byNetWorth[rank];
+    }
+
+    /**
+     * <p>
+     * Returns the net worth of a player, as last updated.
+     * </p>
+     *
+     * @param player the player
+     * @return the net worth
+     */
+    public double getNetWorth(final Player player) {
+        return this.netWorth[player.getSeat()];
+    }
+
+    /**
+     * <p>
+     * Updates the rankings of the player that paid.
+     * </p>
+     *
+     * @param player the player paying
+     * @param amount the amount paid
+     */
+    @Override
+    public void onPaid(final Player player, final double amount) {
+        this.update(player);
+    }
+
+    /**
+     * <p>
+     * Updates the rankings of the player that received money.
+     * </p>
+     *
+     * @param player the player receiving
+     * @param amount the amount received
+     */
+    @Override
+    public void onReceived(final Player player, final double amount) {
+        this.update(player);
+    }
+
+    /**
+     * <p>
+     * Updates the net worth ranking of the buyer.
+     * </p>
+     *
+     * @param player the buyer
+     * @param cellIndex the index of the propriety
+     * @param price the price paid
+     */
+    @Override
+    public void onBought(final Player player, final int cellIndex, final double price) {
+        this.update(player);
+    }
+
+    /**
+     * <p>
+     * Updates the net worth ranking of the player that built.
+     * </p>
+     *
+     * @param player the player building
+     * @param cellIndex the index of the propriety
+     * @param level the building level reached
+     */
+    @Override
+    public void onBuilt(final Player player, final int cellIndex, final int level) {
+        this.update(player);
+    }
+
+    /**
+     * <p>
+     * Marks the bankrupt player as no longer alive.
+     * </p>
+     *
+     * @param player the bankrupt player
+     */
+    @Override
+    public void onBankrupted(final Player player) {
+        this.update(player);
+    }
+}
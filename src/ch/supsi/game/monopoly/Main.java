@@ -1,8 +1,35 @@
 package ch.supsi.game.monopoly;
 
+import ch.mazluc.util.ANSIUtility;
+import ch.supsi.game.monopoly.input.AsyncInputProvider;
+import ch.supsi.game.monopoly.input.ConsoleInputProvider;
+import ch.supsi.game.monopoly.input.InputProvider;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class Main {
-    public static void main(String[] args) {
-        Game game = new Game(Constant.PLAYER_NUMBER);
-        game.start();
+    public static void main(String[] args) throws IOException {
+        final Path autosave = Path.of(Constant.AUTOSAVE_FILE);
+        final InputProvider input = new AsyncInputProvider(new ConsoleInputProvider());
+        final Game game;
+        if (Files.exists(autosave) && resume(input)) {
+            // resumes the game quit last time, from the start of its last turn
+            game = GameSnapshot.load(Files.readAllBytes(autosave), input);
+            game.play();
+        } else {
+            game = new Game(new Board(), Constant.PLAYER_NUMBER, input, new GameRandom());
+            game.start();
+        }
+        final byte[] saved = game.getSpeculator().getAutosave();
+        if (saved != null && game.getLeaderboard().getAliveCount() > 1) Files.write(autosave, saved);
+        else Files.deleteIfExists(autosave);
+    }
+
+    private static boolean resume(final InputProvider input) {
+        ANSIUtility.println(Constant.RESUME_QUESTION);
+        return new ScannerUtils(input).readBoolean();
     }
 }
@@ -3,8 +3,8 @@ package ch.supsi.game.monopoly;
 import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.cells.Cell;
 import ch.supsi.game.monopoly.cells.ProprietyCell;
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
+import ch.supsi.game.monopoly.event.GameEventBus;
+
 import java.util.*;
 
 /**
@@ -18,7 +18,8 @@ import java.util.*;
  * <pre>
  * {@code
  * Player player = new Player("Luca",'L');  // instantiate a new Player
- * player.addPropertyListener(this);        // listen to the player's position
+ * player.setEventBus(bus);                 // fire the player's events on the game bus
+ * player.setStateHash(hash);               // keep the hash of the game up to date
  * player.move(2);                          // moves the player
  * player.receive(100);                     // receive some money
  * player.pay(50);                          // pay some money
@@ -52,11 +53,15 @@ public class Player {
     private int position;
 
     /**
-     * PropertyChange support class, which allows to fire
-     * {@link java.beans.PropertyChangeEvent}s and trigger
-     * behaviour in a {@link PropertyChangeListener}.
+     * The event bus of the game the player is in, on which movements,
+     * payments and imprisonments are fired.
      */
-    private final PropertyChangeSupport support;
+    private GameEventBus events = GameEventBus.NONE;
+
+    /**
+     * The hash of the state of the game the player updates.
+     */
+    private StateHash stateHash = StateHash.NONE;
 
     /**
      * Flag that states if the player is in prison
@@ -78,6 +83,16 @@ public class Player {
      */
     private int timesTriedEvading;
 
+    /**
+     * Flag that states if the player went bankrupt and is out of the game.
+     */
+    private boolean isBankrupt;
+
+    /**
+     * The seat of the player in the game, {@code -1} if not yet seated.
+     */
+    private int seat = -1;
+
     /**
      * A list of integers representing the proprieties, group by color, owned by the player.
      * <b>Example:</b>
@@ -106,6 +121,32 @@ public class Player {
      */
     private final int[] colorsOwned = new int[8];
 
+    /**
+     * <p>
+     * The board indexes of the proprieties owned by the player, in ascending order.
+     * </p>
+     * <p>
+     * Only the first {@link Player#ownedCount} entries are meaningful.
+     * </p>
+     */
+    private int[] ownedIndexes = new int[8];
+
+    /**
+     * The proprieties owned by the player, in the same order of {@link Player#ownedIndexes}.
+     */
+    private ProprietyCell[] ownedProprieties = new ProprietyCell[8];
+
+    /**
+     * The number of proprieties owned by the player.
+     */
+    private int ownedCount;
+
+    /**
+     * The listing of the proprieties owned, built lazily and
+     * reset every time a propriety is added or removed.
+     */
+    private String ownedListing;
+
     /**
      * <p>
      * Constructor of the Player class.
@@ -129,7 +170,6 @@ public class Player {
         this.symbol = symbol;
         this.isInPrison = false;
         this.timesTriedEvading = 0;
-        this.support = new PropertyChangeSupport(this);
     }
 
     /**
@@ -155,7 +195,8 @@ public class Player {
         }
         final int old = this.position;
         this.position = position;
-        this.support.firePropertyChange("position", old, this.position);
+        this.stateHash.replace(StateHash.POSITION, this.seat, old, this.position);
+        this.events.moved(this, old, this.position);
     }
     /**
      * <p>
@@ -167,7 +208,8 @@ public class Player {
     public void move(final int movement) {
         final int old = this.position;
         this.position = (this.position + movement) % Constant.BOARD_SIZE;
-        this.support.firePropertyChange("position", old, this.position);
+        this.stateHash.replace(StateHash.POSITION, this.seat, old, this.position);
+        this.events.moved(this, old, this.position);
     }
 
     /**
@@ -185,11 +227,42 @@ public class Player {
      * <p>
      * Set the prison flag.
      * </p>
+     * <p>
+     * When the player enters the prison, the "jailed" event is fired.
+     * </p>
      *
      * @param inPrison the boolean flag
      */
     public void setInPrison(final boolean inPrison) {
-        isInPrison = inPrison;
+        final boolean wasInPrison = this.isInPrison;
+        final int flags = this.getFlags();
+        this.isInPrison = inPrison;
+        this.stateHash.replace(StateHash.FLAGS, this.seat, flags, this.getFlags());
+        if (inPrison && !wasInPrison) this.events.jailed(this);
+    }
+
+    /**
+     * <p>
+     * If the player went bankrupt returns true.
+     * </p>
+     *
+     * @return if the player is bankrupt
+     */
+    public boolean isBankrupt() {
+        return this.isBankrupt;
+    }
+
+    /**
+     * <p>
+     * Set the bankrupt flag.
+     * </p>
+     *
+     * @param bankrupt the boolean flag
+     */
+    public void setBankrupt(final boolean bankrupt) {
+        final int flags = this.getFlags();
+        this.isBankrupt = bankrupt;
+        this.stateHash.replace(StateHash.FLAGS, this.seat, flags, this.getFlags());
     }
 
     /**
@@ -211,7 +284,9 @@ public class Player {
      * @param isEvader the boolean flag
      */
     public void setEvader(final boolean isEvader) {
+        final int flags = this.getFlags();
         this.isEvader = isEvader;
+        this.stateHash.replace(StateHash.FLAGS, this.seat, flags, this.getFlags());
     }
 
     /**
@@ -222,7 +297,7 @@ public class Player {
      * @param amountEvaded the amount of money
      */
     public void incrementAmountEvaded(final double amountEvaded) {
-        this.amountEvaded += amountEvaded;
+        this.setAmountEvaded(this.amountEvaded + amountEvaded);
     }
 
     /**
@@ -244,7 +319,9 @@ public class Player {
      * @param amountEvaded the amount of money
      */
     public void setAmountEvaded(final double amountEvaded) {
+        final double old = this.amountEvaded;
         this.amountEvaded = amountEvaded;
+        this.stateHash.replace(StateHash.EVADED, this.seat, StateHash.amount(old), StateHash.amount(amountEvaded));
     }
 
     /**
@@ -266,7 +343,36 @@ public class Player {
      * @param timesTriedEvading the times the player has already tried evading
      */
     public void setTimesTriedEvading(final int timesTriedEvading) {
+        final int old = this.timesTriedEvading;
         this.timesTriedEvading = timesTriedEvading;
+        this.stateHash.replace(StateHash.TRIES, this.seat, old, timesTriedEvading);
+    }
+
+    /**
+     * <p>
+     * Returns the seat of the player in the game: their index in turn order.
+     * </p>
+     *
+     * @return the seat, {@code -1} if the player is not yet seated
+     */
+    public int getSeat() {
+        return this.seat;
+    }
+
+    /**
+     * <p>
+     * Sets the seat of the player in the game.
+     * </p>
+     * <p>
+     * As the features of the player are keyed by their seat, they are hashed again.
+     * </p>
+     *
+     * @param seat the seat
+     */
+    public void setSeat(final int seat) {
+        final long before = this.getStateKey();
+        this.seat = seat;
+        this.stateHash.toggle(before ^ this.getStateKey());
     }
 
     /**
@@ -319,7 +425,10 @@ public class Player {
         if (amount < 1) {
             return;
         }
+        final double old = this.balance;
         this.balance += amount;
+        this.stateHash.replace(StateHash.BALANCE, this.seat, StateHash.amount(old), StateHash.amount(this.balance));
+        this.events.received(this, amount);
     }
 
 
@@ -338,7 +447,10 @@ public class Player {
         if (amount < 1) {
             return;
         }
+        final double old = this.balance;
         this.balance -= amount;
+        this.stateHash.replace(StateHash.BALANCE, this.seat, StateHash.amount(old), StateHash.amount(this.balance));
+        this.events.paid(this, amount);
     }
 
     /**
@@ -358,6 +470,33 @@ public class Player {
         return false;
     }
 
+    /**
+     * <p>
+     * Returns the number of proprieties of a color the player owns.
+     * </p>
+     *
+     * @param color the color code
+     * @return the number of proprieties, 0 if the color is not of a propriety
+     */
+    public int getOwnedOfColor(final int color) {
+        final int index = indexColor(color);
+        return index == -1 ? 0 : this.colorsOwned[index];
+    }
+
+    /**
+     * <p>
+     * Returns the number of proprieties of a color, all needed to build upon them.
+     * </p>
+     *
+     * @param color the color code
+     * @return the number of proprieties of the color
+     */
+    public static int getColorSize(final int color) {
+        if (color == ANSIUtility.BROWN) return Constant.BROWN_PROPRIETIES_AMOUNT;
+        if (color == ANSIUtility.BLUE) return Constant.BLUE_PROPRIETIES_AMOUNT;
+        return Constant.OTHER_PROPRIETIES_AMOUNT;
+    }
+
     /**
      * <p>
      * Adds a propriety to the colors owned array.
@@ -373,6 +512,135 @@ public class Player {
         }
     }
 
+    /**
+     * <p>
+     * Adds a propriety to the ones owned by the player, keeping
+     * them ordered by their index on the board.
+     * </p>
+     * <p>
+     * The color of the propriety is counted as well, as in {@link Player#addColor(Cell)}.
+     * </p>
+     *
+     * @param cellIndex the index of the propriety on the board
+     * @param pc the propriety
+     */
+    public void addPropriety(final int cellIndex, final ProprietyCell pc) {
+        int i = Arrays.binarySearch(this.ownedIndexes, 0, this.ownedCount, cellIndex);
+        if (i >= 0) return;
+        i = -(i + 1);
+        if (this.ownedCount == this.ownedIndexes.length) {
+            this.ownedIndexes = Arrays.copyOf(this.ownedIndexes, this.ownedCount * 2);
+            this.ownedProprieties = Arrays.copyOf(this.ownedProprieties, this.ownedCount * 2);
+        }
+        System.arraycopy(this.ownedIndexes, i, this.ownedIndexes, i + 1, this.ownedCount - i);
+        System.arraycopy(this.ownedProprieties, i, this.ownedProprieties, i + 1, this.ownedCount - i);
+        this.ownedIndexes[i] = cellIndex;
+        this.ownedProprieties[i] = pc;
+        this.ownedCount++;
+        this.ownedListing = null;
+        this.addColor(pc);
+    }
+
+    /**
+     * <p>
+     * Removes all the proprieties owned by the player,
+     * and the colors counted for them.
+     * </p>
+     */
+    public void clearProprieties() {
+        Arrays.fill(this.ownedProprieties, 0, this.ownedCount, null);
+        Arrays.fill(this.colorsOwned, 0);
+        this.ownedCount = 0;
+        this.ownedListing = null;
+    }
+
+    /**
+     * <p>
+     * Returns the number of proprieties owned by the player.
+     * </p>
+     *
+     * @return the number of proprieties owned
+     */
+    public int getOwnedCount() {
+        return this.ownedCount;
+    }
+
+    /**
+     * <p>
+     * Returns the board index of the i-th propriety owned by the player.
+     * </p>
+     *
+     * @param i the position in the ordered proprieties, from 0 to {@link Player#getOwnedCount()} - 1
+     * @return the index of the propriety on the board
+     */
+    public int getOwnedIndex(final int i) {
+        if (i < 0 || i >= this.ownedCount) throw new IndexOutOfBoundsException(i);
+        return this.ownedIndexes[i];
+    }
+
+    /**
+     * <p>
+     * Returns the i-th propriety owned by the player.
+     * </p>
+     *
+     * @param i the position in the ordered proprieties, from 0 to {@link Player#getOwnedCount()} - 1
+     * @return the propriety
+     */
+    public ProprietyCell getOwnedPropriety(final int i) {
+        if (i < 0 || i >= this.ownedCount) throw new IndexOutOfBoundsException(i);
+        return this.ownedProprieties[i];
+    }
+
+    /**
+     * <p>
+     * Returns the value of the proprieties owned by the player:
+     * their purchase price plus the money spent on their buildings.
+     * </p>
+     *
+     * @return the value of the proprieties
+     */
+    public double getProprietiesValue() {
+        double value = 0;
+        for (int i = 0; i < this.ownedCount; i++) {
+            value += this.ownedProprieties[i].getPurchasePrice() + this.ownedProprieties[i].getBuildingsValue();
+        }
+        return value;
+    }
+
+    /**
+     * <p>
+     * Returns the net worth of the player: their balance
+     * plus the value of their proprieties.
+     * </p>
+     *
+     * @return the net worth
+     */
+    public double getNetWorth() {
+        return this.balance + this.getProprietiesValue();
+    }
+
+    /**
+     * <p>
+     * Returns, as a String, all proprieties owned by the player,
+     * numbered in board order.
+     * </p>
+     * <p>
+     * The listing is built once and reused until the proprieties change.
+     * </p>
+     *
+     * @return the list of the proprieties owned by the player
+     */
+    public String getProprietiesListing() {
+        if (this.ownedListing == null) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < this.ownedCount; i++) {
+                sb.append(i + 1).append(" ").append(this.ownedProprieties[i].getTitle()).append("\n");
+            }
+            this.ownedListing = sb.toString();
+        }
+        return this.ownedListing;
+    }
+
     /**
      * <p>
      * Shows the proprieties owned by the player on which they can build.
@@ -381,10 +649,10 @@ public class Player {
      * @param buildOptions the cells the player can build upon
      */
     public void showBuildOptions(final Cell[] buildOptions){
-        System.out.println("Choose where you want to build: ");
+        ANSIUtility.println("Choose where you want to build: ");
         for (int i = 0; i < buildOptions.length; i++) {
             if (buildOptions[i] != null)
-                System.out.printf("%2s. %s%n", (i+1), buildOptions[i].getTitle());
+                ANSIUtility.printf("%2s. %s%n", (i+1), buildOptions[i].getTitle());
         }
     }
 
@@ -496,23 +764,92 @@ public class Player {
 
     /**
      * <p>
-     * Adds a new listener to the {@code PropertyChange} trigger class ({@code this}).
+     * Sets the event bus on which the player fires its events.
      * </p>
      *
-     * @param pcl a PropertyChangeListener object describing the event listener
+     * @param events the event bus of the game
      */
-    public void addPropertyChangeListener(PropertyChangeListener pcl) {
-        this.support.addPropertyChangeListener(pcl);
+    public void setEventBus(final GameEventBus events) {
+        if (events == null) throw new IllegalArgumentException("events cannot be null");
+        this.events = events;
+    }
+
+    /**
+     * <p>
+     * Sets the hash of the state of the game the player updates,
+     * moving the features of the player into it.
+     * </p>
+     *
+     * @param stateHash the hash of the game
+     */
+    public void setStateHash(final StateHash stateHash) {
+        if (stateHash == null) throw new IllegalArgumentException("stateHash cannot be null");
+        final long key = this.getStateKey();
+        this.stateHash.toggle(key);
+        this.stateHash = stateHash;
+        stateHash.toggle(key);
     }
 
     /**
      * <p>
-     * Removes a listener to the {@code PropertyChange} trigger class ({@code this}).
+     * Returns the XOR of the keys of the features of the player,
+     * their part of the {@link StateHash} of the game.
      * </p>
      *
-     * @param pcl a PropertyChangeListener object describing the event listener
+     * @return the keys
+     */
+    public long getStateKey() {
+        return StateHash.key(StateHash.POSITION, this.seat, this.position)
+                ^ StateHash.key(StateHash.BALANCE, this.seat, StateHash.amount(this.balance))
+                ^ StateHash.key(StateHash.FLAGS, this.seat, this.getFlags())
+                ^ StateHash.key(StateHash.EVADED, this.seat, StateHash.amount(this.amountEvaded))
+                ^ StateHash.key(StateHash.TRIES, this.seat, this.timesTriedEvading);
+    }
+
+    /**
+     * <p>
+     * Returns the prison, evader and bankrupt flags of the player, as a feature.
+     * </p>
+     *
+     * @return the flags, one bit each
      */
-    public void removePropertyChangeListener(PropertyChangeListener pcl) {
-        this.support.removePropertyChangeListener(pcl);
+    private int getFlags() {
+        return (this.isInPrison ? 1 : 0) | (this.isEvader ? 2 : 0) | (this.isBankrupt ? 4 : 0);
+    }
+
+    /**
+     * <p>
+     * Restores the state of the player, as when a saved game is loaded.
+     * </p>
+     * <p>
+     * No event is fired: the listeners of the game are expected to be
+     * brought up to date as a whole, once the game is restored.
+     * The proprieties are restored separately, with
+     * {@link Player#addPropriety(int, ProprietyCell)}.
+     * </p>
+     *
+     * @param balance the balance
+     * @param position the position on the board
+     * @param inPrison whether the player is in prison
+     * @param evader whether the player is a tax evader
+     * @param amountEvaded the amount evaded
+     * @param timesTriedEvading the times the player tried to get out of prison
+     * @param bankrupt whether the player went bankrupt
+     */
+    public void restoreState(final double balance, final int position, final boolean inPrison,
+                             final boolean evader, final double amountEvaded,
+                             final int timesTriedEvading, final boolean bankrupt) {
+        if (position < 0 || position >= Constant.BOARD_SIZE) {
+            throw new IllegalArgumentException("Position must be between 0 and " + (Constant.BOARD_SIZE - 1));
+        }
+        final long before = this.getStateKey();
+        this.balance = balance;
+        this.position = position;
+        this.isInPrison = inPrison;
+        this.isEvader = evader;
+        this.amountEvaded = amountEvaded;
+        this.timesTriedEvading = timesTriedEvading;
+        this.isBankrupt = bankrupt;
+        this.stateHash.toggle(before ^ this.getStateKey());
     }
 }
@@ -0,0 +1,103 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * The decisions a {@link Game} asks its players for.
+ * </p>
+ * <p>
+ * The game asks the controller what the current player does on their turn,
+ * whether they buy the free propriety they landed on, whether and where
+ * they build and whether they evade taxes. The {@link ConsoleController}
+ * asks the user on the console, as the game always did; other controllers
+ * answer for remote clients, bots or timeouts, without reading anything.
+ * </p>
+ * <p>
+ * The controller is called by the thread playing the game.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new PlayerController() {
+ *     public int chooseOption(Game game, Player player) { return PlayerController.ROLL; }
+ *     public boolean buy(Game game, Player player, ProprietyCell cell) { return true; }
+ *     public int build(Game game, Player player, Cell[] options) { return 0; }
+ *     public boolean evade(Game game, Player player) { return false; }
+ * });
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public interface PlayerController {
+
+    /**
+     * Option: roll the dices and play the turn.
+     */
+    int ROLL = 1;
+
+    /**
+     * Option: show the balance of the player.
+     */
+    int SHOW_BALANCE = 2;
+
+    /**
+     * Option: show the proprieties of the player.
+     */
+    int SHOW_PROPRIETIES = 3;
+
+    /**
+     * Option: quit the game.
+     */
+    int QUIT = 4;
+
+    /**
+     * <p>
+     * Chooses what the current player does.
+     * </p>
+     *
+     * @param game the game
+     * @param player the current player
+     * @return one of {@link PlayerController#ROLL}, {@link PlayerController#SHOW_BALANCE},
+     *         {@link PlayerController#SHOW_PROPRIETIES} and {@link PlayerController#QUIT}
+     */
+    int chooseOption(Game game, Player player);
+
+    /**
+     * <p>
+     * Decides whether the player buys the free propriety they landed on, that they can afford.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    boolean buy(Game game, Player player, ProprietyCell cell);
+
+    /**
+     * <p>
+     * Chooses where the player builds, at the end of their turn.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player, who can build
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    int build(Game game, Player player, Cell[] options);
+
+    /**
+     * <p>
+     * Decides whether the player becomes a tax evader.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player, on the tax evasion cell
+     * @return true to evade
+     */
+    boolean evade(Game game, Player player);
+}
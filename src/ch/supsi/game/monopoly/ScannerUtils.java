@@ -1,12 +1,23 @@
 package ch.supsi.game.monopoly;
 
-import java.util.Scanner;
+import ch.mazluc.util.ANSIUtility;
+import ch.supsi.game.monopoly.input.ConsoleInputProvider;
+import ch.supsi.game.monopoly.input.InputProvider;
 
 /**
  * <p>
  * This class is in charge of managing the interaction
  * between the console (user) and the program.
  * </p>
+ * <p>
+ * Prompts are printed through {@link ANSIUtility}, and the output is
+ * flushed on the terminal before every read, so that everything printed
+ * during the turn reaches the user at once.
+ * </p>
+ * <p>
+ * Input is read a line at a time from an {@link InputProvider}, by default
+ * the console; a transcript can be given instead, to replay a session.
+ * </p>
  * <b>Usage</b>:
  * <pre>
  * {@code
@@ -26,9 +37,44 @@ import java.util.Scanner;
 public class ScannerUtils {
 
     /**
-     * Scanner instance.
+     * The source of the lines typed by the user.
+     */
+    private final InputProvider input;
+
+    /**
+     * <p>
+     * Creates a new instance reading from the console.
+     * </p>
      */
-    private final Scanner scanner = new Scanner(System.in);
+    public ScannerUtils() {
+        this(new ConsoleInputProvider());
+    }
+
+    /**
+     * <p>
+     * Creates a new instance reading from the given provider.
+     * </p>
+     *
+     * @param input the source of the lines
+     */
+    public ScannerUtils(final InputProvider input) {
+        if (input == null) throw new IllegalArgumentException("input cannot be null");
+        this.input = input;
+    }
+
+    /**
+     * <p>
+     * Prints the prompt, flushes the output and reads the next line.
+     * </p>
+     *
+     * @param msg the prompt
+     * @return the line read
+     */
+    private String prompt(final String msg) {
+        ANSIUtility.print(msg);
+        ANSIUtility.flush();
+        return this.input.readLine(msg);
+    }
 
     /**
      * <p>
@@ -53,19 +99,19 @@ public class ScannerUtils {
         int input = 0;
         boolean correctInput = false;
         while (!correctInput) {
-            System.out.print(msg);
-            if (this.scanner.hasNextInt()) {
-                input = this.scanner.nextInt();
+            String line = this.prompt(msg);
+            while (line.isBlank()) line = this.prompt(msg);
+            final String token = line.trim().split("\\s+", 2)[0];
+            try {
+                input = Integer.parseInt(token);
                 if (input < min || input > max)
-                    System.out.println("Error: number not in range.");
+                    ANSIUtility.println("Error: number not in range.");
                 else
                     correctInput = true;
-            } else {
-                System.out.println("Error: input is not a number.");
-                emptyTheScanner();
+            } catch (NumberFormatException e) {
+                ANSIUtility.println("Error: input is not a number.");
             }
         }
-        this.emptyTheScanner();
         return input;
     }
 
@@ -79,14 +125,13 @@ public class ScannerUtils {
     public boolean readBoolean() {
         String input;
         do {
-            System.out.print("Y/n: ");
-            input = this.scanner.nextLine().trim().toLowerCase();
+            input = this.prompt(Constant.YES_NO_PROMPT).trim().toLowerCase();
             if (input.equals("y")) {
                 return true;
             } else if (input.equals("n")) {
                 return false;
             } else {
-                System.out.println("Invalid input. Please enter 'Y' or 'n'.");
+                ANSIUtility.println("Invalid input. Please enter 'Y' or 'n'.");
             }
         } while (true);
     }
@@ -108,10 +153,9 @@ public class ScannerUtils {
         String input = "";
         boolean correctInput = false;
         while (!correctInput) {
-            System.out.print(msg);
-            input = this.scanner.nextLine();
+            input = this.prompt(msg);
             if (input.trim().isEmpty()) {
-                System.out.println("Error: string is empty or contains only white spaces.");
+                ANSIUtility.println("Error: string is empty or contains only white spaces.");
             } else {
                 correctInput = true;
             }
@@ -136,12 +180,11 @@ public class ScannerUtils {
         String input = "";
         boolean correctInput = false;
         while (!correctInput) {
-            System.out.print(msg);
-            input = this.scanner.nextLine();
+            input = this.prompt(msg);
             if (input.trim().isEmpty()) {
-                System.out.println("Error: character is empty or contains only white spaces.");
+                ANSIUtility.println("Error: character is empty or contains only white spaces.");
             } else if(input.length()!=1){
-                System.out.println("Error: input is not a character");
+                ANSIUtility.println("Error: input is not a character");
             }else{
                 correctInput = true;
             }
@@ -164,9 +207,9 @@ public class ScannerUtils {
      * @return the user's option
      */
     public int readOption(){
-        System.out.println("What do you want to do?");
+        ANSIUtility.println("What do you want to do?");
         return this.readIntInRange(1,4,
-                "1. Roll the dice\n2. View your balance\n3. View your proprieties\n4. Quit\nOption: ");
+                "1. Roll the dice\n2. View your balance\n3. View your proprieties\n4. Quit\n" + Constant.OPTION_PROMPT);
     }
 
     /**
@@ -181,25 +224,15 @@ public class ScannerUtils {
      * @param msg the message to display
      */
     public void readKey(String msg){
-        System.out.print(msg);
-        this.scanner.nextLine();
+        this.prompt(msg);
     }
 
     /**
      * <p>
-     * Closes the {@link ScannerUtils#scanner} used by this class.
+     * Closes the {@link InputProvider} used by this class.
      * </p>
      */
     public void closeScanner() {
-        this.scanner.close();
-    }
-
-    /**
-     * <p>
-     * Empties the {@link ScannerUtils#scanner}'s buffer.
-     * </p>
-     */
-    public void emptyTheScanner() {
-        this.scanner.nextLine();
+        this.input.close();
     }
 }
@@ -0,0 +1,235 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.IdleWork;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Work the game does speculatively while the user thinks.
+ * </p>
+ * <p>
+ * At every prompt the speculator is restarted and, one small step at a time,
+ * renders the board in advance (so that showing it again is immediate) and
+ * values the purchase of every cell the current player could land on with
+ * the next dice roll.
+ * </p>
+ * <p>
+ * At the first prompt of every turn, before the user can answer, the game
+ * is also saved with {@link GameSnapshot}, so that a quit game can be
+ * resumed from the start of its last turn whatever the timing of the input.
+ * </p>
+ * <p>
+ * The valuations are read by the game when it offers a propriety, and by
+ * the bots valuing their purchases: what was not speculated in time is
+ * valued on the spot.
+ * </p>
+ * <p>
+ * Every step only reads the state of the game, so cancelling the work, when
+ * the user answers, leaves nothing to undo.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Speculator speculator = new Speculator(game);
+ * asyncInput.setIdleWork(speculator::restart);   // speculate at every prompt
+ * speculator.getPurchaseValuation(cell);         // valued while the user thought
+ * speculator.getAutosave();                      // the game at the start of the turn
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class Speculator implements IdleWork, GameEventListener {
+
+    /**
+     * The lowest sum of the dices.
+     */
+    private static final int MIN_SUM = Constant.NUMBER_OF_DICES * Constant.DICE_MIN_VALUE;
+
+    /**
+     * The highest sum of the dices.
+     */
+    private static final int MAX_SUM = Constant.NUMBER_OF_DICES * Constant.DICE_MAX_VALUE;
+
+    /**
+     * The number of steps: the board, then every sum of the dices.
+     */
+    private static final int STEPS = MAX_SUM - MIN_SUM + 2;
+
+    /**
+     * The game to speculate on.
+     */
+    private final Game game;
+
+    /**
+     * The valuation of the purchase of every cell, by index;
+     * {@code NaN} if it was not valued, or cannot be bought.
+     */
+    private final double[] purchaseValuation = new double[Constant.BOARD_SIZE];
+
+    /**
+     * The number of opponents the valuations refer to.
+     */
+    private int opponents = -1;
+
+    /**
+     * The next step to do.
+     */
+    private int step;
+
+    /**
+     * Whether a turn started since the last prompt.
+     */
+    private boolean turnStarted;
+
+    /**
+     * The game saved at the start of the last turn, null if none.
+     */
+    private byte[] autosave;
+
+    /**
+     * <p>
+     * Creates a speculator for a game.
+     * </p>
+     *
+     * @param game the game
+     */
+    public Speculator(final Game game) {
+        if (game == null) throw new IllegalArgumentException("game cannot be null");
+        this.game = game;
+        Arrays.fill(this.purchaseValuation, Double.NaN);
+    }
+
+    /**
+     * <p>
+     * Values the purchase of a propriety: the rent earned per round, if
+     * every opponent lands on it once, per unit of price.
+     * </p>
+     *
+     * @param cell the propriety
+     * @param opponents the number of opponents
+     * @return the valuation
+     */
+    public static double valuePurchase(final ProprietyCell cell, final int opponents) {
+        return cell.getRent() * opponents / cell.getPurchasePrice();
+    }
+
+    /**
+     * <p>
+     * Restarts the speculation from the current state of the game, saving
+     * the game first if this is the first prompt of a turn.
+     * </p>
+     *
+     * @return this speculator, as the work to do
+     */
+    public IdleWork restart() {
+        this.step = 0;
+        if (this.turnStarted && this.game.isRunning()) this.autosave = GameSnapshot.save(this.game);
+        this.turnStarted = false;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Does the next step: first the rendering of the board, then the
+     * valuation of one sum of the dices at a time.
+     * </p>
+     *
+     * @return true if there is more to do
+     */
+    @Override
+    public boolean step() {
+        final Player current = this.game.getCurrentPlayer();
+        if (current == null) return false;
+        if (this.step == 0) {
+            this.game.getBoard().toString();
+            Arrays.fill(this.purchaseValuation, Double.NaN);
+            this.opponents = opponents(this.game);
+        } else {
+            this.value((current.getPosition() + MIN_SUM + this.step - 1) % Constant.BOARD_SIZE);
+        }
+        return ++this.step < STEPS;
+    }
+
+    /**
+     * <p>
+     * Values the purchase of the given cell, if it can be bought.
+     * </p>
+     *
+     * @param index the index of the cell
+     */
+    private void value(final int index) {
+        if (this.game.getBoard().getCell(index) instanceof ProprietyCell pc && pc.getOwner() == null) {
+            this.purchaseValuation[index] = valuePurchase(pc, this.opponents);
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of players alive besides the current one.
+     * </p>
+     *
+     * @param game the game
+     * @return the number of opponents
+     */
+    private static int opponents(final Game game) {
+        return Math.max(0, game.getLeaderboard().getAliveCount() - 1);
+    }
+
+    /**
+     * <p>
+     * Returns the valuation of buying a free propriety, as given by
+     * {@link Speculator#valuePurchase(ProprietyCell, int)} with the
+     * opponents of the current player: speculated while the user
+     * thought, if it was, else valued now.
+     * </p>
+     *
+     * @param cell the free propriety
+     * @return the valuation
+     */
+    public double getPurchaseValuation(final ProprietyCell cell) {
+        final int opponents = opponents(this.game);
+        final double speculated = this.purchaseValuation[this.game.getBoard().indexOf(cell)];
+        if (!Double.isNaN(speculated) && opponents == this.opponents) return speculated;
+        return valuePurchase(cell, opponents);
+    }
+
+    /**
+     * <p>
+     * Returns the game saved at the start of the last turn the user
+     * was waited for, to be loaded with {@link GameSnapshot#load}.
+     * </p>
+     *
+     * @return the full snapshot of the game, null if none was taken
+     */
+    public byte[] getAutosave() {
+        return this.autosave;
+    }
+
+    /**
+     * <p>
+     * Marks the start of the first turn.
+     * </p>
+     */
+    @Override
+    public void onGameStarted() {
+        this.turnStarted = true;
+    }
+
+    /**
+     * <p>
+     * Marks the start of the next turn.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.turnStarted = true;
+    }
+}
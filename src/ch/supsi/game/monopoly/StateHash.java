@@ -0,0 +1,197 @@
+package ch.supsi.game.monopoly;
+
+/**
+ * <p>
+ * Incremental 64-bit Zobrist hash of the state of a game.
+ * </p>
+ * <p>
+ * The state is seen as a set of features, such as "the player in seat 2 is
+ * on cell 17" or "the propriety 5 has 3 houses", and the hash is the XOR of
+ * a pseudo-random key for every feature. Changing a feature XORs out the key
+ * of its old value and XORs in the key of the new one, so the hash follows
+ * every move, payment, purchase and building in O(1), and can be read at any
+ * time without walking the game. Equal states have equal hashes however
+ * they were reached, so the hash tells replicas that lost sync, replays
+ * that went their own way, positions already searched and cycles.
+ * </p>
+ * <p>
+ * The keys are not drawn into a table but computed by mixing the feature,
+ * the slot (a seat, a propriety, a deck, a cell) and the value: they exist for any
+ * seat and any amount of money, and are the same in every process, so the
+ * hashes of two replicas can be compared.
+ * </p>
+ * <p>
+ * The components of a game ({@link Player}, {@link Bank},
+ * {@link ch.supsi.game.monopoly.cells.ProprietyCell ProprietyCell},
+ * {@link ch.supsi.game.monopoly.cells.TaxEvasionCell TaxEvasionCell} and
+ * {@link ch.supsi.game.monopoly.cards.Deck Deck}) are attached to the hash
+ * of their game, XORing in all their features, and update it themselves.
+ * Components not (yet) attached update {@link StateHash#NONE}, which ignores them.
+ * </p>
+ * <p>
+ * The hash is meant to be updated by the game thread only, and is not thread safe.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * StateHash hash = new StateHash();
+ * player.setStateHash(hash);               // XORs in the features of the player
+ * player.move(3);                          // updates the hash
+ * long value = hash.get();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class StateHash {
+
+    /**
+     * Feature: the position of a player.
+     */
+    public static final int POSITION = 1;
+
+    /**
+     * Feature: the balance of a player.
+     */
+    public static final int BALANCE = 2;
+
+    /**
+     * Feature: the prison, evader and bankrupt flags of a player.
+     */
+    public static final int FLAGS = 3;
+
+    /**
+     * Feature: the amount evaded by a player.
+     */
+    public static final int EVADED = 4;
+
+    /**
+     * Feature: the times a player tried to get out of prison.
+     */
+    public static final int TRIES = 5;
+
+    /**
+     * Feature: the seat of the owner of a propriety, 0 if none.
+     */
+    public static final int OWNER = 6;
+
+    /**
+     * Feature: the building level of a propriety.
+     */
+    public static final int LEVEL = 7;
+
+    /**
+     * Feature: the order of a deck.
+     */
+    public static final int DECK = 8;
+
+    /**
+     * Feature: a card of a deck, keyed by its index in the file of the deck.
+     */
+    public static final int CARD = 9;
+
+    /**
+     * Feature: the funds of the bank.
+     */
+    public static final int BANK = 10;
+
+    /**
+     * Feature: the seat of the player whose turn it is.
+     */
+    public static final int TURN = 11;
+
+    /**
+     * Feature: whether a tax evasion cell, keyed by its index on the board, is active.
+     */
+    public static final int EVASION = 12;
+
+    /**
+     * <p>
+     * Hash of the components not (yet) part of a game, ignoring every update.
+     * </p>
+     */
+    public static final StateHash NONE = new StateHash();
+
+    /**
+     * The XOR of the keys of the features.
+     */
+    private long value;
+
+    /**
+     * <p>
+     * Returns the hash.
+     * </p>
+     *
+     * @return the XOR of the keys of the features
+     */
+    public long get() {
+        return this.value;
+    }
+
+    /**
+     * <p>
+     * XORs keys in or out of the hash.
+     * </p>
+     *
+     * @param keys the keys, XORed together
+     */
+    public void toggle(final long keys) {
+        if (this != NONE) this.value ^= keys;
+    }
+
+    /**
+     * <p>
+     * Replaces the value of a feature.
+     * </p>
+     *
+     * @param feature the feature
+     * @param slot the seat, propriety or deck the feature is of
+     * @param before the old value
+     * @param after the new value
+     */
+    public void replace(final int feature, final int slot, final long before, final long after) {
+        if (before != after && this != NONE) this.value ^= key(feature, slot, before) ^ key(feature, slot, after);
+    }
+
+    /**
+     * <p>
+     * Returns the key of a feature having a value.
+     * </p>
+     *
+     * @param feature the feature
+     * @param slot the seat, propriety or deck the feature is of
+     * @param value the value
+     * @return the key
+     */
+    public static long key(final int feature, final int slot, final long value) {
+        return mix(mix((long) feature << 32 | (slot & 0xFFFFFFFFL)) + value);
+    }
+
+    /**
+     * <p>
+     * Returns the value of an amount of money, as a feature.
+     * </p>
+     *
+     * @param amount the amount
+     * @return its bits, the same for {@code 0.0} and {@code -0.0}
+     */
+    public static long amount(final double amount) {
+        return Double.doubleToLongBits(amount + 0.0);
+    }
+
+    /**
+     * <p>
+     * Mixes the bits of a value, with the finalizer of SplitMix64.
+     * </p>
+     *
+     * @param z the value
+     * @return the mixed value
+     */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
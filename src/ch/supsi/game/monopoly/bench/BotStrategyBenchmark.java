@@ -0,0 +1,161 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.bot.AlwaysBuyStrategy;
+import ch.supsi.game.monopoly.bot.BotController;
+import ch.supsi.game.monopoly.bot.BotStrategy;
+import ch.supsi.game.monopoly.bot.CashThresholdStrategy;
+import ch.supsi.game.monopoly.bot.ColorCompletionStrategy;
+import ch.supsi.game.monopoly.bot.RoiStrategy;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Benchmark of the {@link BotStrategy bot strategies}: a game of bots is
+ * played for some turns, then every strategy decides, over and over, whether
+ * every player buys every propriety, where they build and whether they
+ * evade. Tells the nanoseconds a decision takes, and how many games of bots
+ * a second are played, so that the decisions can be compared with the rest
+ * of a turn.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.BotStrategyBenchmark [rounds] [games]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class BotStrategyBenchmark {
+
+    /**
+     * The number of players of every game.
+     */
+    private static final int PLAYERS = 4;
+
+    /**
+     * The number of options played before deciding.
+     */
+    private static final int WARM_OPTIONS = 120;
+
+    /**
+     * The number of options after which the games of bots end.
+     */
+    private static final int GAME_OPTIONS = 1000;
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private BotStrategyBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of rounds of decisions, and of games of bots
+     */
+    public static void main(final String[] args) {
+        final int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final BotStrategy[] strategies = {new AlwaysBuyStrategy(), new CashThresholdStrategy(300),
+                new RoiStrategy(0.05, 200), new ColorCompletionStrategy(200)};
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final Game game = newGame(1);
+        final BotController warm = new BotController(WARM_OPTIONS, strategies);
+        game.setController(warm);
+        game.begin();
+        while (warm.getOptions() < WARM_OPTIONS && game.step()) {
+            // plays until the board is half bought
+        }
+        final List<ProprietyCell> proprieties = new ArrayList<>();
+        for (Cell cell : game.getBoard().getCells()) {
+            if (cell instanceof ProprietyCell pc) proprieties.add(pc);
+        }
+        final ProprietyCell[] cells = proprieties.toArray(new ProprietyCell[0]);
+        final Player[] players = game.getPlayers();
+        final Cell[][] options = new Cell[players.length][];
+        for (int p = 0; p < players.length; p++) options[p] = players[p].getBuildOptions(game.getBoard());
+        for (BotStrategy strategy : strategies) {
+            // the first pass warms up the code
+            decide(strategy, game, players, cells, options, rounds / 10);
+            final long start = System.nanoTime();
+            final long decisions = decide(strategy, game, players, cells, options, rounds);
+            final long elapsed = System.nanoTime() - start;
+            System.out.printf("%-24s %6.1f ns/decision%n", strategy.getClass().getSimpleName(),
+                    (double) elapsed / decisions);
+        }
+        long alive = 0;
+        final long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            final Game played = newGame(g);
+            played.setController(new BotController(GAME_OPTIONS, strategies));
+            played.begin();
+            while (played.step()) {
+                // plays the whole game
+            }
+            alive += played.getLeaderboard().getAliveCount();
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%d games of bots: %.0f games/s (%d players still alive)%n",
+                games, games * 1e9 / elapsed, alive);
+    }
+
+    /**
+     * <p>
+     * Returns a game of {@link BotStrategyBenchmark#PLAYERS} bots.
+     * </p>
+     *
+     * @param seed the seed of the game
+     * @return the game, with its players seated
+     */
+    private static Game newGame(final long seed) {
+        final Game game = GameReplay.newGame(seed, PLAYERS, prompt -> "");
+        game.init(new String[]{"Bot 1", "Bot 2", "Bot 3", "Bot 4"}, new char[]{'A', 'B', 'C', 'D'});
+        return game;
+    }
+
+    /**
+     * <p>
+     * Takes the decisions of every player on every propriety, for a number of rounds.
+     * </p>
+     *
+     * @param strategy the strategy deciding
+     * @param game the game
+     * @param players the players
+     * @param cells the proprieties of the board
+     * @param options the build options of every player
+     * @param rounds the number of rounds
+     * @return the number of decisions taken
+     */
+    private static long decide(final BotStrategy strategy, final Game game, final Player[] players,
+                               final ProprietyCell[] cells, final Cell[][] options, final int rounds) {
+        long decisions = 0;
+        int sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            final Player player = players[r % players.length];
+            for (ProprietyCell cell : cells) {
+                if (strategy.buy(game, player, cell)) sink++;
+            }
+            sink += strategy.build(game, player, options[r % players.length]);
+            if (strategy.evade(game, player)) sink++;
+            decisions += cells.length + 2;
+        }
+        if (sink == Integer.MIN_VALUE) System.out.println(sink);
+        return decisions;
+    }
+}
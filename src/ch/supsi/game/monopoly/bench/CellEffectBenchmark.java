@@ -0,0 +1,152 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.simulation.CellEffectTable;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Benchmark comparing the object model of the cell effects
+ * ({@link Cell#applyEffect(Player, Game)}) with the table-driven
+ * {@link CellEffectTable}.
+ * </p>
+ * <p>
+ * Both implementations apply the same random sequence of landings on a
+ * random board; the console output of the object model goes to a
+ * {@link DiscardSink}, so
+ * that only the cost of the effects is measured. The tax evasion cell is
+ * skipped, as the object model asks the user.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.CellEffectBenchmark [landings] [rounds]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class CellEffectBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private CellEffectBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of landings per round and the number of rounds
+     */
+    public static void main(final String[] args) {
+        final int landings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final Game objectGame = newGame();
+        final Game tableGame = newGame();
+        final CellEffectTable table = CellEffectTable.compile(tableGame);
+        final int[] indexes = randomLandings(CellEffectTable.compile(objectGame), table, landings);
+        for (int r = 0; r < rounds; r++) {
+            final long objectNanos = runObjectModel(objectGame, indexes);
+            final long tableNanos = runTable(tableGame, table, indexes);
+            System.out.printf("Round %2d: object model %6.2f ns/op, table %6.2f ns/op%n",
+                    r + 1, (double) objectNanos / landings, (double) tableNanos / landings);
+        }
+    }
+
+    /**
+     * <p>
+     * Creates a new random game, with its players already initialized.
+     * </p>
+     *
+     * @return the game
+     */
+    private static Game newGame() {
+        final Game game = new Game(Constant.PLAYER_NUMBER);
+        final String[] names = new String[Constant.PLAYER_NUMBER];
+        final char[] symbols = new char[Constant.PLAYER_NUMBER];
+        for (int i = 0; i < Constant.PLAYER_NUMBER; i++) {
+            names[i] = "Bot " + (i + 1);
+            symbols[i] = (char) ('A' + i);
+        }
+        game.init(names, symbols);
+        return game;
+    }
+
+    /**
+     * <p>
+     * Generates a random sequence of landing cells, skipping the tax evasion cell
+     * of both boards.
+     * </p>
+     *
+     * @param objectTable the compiled board of the object model game
+     * @param table the compiled board of the table game
+     * @param landings the number of landings
+     * @return the indexes of the landing cells
+     */
+    private static int[] randomLandings(final CellEffectTable objectTable, final CellEffectTable table,
+                                        final int landings) {
+        final Random random = new Random(42);
+        final int[] indexes = new int[landings];
+        for (int i = 0; i < landings; i++) {
+            int index;
+            do {
+                index = random.nextInt(table.size());
+            } while (table.getType(index) == CellEffectTable.TAX_EVASION ||
+                    objectTable.getType(index) == CellEffectTable.TAX_EVASION);
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+
+    /**
+     * <p>
+     * Applies the landings with the object model.
+     * </p>
+     *
+     * @param game the game
+     * @param indexes the landing cells
+     * @return the elapsed nanoseconds
+     */
+    private static long runObjectModel(final Game game, final int[] indexes) {
+        final Cell[] cells = game.getBoard().getCells();
+        final Player player = game.getPlayers()[0];
+        final long start = System.nanoTime();
+        for (int index : indexes) {
+            cells[index].applyEffect(player, game);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * <p>
+     * Applies the landings with the compiled table.
+     * </p>
+     *
+     * @param game the game
+     * @param table the compiled board
+     * @param indexes the landing cells
+     * @return the elapsed nanoseconds
+     */
+    private static long runTable(final Game game, final CellEffectTable table, final int[] indexes) {
+        final Player player = game.getPlayers()[0];
+        final long start = System.nanoTime();
+        for (int index : indexes) {
+            table.apply(index, player);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,194 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.BufferedTerminalSink;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.InputProvider;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.input.TranscriptInputProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * End-to-end benchmark of the command line interface: a transcript is
+ * replayed through {@link Game#start()}, and the throughput in turns per
+ * second and the per-turn latency are reported.
+ * </p>
+ * <p>
+ * Everything the real game does is measured, rendering of the board included:
+ * the output is written in a {@link BufferedTerminalSink} whose stream
+ * discards the bytes, so only the terminal itself is left out.
+ * </p>
+ * <p>
+ * If no transcript file is given, or the file does not exist, a transcript
+ * is recorded first by the scripted players of a {@link ScriptedInputProvider},
+ * who always roll the dice, buy and build, and quit after the given number of
+ * turns; it is saved in the file, if given. The board and the dices are seeded, so every replay plays the same game.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.CliThroughputBenchmark [turns] [runs] [seed] [transcript]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class CliThroughputBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private CliThroughputBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of turns to record, the number of replays,
+     *             the seed and the transcript file
+     * @throws IOException if the transcript cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        final int turns = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        final Path path = args.length > 3 ? Path.of(args[3]) : null;
+        ANSIUtility.setThreadSink(new BufferedTerminalSink(OutputStream.nullOutputStream()));
+        final List<String> transcript;
+        if (path != null && Files.exists(path)) {
+            transcript = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } else {
+            transcript = record(turns, seed);
+            if (path != null) Files.write(path, transcript, StandardCharsets.UTF_8);
+        }
+        for (int r = 0; r < runs; r++) {
+            replay(r + 1, transcript, seed);
+        }
+    }
+
+    /**
+     * <p>
+     * Creates a new seeded game reading from the given input.
+     * </p>
+     *
+     * @param input the input
+     * @param seed the seed of the board and of the dices
+     * @return the game
+     */
+    private static Game newGame(final InputProvider input, final long seed) {
+        return new Game(new Board(new Random(seed)), Constant.PLAYER_NUMBER, input, new GameRandom(seed));
+    }
+
+    /**
+     * <p>
+     * Records a transcript, played by the scripted player.
+     * </p>
+     *
+     * @param turns the number of turns before quitting
+     * @param seed the seed of the game
+     * @return the lines of the transcript
+     */
+    private static List<String> record(final int turns, final long seed) {
+        final ScriptedInputProvider input = new ScriptedInputProvider(turns);
+        newGame(input, seed).start();
+        return input.getTranscript();
+    }
+
+    /**
+     * <p>
+     * Replays a transcript and prints the results on the standard output.
+     * </p>
+     *
+     * @param run the number of the run
+     * @param transcript the lines of the transcript
+     * @param seed the seed of the game
+     */
+    private static void replay(final int run, final List<String> transcript, final long seed) {
+        final TranscriptInputProvider input = new TranscriptInputProvider(transcript);
+        final Game game = newGame(input, seed);
+        final TurnTimer timer = new TurnTimer();
+        game.getEventBus().register(timer);
+        final long start = System.nanoTime();
+        game.start();
+        final long elapsed = System.nanoTime() - start;
+        final long[] latencies = timer.latencies();
+        System.out.printf("Run %2d: %6d turns, %9.0f turns/s, p50 %7.1f us, p99 %7.1f us, max %8.1f us%s%n",
+                run, timer.count, timer.count * 1e9 / elapsed,
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                percentile(latencies, 1.0) / 1e3,
+                input.remaining() == 0 ? "" : " (transcript out of step, " + input.remaining() + " lines left)");
+    }
+
+    /**
+     * <p>
+     * Returns a percentile of sorted samples.
+     * </p>
+     *
+     * @param sorted the samples, sorted
+     * @param p the percentile, between 0 and 1
+     * @return the sample at the percentile, 0 if there are none
+     */
+    private static long percentile(final long[] sorted, final double p) {
+        if (sorted.length == 0) return 0;
+        final int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * <p>
+     * Listener measuring the time between the end of two consecutive turns.
+     * </p>
+     */
+    private static final class TurnTimer implements GameEventListener {
+
+        /**
+         * The nanoseconds at the end of every turn.
+         */
+        private long[] ends = new long[1024];
+
+        /**
+         * The number of turns played.
+         */
+        private int count;
+
+        @Override
+        public void onTurnEnded(final Player player) {
+            if (this.count == this.ends.length) this.ends = Arrays.copyOf(this.ends, this.count * 2);
+            this.ends[this.count++] = System.nanoTime();
+        }
+
+        /**
+         * <p>
+         * Returns the sorted latencies of the turns, the first excluded.
+         * </p>
+         *
+         * @return the latencies, in nanoseconds
+         */
+        long[] latencies() {
+            final long[] latencies = new long[Math.max(0, this.count - 1)];
+            for (int i = 1; i < this.count; i++) latencies[i - 1] = this.ends[i] - this.ends[i - 1];
+            Arrays.sort(latencies);
+            return latencies;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.persistence.GameRecord;
+import ch.supsi.game.monopoly.persistence.GameRecorder;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+/**
+ * <p>
+ * Benchmark of the {@link GameReplay} of games played by bots: size of
+ * their {@link GameRecord} and turns replayed per second, checkpoints
+ * included.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.GameReplayBenchmark [games] [turns] [interval]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameReplayBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private GameReplayBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of games, the number of turns of every game and the checkpoint interval
+     */
+    public static void main(final String[] args) {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        final int turns = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        final int interval = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final GameRecord[] records = new GameRecord[games];
+        long bytes = 0;
+        long played = 0;
+        for (int i = 0; i < games; i++) {
+            final GameRecorder recorder = new GameRecorder(i, Constant.PLAYER_NUMBER,
+                    new ScriptedInputProvider(turns), interval);
+            recorder.getGame().start();
+            final byte[] data = recorder.toRecord().encode();
+            records[i] = GameRecord.decode(data);
+            bytes += data.length;
+            played += records[i].getTurns();
+        }
+        System.out.printf("%d games, %d turns: %.1f bytes/game, %.3f bytes/turn%n",
+                games, played, (double) bytes / games, (double) bytes / played);
+        for (int round = 1; round <= 5; round++) {
+            final long start = System.nanoTime();
+            for (GameRecord record : records) {
+                if (!GameReplay.replay(record).isFaithful()) throw new IllegalStateException("Divergent replay");
+            }
+            final long elapsed = System.nanoTime() - start;
+            System.out.printf("Round %d: %.0f turns/s, %.1f us/game%n",
+                    round, played * 1e9 / elapsed, elapsed / 1e3 / games);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import ch.supsi.game.monopoly.server.LockstepLeader;
+import ch.supsi.game.monopoly.server.LockstepReplica;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * <p>
+ * Benchmark of the lockstep replication: games of bots are played by a
+ * {@link LockstepLeader} while a {@link LockstepReplica} follows them over
+ * loopback, on another thread. Tells the bytes sent a turn, against the
+ * size of a snapshot of the state, and the turns per second of the pair.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.LockstepBenchmark [games] [turns] [hashInterval]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class LockstepBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private LockstepBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of games, of options of every game and of turns between two hashes
+     * @throws IOException if the loopback connection fails
+     * @throws InterruptedException if interrupted while waiting for the replica
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int options = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        final int hashInterval = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        long bytes = 0;
+        long turns = 0;
+        long snapshots = 0;
+        long elapsed = 0;
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            for (int g = 0; g < games; g++) {
+                final Game game = GameReplay.newGame(g, 4, prompt -> "");
+                game.init(new String[]{"Bot 1", "Bot 2", "Bot 3", "Bot 4"}, new char[]{'A', 'B', 'C', 'D'});
+                final LockstepLeader leader = new LockstepLeader(game, g, bot(options), hashInterval);
+                final LockstepReplica replica = new LockstepReplica(SocketChannel.open(server.getLocalAddress()));
+                leader.attach(server.accept());
+                final Thread follower = new Thread(() -> {
+                    try {
+                        while (replica.receive() != 0) {
+                            // follows the leader
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                final long start = System.nanoTime();
+                follower.start();
+                leader.play();
+                follower.join();
+                elapsed += System.nanoTime() - start;
+                bytes += leader.getBytesSent();
+                turns += leader.getTurns();
+                snapshots += GameSnapshot.saveState(game).length;
+                leader.close();
+                replica.close();
+            }
+        }
+        System.out.printf("%d games, %d turns: %.1f bytes/turn (snapshot %d bytes), %.0f turns/s%n",
+                games, turns, (double) bytes / turns, snapshots / games, turns * 1e9 / elapsed);
+    }
+
+    /**
+     * <p>
+     * Returns a bot rolling and buying whatever it can, quitting after a number of options.
+     * </p>
+     *
+     * @param options the number of options before quitting
+     * @return the bot
+     */
+    private static PlayerController bot(final int options) {
+        return new PlayerController() {
+
+            /**
+             * The number of options chosen.
+             */
+            private int chosen;
+
+            @Override
+            public int chooseOption(final Game game, final Player player) {
+                return ++this.chosen > options ? PlayerController.QUIT : PlayerController.ROLL;
+            }
+
+            @Override
+            public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+                return true;
+            }
+
+            @Override
+            public int build(final Game game, final Player player, final Cell[] options) {
+                return 0;
+            }
+
+            @Override
+            public boolean evade(final Game game, final Player player) {
+                return false;
+            }
+        };
+    }
+}
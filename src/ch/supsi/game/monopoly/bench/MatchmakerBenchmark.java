@@ -0,0 +1,105 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.server.Matchmaker;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * Benchmark of the {@link Matchmaker}: players join from several threads,
+ * asking for 2 to {@link Constant#PLAYER_NUMBER} players, while a matcher
+ * thread assembles their games in batches. Tells the joins per second and
+ * how long a player waits, from joining to being seated in a game: when the
+ * players join faster than games are assembled, the queues fill up, and the
+ * wait is bounded by their capacity.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.MatchmakerBenchmark [players] [joiners] [batch] [capacity]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class MatchmakerBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private MatchmakerBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of players, of joining threads, of games per batch
+     *             and of players waiting for every number of players
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int sizes = Constant.PLAYER_NUMBER - Matchmaker.MIN_PLAYERS + 1;
+        final int joiners = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int perJoiner = (args.length > 0 ? Integer.parseInt(args[0]) : 60_000) / joiners;
+        final int players = perJoiner * joiners;
+        final int batch = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        final int capacity = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+        // the players left over by every number of players wait for ever
+        int seatable = 0;
+        for (int size = 0; size < sizes; size++) {
+            final int asking = joiners * ((perJoiner - size + sizes - 1) / sizes);
+            final int n = Matchmaker.MIN_PLAYERS + size;
+            seatable += asking / n * n;
+        }
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final long[] waits = new long[players];
+        final int[] seated = {0};
+        final Matchmaker matchmaker = new Matchmaker(Constant.PLAYER_NUMBER, capacity,
+                n -> new Game(new Board(new Random(n)), n, prompt -> "", new GameRandom(n)),
+                (game, tickets) -> {
+                    final long now = System.nanoTime();
+                    for (Matchmaker.Ticket ticket : tickets) waits[seated[0]++] = now - ticket.getJoinedAt();
+                });
+        final Thread[] threads = new Thread[joiners];
+        for (int j = 0; j < joiners; j++) {
+            final int joiner = j;
+            threads[j] = new Thread(() -> {
+                for (int i = 0; i < perJoiner; i++) {
+                    final Matchmaker.Ticket ticket = new Matchmaker.Ticket("Player " + joiner + "-" + i,
+                            (char) ('A' + i % 26), Matchmaker.MIN_PLAYERS + i % sizes);
+                    while (!matchmaker.join(ticket)) Thread.yield();
+                }
+            });
+        }
+        final long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        int games = 0;
+        int batches = 0;
+        while (seated[0] < seatable) {
+            final int matched = matchmaker.match(batch);
+            games += matched;
+            if (matched > 0) batches++;
+            else Thread.onSpinWait();
+        }
+        final long elapsed = System.nanoTime() - start;
+        for (Thread thread : threads) thread.join();
+        Arrays.sort(waits, 0, seatable);
+        System.out.printf("%d players, %d joiners: %.0f joins/s, %d games in %d batches (%.0f games/s)%n",
+                players, joiners, players * 1e9 / elapsed, games, batches, games * 1e9 / elapsed);
+        System.out.printf("Wait to be seated: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                waits[seatable / 2] / 1e3, waits[seatable * 99 / 100] / 1e3, waits[seatable - 1] / 1e3);
+    }
+}
@@ -0,0 +1,100 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.bot.AlwaysBuyStrategy;
+import ch.supsi.game.monopoly.bot.BotController;
+import ch.supsi.game.monopoly.bot.MctsStrategy;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>
+ * Benchmark of the {@link MctsStrategy}: from the same state of a game, a
+ * number of buy decisions are searched with pools of 1 worker up to the
+ * given number, and the rollouts played a second are told, in all and per
+ * worker. With as many cores as workers, the rollouts per worker should
+ * stay about the same, the root parallelization sharing nothing but the
+ * statistics summed at the end of every decision.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.MctsBenchmark [workers] [decisions] [budgetMillis] [depth]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class MctsBenchmark {
+
+    /**
+     * The number of options played before searching.
+     */
+    private static final int WARM_OPTIONS = 40;
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private MctsBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the largest number of workers, the number of decisions,
+     *             the budget of a decision in milliseconds and the steps of a rollout
+     */
+    public static void main(final String[] args) {
+        final int maxWorkers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int decisions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final long budget = (args.length > 2 ? Long.parseLong(args[2]) : 50) * 1_000_000;
+        final int depth = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final Game game = GameReplay.newGame(11, 4, prompt -> "");
+        game.init(new String[]{"Bot 1", "Bot 2", "Bot 3", "Bot 4"}, new char[]{'A', 'B', 'C', 'D'});
+        final BotController warm = new BotController(WARM_OPTIONS, new AlwaysBuyStrategy());
+        game.setController(warm);
+        game.begin();
+        while (warm.getOptions() < WARM_OPTIONS && game.step()) {
+            // plays until some proprieties are owned
+        }
+        ProprietyCell free = null;
+        for (Cell cell : game.getBoard().getCells()) {
+            if (cell instanceof ProprietyCell pc && pc.getOwner() == null) free = pc;
+        }
+        if (free == null) throw new IllegalStateException("No free propriety left");
+        System.out.printf("%d cores, budget %d ms, rollouts of %d steps%n",
+                Runtime.getRuntime().availableProcessors(), budget / 1_000_000, depth);
+        for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+            final ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                final MctsStrategy mcts = new MctsStrategy(pool, budget, depth, workers);
+                // the first decision copies the game and warms up the code
+                mcts.buy(game, game.getCurrentPlayer(), free);
+                final long first = mcts.getPlayouts();
+                final long start = System.nanoTime();
+                int bought = 0;
+                for (int d = 0; d < decisions; d++) {
+                    if (mcts.buy(game, game.getCurrentPlayer(), free)) bought++;
+                }
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                final double rate = (mcts.getPlayouts() - first) / seconds;
+                System.out.printf("%2d workers: %8.0f playouts/s, %8.0f per worker, bought %d/%d%n",
+                        workers, rate, rate / workers, bought, decisions);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.server.GameClient;
+import ch.supsi.game.monopoly.server.GameServer;
+import ch.supsi.game.monopoly.server.Protocol;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Benchmark of a {@link GameServer} over loopback: thousands of tables, each
+ * played by one hot-seat {@link GameClient} holding all its seats and
+ * checking every delta against its copy of the game. Every round, all the
+ * clients send a burst of rolls before reading the deltas, so all the tables
+ * play at once; the turns per second include the work of the clients.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.ServerBenchmark [tables] [loops] [rolls] [rounds]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class ServerBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private ServerBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of tables, of loops, of rolls per round and of rounds
+     * @throws IOException if the server cannot be reached
+     */
+    public static void main(final String[] args) throws IOException {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int rolls = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        try (GameServer server = new GameServer(0, loops)) {
+            server.start();
+            final Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            final long before = runtime.totalMemory() - runtime.freeMemory();
+            final GameClient[] clients = new GameClient[tables];
+            final long setup = System.nanoTime();
+            for (int i = 0; i < tables; i++) {
+                final long table = server.openTable(i, Constant.PLAYER_NUMBER);
+                clients[i] = new GameClient("localhost", server.getPort());
+                clients[i].buy(true);
+                for (int seat = 0; seat < Constant.PLAYER_NUMBER; seat++) {
+                    clients[i].join(table, "Bot " + (seat + 1), (char) ('A' + seat));
+                }
+            }
+            for (GameClient client : clients) {
+                while (client.receive() != Protocol.SNAPSHOT) {
+                    // the seats are taken, then the game starts
+                }
+            }
+            System.gc();
+            final long after = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("%d tables on %d loops seated in %.0f ms, %.1f KB/table (server and client)%n",
+                    tables, loops, (System.nanoTime() - setup) / 1e6, (after - before) / 1024.0 / tables);
+            for (int round = 1; round <= rounds; round++) {
+                final long start = System.nanoTime();
+                for (GameClient client : clients) {
+                    for (int i = 0; i < rolls; i++) client.roll();
+                }
+                long turns = 0;
+                for (GameClient client : clients) {
+                    for (int i = 0; i < rolls; i++) {
+                        if (client.receive() == Protocol.DELTA) turns++;
+                    }
+                }
+                final long elapsed = System.nanoTime() - start;
+                System.out.printf("Round %d: %d turns, %.0f turns/s, %.2f us/turn%n",
+                        round, turns, turns * 1e9 / elapsed, elapsed / 1e3 / Math.max(1, turns));
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+}
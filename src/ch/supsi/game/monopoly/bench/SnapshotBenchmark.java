@@ -0,0 +1,81 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.input.TranscriptInputProvider;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ * Benchmark of the {@link GameSnapshot} of a game: size of the snapshots,
+ * and time taken to save and restore them.
+ * </p>
+ * <p>
+ * The state is written in a reused {@link ByteWriter} and restored from a
+ * reused {@link ByteReader}, as a host saving its tables every turn would do.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.SnapshotBenchmark [iterations] [rounds]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class SnapshotBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private SnapshotBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of snapshots per round and the number of rounds
+     */
+    public static void main(final String[] args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final Game game = new Game(new Board(new Random(1)), Constant.PLAYER_NUMBER,
+                new TranscriptInputProvider(List.of()), new GameRandom(1));
+        game.init(new String[]{"Bot 1", "Bot 2", "Bot 3", "Bot 4"}, new char[]{'A', 'B', 'C', 'D'});
+        System.out.printf("Full snapshot: %d bytes, state only: %d bytes%n",
+                GameSnapshot.save(game).length, GameSnapshot.saveState(game).length);
+        final ByteWriter out = new ByteWriter();
+        final ByteReader in = new ByteReader(new byte[0]);
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                out.reset();
+                GameSnapshot.save(game, out, false);
+            }
+            final long saveNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                GameSnapshot.restore(game, in.reset(out.array(), 0, out.size()));
+            }
+            final long restoreNanos = System.nanoTime() - start;
+            System.out.printf("Round %d: save %6.0f ns, restore %6.0f ns%n",
+                    r + 1, (double) saveNanos / iterations, (double) restoreNanos / iterations);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.server.GameClient;
+import ch.supsi.game.monopoly.server.GameServer;
+import ch.supsi.game.monopoly.server.Protocol;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * <p>
+ * Benchmark of the fan-out of a table of a {@link GameServer} to its
+ * spectators: the CPU time of the loop per turn, with more and more
+ * spectators. Every turn is encoded once, whatever the number of
+ * spectators, and the same frame is written to all of them, so the cost of
+ * a spectator is the cost of a write.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.SpectatorBenchmark [turns] [spectators...]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class SpectatorBenchmark {
+
+    /**
+     * The seed of a long game.
+     */
+    private static final long SEED = 54;
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private SpectatorBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of turns, then the numbers of spectators to try
+     * @throws IOException if the server cannot be reached
+     */
+    public static void main(final String[] args) throws IOException {
+        final int turns = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int[] counts = {0, 10, 100, 1000};
+        final int[] spectators = args.length > 1 ? new int[args.length - 1] : counts;
+        for (int i = 1; i < args.length; i++) spectators[i - 1] = Integer.parseInt(args[i]);
+        for (int count : spectators) run(turns, count);
+    }
+
+    /**
+     * <p>
+     * Plays a table watched by the given number of spectators.
+     * </p>
+     *
+     * @param turns the number of turns
+     * @param count the number of spectators
+     * @throws IOException if the server cannot be reached
+     */
+    private static void run(final int turns, final int count) throws IOException {
+        try (GameServer server = new GameServer(0, 1)) {
+            server.setQueueLimit(1 << 20);
+            server.start();
+            final long table = server.openTable(SEED, Constant.PLAYER_NUMBER);
+            final GameClient player = new GameClient("localhost", server.getPort());
+            player.buy(true);
+            for (int seat = 0; seat < Constant.PLAYER_NUMBER; seat++) {
+                player.join(table, "Bot " + (seat + 1), (char) ('A' + seat));
+            }
+            while (player.receive() != Protocol.SNAPSHOT) {
+                // the seats are taken, then the game starts
+            }
+            final GameClient[] watchers = new GameClient[count];
+            for (int i = 0; i < count; i++) {
+                watchers[i] = new GameClient("localhost", server.getPort());
+                watchers[i].join(table, "Spectator", 'S');
+                while (watchers[i].receive() != Protocol.SNAPSHOT) {
+                    // seated as a spectator
+                }
+            }
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            final long loop = loopThread(threads);
+            final long cpu = threads.getThreadCpuTime(loop);
+            final long start = System.nanoTime();
+            int played = 0;
+            while (played < turns && player.getGame().isRunning()) {
+                player.roll();
+                while (player.receive() != Protocol.DELTA) {
+                    // the delta of the turn
+                }
+                played++;
+            }
+            final long elapsed = System.nanoTime() - start;
+            final double perTurn = (threads.getThreadCpuTime(loop) - cpu) / 1e3 / played;
+            System.out.printf("%4d spectators: loop %.1f us CPU/turn, %.2f us/turn/spectator, %.0f turns/s%n",
+                    count, perTurn, count == 0 ? 0 : perTurn / count, played * 1e9 / elapsed);
+            // the spectators read the turns, and are checked against the player
+            for (GameClient watcher : watchers) {
+                while (watcher.getTurn() < player.getTurn()) watcher.receive();
+                watcher.close();
+            }
+            player.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Finds the thread of the loop of the server.
+     * </p>
+     *
+     * @param threads the bean of the threads
+     * @return the id of the thread
+     */
+    private static long loopThread(final ThreadMXBean threads) {
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("game-loop-")) return info.getThreadId();
+        }
+        throw new IllegalStateException("No loop running");
+    }
+}
@@ -0,0 +1,116 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.server.GameClient;
+import ch.supsi.game.monopoly.server.GameServer;
+import ch.supsi.game.monopoly.server.Hosting;
+import ch.supsi.game.monopoly.server.Protocol;
+import ch.supsi.game.monopoly.server.TableThreads;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * Benchmark of a {@link GameServer} whose tables are played by a thread of
+ * their own, see {@link Hosting#THREAD_PER_TABLE}: how many tables park
+ * waiting for a command, at what memory cost, how long a parked table takes
+ * to wake up, play a turn and send its delta, and how many turns per second
+ * all the tables play when woken together.
+ * </p>
+ * <p>
+ * Every table is played by one hot-seat {@link GameClient} over loopback,
+ * so the figures include the loops and the clients, as in the
+ * {@link ServerBenchmark}. The threads are virtual on a runtime that has
+ * them, platform threads otherwise.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.TableThreadsBenchmark [tables] [samples] [rounds]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class TableThreadsBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private TableThreadsBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of tables, of wake-ups measured and of rounds waking all the tables
+     * @throws IOException if the server cannot be reached
+     */
+    public static void main(final String[] args) throws IOException {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int samples = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final int loops = Runtime.getRuntime().availableProcessors();
+        try (GameServer server = new GameServer(0, loops, Hosting.THREAD_PER_TABLE)) {
+            server.start();
+            final Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            final long before = runtime.totalMemory() - runtime.freeMemory();
+            final GameClient[] clients = new GameClient[tables];
+            final long start = System.nanoTime();
+            for (int i = 0; i < tables; i++) {
+                final long table = server.openTable(i, Constant.PLAYER_NUMBER);
+                clients[i] = new GameClient("localhost", server.getPort());
+                for (int seat = 0; seat < Constant.PLAYER_NUMBER; seat++) {
+                    clients[i].join(table, "Bot " + (seat + 1), (char) ('A' + seat));
+                }
+            }
+            for (GameClient client : clients) {
+                while (client.receive() != Protocol.SNAPSHOT) {
+                    // the seats are taken, then the thread of the table starts and parks
+                }
+            }
+            final long setup = System.nanoTime() - start;
+            System.gc();
+            final long after = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("%d tables parked on %s threads in %.0f ms, %.1f KB heap/table (server and client)%n",
+                    tables, TableThreads.isVirtual() ? "virtual" : "platform", setup / 1e6,
+                    (after - before) / 1024.0 / tables);
+            final long[] latencies = new long[samples];
+            final Random random = new Random(1);
+            for (int i = 0; i < samples; i++) {
+                final GameClient client = clients[random.nextInt(tables)];
+                final long sent = System.nanoTime();
+                client.roll();
+                while (client.receive() != Protocol.DELTA) {
+                    // the delta of the turn follows whatever the table sent before
+                }
+                latencies[i] = System.nanoTime() - sent;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("Wake-up, turn and delta: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    latencies[samples / 2] / 1e3, latencies[samples * 99 / 100] / 1e3,
+                    latencies[samples - 1] / 1e3);
+            for (int round = 1; round <= rounds; round++) {
+                final long begin = System.nanoTime();
+                for (GameClient client : clients) client.roll();
+                long turns = 0;
+                for (GameClient client : clients) {
+                    if (client.receive() == Protocol.DELTA) turns++;
+                }
+                final long elapsed = System.nanoTime() - begin;
+                System.out.printf("Round %d: all tables woken, %d turns, %.0f turns/s%n",
+                        round, turns, turns * 1e9 / elapsed);
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+}
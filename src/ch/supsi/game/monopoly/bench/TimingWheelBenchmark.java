@@ -0,0 +1,82 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.TimingWheel;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Benchmark of the churn of the turn deadlines of many tables: every table
+ * has a pending deadline, and every turn cancels it and schedules the next
+ * one, on a {@link TimingWheel} and on a {@link ScheduledThreadPoolExecutor}
+ * (with the removal of cancelled tasks, else its queue grows without end).
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.TimingWheelBenchmark [tables] [turns] [rounds]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class TimingWheelBenchmark {
+
+    /**
+     * The deadline of a turn, in nanoseconds.
+     */
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private TimingWheelBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of tables, of turns and of rounds
+     */
+    public static void main(final String[] args) {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int turns = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        final int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final Runnable expire = () -> { };
+        for (int round = 1; round <= rounds; round++) {
+            final TimingWheel wheel = new TimingWheel(10_000_000, System.nanoTime());
+            final TimingWheel.Timer[] timers = new TimingWheel.Timer[tables];
+            for (int i = 0; i < tables; i++) timers[i] = wheel.schedule(TIMEOUT, expire);
+            long start = System.nanoTime();
+            for (int turn = 0; turn < turns; turn++) {
+                final int table = turn % tables;
+                timers[table].cancel();
+                timers[table] = wheel.schedule(TIMEOUT, expire);
+                if ((turn & 1023) == 0) wheel.advance(System.nanoTime());
+            }
+            final long wheelNanos = System.nanoTime() - start;
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[tables];
+            for (int i = 0; i < tables; i++) futures[i] = executor.schedule(expire, TIMEOUT, TimeUnit.NANOSECONDS);
+            start = System.nanoTime();
+            for (int turn = 0; turn < turns; turn++) {
+                final int table = turn % tables;
+                futures[table].cancel(false);
+                futures[table] = executor.schedule(expire, TIMEOUT, TimeUnit.NANOSECONDS);
+            }
+            final long executorNanos = System.nanoTime() - start;
+            executor.shutdownNow();
+            System.out.printf("Round %d: wheel %.0f ns/turn, executor %.0f ns/turn, %d tables%n",
+                    round, (double) wheelNanos / turns, (double) executorNanos / turns, tables);
+        }
+    }
+}
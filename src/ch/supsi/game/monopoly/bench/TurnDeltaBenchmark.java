@@ -0,0 +1,150 @@
+package ch.supsi.game.monopoly.bench;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import ch.supsi.game.monopoly.persistence.TurnDelta;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * Benchmark of the {@link TurnDelta} of a game: size of the deltas of a
+ * game played by bots, and time taken to apply them all to a copy of the
+ * game, as a replay or a remote replica would do. As the bots soon go
+ * bankrupt, the game is replayed again and again for the number of turns asked.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * java ch.supsi.game.monopoly.bench.TurnDeltaBenchmark [turns] [rounds] [seed]
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class TurnDeltaBenchmark {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private TurnDeltaBenchmark() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Runs the benchmark.
+     * </p>
+     *
+     * @param args the number of turns, the number of rounds and the seed
+     */
+    public static void main(final String[] args) {
+        final int turns = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        final Game game = new Game(new Board(new Random(seed)), Constant.PLAYER_NUMBER,
+                new ScriptedInputProvider(turns), new GameRandom(seed));
+        final Recorder recorder = new Recorder(game);
+        game.getEventBus().register(recorder);
+        game.start();
+        final int[] sizes = Arrays.copyOf(recorder.sizes, recorder.count);
+        Arrays.sort(sizes);
+        System.out.printf("%d turns: %.2f bytes/turn, median %d, p99 %d, max %d, full state %d bytes%n",
+                recorder.count, (double) recorder.deltas.size() / recorder.count,
+                sizes[sizes.length / 2], sizes[(int) (sizes.length * 0.99)], sizes[sizes.length - 1],
+                GameSnapshot.saveState(game).length);
+        final ByteReader in = new ByteReader(new byte[0]);
+        final Game replica = GameSnapshot.load(recorder.start, new ScriptedInputProvider(0));
+        final int replays = Math.max(1, turns / recorder.count);
+        for (int r = 0; r < rounds; r++) {
+            long elapsed = 0;
+            for (int i = 0; i < replays; i++) {
+                GameSnapshot.restore(replica, recorder.start);
+                in.reset(recorder.deltas.array(), 0, recorder.deltas.size());
+                final long start = System.nanoTime();
+                while (in.remaining() > 0) TurnDelta.apply(replica, in);
+                elapsed += System.nanoTime() - start;
+            }
+            System.out.printf("Round %d: apply %6.0f ns/turn%n",
+                    r + 1, (double) elapsed / ((long) replays * recorder.count));
+        }
+    }
+
+    /**
+     * <p>
+     * Records the snapshot of the game as it starts and the delta of every turn.
+     * </p>
+     */
+    private static final class Recorder implements GameEventListener {
+
+        /**
+         * The game recorded.
+         */
+        private final Game game;
+
+        /**
+         * The deltas of the turns, one after the other.
+         */
+        private final ByteWriter deltas = new ByteWriter();
+
+        /**
+         * The size of the delta of every turn.
+         */
+        private int[] sizes = new int[1024];
+
+        /**
+         * The number of turns recorded.
+         */
+        private int count;
+
+        /**
+         * The snapshot of the game as it started.
+         */
+        private byte[] start;
+
+        /**
+         * The encoder of the turns.
+         */
+        private TurnDelta delta;
+
+        /**
+         * <p>
+         * Creates the recorder of a game.
+         * </p>
+         *
+         * @param game the game
+         */
+        Recorder(final Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public void onGameStarted() {
+            this.start = GameSnapshot.save(this.game);
+            this.delta = new TurnDelta(this.game);
+        }
+
+        @Override
+        public void onTurnEnded(final Player player) {
+            final int before = this.deltas.size();
+            this.delta.encode(this.deltas);
+            if (this.count == this.sizes.length) this.sizes = Arrays.copyOf(this.sizes, this.count * 2);
+            this.sizes[this.count++] = this.deltas.size() - before;
+        }
+    }
+}
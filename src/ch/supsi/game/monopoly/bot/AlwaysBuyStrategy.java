@@ -0,0 +1,74 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Strategy saying yes to everything: it buys every propriety it can
+ * afford, builds on the first propriety it can, and evades taxes.
+ * </p>
+ * <p>
+ * The simplest of the bots, and the baseline the others are measured against.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(new AlwaysBuyStrategy()));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class AlwaysBuyStrategy implements BotStrategy {
+
+    /**
+     * <p>
+     * Buys the propriety.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return true;
+    }
+
+    /**
+     * <p>
+     * Builds on the first propriety that can be built upon further.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the first propriety not at its highest level, -1 if none
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        for (int i = 0; i < options.length; i++) {
+            if (options[i] instanceof ProprietyCell pc && pc.getNextBuildingPrice() >= 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Evades taxes.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return true
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return true;
+    }
+}
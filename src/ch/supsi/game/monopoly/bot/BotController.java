@@ -0,0 +1,158 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Controller playing a {@link BotStrategy} for every player of a game.
+ * </p>
+ * <p>
+ * The bots always roll the dices, and leave the other decisions to their
+ * strategy, by seat: every player can have a strategy of its own, to
+ * pit them against each other. As a game of bots may never end, the
+ * controller can quit after a given number of options.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(1000, new AlwaysBuyStrategy(), new RoiStrategy(0.1, 200)));
+ * game.play();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class BotController implements PlayerController {
+
+    /**
+     * The strategies, by seat, repeated for the seats after the last one.
+     */
+    private final BotStrategy[] strategies;
+
+    /**
+     * The number of options after which the bots quit, 0 for never.
+     */
+    private final int maxOptions;
+
+    /**
+     * The number of options chosen.
+     */
+    private int options;
+
+    /**
+     * <p>
+     * Creates a controller playing the same strategy for every player, for ever.
+     * </p>
+     *
+     * @param strategy the strategy
+     * @throws IllegalArgumentException if the strategy is null
+     */
+    public BotController(final BotStrategy strategy) {
+        this(0, strategy);
+    }
+
+    /**
+     * <p>
+     * Creates a controller playing a strategy for every seat.
+     * </p>
+     *
+     * @param maxOptions the number of options after which the bots quit, 0 for never
+     * @param strategies the strategies, by seat; the last one plays for the seats after it as well
+     * @throws IllegalArgumentException if there are no strategies, one is null, or the maximum is negative
+     */
+    public BotController(final int maxOptions, final BotStrategy... strategies) {
+        if (strategies == null || strategies.length == 0) throw new IllegalArgumentException("strategies cannot be empty");
+        for (BotStrategy strategy : strategies) {
+            if (strategy == null) throw new IllegalArgumentException("strategy cannot be null");
+        }
+        if (maxOptions < 0) throw new IllegalArgumentException("maxOptions cannot be negative");
+        this.strategies = strategies.clone();
+        this.maxOptions = maxOptions;
+    }
+
+    /**
+     * <p>
+     * Returns the strategy of a player.
+     * </p>
+     *
+     * @param player the player
+     * @return the strategy of their seat
+     */
+    private BotStrategy of(final Player player) {
+        return this.strategies[Math.max(0, Math.min(player.getSeat(), this.strategies.length - 1))];
+    }
+
+    /**
+     * <p>
+     * Rolls the dices, or quits once the options are over.
+     * </p>
+     *
+     * @param game the game
+     * @param player the current player
+     * @return {@link PlayerController#ROLL}, {@link PlayerController#QUIT} after the last option
+     */
+    @Override
+    public int chooseOption(final Game game, final Player player) {
+        return ++this.options > this.maxOptions && this.maxOptions > 0 ? QUIT : ROLL;
+    }
+
+    /**
+     * <p>
+     * Asks the strategy of the player whether to buy.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return this.of(player).buy(game, player, cell);
+    }
+
+    /**
+     * <p>
+     * Asks the strategy of the player where to build.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        return this.of(player).build(game, player, options);
+    }
+
+    /**
+     * <p>
+     * Asks the strategy of the player whether to evade.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return true to evade
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return this.of(player).evade(game, player);
+    }
+
+    /**
+     * <p>
+     * Returns the number of options chosen.
+     * </p>
+     *
+     * @return the number of options
+     */
+    public int getOptions() {
+        return this.options;
+    }
+}
@@ -0,0 +1,69 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * The decisions of a bot: whether to buy the free propriety it landed on,
+ * whether and where to build, and whether to evade taxes.
+ * </p>
+ * <p>
+ * A strategy is played through a {@link BotController}, which rolls the
+ * dices whenever the bot is asked for an option. Its decisions only read
+ * what the game already keeps up to date, the balance and the proprieties
+ * of the players, the prices and the rents of the cells, the players
+ * alive, so that they take a fraction of a microsecond: a simulation of
+ * bots spends its time playing, not deciding. A strategy holds no state
+ * of the game, so the same one can play for any number of players and games.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(new CashThresholdStrategy(500)));
+ * game.play();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public interface BotStrategy {
+
+    /**
+     * <p>
+     * Decides whether to buy the free propriety the player landed on, which they can afford.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    boolean buy(Game game, Player player, ProprietyCell cell);
+
+    /**
+     * <p>
+     * Decides whether and where to build.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    int build(Game game, Player player, Cell[] options);
+
+    /**
+     * <p>
+     * Decides whether to become a tax evader.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player on the tax evasion cell
+     * @return true to evade
+     */
+    boolean evade(Game game, Player player);
+}
@@ -0,0 +1,110 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Strategy keeping a reserve of cash: it buys and builds whatever leaves
+ * it at least the reserve, cheapest building first, and evades taxes only
+ * once its balance fell below the reserve, when the rents it would owe
+ * could bankrupt it.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(new CashThresholdStrategy(500)));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class CashThresholdStrategy implements BotStrategy {
+
+    /**
+     * The balance the player keeps after buying or building.
+     */
+    private final double reserve;
+
+    /**
+     * <p>
+     * Creates a strategy keeping the given reserve.
+     * </p>
+     *
+     * @param reserve the balance the player keeps after buying or building
+     * @throws IllegalArgumentException if the reserve is negative
+     */
+    public CashThresholdStrategy(final double reserve) {
+        if (reserve < 0) throw new IllegalArgumentException("reserve cannot be negative");
+        this.reserve = reserve;
+    }
+
+    /**
+     * <p>
+     * Buys the propriety if the reserve is left afterwards.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return player.getBalance() - cell.getPurchasePrice() >= this.reserve;
+    }
+
+    /**
+     * <p>
+     * Builds the cheapest building that leaves the reserve.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        final double budget = player.getBalance() - this.reserve;
+        int best = -1;
+        int bestPrice = Integer.MAX_VALUE;
+        for (int i = 0; i < options.length; i++) {
+            if (!(options[i] instanceof ProprietyCell pc)) continue;
+            final int price = pc.getNextBuildingPrice();
+            if (price >= 0 && price <= budget && price < bestPrice) {
+                best = i;
+                bestPrice = price;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Evades taxes if the balance is below the reserve.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return true to evade
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return player.getBalance() < this.reserve;
+    }
+
+    /**
+     * <p>
+     * Returns the balance the player keeps.
+     * </p>
+     *
+     * @return the reserve
+     */
+    public double getReserve() {
+        return this.reserve;
+    }
+}
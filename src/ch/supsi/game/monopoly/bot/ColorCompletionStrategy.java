@@ -0,0 +1,115 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Strategy collecting whole colors, the only proprieties that can be
+ * built upon: it buys a propriety if no opponent owns one of the same
+ * color, so that the player can still complete it, or if an opponent
+ * would complete the color with it. It builds evenly, on the lowest
+ * propriety first, and never evades taxes.
+ * </p>
+ * <p>
+ * The colors owned are counted by the {@link Player} as they are bought,
+ * so a decision reads a few counters, one per player.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(new ColorCompletionStrategy(200)));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class ColorCompletionStrategy implements BotStrategy {
+
+    /**
+     * The balance the player keeps after buying or building.
+     */
+    private final double reserve;
+
+    /**
+     * <p>
+     * Creates a strategy collecting whole colors.
+     * </p>
+     *
+     * @param reserve the balance the player keeps after buying or building
+     * @throws IllegalArgumentException if the reserve is negative
+     */
+    public ColorCompletionStrategy(final double reserve) {
+        if (reserve < 0) throw new IllegalArgumentException("reserve cannot be negative");
+        this.reserve = reserve;
+    }
+
+    /**
+     * <p>
+     * Buys the propriety if the player can still complete its color, or
+     * to keep an opponent from completing it, and the reserve is left.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        if (player.getBalance() - cell.getPurchasePrice() < this.reserve) return false;
+        final int color = cell.getColor();
+        final int missing = Player.getColorSize(color) - 1;
+        boolean held = false;
+        for (Player other : game.getPlayers()) {
+            if (other == player || other.isBankrupt()) continue;
+            final int owned = other.getOwnedOfColor(color);
+            if (owned == missing) return true;
+            held |= owned > 0;
+        }
+        return !held;
+    }
+
+    /**
+     * <p>
+     * Builds on the propriety with the fewest buildings, if the reserve is left.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        final double budget = player.getBalance() - this.reserve;
+        int best = -1;
+        int bestLevel = Integer.MAX_VALUE;
+        for (int i = 0; i < options.length; i++) {
+            if (!(options[i] instanceof ProprietyCell pc)) continue;
+            final int price = pc.getNextBuildingPrice();
+            if (price >= 0 && price <= budget && pc.getBuildingLevel() < bestLevel) {
+                best = i;
+                bestLevel = pc.getBuildingLevel();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Never evades taxes.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return false
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return false;
+    }
+}
@@ -0,0 +1,380 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.DiscardSink;
+import ch.mazluc.util.OutputSink;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Strategy searching its buy and build decisions by Monte Carlo: every
+ * possible answer is tried on copies of the game, played on by random
+ * players, and the answer leaving the player the largest share of the
+ * wealth of the players alive wins.
+ * </p>
+ * <p>
+ * The search is parallelized at the root: every worker of a
+ * {@link ForkJoinPool} keeps its own copy of the game and its own
+ * statistics, picks the answer to try by UCB1 and plays rollouts until the
+ * time budget is over; the statistics of the workers are then summed, and
+ * the answer tried the most is chosen. The outcome of an answer being
+ * decided by the dices more than by the next decisions, the tree is kept
+ * at its root, and the rollouts are many rather than deep.
+ * </p>
+ * <p>
+ * A copy is made once per worker from a {@link GameSnapshot}, and brought
+ * back to the state of the decision before every rollout with
+ * {@link GameSnapshot#restore(Game, ByteReader)}, a few microseconds; it
+ * then resumes the turn cut at the decision with {@link Game#finishTurn()}
+ * or {@link Game#passTurn()}, and goes on for a bounded number of steps.
+ * The workers print on a {@link DiscardSink}, whatever the game prints on.
+ * </p>
+ * <p>
+ * Unlike the other strategies, this one keeps the copies of the game it
+ * plays, so it plays one game at a time. It never evades taxes.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * MctsStrategy mcts = new MctsStrategy(ForkJoinPool.commonPool(), 20_000_000, 40, seed);
+ * game.setController(new BotController(0, mcts, new RoiStrategy(0.05, 200)));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class MctsStrategy implements BotStrategy {
+
+    /**
+     * The exploration constant of UCB1.
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * The pool of the workers.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The time budget of a decision, in nanoseconds.
+     */
+    private final long budget;
+
+    /**
+     * The number of steps of a rollout.
+     */
+    private final int depth;
+
+    /**
+     * The random generators of the workers.
+     */
+    private final SplittableRandom[] randoms;
+
+    /**
+     * The copies of the game, by worker.
+     */
+    private final Game[] copies;
+
+    /**
+     * The game the copies are of.
+     */
+    private Game source;
+
+    /**
+     * The number of rollouts played.
+     */
+    private final AtomicLong playouts = new AtomicLong();
+
+    /**
+     * <p>
+     * Creates a strategy searching on every worker of a pool.
+     * </p>
+     *
+     * @param pool the pool of the workers
+     * @param budget the time budget of a decision, in nanoseconds
+     * @param depth the number of steps of a rollout
+     * @param seed the seed of the rollouts
+     * @throws IllegalArgumentException if the pool is null, or the budget or the depth is not positive
+     */
+    public MctsStrategy(final ForkJoinPool pool, final long budget, final int depth, final long seed) {
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+        if (budget < 1) throw new IllegalArgumentException("budget must be positive");
+        if (depth < 1) throw new IllegalArgumentException("depth must be positive");
+        this.pool = pool;
+        this.budget = budget;
+        this.depth = depth;
+        this.randoms = new SplittableRandom[pool.getParallelism()];
+        this.copies = new Game[this.randoms.length];
+        final SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < this.randoms.length; i++) this.randoms[i] = root.split();
+    }
+
+    /**
+     * <p>
+     * Buys the propriety if the rollouts after buying it go better.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return this.search(game, player, new int[]{-1, game.getBoard().indexOf(cell)}, true) == 1;
+    }
+
+    /**
+     * <p>
+     * Builds where the rollouts go best, not building being one of the answers.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        final int[] answers = new int[options.length + 1];
+        final int[] indexes = new int[options.length + 1];
+        answers[0] = -1;
+        indexes[0] = -1;
+        int count = 1;
+        for (int i = 0; i < options.length; i++) {
+            if (options[i] instanceof ProprietyCell pc && pc.getNextBuildingPrice() >= 0) {
+                answers[count] = game.getBoard().indexOf(pc);
+                indexes[count++] = i;
+            }
+        }
+        if (count == 1) return -1;
+        return indexes[this.search(game, player, Arrays.copyOf(answers, count), false)];
+    }
+
+    /**
+     * <p>
+     * Never evades taxes.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return false
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Searches the best answer on every worker until the budget is over.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player deciding
+     * @param answers the cells to buy or build upon, by answer, -1 for none
+     * @param buying whether the decision is to buy, else to build
+     * @return the index of the answer tried the most
+     */
+    private int search(final Game game, final Player player, final int[] answers, final boolean buying) {
+        if (game != this.source) {
+            final byte[] setup = GameSnapshot.save(game);
+            for (int i = 0; i < this.copies.length; i++) this.copies[i] = GameSnapshot.load(setup, prompt -> "");
+            this.source = game;
+        }
+        final byte[] state = GameSnapshot.saveState(game);
+        final long deadline = System.nanoTime() + this.budget;
+        final List<ForkJoinTask<long[]>> tasks = new ArrayList<>(this.copies.length);
+        for (int i = 0; i < this.copies.length; i++) {
+            final int worker = i;
+            tasks.add(this.pool.submit(() -> this.rollouts(worker, state, player.getSeat(), answers, buying, deadline)));
+        }
+        final long[] visits = new long[answers.length];
+        for (ForkJoinTask<long[]> task : tasks) {
+            final long[] counts = task.join();
+            for (int a = 0; a < answers.length; a++) visits[a] += counts[a];
+        }
+        int best = 0;
+        for (int a = 1; a < answers.length; a++) {
+            if (visits[a] > visits[best]) best = a;
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Plays rollouts on the copy of a worker until the deadline, choosing
+     * the answer to try by UCB1.
+     * </p>
+     *
+     * @param worker the index of the worker
+     * @param state the state of the game at the decision
+     * @param seat the seat of the player deciding
+     * @param answers the cells to buy or build upon, by answer, -1 for none
+     * @param buying whether the decision is to buy, else to build
+     * @param deadline when to stop, as given by {@link System#nanoTime()}
+     * @return the number of rollouts of every answer
+     */
+    private long[] rollouts(final int worker, final byte[] state, final int seat, final int[] answers,
+                            final boolean buying, final long deadline) {
+        final Game copy = this.copies[worker];
+        final SplittableRandom random = this.randoms[worker];
+        final RandomPlayer players = new RandomPlayer(random);
+        final ByteReader in = new ByteReader(state);
+        final long[] visits = new long[answers.length];
+        final double[] value = new double[answers.length];
+        copy.setController(players);
+        final OutputSink sink = ANSIUtility.getThreadSink();
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        try {
+            long total = 0;
+            do {
+                final int a = total < answers.length ? (int) total : select(visits, value, total);
+                in.reset(state, 0, state.length);
+                GameSnapshot.restore(copy, in);
+                copy.getRandom().setSeed(random.nextLong());
+                value[a] += this.rollout(copy, seat, answers[a], buying);
+                visits[a]++;
+                total++;
+            } while (System.nanoTime() < deadline);
+            this.playouts.addAndGet(total);
+        } finally {
+            ANSIUtility.setThreadSink(sink);
+        }
+        return visits;
+    }
+
+    /**
+     * <p>
+     * Returns the answer with the highest upper confidence bound.
+     * </p>
+     *
+     * @param visits the rollouts of every answer
+     * @param value the sum of the outcomes of every answer
+     * @param total the rollouts of all the answers
+     * @return the index of the answer
+     */
+    private static int select(final long[] visits, final double[] value, final long total) {
+        final double log = Math.log(total);
+        int best = 0;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (int a = 0; a < visits.length; a++) {
+            final double bound = value[a] / visits[a] + EXPLORATION * Math.sqrt(log / visits[a]);
+            if (bound > bestBound) {
+                best = a;
+                bestBound = bound;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Plays a rollout: answers on the copy, resumes the turn and plays on
+     * at random for the depth of the rollout.
+     * </p>
+     *
+     * @param copy the copy, at the state of the decision
+     * @param seat the seat of the player deciding
+     * @param cell the cell to buy or build upon, -1 for none
+     * @param buying whether the decision is to buy, else to build
+     * @return the share of the wealth of the players alive owned by the player, from 0 to 1
+     */
+    private double rollout(final Game copy, final int seat, final int cell, final boolean buying) {
+        final Player player = copy.getPlayers()[seat];
+        if (cell >= 0) {
+            final ProprietyCell pc = (ProprietyCell) copy.getBoard().getCell(cell);
+            if (buying) copy.buy(player, pc);
+            else copy.build(player, pc);
+        }
+        boolean running = buying ? copy.finishTurn() : copy.passTurn();
+        for (int step = 0; running && step < this.depth; step++) running = copy.step();
+        if (player.isBankrupt()) return 0;
+        double total = 0;
+        for (Player other : copy.getPlayers()) {
+            if (!other.isBankrupt()) total += Math.max(0, other.getNetWorth());
+        }
+        return total <= 0 ? 0 : Math.max(0, player.getNetWorth()) / total;
+    }
+
+    /**
+     * <p>
+     * Returns the number of rollouts played so far, by all the workers.
+     * </p>
+     *
+     * @return the number of rollouts
+     */
+    public long getPlayouts() {
+        return this.playouts.get();
+    }
+
+    /**
+     * <p>
+     * Returns the number of workers.
+     * </p>
+     *
+     * @return the parallelism of the pool
+     */
+    public int getWorkers() {
+        return this.copies.length;
+    }
+
+    /**
+     * <p>
+     * Controller of the players of a rollout: rolls, and answers at random.
+     * </p>
+     */
+    private static final class RandomPlayer implements PlayerController {
+
+        /**
+         * The random generator of the worker.
+         */
+        private final SplittableRandom random;
+
+        /**
+         * <p>
+         * Creates the random players of a worker.
+         * </p>
+         *
+         * @param random the random generator of the worker
+         */
+        RandomPlayer(final SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public int chooseOption(final Game game, final Player player) {
+            return ROLL;
+        }
+
+        @Override
+        public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+            return this.random.nextBoolean();
+        }
+
+        @Override
+        public int build(final Game game, final Player player, final Cell[] options) {
+            return this.random.nextInt(options.length + 1) - 1;
+        }
+
+        @Override
+        public boolean evade(final Game game, final Player player) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+
+/**
+ * <p>
+ * Strategy investing by return: a propriety or a building is worth its
+ * price if the rent it earns per round, when every other player alive
+ * lands on it once, is at least a given fraction of the price, as valued
+ * by the {@link ch.supsi.game.monopoly.Speculator Speculator} of the
+ * game. It builds where the rent grows the most per unit of price, and
+ * never evades taxes, as the evaded amount is paid back with interest.
+ * </p>
+ * <p>
+ * Every investment leaves the player a reserve of cash, not to be
+ * bankrupted by the first rent.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * game.setController(new BotController(new RoiStrategy(0.1, 200)));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class RoiStrategy implements BotStrategy {
+
+    /**
+     * The lowest rent per round, per unit of price, worth investing in.
+     */
+    private final double minReturn;
+
+    /**
+     * The balance the player keeps after investing.
+     */
+    private final double reserve;
+
+    /**
+     * <p>
+     * Creates a strategy investing by return.
+     * </p>
+     *
+     * @param minReturn the lowest rent per round, per unit of price, worth investing in
+     * @param reserve the balance the player keeps after investing
+     * @throws IllegalArgumentException if the return or the reserve is negative
+     */
+    public RoiStrategy(final double minReturn, final double reserve) {
+        if (minReturn < 0) throw new IllegalArgumentException("minReturn cannot be negative");
+        if (reserve < 0) throw new IllegalArgumentException("reserve cannot be negative");
+        this.minReturn = minReturn;
+        this.reserve = reserve;
+    }
+
+    /**
+     * <p>
+     * Buys the propriety if its return is high enough and the reserve is left.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        final double price = cell.getPurchasePrice();
+        return player.getBalance() - price >= this.reserve &&
+                game.getSpeculator().getPurchaseValuation(cell) >= this.minReturn;
+    }
+
+    /**
+     * <p>
+     * Builds where the rent grows the most per unit of price, if enough
+     * and if the reserve is left.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        final double budget = player.getBalance() - this.reserve;
+        final int opponents = opponents(game);
+        int best = -1;
+        double bestReturn = this.minReturn;
+        for (int i = 0; i < options.length; i++) {
+            if (!(options[i] instanceof ProprietyCell pc)) continue;
+            final int price = pc.getNextBuildingPrice();
+            if (price <= 0 || price > budget) continue;
+            final int level = pc.getBuildingLevel();
+            final double value = (double) (pc.getRent(level + 1) - pc.getRent(level)) * opponents / price;
+            if (value >= bestReturn) {
+                best = i;
+                bestReturn = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>
+     * Never evades taxes.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return false
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Returns the number of players alive besides the current one.
+     * </p>
+     *
+     * @param game the game
+     * @return the number of opponents
+     */
+    private static int opponents(final Game game) {
+        return Math.max(0, game.getLeaderboard().getAliveCount() - 1);
+    }
+}
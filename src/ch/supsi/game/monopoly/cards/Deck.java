@@ -1,14 +1,21 @@
 package ch.supsi.game.monopoly.cards;
 
+import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.StateHash;
 import ch.supsi.game.monopoly.exception.EmptyDeckException;
 import ch.supsi.game.monopoly.exception.IllegalCardException;
 
 import java.io.*;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -21,6 +28,16 @@ import java.util.Deque;
  * <p>
  * The cards are stored in a {@link Deque};
  * </p>
+ * <p>
+ * Every card is identified by its index in the file it was loaded from,
+ * so the order of the deck can be saved and restored as a permutation
+ * of those indexes.
+ * </p>
+ * <p>
+ * The order of the deck is part of the {@link StateHash} of the game, as a
+ * polynomial hash of the keys of its cards, from top to bottom: picking a
+ * card and putting it back update it in O(1).
+ * </p>
  * @author Luca Mazza
  * @version 1.4.0
  */
@@ -31,6 +48,52 @@ public class Deck {
      */
     private Deque<Card> cards;
 
+    /**
+     * The cards, in the order they were loaded from the file.
+     */
+    private final Card[] loaded;
+
+    /**
+     * The cards read from every file, by absolute path: cards are immutable,
+     * so the decks of all the games share them instead of reading the file again.
+     */
+    private static final Map<String, Card[]> FILES = new ConcurrentHashMap<>();
+
+    /**
+     * The base of the polynomial hash of the order, odd so that it can be inverted.
+     */
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The inverse of {@link Deck#BASE}, modulo 2<sup>64</sup>.
+     */
+    private static final long BASE_INVERSE = inverse(BASE);
+
+    /**
+     * The index of every card in {@link Deck#loaded}.
+     */
+    private final Map<Card, Integer> indexes = new IdentityHashMap<>();
+
+    /**
+     * The slot of the deck in the {@link StateHash} of the game: the hash of its file name.
+     */
+    private final int slot;
+
+    /**
+     * The polynomial hash of the order: the sum of the keys of the cards, by the powers of {@link Deck#BASE}.
+     */
+    private long order;
+
+    /**
+     * {@link Deck#BASE} to the power of the number of cards in the deck.
+     */
+    private long power = 1;
+
+    /**
+     * The hash of the state of the game the deck updates.
+     */
+    private StateHash stateHash = StateHash.NONE;
+
     /**
      * <p>
      * Constructor for the {@link Deck} class.
@@ -45,8 +108,12 @@ public class Deck {
     public Deck(final String filename) {
         if (filename == null || filename.isBlank() || filename.isEmpty())
             throw new IllegalArgumentException("Filename cannot be null, blank nor empty");
-        this.cards = new ArrayDeque<>();
-        this.createDeckFromFile(filename);
+        final Card[] read = FILES.computeIfAbsent(new File(filename).getAbsolutePath(), Deck::createDeckFromFile);
+        this.loaded = read == null ? new Card[0] : read;
+        this.cards = new ArrayDeque<>(Arrays.asList(this.loaded));
+        for (int i = 0; i < this.loaded.length; i++) this.indexes.put(this.loaded[i], i);
+        this.slot = filename.hashCode();
+        this.rehash();
     }
 
     /**
@@ -63,7 +130,12 @@ public class Deck {
      */
     public Card pick() throws EmptyDeckException {
         if (this.cards.isEmpty()) throw new EmptyDeckException("Cannot pick a card from an empty deck");
-        return this.cards.poll();
+        final Card card = this.cards.poll();
+        final long before = this.order;
+        this.order = (this.order - this.cardKey(card)) * BASE_INVERSE;
+        this.power *= BASE_INVERSE;
+        this.stateHash.replace(StateHash.DECK, this.slot, before, this.order);
+        return card;
     }
 
     /**
@@ -77,6 +149,10 @@ public class Deck {
     public void putBack(final Card card) throws IllegalCardException {
         if (card == null) throw new IllegalCardException("Cards cannot be null");
         this.cards.add(card);
+        final long before = this.order;
+        this.order += this.cardKey(card) * this.power;
+        this.power *= BASE;
+        this.stateHash.replace(StateHash.DECK, this.slot, before, this.order);
     }
 
     /**
@@ -91,6 +167,154 @@ public class Deck {
         Collections.shuffle(new ArrayList<>(this.cards));
     }
 
+    /**
+     * <p>
+     * Returns the number of cards in the deck.
+     * </p>
+     *
+     * @return the number of cards
+     */
+    public int size() {
+        return this.cards.size();
+    }
+
+    /**
+     * <p>
+     * Returns the order of the cards in the deck, from top to bottom,
+     * as their indexes in the file the deck was loaded from.
+     * </p>
+     * <p>
+     * Cards picked and not put back are not part of the order.
+     * </p>
+     *
+     * @return the indexes of the cards
+     */
+    public int[] getOrder() {
+        final int[] order = new int[this.cards.size()];
+        int i = 0;
+        for (Card card : this.cards) order[i++] = this.indexOf(card);
+        return order;
+    }
+
+    /**
+     * <p>
+     * Returns the index of the card on top of the deck, in the file the deck was loaded from.
+     * </p>
+     * <p>
+     * As the cards picked are put back at the bottom, the top card tells the
+     * whole order of the deck, once its starting order is known.
+     * </p>
+     *
+     * @return the index, -1 if the deck is empty
+     */
+    public int getTopIndex() {
+        return this.cards.isEmpty() ? -1 : this.indexOf(this.cards.peek());
+    }
+
+    /**
+     * <p>
+     * Returns the index of a card in the file the deck was loaded from.
+     * </p>
+     *
+     * @param card the card
+     * @return the index, -1 if the card is not of this deck
+     */
+    public int indexOf(final Card card) {
+        final Integer index = this.indexes.get(card);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * <p>
+     * Puts the cards of the deck in the given order, as returned by
+     * {@link Deck#getOrder()}.
+     * </p>
+     *
+     * @param order the indexes of the cards, from top to bottom
+     * @throws IllegalArgumentException if an index is out of range or repeated
+     */
+    public void setOrder(final int[] order) {
+        final boolean[] seen = new boolean[this.loaded.length];
+        for (int index : order) {
+            if (index < 0 || index >= this.loaded.length || seen[index]) {
+                throw new IllegalArgumentException("Invalid card order");
+            }
+            seen[index] = true;
+        }
+        this.cards.clear();
+        for (int index : order) this.cards.add(this.loaded[index]);
+        final long before = this.order;
+        this.rehash();
+        this.stateHash.replace(StateHash.DECK, this.slot, before, this.order);
+    }
+
+    /**
+     * <p>
+     * Sets the hash of the state of the game the deck updates,
+     * moving the order of the deck into it.
+     * </p>
+     *
+     * @param stateHash the hash of the game
+     */
+    public void setStateHash(final StateHash stateHash) {
+        if (stateHash == null) throw new IllegalArgumentException("stateHash cannot be null");
+        final long key = this.getStateKey();
+        this.stateHash.toggle(key);
+        this.stateHash = stateHash;
+        stateHash.toggle(key);
+    }
+
+    /**
+     * <p>
+     * Returns the key of the order of the deck, its part of the {@link StateHash} of the game.
+     * </p>
+     *
+     * @return the key
+     */
+    public long getStateKey() {
+        return StateHash.key(StateHash.DECK, this.slot, this.order);
+    }
+
+    /**
+     * <p>
+     * Computes the polynomial hash of the order of the deck from scratch.
+     * </p>
+     */
+    private void rehash() {
+        this.order = 0;
+        this.power = 1;
+        for (Card card : this.cards) {
+            this.order += this.cardKey(card) * this.power;
+            this.power *= BASE;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the key of a card of the deck.
+     * </p>
+     *
+     * @param card the card
+     * @return the key of its index in the file of the deck
+     */
+    private long cardKey(final Card card) {
+        return StateHash.key(StateHash.CARD, this.slot, this.indexOf(card));
+    }
+
+    /**
+     * <p>
+     * Returns the inverse of an odd number modulo 2<sup>64</sup>, by Newton's iteration.
+     * </p>
+     *
+     * @param odd the number
+     * @return its inverse
+     */
+    private static long inverse(final long odd) {
+        long x = odd;
+        for (int i = 0; i < 5; i++) x *= 2 - odd * x;
+        return x;
+    }
+
     /**
      * <p>
      * Creates the deck from a file, given the filename.
@@ -104,25 +328,28 @@ public class Deck {
      * in the corresponding field.
      * </p>
      *
-     * @param fileName the name of the file
+     * @param fileName the absolute path of the file
+     * @return the cards, in the order of the file, null if the file cannot be read
      */
-    private void createDeckFromFile(final String fileName) {
-        File file = new File(fileName);
-        try (FileInputStream inputStream = new FileInputStream(file.getAbsolutePath());
+    private static Card[] createDeckFromFile(final String fileName) {
+        final List<Card> cards = new ArrayList<>();
+        try (FileInputStream inputStream = new FileInputStream(fileName);
              BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
             String strLine;
             while ((strLine = br.readLine()) != null) {
                 String[] fragments = strLine.split(Constant.FILE_SEPARATOR);
                 if(fragments[1].equals(CardAction.GO_TO.getAction())){
-                    this.cards.add(new Card(CardAction.GO_TO, fragments[2], fragments[0]));
+                    cards.add(new Card(CardAction.GO_TO, fragments[2], fragments[0]));
                 }else if(fragments[1].equals(CardAction.RECEIVE.getAction())){
-                    this.cards.add(new Card(CardAction.RECEIVE, Integer.parseInt(fragments[2]), fragments[0]));
+                    cards.add(new Card(CardAction.RECEIVE, Integer.parseInt(fragments[2]), fragments[0]));
                 }else if(fragments[1].equals(CardAction.PAY.getAction())) {
-                    this.cards.add(new Card(CardAction.PAY, Integer.parseInt(fragments[2]), fragments[0]));
+                    cards.add(new Card(CardAction.PAY, Integer.parseInt(fragments[2]), fragments[0]));
                 }
             }
         } catch (IOException e) {
-            System.out.println(e);
+            ANSIUtility.println(e.toString());
+            return null;
         }
+        return cards.toArray(new Card[0]);
     }
 }
@@ -1,12 +1,14 @@
 package ch.supsi.game.monopoly.cells;
 
-import ch.supsi.game.monopoly.Bank;
+import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Game;
 import ch.supsi.game.monopoly.Player;
 import ch.supsi.game.monopoly.cards.Card;
 import ch.supsi.game.monopoly.exception.NoCellFoundException;
 
+import java.util.Arrays;
+
 /**
  * <p>
  * This class represents a cell of the game "Monopoly".
@@ -27,9 +29,10 @@ import ch.supsi.game.monopoly.exception.NoCellFoundException;
 public abstract class Cell {
 
     /**
-     * The list of players currently on the cell.
+     * The list of players currently on the cell, grown when more players than
+     * {@link Constant#PLAYER_NUMBER} meet on it.
      */
-    private final Player[] players = new Player[Constant.PLAYER_NUMBER];
+    private Player[] players = new Player[Constant.PLAYER_NUMBER];
 
     /**
      * The title of the cell, used to display it on the board.
@@ -82,7 +85,8 @@ public abstract class Cell {
      */
     public void setPlayer(final Player player) {
         int i = 0;
-        while (this.players[i] != null) i++;
+        while (i < this.players.length && this.players[i] != null) i++;
+        if (i == this.players.length) this.players = Arrays.copyOf(this.players, i * 2);
         this.players[i] = player;
     }
 
@@ -101,12 +105,21 @@ public abstract class Cell {
     /**
      * Getter for the list of players currently on the cell.
      *
-     * @return the array of players on the cell
+     * @return the array of players on the cell, with null for the free places
      */
     public Player[] getPlayers() {
         return players;
     }
 
+    /**
+     * <p>
+     * Removes all the players from the cell.
+     * </p>
+     */
+    public void clearPlayers() {
+        Arrays.fill(this.players, null);
+    }
+
     /**
      * Applies the effect of a specific cell on a player.
      * <p>
@@ -156,7 +169,7 @@ public abstract class Cell {
      * @param card The card to use
      */
     void selectCardAction(final Game game, final Player player, final Card card) {
-        System.out.println(card);
+        if (!ANSIUtility.isDiscarding()) ANSIUtility.println(card.toString());
         switch (card.getCardAction()) {
             case GO_TO:
                 int previousPosition = player.getPosition();
@@ -167,21 +180,21 @@ public abstract class Cell {
                     try {
                         player.setPosition(game.getCellIndexByName(card.getCellName()));
                     } catch (NoCellFoundException e) {
-                        System.out.println(e.getMessage());
+                        ANSIUtility.println(e.getMessage());
                     }
                 }
                 if (game.hasPlayerPassedStart() && game.hasPlayerPassedStartWithCards(previousPosition)) {
                     player.receive(Constant.START_CELL_AMOUNT);
-                    Bank.getInstance().withdraw(Constant.START_CELL_AMOUNT);
+                    game.getBank().withdraw(Constant.START_CELL_AMOUNT);
                 }
                 break;
             case PAY:
                 player.pay(card.getAmount());
-                Bank.getInstance().deposit(card.getAmount());
+                game.getBank().deposit(card.getAmount());
                 break;
             case RECEIVE:
                 player.receive(card.getAmount());
-                Bank.getInstance().withdraw(card.getAmount());
+                game.getBank().withdraw(card.getAmount());
                 break;
         }
     }
@@ -1,7 +1,6 @@
 package ch.supsi.game.monopoly.cells;
 
 import ch.mazluc.util.ANSIUtility;
-import ch.supsi.game.monopoly.Bank;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Game;
 import ch.supsi.game.monopoly.Player;
@@ -63,8 +62,19 @@ public class LuxuryTaxCell extends Cell{
             return;
         }
         player.pay(this.tax);
-        Bank.getInstance().deposit(this.tax);
-        ANSIUtility.printcf("Paid %s$ to the bank.%n", ANSIUtility.BRIGHT_YELLOW, this.tax);
+        game.getBank().deposit(this.tax);
+        ANSIUtility.printcf(Constant.PAID_TO_BANK, ANSIUtility.BRIGHT_YELLOW).arg(this.tax).end();
+    }
+
+    /**
+     * <p>
+     * Returns the amount of money to pay.
+     * </p>
+     *
+     * @return the tax
+     */
+    public int getTax() {
+        return this.tax;
     }
 
     /**
@@ -2,9 +2,9 @@ package ch.supsi.game.monopoly.cells;
 
 import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.Game;
-import ch.supsi.game.monopoly.Bank;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.StateHash;
 
 /**
  * <p>
@@ -18,7 +18,10 @@ import ch.supsi.game.monopoly.Player;
  * field (in class {@link Game}), which contains {@link ProprietyName} objects.
  * </p>
  * <p>
- * Finally, every cell has a fee, assigned randomly
+ * Finally, every cell has a fee, assigned randomly.
+ * The fee at every building level is precomputed in an immutable
+ * rent schedule, so the current rent is a single array read and
+ * building or demolishing only moves the current level.
  * </p>
  * <pre>
  * {@code
@@ -42,9 +45,17 @@ public class ProprietyCell extends Cell{
     private final ProprietyName name;
 
     /**
-     * The rent of the cell.
+     * <p>
+     * The rent of the cell, by building level.
+     * </p>
+     * <p>
+     * Level 0 is the bare propriety, levels 1 to {@link Constant#MAX_NUMBER_HOUSES}
+     * are the houses and the last level is the hotel.
+     * Proprieties that cannot be built upon (stations and utilities)
+     * have a single level.
+     * </p>
      */
-    private int rent;
+    private final int[] rentSchedule;
 
     /**
      * The purchase price of the propriety.
@@ -62,19 +73,24 @@ public class ProprietyCell extends Cell{
     private final int hotelPrice;
 
     /**
-     * The number of houses on the propriety.
+     * The current building level of the propriety, index of {@link ProprietyCell#rentSchedule}.
      */
-    private int numberOfHouses = 0;
+    private int level = 0;
 
     /**
-     * Whether the propriety has a hotel built upon it.
+     * Whether the cell must display building options
      */
-    private boolean hotel = false;
+    private final boolean buildDetail;
 
     /**
-     * Whether the cell must display building options
+     * The slot of the propriety in the {@link StateHash} of the game: the hash of its name.
      */
-    private boolean buildDetail = true;
+    private final int slot;
+
+    /**
+     * The hash of the state of the game the propriety updates.
+     */
+    private StateHash stateHash = StateHash.NONE;
 
     /**
      * <p>
@@ -94,6 +110,33 @@ public class ProprietyCell extends Cell{
             final int purchasePrice,
             final int housePrice,
             final int hotelPrice) {
+        this(title, rent, purchasePrice, housePrice, hotelPrice, true);
+    }
+
+    /**
+     * <p>
+     * Instantiates a new ProprietyCell with a name and a rent.
+     * </p>
+     * <p>
+     * If {@code buildDetail} is false, this cell will not display any building
+     * options and cannot be built upon.
+     * </p>
+     *
+     * @param title the name of the cell
+     * @param rent  the rent of the cell
+     * @param purchasePrice the purchase price of the cell
+     * @param housePrice the price to build a house
+     * @param hotelPrice the price to build a hotel
+     * @param buildDetail whether the cell can be built upon
+     * @throws IllegalArgumentException if the rent or the price is negative
+     */
+    public ProprietyCell(
+            final ProprietyName title,
+            final int rent,
+            final int purchasePrice,
+            final int housePrice,
+            final int hotelPrice,
+            final boolean buildDetail) {
         super(title.getName());
         if (rent < 0) {
             throw new IllegalArgumentException("The rent must be positive.");
@@ -108,33 +151,37 @@ public class ProprietyCell extends Cell{
             throw new IllegalArgumentException("The hotel price must be positive.");
         }
         this.name = title;
-        this.rent = rent;
+        this.rentSchedule = createRentSchedule(rent, buildDetail);
         this.purchasePrice = purchasePrice;
         this.housePrice = housePrice;
         this.hotelPrice = hotelPrice;
-        this.buildDetail = true;
+        this.buildDetail = buildDetail;
+        this.slot = title.getPlainName().hashCode();
     }
 
     /**
      * <p>
-     * Instantiates a new ProprietyCell with a name and a rent.
+     * Creates the rent schedule of a propriety, given its base rent.
      * </p>
      * <p>
-     * This cell will not display any building options.
+     * Every house increases the rent by {@link Constant#PROPRIETY_HOUSE_RENT_INCREASE},
+     * the hotel, which replaces the houses, by {@link Constant#PROPRIETY_HOTEL_RENT_INCREASE}.
+     * Stations and utilities cannot be built upon, so their rent never changes.
      * </p>
      *
-     * @param title the name of the cell
-     * @param rent  the rent of the cell
+     * @param rent the base rent
+     * @param buildable whether the propriety can be built upon
+     * @return the rent schedule
      */
-    public ProprietyCell(
-            final ProprietyName title,
-            final int rent,
-            final int purchasePrice,
-            final int housePrice,
-            final int hotelPrice,
-            final boolean buildDetail) {
-        this(title, rent, purchasePrice, housePrice, hotelPrice);
-        this.buildDetail = buildDetail;
+    private static int[] createRentSchedule(final int rent, final boolean buildable) {
+        if (!buildable) return new int[]{rent};
+        final int[] schedule = new int[Constant.MAX_NUMBER_HOUSES + 2];
+        for (int i = 0; i <= Constant.MAX_NUMBER_HOUSES; i++) {
+            schedule[i] = rent + i * Constant.PROPRIETY_HOUSE_RENT_INCREASE;
+        }
+        schedule[Constant.MAX_NUMBER_HOUSES + 1] =
+                schedule[Constant.MAX_NUMBER_HOUSES] + Constant.PROPRIETY_HOTEL_RENT_INCREASE;
+        return schedule;
     }
 
     /**
@@ -150,8 +197,9 @@ public class ProprietyCell extends Cell{
      */
     @Override
     public void applyEffect(final Player player, final Game game) {
+        final int rent = this.getRent();
         if (player.isEvader()) {
-            player.incrementAmountEvaded(this.rent);
+            player.incrementAmountEvaded(rent);
             ANSIUtility.printcf("As tax evader, you do not pay...%n", ANSIUtility.RED);
             return;
         }
@@ -159,14 +207,16 @@ public class ProprietyCell extends Cell{
             if (getOwner().equals(player)) {
                 return;
             }
-            player.pay(this.rent);
-            getOwner().receive(this.rent);
-            ANSIUtility.printcf("Paid %s$ to %s%n", ANSIUtility.BRIGHT_YELLOW, this.rent, getOwner().getName());
+            player.pay(rent);
+            getOwner().receive(rent);
+            game.getEventBus().rentPaid(player, player.getPosition(), rent);
+            ANSIUtility.printcf(Constant.PAID_TO_OWNER, ANSIUtility.BRIGHT_YELLOW).arg(rent).arg(getOwner().getName()).end();
             return;
         }
-        player.pay(this.rent);
-        Bank.getInstance().deposit(this.rent);
-        ANSIUtility.printcf("Paid %s$ to the bank%n", ANSIUtility.BRIGHT_YELLOW, this.rent);
+        player.pay(rent);
+        game.getBank().deposit(rent);
+        game.getEventBus().rentPaid(player, player.getPosition(), rent);
+        ANSIUtility.printcf(Constant.PAID_TO_BANK, ANSIUtility.BRIGHT_YELLOW).arg(rent).end();
 
     }
 
@@ -197,7 +247,34 @@ public class ProprietyCell extends Cell{
      */
     @Override
     public String getDetail() {
-        return "Pay " + this.rent + "$";
+        return "Pay " + this.getRent() + "$";
+    }
+
+    /**
+     * <p>
+     * Returns the current rent of the propriety.
+     * </p>
+     *
+     * @return the rent
+     */
+    public int getRent() {
+        return this.rentSchedule[this.level];
+    }
+
+    /**
+     * <p>
+     * Returns the rent of the propriety at a given building level.
+     * </p>
+     *
+     * @param level the building level
+     * @return the rent at that level
+     * @throws IllegalArgumentException if the level is not between 0 and {@link ProprietyCell#getMaxBuildingLevel()}
+     */
+    public int getRent(final int level) {
+        if (level < 0 || level >= this.rentSchedule.length) {
+            throw new IllegalArgumentException("Level must be between 0 and " + this.getMaxBuildingLevel());
+        }
+        return this.rentSchedule[level];
     }
 
     /**
@@ -211,6 +288,53 @@ public class ProprietyCell extends Cell{
         return this.purchasePrice;
     }
 
+    /**
+     * <p>
+     * Returns the price of a house on the propriety.
+     * </p>
+     *
+     * @return the house price
+     */
+    public int getHousePrice() {
+        return this.housePrice;
+    }
+
+    /**
+     * <p>
+     * Returns the price of the hotel on the propriety.
+     * </p>
+     *
+     * @return the hotel price
+     */
+    public int getHotelPrice() {
+        return this.hotelPrice;
+    }
+
+    /**
+     * <p>
+     * Returns the price of the next building on the propriety, as paid by
+     * {@link ProprietyCell#addBuilding(Player)}.
+     * </p>
+     *
+     * @return the price of a house, of the hotel after {@link Constant#MAX_NUMBER_HOUSES}
+     * houses, -1 if nothing more can be built
+     */
+    public int getNextBuildingPrice() {
+        if (this.level == this.getMaxBuildingLevel()) return -1;
+        return this.level == Constant.MAX_NUMBER_HOUSES ? this.hotelPrice : this.housePrice;
+    }
+
+    /**
+     * <p>
+     * Returns the name of the propriety, with its color.
+     * </p>
+     *
+     * @return the name
+     */
+    public ProprietyName getProprietyName() {
+        return this.name;
+    }
+
     /**
      * <p>
      * Returns the building prices (houses and hotel) of the propriety.
@@ -223,6 +347,18 @@ public class ProprietyCell extends Cell{
         return "Prices: " + "⇧ " + this.housePrice + "$" + " □ " + this.hotelPrice + "$";
     }
 
+    /**
+     * <p>
+     * Returns the money spent on the buildings currently on the propriety.
+     * </p>
+     *
+     * @return the value of the buildings
+     */
+    public int getBuildingsValue() {
+        final int houses = Math.min(this.level, Constant.MAX_NUMBER_HOUSES);
+        return houses * this.housePrice + (this.level > Constant.MAX_NUMBER_HOUSES ? this.hotelPrice : 0);
+    }
+
     /**
      * <p>
      * Returns the color of the cell.
@@ -234,30 +370,52 @@ public class ProprietyCell extends Cell{
         return name.getColor();
     }
 
+    /**
+     * <p>
+     * Returns whether the propriety can be built upon.
+     * </p>
+     *
+     * @return true if the propriety can be built upon
+     */
+    public boolean isBuildable() {
+        return this.buildDetail;
+    }
+
     /**
      * <p>
      * Builds a building on the propriety cell.
      * </p>
      * <p>
-     * If there is 1-3 houses builds another house;
+     * If there is 0-3 houses builds another house;
      * when the houses are 4, builds an hotel.
      * </p>
      *
      * @param currentPlayer The player building
      */
     public void addBuilding(final Player currentPlayer) {
-        if (this.hotel){
-            System.out.println("You can't build anymore on this propriety");
-        } else if (this.numberOfHouses == Constant.MAX_NUMBER_HOUSES) {
-            this.numberOfHouses = 0;
+        if (this.level == this.getMaxBuildingLevel()){
+            ANSIUtility.println("You can't build anymore on this propriety");
+            return;
+        }
+        if (this.level == Constant.MAX_NUMBER_HOUSES) {
             currentPlayer.pay(this.hotelPrice);
-            this.hotel = true;
-            this.rent += Constant.PROPRIETY_HOTEL_RENT_INCREASE;
-        }else {
+        } else {
             currentPlayer.pay(this.housePrice);
-            this.numberOfHouses++;
-            this.rent += Constant.PROPRIETY_HOUSE_RENT_INCREASE;
         }
+        this.setLevel(this.level + 1);
+    }
+
+    /**
+     * <p>
+     * Removes the last building built on the propriety,
+     * undoing {@link ProprietyCell#addBuilding(Player)}.
+     * </p>
+     * <p>
+     * If there are no buildings, this method does nothing.
+     * </p>
+     */
+    public void removeBuilding() {
+        if (this.level > 0) this.setLevel(this.level - 1);
     }
 
     /**
@@ -266,12 +424,116 @@ public class ProprietyCell extends Cell{
      * </p>
      */
     public void removeBuildings(){
-        if(this.hotel){
-            this.rent -= Constant.PROPRIETY_HOTEL_RENT_INCREASE;
+        this.setLevel(0);
+    }
+
+    /**
+     * <p>
+     * Returns the building level of the propriety:
+     * the number of houses, or {@link Constant#MAX_NUMBER_HOUSES} + 1
+     * when a hotel is built upon it.
+     * </p>
+     *
+     * @return the building level
+     */
+    public int getBuildingLevel() {
+        return this.level;
+    }
+
+    /**
+     * <p>
+     * Sets the building level of the propriety, without paying for it.
+     * </p>
+     * <p>
+     * Used to restore a propriety to a known state.
+     * </p>
+     *
+     * @param level the building level
+     * @throws IllegalArgumentException if the level is not between 0 and {@link ProprietyCell#getMaxBuildingLevel()}
+     */
+    public void setBuildingLevel(final int level) {
+        if (level < 0 || level > this.getMaxBuildingLevel()) {
+            throw new IllegalArgumentException("Level must be between 0 and " + this.getMaxBuildingLevel());
         }
-        this.rent -= this.numberOfHouses * Constant.PROPRIETY_HOUSE_RENT_INCREASE;
-        this.hotel = false;
-        this.numberOfHouses = 0;
+        this.setLevel(level);
+    }
+
+    /**
+     * <p>
+     * Moves the building level, updating the hash of the game.
+     * </p>
+     *
+     * @param level the building level
+     */
+    private void setLevel(final int level) {
+        this.stateHash.replace(StateHash.LEVEL, this.slot, this.level, level);
+        this.level = level;
+    }
+
+    /**
+     * <p>
+     * Sets the owner of the propriety, updating the hash of the game.
+     * </p>
+     *
+     * @param owner the owner, {@code null} for the bank
+     */
+    @Override
+    public void setOwner(final Player owner) {
+        this.stateHash.replace(StateHash.OWNER, this.slot, ownerCode(this.getOwner()), ownerCode(owner));
+        super.setOwner(owner);
+    }
+
+    /**
+     * <p>
+     * Sets the hash of the state of the game the propriety updates,
+     * moving the features of the propriety into it.
+     * </p>
+     *
+     * @param stateHash the hash of the game
+     */
+    public void setStateHash(final StateHash stateHash) {
+        if (stateHash == null) throw new IllegalArgumentException("stateHash cannot be null");
+        final long key = this.getStateKey();
+        this.stateHash.toggle(key);
+        this.stateHash = stateHash;
+        stateHash.toggle(key);
+    }
+
+    /**
+     * <p>
+     * Returns the XOR of the keys of the owner and of the building level
+     * of the propriety, its part of the {@link StateHash} of the game.
+     * </p>
+     *
+     * @return the keys
+     */
+    public long getStateKey() {
+        return StateHash.key(StateHash.OWNER, this.slot, ownerCode(this.getOwner()))
+                ^ StateHash.key(StateHash.LEVEL, this.slot, this.level);
+    }
+
+    /**
+     * <p>
+     * Returns the owner of a propriety, as a feature.
+     * </p>
+     *
+     * @param owner the owner
+     * @return the seat of the owner plus one, 0 for the bank
+     */
+    private static int ownerCode(final Player owner) {
+        return owner == null ? 0 : owner.getSeat() + 1;
+    }
+
+    /**
+     * <p>
+     * Returns the highest building level of the propriety:
+     * the hotel, or 0 if the propriety cannot be built upon.
+     * </p>
+     *
+     * @return the highest building level
+     */
+    public int getMaxBuildingLevel() {
+        return this.rentSchedule.length - 1;
     }
 
     /**
@@ -282,10 +544,10 @@ public class ProprietyCell extends Cell{
      * @return A string containing little images of houses ⌂ and hotels ⎕.
      */
     public String showBuildings() {
-        if (this.hotel){
+        if (this.level > Constant.MAX_NUMBER_HOUSES){
             return "□";
         }else {
-            return "⇧".repeat(Math.max(0, numberOfHouses));
+            return "⇧".repeat(this.level);
         }
     }
 }
@@ -95,6 +95,17 @@ public class ProprietyName {
         return ANSIUtility.colorize(this.name, this.color);
     }
 
+    /**
+     * <p>
+     * Returns the name, without colors.
+     * </p>
+     *
+     * @return the plain name
+     */
+    public String getPlainName() {
+        return this.name;
+    }
+
     /**
      * <p>
      * Returns the color of the cell.
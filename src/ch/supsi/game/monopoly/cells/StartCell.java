@@ -1,7 +1,6 @@
 package ch.supsi.game.monopoly.cells;
 
 import ch.mazluc.util.ANSIUtility;
-import ch.supsi.game.monopoly.Bank;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Game;
 import ch.supsi.game.monopoly.Player;
@@ -58,8 +57,19 @@ public class StartCell extends Cell{
     @Override
     public void applyEffect(final Player player, final Game game) {
         player.receive(this.receivedAmount);
-        Bank.getInstance().withdraw(this.receivedAmount);
-        ANSIUtility.printcf("Received %s$ by passing on the start cell.%n", ANSIUtility.GREEN, this.receivedAmount);
+        game.getBank().withdraw(this.receivedAmount);
+        ANSIUtility.printcf(Constant.START_RECEIVED, ANSIUtility.GREEN).arg(this.receivedAmount).end();
+    }
+
+    /**
+     * <p>
+     * Returns the amount of money received on the start cell.
+     * </p>
+     *
+     * @return the amount
+     */
+    public int getReceivedAmount() {
+        return this.receivedAmount;
     }
 
     /**
@@ -4,7 +4,7 @@ import ch.mazluc.util.ANSIUtility;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Game;
 import ch.supsi.game.monopoly.Player;
-import ch.supsi.game.monopoly.ScannerUtils;
+import ch.supsi.game.monopoly.StateHash;
 
 /**
  * <p>
@@ -16,6 +16,10 @@ import ch.supsi.game.monopoly.ScannerUtils;
  * There can only be one tax evader per game and once the player is caught
  * they can no longer be a tax evader.
  * </p>
+ * <p>
+ * Whether the cell is active is part of the {@link StateHash} of the game,
+ * as a feature keyed by the index of the cell on the board.
+ * </p>
  * <b>Usage</b>:
  * <pre>
  * {@code
@@ -35,6 +39,17 @@ public class TaxEvasionCell extends Cell {
      * Flag that enables the cell effect.
      */
     private boolean active;
+
+    /**
+     * The slot of the cell in the {@link StateHash} of the game: its index on the board.
+     */
+    private int slot;
+
+    /**
+     * The hash of the state of the game the cell updates.
+     */
+    private StateHash stateHash = StateHash.NONE;
+
     /**
      * Constructor of the class.
      * <p>
@@ -59,15 +74,61 @@ public class TaxEvasionCell extends Cell {
     @Override
     public void applyEffect(Player player, Game game) {
         if (!this.active) return;
-        ScannerUtils su = new ScannerUtils();
         ANSIUtility.printcf("Do you want to evade taxes? (y/n)%n", ANSIUtility.RED);
-        player.setEvader(su.readBoolean());
+        player.setEvader(game.getController().evade(game, player));
         if (player.isEvader()) {
             ANSIUtility.printcf(Constant.TAX_EVASION_MESSAGE, ANSIUtility.RED);
-            this.active = false;
+            this.setActive(false);
         }
     }
 
+    /**
+     * Returns whether the cell effect is still enabled.
+     *
+     * @return true if a player can still become an evader on this cell
+     */
+    public boolean isActive() {
+        return this.active;
+    }
+
+    /**
+     * Enables or disables the cell effect, updating the hash of the game.
+     *
+     * @param active the flag
+     */
+    public void setActive(final boolean active) {
+        this.stateHash.replace(StateHash.EVASION, this.slot, this.active ? 1 : 0, active ? 1 : 0);
+        this.active = active;
+    }
+
+    /**
+     * <p>
+     * Sets the hash of the state of the game the cell updates,
+     * moving the active flag of the cell into it.
+     * </p>
+     *
+     * @param stateHash the hash of the game
+     * @param index the index of the cell on the board
+     */
+    public void setStateHash(final StateHash stateHash, final int index) {
+        if (stateHash == null) throw new IllegalArgumentException("stateHash cannot be null");
+        this.stateHash.toggle(this.getStateKey());
+        this.slot = index;
+        this.stateHash = stateHash;
+        stateHash.toggle(this.getStateKey());
+    }
+
+    /**
+     * <p>
+     * Returns the key of the active flag of the cell, its part of the {@link StateHash} of the game.
+     * </p>
+     *
+     * @return the key
+     */
+    public long getStateKey() {
+        return StateHash.key(StateHash.EVASION, this.slot, this.active ? 1 : 0);
+    }
+
     /**
      * Returns the description of the cell.
      *
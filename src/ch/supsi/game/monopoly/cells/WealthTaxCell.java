@@ -1,7 +1,6 @@
 package ch.supsi.game.monopoly.cells;
 
 import ch.mazluc.util.ANSIUtility;
-import ch.supsi.game.monopoly.Bank;
 import ch.supsi.game.monopoly.Constant;
 import ch.supsi.game.monopoly.Game;
 import ch.supsi.game.monopoly.Player;
@@ -65,8 +64,19 @@ public class WealthTaxCell extends Cell{
             return;
         }
         player.pay(tax);
-        Bank.getInstance().deposit(tax);
-        ANSIUtility.printcf("Paid %s$ to the bank.%n", ANSIUtility.BRIGHT_YELLOW, tax);
+        game.getBank().deposit(tax);
+        ANSIUtility.printcf(Constant.PAID_TO_BANK, ANSIUtility.BRIGHT_YELLOW).arg(tax).end();
+    }
+
+    /**
+     * <p>
+     * Returns the percentage of the wealth tax.
+     * </p>
+     *
+     * @return the percentage
+     */
+    public double getPercentage() {
+        return this.percentage;
     }
 
     /**
@@ -0,0 +1,318 @@
+package ch.supsi.game.monopoly.event;
+
+import ch.supsi.game.monopoly.cards.Card;
+
+/**
+ * <p>
+ * Immutable event of a game, as published by a {@link GameEventPublisher}.
+ * </p>
+ * <p>
+ * Unlike the calls of a {@link GameEventListener}, which happen on the game
+ * thread while the game goes on, an event is read later and on another
+ * thread, so it holds a copy of what it tells rather than the
+ * {@link ch.supsi.game.monopoly.Player Player} it refers to: the seat of the
+ * player and the few numbers of its {@link GameEvent.Type type}. The
+ * getters not meaningful for the type return 0.
+ * </p>
+ * <p>
+ * Events are numbered in the order they were fired, from 0: a subscriber
+ * that could not keep up receives a {@link GameEvent.Type#DROPPED} event
+ * in place of the events it lost, see {@link GameEvent#getDropped()}.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * if (event.getType() == GameEvent.Type.BOUGHT) {
+ *     owners[event.getCellIndex()] = event.getSeat();
+ * }
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameEvent {
+
+    /**
+     * <p>
+     * The types of the events, one for every method of {@link GameEventListener},
+     * and one for the events a subscriber lost.
+     * </p>
+     */
+    public enum Type {
+
+        /**
+         * The game cycle started.
+         */
+        GAME_STARTED,
+
+        /**
+         * A dice was rolled: see {@link GameEvent#getDice()} and {@link GameEvent#getValue()}.
+         */
+        ROLLED,
+
+        /**
+         * A player moved: see {@link GameEvent#getFrom()} and {@link GameEvent#getTo()}.
+         */
+        MOVED,
+
+        /**
+         * A player paid: see {@link GameEvent#getAmount()}.
+         */
+        PAID,
+
+        /**
+         * A player received some money: see {@link GameEvent#getAmount()}.
+         */
+        RECEIVED,
+
+        /**
+         * A player paid a rent: see {@link GameEvent#getCellIndex()} and {@link GameEvent#getAmount()}.
+         */
+        RENT_PAID,
+
+        /**
+         * A player picked a card: see {@link GameEvent#getCard()}.
+         */
+        CARD_PICKED,
+
+        /**
+         * A player bought a propriety: see {@link GameEvent#getCellIndex()} and {@link GameEvent#getAmount()}.
+         */
+        BOUGHT,
+
+        /**
+         * A player built: see {@link GameEvent#getCellIndex()} and {@link GameEvent#getLevel()}.
+         */
+        BUILT,
+
+        /**
+         * A player was sent to prison.
+         */
+        JAILED,
+
+        /**
+         * A player ended their turn.
+         */
+        TURN_ENDED,
+
+        /**
+         * A player went bankrupt.
+         */
+        BANKRUPTED,
+
+        /**
+         * The game is over.
+         */
+        GAME_ENDED,
+
+        /**
+         * The subscriber lost events: see {@link GameEvent#getDropped()}.
+         */
+        DROPPED
+    }
+
+    /**
+     * The type of the event.
+     */
+    private final Type type;
+
+    /**
+     * The number of the event, or of the first event lost.
+     */
+    private final long sequence;
+
+    /**
+     * The seat of the player, -1 if the event is not of a player.
+     */
+    private final int seat;
+
+    /**
+     * The dice, the starting position, the propriety, or the number of events lost.
+     */
+    private final int first;
+
+    /**
+     * The value rolled, the position reached, or the building level.
+     */
+    private final int second;
+
+    /**
+     * The amount of money.
+     */
+    private final double amount;
+
+    /**
+     * The card picked.
+     */
+    private final Card card;
+
+    /**
+     * <p>
+     * Creates an event.
+     * </p>
+     *
+     * @param type the type of the event
+     * @param sequence the number of the event
+     * @param seat the seat of the player, -1 if none
+     * @param first the first number of the event
+     * @param second the second number of the event
+     * @param amount the amount of money
+     * @param card the card picked, null if none
+     */
+    GameEvent(final Type type, final long sequence, final int seat, final int first, final int second,
+              final double amount, final Card card) {
+        this.type = type;
+        this.sequence = sequence;
+        this.seat = seat;
+        this.first = first;
+        this.second = second;
+        this.amount = amount;
+        this.card = card;
+    }
+
+    /**
+     * <p>
+     * Returns the type of the event.
+     * </p>
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * <p>
+     * Returns the number of the event, in the order the events were fired.
+     * </p>
+     *
+     * @return the number of the event, or of the first event lost if {@link Type#DROPPED}
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * <p>
+     * Returns the seat of the player the event refers to.
+     * </p>
+     *
+     * @return the seat, -1 if the event is not of a player
+     */
+    public int getSeat() {
+        return this.seat;
+    }
+
+    /**
+     * <p>
+     * Returns the index of the dice rolled.
+     * </p>
+     *
+     * @return the index of the dice, if {@link Type#ROLLED}
+     */
+    public int getDice() {
+        return this.type == Type.ROLLED ? this.first : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the value rolled.
+     * </p>
+     *
+     * @return the value, if {@link Type#ROLLED}
+     */
+    public int getValue() {
+        return this.type == Type.ROLLED ? this.second : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the position the player moved from.
+     * </p>
+     *
+     * @return the previous position, if {@link Type#MOVED}
+     */
+    public int getFrom() {
+        return this.type == Type.MOVED ? this.first : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the position the player moved to.
+     * </p>
+     *
+     * @return the new position, if {@link Type#MOVED}
+     */
+    public int getTo() {
+        return this.type == Type.MOVED ? this.second : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the index of the propriety on the board.
+     * </p>
+     *
+     * @return the index, if {@link Type#RENT_PAID}, {@link Type#BOUGHT} or {@link Type#BUILT}
+     */
+    public int getCellIndex() {
+        return this.type == Type.RENT_PAID || this.type == Type.BOUGHT || this.type == Type.BUILT ? this.first : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the building level reached.
+     * </p>
+     *
+     * @return the level, if {@link Type#BUILT}
+     */
+    public int getLevel() {
+        return this.type == Type.BUILT ? this.second : 0;
+    }
+
+    /**
+     * <p>
+     * Returns the amount of money paid or received.
+     * </p>
+     *
+     * @return the amount, if {@link Type#PAID}, {@link Type#RECEIVED},
+     * {@link Type#RENT_PAID} or {@link Type#BOUGHT}
+     */
+    public double getAmount() {
+        return this.amount;
+    }
+
+    /**
+     * <p>
+     * Returns the card picked.
+     * </p>
+     *
+     * @return the card, if {@link Type#CARD_PICKED}, null otherwise
+     */
+    public Card getCard() {
+        return this.card;
+    }
+
+    /**
+     * <p>
+     * Returns the number of events lost, numbered from {@link GameEvent#getSequence()} on.
+     * </p>
+     *
+     * @return the number of events, if {@link Type#DROPPED}
+     */
+    public int getDropped() {
+        return this.type == Type.DROPPED ? this.first : 0;
+    }
+
+    /**
+     * <p>
+     * Returns a description of the event.
+     * </p>
+     *
+     * @return the type, the number and the seat of the event
+     */
+    @Override
+    public String toString() {
+        return this.type + "#" + this.sequence + (this.seat < 0 ? "" : " seat " + this.seat);
+    }
+}
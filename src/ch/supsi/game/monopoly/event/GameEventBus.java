@@ -0,0 +1,245 @@
+package ch.supsi.game.monopoly.event;
+
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.Deck;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Typed event bus of the game "Monopoly".
+ * </p>
+ * <p>
+ * The bus is the single hook point for everything that has to react to
+ * the game evolving: board rendering, logging, metrics and so on.
+ * Listeners are registered before the game starts and kept in a plain
+ * array, so firing an event is a loop of direct calls that takes only
+ * primitives: nothing is boxed and no event object is allocated.
+ * </p>
+ * <p>
+ * Registering and removing listeners copies the array, which is fine
+ * as it happens a handful of times per game.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameEventBus bus = new GameEventBus();   // create a new bus
+ * bus.register(game);                      // pre-register a listener
+ * player.setEventBus(bus);                 // let the player fire its events
+ * bus.moved(player, 0, 7);                 // fire an event
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameEventBus {
+
+    /**
+     * <p>
+     * Bus without listeners, used by objects not (yet) part of a game.
+     * </p>
+     * <p>
+     * Listeners cannot be registered on it.
+     * </p>
+     */
+    public static final GameEventBus NONE = new GameEventBus();
+
+    /**
+     * The listeners notified on every event, in registration order.
+     */
+    private GameEventListener[] listeners = new GameEventListener[0];
+
+    /**
+     * <p>
+     * Registers a listener on the bus.
+     * </p>
+     *
+     * @param listener the listener to register
+     * @throws IllegalArgumentException if the listener is null
+     * @throws IllegalStateException if called on {@link GameEventBus#NONE}
+     */
+    public void register(final GameEventListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        if (this == NONE) throw new IllegalStateException("Cannot register listeners on the empty bus");
+        final GameEventListener[] tmp = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        tmp[tmp.length - 1] = listener;
+        this.listeners = tmp;
+    }
+
+    /**
+     * <p>
+     * Removes a listener from the bus.
+     * </p>
+     * <p>
+     * If the listener is not registered, this method does nothing.
+     * </p>
+     *
+     * @param listener the listener to remove
+     */
+    public void unregister(final GameEventListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (this.listeners[i] == listener) {
+                final GameEventListener[] tmp = new GameEventListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, tmp, 0, i);
+                System.arraycopy(this.listeners, i + 1, tmp, i, tmp.length - i);
+                this.listeners = tmp;
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Fires the "game started" event.
+     * </p>
+     */
+    public void gameStarted() {
+        for (GameEventListener listener : this.listeners) listener.onGameStarted();
+    }
+
+    /**
+     * <p>
+     * Fires the "rolled" event.
+     * </p>
+     *
+     * @param player the player rolling
+     * @param dice the index of the dice
+     * @param value the value rolled
+     */
+    public void rolled(final Player player, final int dice, final int value) {
+        for (GameEventListener listener : this.listeners) listener.onRolled(player, dice, value);
+    }
+
+    /**
+     * <p>
+     * Fires the "moved" event.
+     * </p>
+     *
+     * @param player the player that moved
+     * @param from the previous position
+     * @param to the new position
+     */
+    public void moved(final Player player, final int from, final int to) {
+        for (GameEventListener listener : this.listeners) listener.onMoved(player, from, to);
+    }
+
+    /**
+     * <p>
+     * Fires the "paid" event.
+     * </p>
+     *
+     * @param player the player paying
+     * @param amount the amount paid
+     */
+    public void paid(final Player player, final double amount) {
+        for (GameEventListener listener : this.listeners) listener.onPaid(player, amount);
+    }
+
+    /**
+     * <p>
+     * Fires the "received" event.
+     * </p>
+     *
+     * @param player the player receiving
+     * @param amount the amount received
+     */
+    public void received(final Player player, final double amount) {
+        for (GameEventListener listener : this.listeners) listener.onReceived(player, amount);
+    }
+
+    /**
+     * <p>
+     * Fires the "rent paid" event.
+     * </p>
+     *
+     * @param player the player paying
+     * @param cellIndex the index of the propriety
+     * @param amount the rent paid
+     */
+    public void rentPaid(final Player player, final int cellIndex, final double amount) {
+        for (GameEventListener listener : this.listeners) listener.onRentPaid(player, cellIndex, amount);
+    }
+
+    /**
+     * <p>
+     * Fires the "card picked" event.
+     * </p>
+     *
+     * @param player the player picking
+     * @param deck the deck
+     * @param card the card picked
+     */
+    public void cardPicked(final Player player, final Deck deck, final Card card) {
+        for (GameEventListener listener : this.listeners) listener.onCardPicked(player, deck, card);
+    }
+
+    /**
+     * <p>
+     * Fires the "bought" event.
+     * </p>
+     *
+     * @param player the buyer
+     * @param cellIndex the index of the propriety
+     * @param price the price paid
+     */
+    public void bought(final Player player, final int cellIndex, final double price) {
+        for (GameEventListener listener : this.listeners) listener.onBought(player, cellIndex, price);
+    }
+
+    /**
+     * <p>
+     * Fires the "built" event.
+     * </p>
+     *
+     * @param player the player building
+     * @param cellIndex the index of the propriety
+     * @param level the building level reached
+     */
+    public void built(final Player player, final int cellIndex, final int level) {
+        for (GameEventListener listener : this.listeners) listener.onBuilt(player, cellIndex, level);
+    }
+
+    /**
+     * <p>
+     * Fires the "jailed" event.
+     * </p>
+     *
+     * @param player the player sent to prison
+     */
+    public void jailed(final Player player) {
+        for (GameEventListener listener : this.listeners) listener.onJailed(player);
+    }
+
+    /**
+     * <p>
+     * Fires the "turn ended" event.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    public void turnEnded(final Player player) {
+        for (GameEventListener listener : this.listeners) listener.onTurnEnded(player);
+    }
+
+    /**
+     * <p>
+     * Fires the "bankrupted" event.
+     * </p>
+     *
+     * @param player the bankrupt player
+     */
+    public void bankrupted(final Player player) {
+        for (GameEventListener listener : this.listeners) listener.onBankrupted(player);
+    }
+
+    /**
+     * <p>
+     * Fires the "game ended" event.
+     * </p>
+     */
+    public void gameEnded() {
+        for (GameEventListener listener : this.listeners) listener.onGameEnded();
+    }
+}
@@ -0,0 +1,196 @@
+package ch.supsi.game.monopoly.event;
+
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.Deck;
+
+/**
+ * <p>
+ * Listener of the typed events fired by a {@link GameEventBus}.
+ * </p>
+ * <p>
+ * Every event has its own method, taking only primitives and the
+ * {@link Player} the event refers to, so that dispatching an event
+ * never boxes a value nor compares property names.
+ * </p>
+ * <p>
+ * All methods have an empty default implementation: a listener
+ * overrides only the events it is interested in.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameEventBus bus = new GameEventBus();
+ * bus.register(new GameEventListener() {
+ *     @Override
+ *     public void onMoved(Player player, int from, int to) {
+ *         // react to the movement
+ *     }
+ * });
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public interface GameEventListener {
+
+    /**
+     * <p>
+     * Called when the game cycle starts, once the players are seated,
+     * either for a new game or for a game loaded or recovered.
+     * </p>
+     */
+    default void onGameStarted() {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a dice is rolled.
+     * </p>
+     *
+     * @param player the player rolling
+     * @param dice the index of the dice
+     * @param value the value rolled
+     */
+    default void onRolled(final Player player, final int dice, final int value) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player changes position on the board.
+     * </p>
+     *
+     * @param player the player that moved
+     * @param from the previous position of the player
+     * @param to the new position of the player
+     */
+    default void onMoved(final Player player, final int from, final int to) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player pays some money.
+     * </p>
+     *
+     * @param player the player paying
+     * @param amount the amount of money paid
+     */
+    default void onPaid(final Player player, final double amount) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player receives some money.
+     * </p>
+     *
+     * @param player the player receiving
+     * @param amount the amount of money received
+     */
+    default void onReceived(final Player player, final double amount) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player pays the rent of a propriety, after the
+     * money has been paid and received.
+     * </p>
+     *
+     * @param player the player paying
+     * @param cellIndex the index of the propriety on the board
+     * @param amount the rent paid
+     */
+    default void onRentPaid(final Player player, final int cellIndex, final double amount) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player picks a card, after the card has been put back in the deck.
+     * </p>
+     *
+     * @param player the player picking
+     * @param deck the deck
+     * @param card the card picked
+     */
+    default void onCardPicked(final Player player, final Deck deck, final Card card) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player buys a propriety.
+     * </p>
+     *
+     * @param player the buyer
+     * @param cellIndex the index of the propriety on the board
+     * @param price the price paid
+     */
+    default void onBought(final Player player, final int cellIndex, final double price) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player builds upon a propriety.
+     * </p>
+     *
+     * @param player the player building
+     * @param cellIndex the index of the propriety on the board
+     * @param level the building level reached by the propriety
+     */
+    default void onBuilt(final Player player, final int cellIndex, final int level) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player is sent to prison.
+     * </p>
+     *
+     * @param player the player sent to prison
+     */
+    default void onJailed(final Player player) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called when a player has finished their turn, before the next player plays.
+     * </p>
+     * <p>
+     * The turn has already passed to the next player, so the state of the
+     * game is the one the next turn starts from.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    default void onTurnEnded(final Player player) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called once, when a player goes bankrupt and is removed from the game.
+     * </p>
+     *
+     * @param player the bankrupt player
+     */
+    default void onBankrupted(final Player player) {
+        // does nothing
+    }
+
+    /**
+     * <p>
+     * Called once, when the game is over, after the last decision was played.
+     * </p>
+     */
+    default void onGameEnded() {
+        // does nothing
+    }
+}
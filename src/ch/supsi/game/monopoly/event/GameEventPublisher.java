@@ -0,0 +1,677 @@
+package ch.supsi.game.monopoly.event;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.Deck;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Reactive {@link Flow.Publisher} of the events of a {@link Game}.
+ * </p>
+ * <p>
+ * The publisher listens on the event bus of the game and turns every call
+ * into an immutable {@link GameEvent}, for loggers, metrics, user interfaces
+ * and analytics running on other threads. Every subscriber has a bounded
+ * ring of events of its own, and is called on the given executor, never on
+ * the game thread: the game only stores the event in the rings, and never
+ * waits for a subscriber.
+ * </p>
+ * <p>
+ * Events are delivered as the subscribers request them: a task drains as
+ * many events as requested in one run, so a subscriber asking for
+ * {@code n} events at a time receives them in batches of up to {@code n},
+ * paying the hand-off between threads once per batch. A subscriber that
+ * does not keep up fills its ring: the events that do not fit are dropped,
+ * for that subscriber only, and replaced by a single
+ * {@link GameEvent.Type#DROPPED} event telling how many were lost, so
+ * memory stays bounded whatever the subscribers do.
+ * </p>
+ * <p>
+ * The subscribers are completed when the game ends, after the
+ * {@link GameEvent.Type#GAME_ENDED} event, or when the publisher is closed.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameEventPublisher publisher = new GameEventPublisher(game, executor, 256);
+ * publisher.subscribe(metrics);            // any Flow.Subscriber<GameEvent>
+ * game.play();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameEventPublisher implements Flow.Publisher<GameEvent>, GameEventListener, AutoCloseable {
+
+    /**
+     * The subscriptions, replaced on every change.
+     */
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    /**
+     * The executor calling the subscribers.
+     */
+    private final Executor executor;
+
+    /**
+     * The number of events buffered for every subscriber, a power of 2.
+     */
+    private final int bufferSize;
+
+    /**
+     * The number of the next event, used by the game thread only.
+     */
+    private long sequence;
+
+    /**
+     * Whether the subscribers were completed.
+     */
+    private boolean closed;
+
+    /**
+     * <p>
+     * Creates the publisher of the events of a game, calling the subscribers
+     * on the common fork-join pool and buffering {@link Flow#defaultBufferSize()}
+     * events for each of them.
+     * </p>
+     *
+     * @param game the game
+     */
+    public GameEventPublisher(final Game game) {
+        this(game, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * <p>
+     * Creates the publisher of the events of a game, registering it on the
+     * event bus of the game, so it is created before the game plays.
+     * </p>
+     *
+     * @param game the game
+     * @param executor the executor calling the subscribers
+     * @param bufferSize the number of events buffered for every subscriber,
+     *                   rounded up to a power of 2
+     * @throws IllegalArgumentException if the game or the executor is null, or the size is less than 2
+     */
+    public GameEventPublisher(final Game game, final Executor executor, final int bufferSize) {
+        if (game == null) throw new IllegalArgumentException("game cannot be null");
+        if (executor == null) throw new IllegalArgumentException("executor cannot be null");
+        if (bufferSize < 2 || bufferSize > 1 << 30) throw new IllegalArgumentException("bufferSize must be between 2 and 2^30");
+        this.executor = executor;
+        this.bufferSize = Integer.highestOneBit(bufferSize - 1) << 1;
+        game.getEventBus().register(this);
+    }
+
+    /**
+     * <p>
+     * Subscribes a subscriber, which will receive the events fired from now on.
+     * </p>
+     * <p>
+     * A subscriber already subscribed receives an {@link IllegalStateException};
+     * one subscribing after the publisher was closed is completed at once.
+     * </p>
+     *
+     * @param subscriber the subscriber
+     * @throws NullPointerException if the subscriber is null
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super GameEvent> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber cannot be null");
+        final Subscription subscription = new Subscription(this, subscriber);
+        subscriber.onSubscribe(subscription);
+        synchronized (this) {
+            for (Subscription other : this.subscriptions) {
+                if (other.subscriber == subscriber) {
+                    subscription.fail(new IllegalStateException("Already subscribed"));
+                    return;
+                }
+            }
+            if (this.closed) {
+                subscription.done = true;
+            } else {
+                final Subscription[] tmp = Arrays.copyOf(this.subscriptions, this.subscriptions.length + 1);
+                tmp[tmp.length - 1] = subscription;
+                this.subscriptions = tmp;
+            }
+        }
+        subscription.schedule();
+    }
+
+    /**
+     * <p>
+     * Removes a subscription, if present.
+     * </p>
+     *
+     * @param subscription the subscription
+     */
+    private synchronized void remove(final Subscription subscription) {
+        final Subscription[] current = this.subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                final Subscription[] tmp = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, tmp, 0, i);
+                System.arraycopy(current, i + 1, tmp, i, tmp.length - i);
+                this.subscriptions = tmp;
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of subscribers.
+     * </p>
+     *
+     * @return the number of subscriptions not cancelled nor completed
+     */
+    public int getNumberOfSubscribers() {
+        return this.subscriptions.length;
+    }
+
+    /**
+     * <p>
+     * Returns the number of events buffered for every subscriber.
+     * </p>
+     *
+     * @return the size of the ring of a subscriber
+     */
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    /**
+     * <p>
+     * Completes the subscribers, once they received the events buffered.
+     * </p>
+     * <p>
+     * Events fired afterwards are not published. Closing twice does nothing.
+     * </p>
+     */
+    @Override
+    public void close() {
+        final Subscription[] current;
+        synchronized (this) {
+            if (this.closed) return;
+            this.closed = true;
+            current = this.subscriptions;
+            this.subscriptions = new Subscription[0];
+        }
+        for (Subscription subscription : current) {
+            subscription.done = true;
+            subscription.signal();
+        }
+    }
+
+    /**
+     * <p>
+     * Publishes an event to every subscriber, on the game thread.
+     * </p>
+     *
+     * @param type the type of the event
+     * @param player the player, null if none
+     * @param first the first number of the event
+     * @param second the second number of the event
+     * @param amount the amount of money
+     * @param card the card picked, null if none
+     */
+    private void publish(final GameEvent.Type type, final Player player, final int first, final int second,
+                         final double amount, final Card card) {
+        final long number = this.sequence++;
+        final Subscription[] current = this.subscriptions;
+        if (current.length == 0) return;
+        final GameEvent event = new GameEvent(type, number, player == null ? -1 : player.getSeat(),
+                first, second, amount, card);
+        for (Subscription subscription : current) subscription.offer(event);
+    }
+
+    /**
+     * <p>
+     * Publishes the "game started" event.
+     * </p>
+     */
+    @Override
+    public void onGameStarted() {
+        this.publish(GameEvent.Type.GAME_STARTED, null, 0, 0, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "rolled" event.
+     * </p>
+     *
+     * @param player the player rolling
+     * @param dice the index of the dice
+     * @param value the value rolled
+     */
+    @Override
+    public void onRolled(final Player player, final int dice, final int value) {
+        this.publish(GameEvent.Type.ROLLED, player, dice, value, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "moved" event.
+     * </p>
+     *
+     * @param player the player that moved
+     * @param from the previous position
+     * @param to the new position
+     */
+    @Override
+    public void onMoved(final Player player, final int from, final int to) {
+        this.publish(GameEvent.Type.MOVED, player, from, to, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "paid" event.
+     * </p>
+     *
+     * @param player the player paying
+     * @param amount the amount paid
+     */
+    @Override
+    public void onPaid(final Player player, final double amount) {
+        this.publish(GameEvent.Type.PAID, player, 0, 0, amount, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "received" event.
+     * </p>
+     *
+     * @param player the player receiving
+     * @param amount the amount received
+     */
+    @Override
+    public void onReceived(final Player player, final double amount) {
+        this.publish(GameEvent.Type.RECEIVED, player, 0, 0, amount, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "rent paid" event.
+     * </p>
+     *
+     * @param player the player paying
+     * @param cellIndex the index of the propriety
+     * @param amount the rent paid
+     */
+    @Override
+    public void onRentPaid(final Player player, final int cellIndex, final double amount) {
+        this.publish(GameEvent.Type.RENT_PAID, player, cellIndex, 0, amount, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "card picked" event.
+     * </p>
+     *
+     * @param player the player picking
+     * @param deck the deck
+     * @param card the card picked
+     */
+    @Override
+    public void onCardPicked(final Player player, final Deck deck, final Card card) {
+        this.publish(GameEvent.Type.CARD_PICKED, player, 0, 0, 0, card);
+    }
+
+    /**
+     * <p>
+     * Publishes the "bought" event.
+     * </p>
+     *
+     * @param player the buyer
+     * @param cellIndex the index of the propriety
+     * @param price the price paid
+     */
+    @Override
+    public void onBought(final Player player, final int cellIndex, final double price) {
+        this.publish(GameEvent.Type.BOUGHT, player, cellIndex, 0, price, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "built" event.
+     * </p>
+     *
+     * @param player the player building
+     * @param cellIndex the index of the propriety
+     * @param level the building level reached
+     */
+    @Override
+    public void onBuilt(final Player player, final int cellIndex, final int level) {
+        this.publish(GameEvent.Type.BUILT, player, cellIndex, level, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "jailed" event.
+     * </p>
+     *
+     * @param player the player sent to prison
+     */
+    @Override
+    public void onJailed(final Player player) {
+        this.publish(GameEvent.Type.JAILED, player, 0, 0, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "turn ended" event.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.publish(GameEvent.Type.TURN_ENDED, player, 0, 0, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "bankrupted" event.
+     * </p>
+     *
+     * @param player the bankrupt player
+     */
+    @Override
+    public void onBankrupted(final Player player) {
+        this.publish(GameEvent.Type.BANKRUPTED, player, 0, 0, 0, null);
+    }
+
+    /**
+     * <p>
+     * Publishes the "game ended" event, and completes the subscribers.
+     * </p>
+     */
+    @Override
+    public void onGameEnded() {
+        this.publish(GameEvent.Type.GAME_ENDED, null, 0, 0, 0, null);
+        this.close();
+    }
+
+    /**
+     * <p>
+     * Subscription of a subscriber: a ring of events written by the game
+     * thread and drained by one task at a time on the executor.
+     * </p>
+     */
+    private static final class Subscription implements Flow.Subscription, Runnable {
+
+        /**
+         * The publisher.
+         */
+        private final GameEventPublisher publisher;
+
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super GameEvent> subscriber;
+
+        /**
+         * The events not delivered yet.
+         */
+        private final GameEvent[] ring;
+
+        /**
+         * The mask of the indexes of the ring.
+         */
+        private final int mask;
+
+        /**
+         * The signals not handled yet by the draining task, 0 if no task is draining.
+         */
+        private final AtomicInteger signals = new AtomicInteger(1);
+
+        /**
+         * The number of events requested and not delivered yet.
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * The number of events written in the ring, by the game thread.
+         */
+        private volatile long tail;
+
+        /**
+         * The number of events taken from the ring, by the draining task.
+         */
+        private volatile long head;
+
+        /**
+         * The number of events dropped since the last one written: written by
+         * the game thread only, read by the draining task to complete the subscriber.
+         */
+        private volatile int dropped;
+
+        /**
+         * The number of the first event dropped, written by the game thread
+         * only before {@link Subscription#dropped} leaves 0.
+         */
+        private volatile long droppedFrom;
+
+        /**
+         * Whether the subscriber is to be completed once the ring is drained.
+         */
+        private volatile boolean done;
+
+        /**
+         * The error to signal to the subscriber, null if none.
+         */
+        private volatile Throwable error;
+
+        /**
+         * Whether the subscription was cancelled or terminated.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * <p>
+         * Creates the subscription of a subscriber, holding the drain until
+         * {@link Subscription#schedule()} is called, so that the subscriber is
+         * not called before {@link Flow.Subscriber#onSubscribe(Flow.Subscription)} returns.
+         * </p>
+         *
+         * @param publisher the publisher
+         * @param subscriber the subscriber
+         */
+        Subscription(final GameEventPublisher publisher, final Flow.Subscriber<? super GameEvent> subscriber) {
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+            this.ring = new GameEvent[publisher.bufferSize];
+            this.mask = publisher.bufferSize - 1;
+        }
+
+        /**
+         * <p>
+         * Writes an event in the ring, on the game thread, or counts it as
+         * dropped if the ring is full. The first event that fits after some
+         * were dropped is preceded by a {@link GameEvent.Type#DROPPED} event.
+         * </p>
+         *
+         * @param event the event
+         */
+        void offer(final GameEvent event) {
+            if (this.cancelled) return;
+            final long t = this.tail;
+            final long free = this.ring.length - (t - this.head);
+            if (this.dropped == 0 && free >= 1) {
+                this.ring[(int) t & this.mask] = event;
+                this.tail = t + 1;
+            } else if (this.dropped > 0 && free >= 2) {
+                this.ring[(int) t & this.mask] = this.gap(this.dropped);
+                this.ring[(int) (t + 1) & this.mask] = event;
+                this.dropped = 0;
+                this.tail = t + 2;
+            } else {
+                if (this.dropped == 0) this.droppedFrom = event.getSequence();
+                this.dropped++;
+                return;
+            }
+            if (this.requested.get() > 0) this.signal();
+        }
+
+        /**
+         * <p>
+         * Returns the event telling the events dropped.
+         * </p>
+         *
+         * @param dropped the number of events dropped
+         * @return the {@link GameEvent.Type#DROPPED} event
+         */
+        private GameEvent gap(final int dropped) {
+            return new GameEvent(GameEvent.Type.DROPPED, this.droppedFrom, -1, dropped, 0, 0, null);
+        }
+
+        /**
+         * <p>
+         * Requests events.
+         * </p>
+         *
+         * @param n the number of events, added to those requested before
+         */
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("non-positive request " + n);
+            } else {
+                long current;
+                do {
+                    current = this.requested.get();
+                } while (!this.requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            this.signal();
+        }
+
+        /**
+         * <p>
+         * Cancels the subscription: no more events are written nor delivered.
+         * </p>
+         */
+        @Override
+        public void cancel() {
+            if (this.cancelled) return;
+            this.cancelled = true;
+            this.publisher.remove(this);
+        }
+
+        /**
+         * <p>
+         * Terminates the subscription with an error, on the calling thread.
+         * </p>
+         *
+         * @param cause the error
+         */
+        void fail(final Throwable cause) {
+            this.cancel();
+            this.subscriber.onError(cause);
+        }
+
+        /**
+         * <p>
+         * Lets the drain run, once the subscriber was told its subscription.
+         * </p>
+         */
+        void schedule() {
+            this.execute();
+        }
+
+        /**
+         * <p>
+         * Makes the drain run again: schedules it if no task is draining.
+         * </p>
+         */
+        void signal() {
+            if (this.signals.getAndIncrement() == 0) this.execute();
+        }
+
+        /**
+         * <p>
+         * Runs the drain on the executor; a rejected drain fails the subscription.
+         * </p>
+         */
+        private void execute() {
+            try {
+                this.publisher.executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                if (!this.cancelled) this.fail(e);
+            }
+        }
+
+        /**
+         * <p>
+         * Drains the ring: delivers as many events as requested in one batch,
+         * then completes the subscriber if the publisher was closed, and runs
+         * again as long as it was signaled meanwhile.
+         * </p>
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            long h = this.head;
+            do {
+                if (this.cancelled) return;
+                if (this.error != null) {
+                    this.fail(this.error);
+                    return;
+                }
+                final long r = this.requested.get();
+                long delivered = 0;
+                while (delivered != r && h != this.tail) {
+                    final int index = (int) h & this.mask;
+                    final GameEvent event = this.ring[index];
+                    this.ring[index] = null;
+                    this.head = ++h;
+                    try {
+                        this.subscriber.onNext(event);
+                    } catch (Throwable t) {
+                        this.cancel();
+                        return;
+                    }
+                    if (this.cancelled) return;
+                    delivered++;
+                }
+                if (this.done && h == this.tail && this.complete(r - delivered)) return;
+                if (delivered != 0 && r != Long.MAX_VALUE) this.requested.addAndGet(-delivered);
+                missed = this.signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * <p>
+         * Completes the subscriber, whose ring is drained, once it received
+         * the events dropped after the last one written, if any. The count is
+         * only read here: the game thread alone writes it.
+         * </p>
+         *
+         * @param demand the events still requested
+         * @return true if the subscriber was completed
+         */
+        private boolean complete(final long demand) {
+            final int lost = this.dropped;
+            if (lost > 0) {
+                if (demand == 0) return false;
+                try {
+                    this.subscriber.onNext(this.gap(lost));
+                } catch (Throwable t) {
+                    this.cancel();
+                    return true;
+                }
+            }
+            this.cancel();
+            this.subscriber.onComplete();
+            return true;
+        }
+    }
+}
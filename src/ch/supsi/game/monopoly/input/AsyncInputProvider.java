@@ -0,0 +1,167 @@
+package ch.supsi.game.monopoly.input;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * {@link InputProvider} reading the lines of another provider on a
+ * background thread, so that the game can work while the user thinks.
+ * </p>
+ * <p>
+ * When the game asks for a line, the request is handed to the reader
+ * thread, which blocks on the underlying provider; meanwhile the game
+ * thread runs the {@link IdleWork} of the moment, one step at a time,
+ * polling for the answer between two steps. When the answer arrives the
+ * work is cancelled, and when the work is done the game thread simply
+ * waits for the answer.
+ * </p>
+ * <p>
+ * The reader is a daemon thread, so a user who never answers does not
+ * keep the program alive. Errors of the underlying provider, as the end
+ * of a transcript, are rethrown on the game thread.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * AsyncInputProvider input = new AsyncInputProvider(new ConsoleInputProvider());
+ * input.setIdleWork(speculator::restart);   // what to do while waiting
+ * String line = input.readLine("Y/n: ");    // wait for the user, working meanwhile
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class AsyncInputProvider implements InputProvider {
+
+    /**
+     * The provider actually reading the lines.
+     */
+    private final InputProvider delegate;
+
+    /**
+     * The prompts of the lines requested to the reader thread.
+     */
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+
+    /**
+     * The lines read, or the exceptions thrown, by the reader thread.
+     */
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+    /**
+     * The source of the work to do while waiting, may be null.
+     */
+    private Supplier<IdleWork> idleWork;
+
+    /**
+     * The reader thread, started at the first request.
+     */
+    private Thread reader;
+
+    /**
+     * <p>
+     * Creates a provider reading the lines of another one in background.
+     * </p>
+     *
+     * @param delegate the provider actually reading the lines
+     */
+    public AsyncInputProvider(final InputProvider delegate) {
+        if (delegate == null) throw new IllegalArgumentException("delegate cannot be null");
+        this.delegate = delegate;
+    }
+
+    /**
+     * <p>
+     * Sets the source of the work to do while waiting for the user.
+     * </p>
+     * <p>
+     * The source is asked for new work at every line requested, so that
+     * the work always refers to the current state of the game.
+     * </p>
+     *
+     * @param idleWork the source of the work, null to just wait
+     */
+    public void setIdleWork(final Supplier<IdleWork> idleWork) {
+        this.idleWork = idleWork;
+    }
+
+    /**
+     * <p>
+     * Requests a line to the reader thread and works until it arrives.
+     * </p>
+     *
+     * @param prompt the prompt already shown to the user
+     * @return the line read
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    @Override
+    public String readLine(final String prompt) {
+        this.startReader();
+        this.requests.add(prompt);
+        IdleWork work = this.idleWork != null ? this.idleWork.get() : null;
+        try {
+            Object result = this.results.poll();
+            while (result == null && work != null) {
+                if (!work.step()) work = null;
+                result = this.results.poll();
+            }
+            if (result == null) {
+                result = this.results.take();
+            } else if (work != null) {
+                work.cancel();
+            }
+            if (result instanceof RuntimeException e) throw e;
+            return (String) result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (work != null) work.cancel();
+            throw new IllegalStateException("Interrupted while waiting for input", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Starts the reader thread, if not started yet.
+     * </p>
+     */
+    private void startReader() {
+        if (this.reader != null) return;
+        this.reader = new Thread(this::readLoop, "monopoly-input");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * <p>
+     * Loop of the reader thread: reads a line for every request.
+     * </p>
+     */
+    private void readLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final String prompt = this.requests.take();
+                try {
+                    this.results.add(this.delegate.readLine(prompt));
+                } catch (RuntimeException e) {
+                    this.results.add(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p>
+     * Stops the reader thread and closes the underlying provider.
+     * </p>
+     */
+    @Override
+    public void close() {
+        if (this.reader != null) this.reader.interrupt();
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,49 @@
+package ch.supsi.game.monopoly.input;
+
+import java.util.Scanner;
+
+/**
+ * <p>
+ * {@link InputProvider} reading the lines typed on the console.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * InputProvider input = new ConsoleInputProvider();  // read from System.in
+ * String line = input.readLine("Option: ");          // wait for the user
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class ConsoleInputProvider implements InputProvider {
+
+    /**
+     * Scanner instance.
+     */
+    private final Scanner scanner = new Scanner(System.in);
+
+    /**
+     * <p>
+     * Reads the next line typed on the console.
+     * </p>
+     *
+     * @param prompt the prompt already shown to the user
+     * @return the line read
+     */
+    @Override
+    public String readLine(final String prompt) {
+        return this.scanner.nextLine();
+    }
+
+    /**
+     * <p>
+     * Closes the scanner of the console.
+     * </p>
+     */
+    @Override
+    public void close() {
+        this.scanner.close();
+    }
+}
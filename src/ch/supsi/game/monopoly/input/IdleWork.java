@@ -0,0 +1,48 @@
+package ch.supsi.game.monopoly.input;
+
+/**
+ * <p>
+ * Work done while the game waits for the user, split in small steps.
+ * </p>
+ * <p>
+ * An {@link AsyncInputProvider} runs one step at a time, checking between
+ * two steps if the user has answered: as soon as they have, the work is
+ * abandoned and {@link IdleWork#cancel()} is called. A step should therefore
+ * take well under a millisecond, so that the user never waits on it.
+ * </p>
+ * <p>
+ * The steps run on the thread waiting for the input, that is the game
+ * thread, so they can read the game state without any synchronization.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * AsyncInputProvider input = new AsyncInputProvider(new ConsoleInputProvider());
+ * input.setIdleWork(() -> work);   // the work to do while waiting
+ * input.readLine("Option: ");      // steps the work until the user answers
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public interface IdleWork {
+
+    /**
+     * <p>
+     * Does the next small step of the work.
+     * </p>
+     *
+     * @return true if there is more work to do, false if the work is done
+     */
+    boolean step();
+
+    /**
+     * <p>
+     * Called when the input arrives before the work is done.
+     * </p>
+     */
+    default void cancel() {
+        // nothing to undo
+    }
+}
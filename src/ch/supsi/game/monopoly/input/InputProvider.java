@@ -0,0 +1,48 @@
+package ch.supsi.game.monopoly.input;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Source of the lines typed by the user, read by the
+ * {@link ch.supsi.game.monopoly.ScannerUtils}.
+ * </p>
+ * <p>
+ * The game reads a line at a time, after having printed the prompt:
+ * the prompt is passed along, so that providers which do not read from
+ * a human (transcripts, scripted players) can tell what is being asked.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * InputProvider input = new ConsoleInputProvider();  // read from the console
+ * String line = input.readLine("Y/n: ");             // read the answer to a prompt
+ * input.close();                                     // release the console
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public interface InputProvider {
+
+    /**
+     * <p>
+     * Reads the next line, without the line terminator.
+     * </p>
+     *
+     * @param prompt the prompt already shown to the user
+     * @return the line read
+     * @throws NoSuchElementException if there is no more input
+     */
+    String readLine(String prompt);
+
+    /**
+     * <p>
+     * Releases the source of the input.
+     * </p>
+     */
+    default void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,128 @@
+package ch.supsi.game.monopoly.input;
+
+import ch.supsi.game.monopoly.Constant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * {@link InputProvider} of scripted players, answering every prompt of the
+ * game as a user would, without anybody typing.
+ * </p>
+ * <p>
+ * The players are named "Bot 1", "Bot 2" and so on, with the symbols 'A',
+ * 'B' and so on; every turn they roll the dice and answer yes to every
+ * question (buying for as many turns as told, building on the first
+ * propriety offered, evading taxes), and after the given number of turns
+ * they quit the game. The prompts are recognized by the constants the game
+ * builds them with.
+ * </p>
+ * <p>
+ * The answers given are kept, so that the session can be replayed
+ * through a {@link TranscriptInputProvider}.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * ScriptedInputProvider input = new ScriptedInputProvider(300);
+ * new Game(new Board(new Random(42)), 4, input, new GameRandom(42)).start();
+ * input.getTranscript();                                      // to replay the session
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class ScriptedInputProvider implements InputProvider {
+
+    /**
+     * The number of turns played before quitting.
+     */
+    private final int turns;
+
+    /**
+     * The number of turns during which the players buy.
+     */
+    private final int buyTurns;
+
+    /**
+     * The answers given so far.
+     */
+    private final List<String> transcript = new ArrayList<>();
+
+    /**
+     * The number of turns played so far.
+     */
+    private int played;
+
+    /**
+     * The number of players created so far.
+     */
+    private int players;
+
+    /**
+     * <p>
+     * Creates scripted players quitting after the given number of turns,
+     * always buying.
+     * </p>
+     *
+     * @param turns the number of turns
+     */
+    public ScriptedInputProvider(final int turns) {
+        this(turns, Integer.MAX_VALUE);
+    }
+
+    /**
+     * <p>
+     * Creates scripted players quitting after the given number of turns,
+     * buying during the first ones only.
+     * </p>
+     *
+     * @param turns the number of turns
+     * @param buyTurns the number of turns during which the players buy
+     */
+    public ScriptedInputProvider(final int turns, final int buyTurns) {
+        this.turns = turns;
+        this.buyTurns = buyTurns;
+    }
+
+    /**
+     * <p>
+     * Returns the answer of the scripted players to a prompt.
+     * </p>
+     *
+     * @param prompt the prompt
+     * @return the answer, empty to confirm a message
+     */
+    @Override
+    public String readLine(final String prompt) {
+        final String answer;
+        if (prompt.endsWith(Constant.OPTION_PROMPT)) {
+            answer = this.played++ < this.turns ? "1" : "4";
+        } else if (prompt.endsWith(Constant.NAME_PROMPT)) {
+            answer = "Bot " + (this.players + 1);
+        } else if (prompt.endsWith(Constant.SYMBOL_PROMPT)) {
+            answer = String.valueOf((char) ('A' + this.players++));
+        } else if (prompt.equals(Constant.YES_NO_PROMPT)) {
+            answer = this.played <= this.buyTurns ? "y" : "n";
+        } else if (prompt.startsWith(Constant.NUMBER_PROMPT)) {
+            answer = "1";
+        } else {
+            answer = "";
+        }
+        this.transcript.add(answer);
+        return answer;
+    }
+
+    /**
+     * <p>
+     * Returns the answers given so far, one line per answer.
+     * </p>
+     *
+     * @return the transcript of the session
+     */
+    public List<String> getTranscript() {
+        return this.transcript;
+    }
+}
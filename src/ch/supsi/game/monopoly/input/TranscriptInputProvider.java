@@ -0,0 +1,100 @@
+package ch.supsi.game.monopoly.input;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * {@link InputProvider} replaying a recorded transcript, one line per answer.
+ * </p>
+ * <p>
+ * A transcript holds, in order, everything the user typed during a session:
+ * names and symbols of the players, menu options, answers to the buy and build
+ * questions and the empty lines confirming the messages. Replayed through
+ * {@link ch.supsi.game.monopoly.Game#start()} it drives the real command line
+ * interface at full speed, without anybody typing.
+ * </p>
+ * <p>
+ * Replaying a transcript on a game generated with the same seed gives the same
+ * game; on a different one, the answers simply get out of step, and the game
+ * asks again as it would with a careless user.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * InputProvider input = TranscriptInputProvider.fromFile(Path.of("session.txt"));
+ * Game game = new Game(new Board(new Random(42)), 4, input, new Random(42));
+ * game.start();                                                // plays the whole session
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class TranscriptInputProvider implements InputProvider {
+
+    /**
+     * The lines of the transcript.
+     */
+    private final String[] lines;
+
+    /**
+     * The index of the next line to read.
+     */
+    private int next;
+
+    /**
+     * <p>
+     * Creates a provider replaying the given lines.
+     * </p>
+     *
+     * @param lines the lines of the transcript
+     */
+    public TranscriptInputProvider(final List<String> lines) {
+        if (lines == null) throw new IllegalArgumentException("lines cannot be null");
+        this.lines = lines.toArray(new String[0]);
+    }
+
+    /**
+     * <p>
+     * Creates a provider replaying a transcript file, encoded in UTF-8.
+     * </p>
+     *
+     * @param path the transcript file
+     * @return the provider
+     * @throws IOException if the file cannot be read
+     */
+    public static TranscriptInputProvider fromFile(final Path path) throws IOException {
+        return new TranscriptInputProvider(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>
+     * Returns the next line of the transcript.
+     * </p>
+     *
+     * @param prompt the prompt, ignored
+     * @return the line read
+     * @throws NoSuchElementException if the transcript is over
+     */
+    @Override
+    public String readLine(final String prompt) {
+        if (this.next == this.lines.length) throw new NoSuchElementException("End of transcript");
+        return this.lines[this.next++];
+    }
+
+    /**
+     * <p>
+     * Returns the number of lines not replayed yet.
+     * </p>
+     *
+     * @return the number of lines left
+     */
+    public int remaining() {
+        return this.lines.length - this.next;
+    }
+}
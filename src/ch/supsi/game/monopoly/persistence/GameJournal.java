@@ -0,0 +1,277 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Event-sourced journal of a {@link Game}.
+ * </p>
+ * <p>
+ * The journal listens on the event bus of the game and, at the end of every
+ * turn, appends to a shared {@link JournalWriter} a frame holding what the
+ * turn changed (the roll, the moves, the payments, the cards, the purchases,
+ * the buildings, the prison, the bankruptcies), encoded by a {@link TurnDelta}.
+ * A {@link GameSnapshot} is appended when the game starts and every
+ * given number of turns, so a turn costs a few bytes instead of a full state.
+ * </p>
+ * <p>
+ * After a crash, {@link GameJournal#recover(Path, long, InputProvider)} loads
+ * the last snapshot of the game and applies the turns that follow it, so
+ * that the board and the leaderboard are rebuilt as well.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * JournalWriter writer = new JournalWriter(path, 5, true);   // shared by all the games
+ * new GameJournal(game, 42, writer, 50);                      // snapshot every 50 turns
+ * game.start();
+ * // after a crash
+ * GameJournal journal = GameJournal.resume(path, 42, input, writer, 50);
+ * journal.getGame().play();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameJournal implements GameEventListener {
+
+    /**
+     * Kind of the frames holding a full {@link GameSnapshot}.
+     */
+    public static final int SNAPSHOT = 0;
+
+    /**
+     * Kind of the frames holding the {@link TurnDelta} of a turn.
+     */
+    public static final int TURN = 1;
+
+    /**
+     * The game journaled.
+     */
+    private final Game game;
+
+    /**
+     * The id of the game in the journal.
+     */
+    private final long gameId;
+
+    /**
+     * The writer of the journal.
+     */
+    private final JournalWriter writer;
+
+    /**
+     * The number of turns between two snapshots.
+     */
+    private final int snapshotInterval;
+
+    /**
+     * The body of the frame being appended.
+     */
+    private final ByteWriter records = new ByteWriter();
+
+    /**
+     * The frame being appended.
+     */
+    private final ByteWriter frame = new ByteWriter();
+
+    /**
+     * The encoder of the turns, created when the game starts.
+     */
+    private TurnDelta delta;
+
+    /**
+     * The number of the current turn.
+     */
+    private int turn;
+
+    /**
+     * The turns since the last snapshot.
+     */
+    private int sinceSnapshot;
+
+    /**
+     * The position in the journal after the last frame appended.
+     */
+    private long lastPosition;
+
+    /**
+     * <p>
+     * Creates the journal of a game, registering it on the event bus of the game.
+     * </p>
+     * <p>
+     * The first snapshot is appended when the game starts.
+     * </p>
+     *
+     * @param game the game
+     * @param gameId the id of the game, unique in the journal
+     * @param writer the writer of the journal
+     * @param snapshotInterval the number of turns between two snapshots
+     */
+    public GameJournal(final Game game, final long gameId, final JournalWriter writer, final int snapshotInterval) {
+        this(game, gameId, writer, snapshotInterval, 0);
+    }
+
+    /**
+     * <p>
+     * Creates the journal of a game whose first turns are already journaled,
+     * registering it on the event bus of the game.
+     * </p>
+     *
+     * @param game the game
+     * @param gameId the id of the game, unique in the journal
+     * @param writer the writer of the journal
+     * @param snapshotInterval the number of turns between two snapshots
+     * @param firstTurn the number of the next turn of the game
+     */
+    public GameJournal(final Game game, final long gameId, final JournalWriter writer,
+                       final int snapshotInterval, final int firstTurn) {
+        if (game == null) throw new IllegalArgumentException("game cannot be null");
+        if (writer == null) throw new IllegalArgumentException("writer cannot be null");
+        if (snapshotInterval < 1) throw new IllegalArgumentException("snapshotInterval must be positive");
+        this.game = game;
+        this.gameId = gameId;
+        this.writer = writer;
+        this.snapshotInterval = snapshotInterval;
+        this.turn = firstTurn;
+        game.getEventBus().register(this);
+    }
+
+    /**
+     * <p>
+     * Returns the position in the journal after the last frame appended,
+     * to wait for it with {@link JournalWriter#awaitDurable(long)}.
+     * </p>
+     *
+     * @return the position
+     */
+    public long getLastPosition() {
+        return this.lastPosition;
+    }
+
+    /**
+     * <p>
+     * Returns the game journaled.
+     * </p>
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns journaled.
+     * </p>
+     *
+     * @return the number of the current turn
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * <p>
+     * Appends a full snapshot.
+     * </p>
+     */
+    private void appendSnapshot() {
+        GameSnapshot.save(this.game, this.records, true);
+        this.append(SNAPSHOT);
+        this.sinceSnapshot = 0;
+    }
+
+    /**
+     * <p>
+     * Appends a frame holding the body written, and clears it.
+     * </p>
+     *
+     * @param kind the kind of the frame
+     */
+    private void append(final int kind) {
+        this.frame.reset();
+        JournalReader.writeFrame(this.frame, this.gameId, this.turn, kind, this.records);
+        this.lastPosition = this.writer.append(this.frame.array(), 0, this.frame.size());
+        this.records.reset();
+    }
+
+    /**
+     * <p>
+     * Appends the first snapshot, and starts encoding the turns from it.
+     * </p>
+     */
+    @Override
+    public void onGameStarted() {
+        this.appendSnapshot();
+        this.delta = new TurnDelta(this.game);
+    }
+
+    /**
+     * <p>
+     * Closes the turn, appending what it changed, and a snapshot every
+     * {@link GameJournal#snapshotInterval} turns.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.delta.encode(this.records);
+        this.append(TURN);
+        this.turn++;
+        if (++this.sinceSnapshot >= this.snapshotInterval) this.appendSnapshot();
+    }
+
+    /**
+     * <p>
+     * Recovers a game from a journal: loads its last snapshot and replays
+     * the turns that follow it.
+     * </p>
+     * <p>
+     * A frame truncated or corrupted by a crash ends the journal. A journal
+     * split in segments is read whole; see {@link GameTimeline}.
+     * </p>
+     *
+     * @param path the journal file
+     * @param gameId the id of the game
+     * @param input the source of the user's input of the recovered game
+     * @return the game, as it was after the last turn journaled
+     * @throws IOException if the journal cannot be read
+     * @throws IllegalArgumentException if the journal holds no snapshot of the game
+     */
+    public static Game recover(final Path path, final long gameId, final InputProvider input) throws IOException {
+        final GameTimeline timeline = GameTimeline.open(path, gameId);
+        return timeline.at(timeline.getLastTurn(), input);
+    }
+
+    /**
+     * <p>
+     * Recovers a game from a journal, as {@link GameJournal#recover(Path, long, InputProvider)}
+     * does, and attaches to it a journal going on with the numbering of the turns.
+     * </p>
+     *
+     * @param path the journal file
+     * @param gameId the id of the game
+     * @param input the source of the user's input of the recovered game
+     * @param writer the writer of the journal, usually appending to the same file
+     * @param snapshotInterval the number of turns between two snapshots
+     * @return the journal of the recovered game, see {@link GameJournal#getGame()}
+     * @throws IOException if the journal cannot be read
+     * @throws IllegalArgumentException if the journal holds no snapshot of the game
+     */
+    public static GameJournal resume(final Path path, final long gameId, final InputProvider input,
+                                     final JournalWriter writer, final int snapshotInterval) throws IOException {
+        final GameTimeline timeline = GameTimeline.open(path, gameId);
+        final Game game = timeline.at(timeline.getLastTurn(), input);
+        return new GameJournal(game, gameId, writer, snapshotInterval, timeline.getLastTurn());
+    }
+}
@@ -0,0 +1,463 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Minimal record of a game: its seed and the decisions of its players.
+ * </p>
+ * <p>
+ * A game built with {@link GameReplay#newGame(long, int, InputProvider)}
+ * is determined by its seed and by the lines its players type, so nothing
+ * else is recorded but the {@link ch.supsi.game.monopoly.Game#getStateHash() hashes}
+ * of its state every given number of turns, to check that a replay follows the game.
+ * </p>
+ * <p>
+ * The decisions are encoded by the prompt they answer: a decision equal to
+ * the last one given to the same prompt, such as rolling the dices once
+ * more, takes one bit; any other is the code of an answer already seen, or
+ * the answer itself the first time. A game of bots takes tens of bytes.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameRecorder recorder = new GameRecorder(seed, 4, input, 50);
+ * recorder.getGame().start();
+ * byte[] data = recorder.toRecord().encode();
+ * GameReplay.Result result = GameReplay.replay(GameRecord.decode(data));
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameRecord {
+
+    /**
+     * The magic number opening every record, "MR".
+     */
+    private static final int MAGIC = 0x4D52;
+
+    /**
+     * The version of the encoding.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The seed of the board and of the dices.
+     */
+    private final long seed;
+
+    /**
+     * The number of players.
+     */
+    private final int playersNumber;
+
+    /**
+     * The number of turns between two checkpoints, 0 for none.
+     */
+    private final int checkpointInterval;
+
+    /**
+     * The number of turns played.
+     */
+    private final int turns;
+
+    /**
+     * The hashes of the state at every checkpoint.
+     */
+    private final long[] checkpoints;
+
+    /**
+     * The hash of the state at the end of the game.
+     */
+    private final long finalHash;
+
+    /**
+     * The number of decisions.
+     */
+    private final int decisions;
+
+    /**
+     * One bit per decision, set if the decision repeats the last one given to the same prompt.
+     */
+    private final byte[] repeats;
+
+    /**
+     * The codes of the decisions that do not repeat the last one.
+     */
+    private final byte[] answers;
+
+    /**
+     * <p>
+     * Creates a record.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @param checkpointInterval the number of turns between two checkpoints, 0 for none
+     * @param turns the number of turns played
+     * @param checkpoints the hashes of the state at every checkpoint
+     * @param finalHash the hash of the state at the end of the game
+     * @param decisions the number of decisions
+     * @param repeats one bit per decision, set if it repeats the last one given to the same prompt
+     * @param answers the codes of the other decisions
+     */
+    GameRecord(final long seed, final int playersNumber, final int checkpointInterval, final int turns,
+               final long[] checkpoints, final long finalHash, final int decisions,
+               final byte[] repeats, final byte[] answers) {
+        this.seed = seed;
+        this.playersNumber = playersNumber;
+        this.checkpointInterval = checkpointInterval;
+        this.turns = turns;
+        this.checkpoints = checkpoints;
+        this.finalHash = finalHash;
+        this.decisions = decisions;
+        this.repeats = repeats;
+        this.answers = answers;
+    }
+
+    /**
+     * <p>
+     * Encodes the record.
+     * </p>
+     *
+     * @return the bytes of the record
+     */
+    public byte[] encode() {
+        final ByteWriter out = new ByteWriter(64 + this.repeats.length + this.answers.length);
+        out.writeByte(MAGIC >>> 8).writeByte(MAGIC).writeVarInt(VERSION);
+        out.writeZigZag(this.seed);
+        out.writeVarInt(this.playersNumber);
+        out.writeVarInt(this.checkpointInterval);
+        out.writeVarInt(this.turns);
+        out.writeVarInt(this.checkpoints.length);
+        for (long hash : this.checkpoints) out.writeLong(hash);
+        out.writeLong(this.finalHash);
+        out.writeVarInt(this.decisions);
+        out.writeBytes(this.repeats, 0, this.repeats.length);
+        out.writeBytes(this.answers, 0, this.answers.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Decodes a record.
+     * </p>
+     *
+     * @param data the bytes of the record
+     * @return the record
+     * @throws IllegalArgumentException if the data is not a record of a known version
+     */
+    public static GameRecord decode(final byte[] data) {
+        final ByteReader in = new ByteReader(data);
+        if ((in.readByte() << 8 | in.readByte()) != MAGIC) throw new IllegalArgumentException("Not a game record");
+        final int version = in.readVarInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unknown record version " + version);
+        final long seed = in.readZigZag();
+        final int playersNumber = in.readVarInt();
+        final int checkpointInterval = in.readVarInt();
+        final int turns = in.readVarInt();
+        final int count = in.readVarInt();
+        if (count > in.remaining() / 8) throw new IllegalArgumentException("Unexpected end of data");
+        final long[] checkpoints = new long[count];
+        for (int i = 0; i < count; i++) checkpoints[i] = in.readLong();
+        final long finalHash = in.readLong();
+        final int decisions = in.readVarInt();
+        final int repeatsLength = (decisions + 7) >>> 3;
+        if (decisions < 0 || repeatsLength > in.remaining()) throw new IllegalArgumentException("Unexpected end of data");
+        final byte[] repeats = new byte[repeatsLength];
+        System.arraycopy(data, in.position(), repeats, 0, repeatsLength);
+        final byte[] answers = new byte[in.remaining() - repeatsLength];
+        System.arraycopy(data, in.position() + repeatsLength, answers, 0, answers.length);
+        return new GameRecord(seed, playersNumber, checkpointInterval, turns, checkpoints, finalHash,
+                decisions, repeats, answers);
+    }
+
+    /**
+     * <p>
+     * Returns the decisions of the players, to be read by a replay of the game.
+     * </p>
+     *
+     * @return a new source of input, answering every prompt as the players did
+     */
+    public InputProvider newInput() {
+        return new Decisions(this);
+    }
+
+    /**
+     * <p>
+     * Returns the seed of the board and of the dices.
+     * </p>
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * <p>
+     * Returns the number of players.
+     * </p>
+     *
+     * @return the number of players
+     */
+    public int getPlayersNumber() {
+        return this.playersNumber;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns between two checkpoints.
+     * </p>
+     *
+     * @return the number of turns, 0 if there are no checkpoints
+     */
+    public int getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns played.
+     * </p>
+     *
+     * @return the number of turns
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * <p>
+     * Returns the number of checkpoints.
+     * </p>
+     *
+     * @return the number of checkpoints
+     */
+    public int getCheckpointCount() {
+        return this.checkpoints.length;
+    }
+
+    /**
+     * <p>
+     * Returns the hash of the state at a checkpoint, after
+     * {@code (i + 1) * getCheckpointInterval()} turns.
+     * </p>
+     *
+     * @param i the index of the checkpoint
+     * @return the hash
+     */
+    public long getCheckpoint(final int i) {
+        return this.checkpoints[i];
+    }
+
+    /**
+     * <p>
+     * Returns the hash of the state at the end of the game.
+     * </p>
+     *
+     * @return the hash
+     */
+    public long getFinalHash() {
+        return this.finalHash;
+    }
+
+    /**
+     * <p>
+     * Returns the number of decisions.
+     * </p>
+     *
+     * @return the number of decisions
+     */
+    public int getDecisions() {
+        return this.decisions;
+    }
+
+    /**
+     * <p>
+     * Encoder of the decisions of the players, by the prompt they answer.
+     * </p>
+     */
+    static final class Encoder {
+
+        /**
+         * The last answer given to every prompt.
+         */
+        private final Map<String, String> last = new HashMap<>();
+
+        /**
+         * The codes of the answers already seen.
+         */
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * The repeat bits.
+         */
+        private final ByteWriter repeats = new ByteWriter();
+
+        /**
+         * The codes of the answers.
+         */
+        private final ByteWriter answers = new ByteWriter();
+
+        /**
+         * The repeat bits not written yet.
+         */
+        private int bits;
+
+        /**
+         * The number of decisions.
+         */
+        private int decisions;
+
+        /**
+         * <p>
+         * Encodes a decision.
+         * </p>
+         *
+         * @param prompt the prompt answered
+         * @param answer the answer
+         */
+        void add(final String prompt, final String answer) {
+            if (answer.equals(this.last.put(prompt, answer))) {
+                this.bits |= 1 << (this.decisions & 7);
+            } else {
+                final Integer code = this.codes.get(answer);
+                if (code == null) {
+                    this.answers.writeVarInt(0).writeString(answer);
+                    this.codes.put(answer, this.codes.size() + 1);
+                } else {
+                    this.answers.writeVarInt(code);
+                }
+            }
+            if ((++this.decisions & 7) == 0) {
+                this.repeats.writeByte(this.bits);
+                this.bits = 0;
+            }
+        }
+
+        /**
+         * <p>
+         * Returns the number of decisions encoded.
+         * </p>
+         *
+         * @return the number of decisions
+         */
+        int getDecisions() {
+            return this.decisions;
+        }
+
+        /**
+         * <p>
+         * Returns the repeat bits, including the last partial byte.
+         * </p>
+         *
+         * @return the bits
+         */
+        byte[] getRepeats() {
+            final byte[] bytes = new byte[(this.decisions + 7) >>> 3];
+            System.arraycopy(this.repeats.array(), 0, bytes, 0, this.repeats.size());
+            if ((this.decisions & 7) != 0) bytes[bytes.length - 1] = (byte) this.bits;
+            return bytes;
+        }
+
+        /**
+         * <p>
+         * Returns the codes of the answers.
+         * </p>
+         *
+         * @return the codes
+         */
+        byte[] getAnswers() {
+            return this.answers.toByteArray();
+        }
+    }
+
+    /**
+     * <p>
+     * Decoder of the decisions of a record, answering the prompts of a replay.
+     * </p>
+     */
+    private static final class Decisions implements InputProvider {
+
+        /**
+         * The record.
+         */
+        private final GameRecord record;
+
+        /**
+         * The reader of the codes of the answers.
+         */
+        private final ByteReader answers;
+
+        /**
+         * The last answer given to every prompt.
+         */
+        private final Map<String, String> last = new HashMap<>();
+
+        /**
+         * The answers already seen, by code.
+         */
+        private final List<String> seen = new ArrayList<>();
+
+        /**
+         * The number of decisions read.
+         */
+        private int next;
+
+        /**
+         * <p>
+         * Creates the decoder of the decisions of a record.
+         * </p>
+         *
+         * @param record the record
+         */
+        Decisions(final GameRecord record) {
+            this.record = record;
+            this.answers = new ByteReader(record.answers);
+        }
+
+        /**
+         * <p>
+         * Returns the next decision.
+         * </p>
+         *
+         * @param prompt the prompt answered
+         * @return the decision
+         * @throws NoSuchElementException if all the decisions were read
+         */
+        @Override
+        public String readLine(final String prompt) {
+            if (this.next == this.record.decisions) throw new NoSuchElementException("End of the record");
+            final boolean repeat = (this.record.repeats[this.next >>> 3] >>> (this.next & 7) & 1) != 0;
+            this.next++;
+            final String answer;
+            if (repeat) {
+                answer = this.last.get(prompt);
+                if (answer == null) throw new IllegalStateException("Record out of step with the prompts");
+            } else {
+                final int code = this.answers.readVarInt();
+                if (code == 0) {
+                    answer = this.answers.readString();
+                    this.seen.add(answer);
+                } else if (code <= this.seen.size()) {
+                    answer = this.seen.get(code - 1);
+                } else {
+                    throw new IllegalStateException("Unknown answer " + code);
+                }
+                this.last.put(prompt, answer);
+            }
+            return answer;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Recorder of the seed and of the decisions of a game, into a {@link GameRecord}.
+ * </p>
+ * <p>
+ * The recorder builds the game and stands between it and the source of
+ * the user's input, recording every line read. Every given number of turns
+ * it records the hash of the state of the game, so that a replay can tell the first
+ * checkpoint at which it no longer follows the game.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameRecorder recorder = new GameRecorder(seed, 4, new ConsoleInputProvider(), 50);
+ * recorder.getGame().start();
+ * Files.write(path, recorder.toRecord().encode());
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameRecorder implements InputProvider, GameEventListener {
+
+    /**
+     * The source of the user's input.
+     */
+    private final InputProvider input;
+
+    /**
+     * The seed of the board and of the dices.
+     */
+    private final long seed;
+
+    /**
+     * The number of players.
+     */
+    private final int playersNumber;
+
+    /**
+     * The number of turns between two checkpoints, 0 for none.
+     */
+    private final int checkpointInterval;
+
+    /**
+     * The game recorded.
+     */
+    private final Game game;
+
+    /**
+     * The encoder of the decisions.
+     */
+    private final GameRecord.Encoder decisions = new GameRecord.Encoder();
+
+    /**
+     * The hashes of the state at every checkpoint.
+     */
+    private long[] checkpoints = new long[16];
+
+    /**
+     * The number of checkpoints.
+     */
+    private int checkpointCount;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * <p>
+     * Creates a recorded game.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @param input the source of the user's input
+     * @param checkpointInterval the number of turns between two checkpoints, 0 for none
+     */
+    public GameRecorder(final long seed, final int playersNumber, final InputProvider input,
+                        final int checkpointInterval) {
+        if (input == null) throw new IllegalArgumentException("input cannot be null");
+        if (checkpointInterval < 0) throw new IllegalArgumentException("checkpointInterval cannot be negative");
+        this.input = input;
+        this.seed = seed;
+        this.playersNumber = playersNumber;
+        this.checkpointInterval = checkpointInterval;
+        this.game = GameReplay.newGame(seed, playersNumber, this);
+        this.game.getEventBus().register(this);
+    }
+
+    /**
+     * <p>
+     * Returns the game recorded.
+     * </p>
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Reads a line from the source of the user's input, recording it.
+     * </p>
+     *
+     * @param prompt the prompt already shown to the user
+     * @return the line read
+     */
+    @Override
+    public String readLine(final String prompt) {
+        final String line = this.input.readLine(prompt);
+        this.decisions.add(prompt, line);
+        return line;
+    }
+
+    @Override
+    public void close() {
+        this.input.close();
+    }
+
+    /**
+     * <p>
+     * Counts the turn, recording the hash of the state at every checkpoint.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.turns++;
+        if (this.checkpointInterval > 0 && this.turns % this.checkpointInterval == 0) {
+            if (this.checkpointCount == this.checkpoints.length) {
+                this.checkpoints = Arrays.copyOf(this.checkpoints, this.checkpointCount * 2);
+            }
+            this.checkpoints[this.checkpointCount++] = this.game.getStateHash();
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the record of the game played so far.
+     * </p>
+     *
+     * @return the record
+     */
+    public GameRecord toRecord() {
+        return new GameRecord(this.seed, this.playersNumber, this.checkpointInterval, this.turns,
+                Arrays.copyOf(this.checkpoints, this.checkpointCount), this.game.getStateHash(),
+                this.decisions.getDecisions(), this.decisions.getRepeats(), this.decisions.getAnswers());
+    }
+}
@@ -0,0 +1,364 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.mazluc.util.OutputSink;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * <p>
+ * Deterministic replay of a game from its {@link GameRecord}.
+ * </p>
+ * <p>
+ * The game is built again from its seed and played again with the
+ * decisions of its players, with the output discarded. At every checkpoint
+ * the hash of the state is compared with the recorded one: the replay stops
+ * at the first checkpoint that differs, and its {@link Result} tells
+ * between which turns the replay went its own way, so a bug seen in a
+ * recorded game is reproduced exactly, or located.
+ * </p>
+ * <p>
+ * A replay discards the output of the thread replaying only, with
+ * {@link ANSIUtility#setThreadSink}: the other threads keep printing
+ * while it runs.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameReplay.Result result = GameReplay.replay(GameRecord.decode(data));
+ * if (!result.isFaithful()) System.out.println(result);
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameReplay {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private GameReplay() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Builds a game determined by its seed and by the input of its players.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @param input the source of the user's input
+     * @return the game, not started
+     */
+    public static Game newGame(final long seed, final int playersNumber, final InputProvider input) {
+        return new Game(new Board(new Random(seed)), playersNumber, input, new GameRandom(seed));
+    }
+
+    /**
+     * <p>
+     * Replays a recorded game.
+     * </p>
+     *
+     * @param record the record
+     * @return the result of the replay
+     */
+    public static Result replay(final GameRecord record) {
+        final Game game = newGame(record.getSeed(), record.getPlayersNumber(), record.newInput());
+        final Checker checker = new Checker(game, record);
+        game.getEventBus().register(checker);
+        final OutputSink sink = ANSIUtility.getThreadSink();
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        try {
+            game.start();
+        } catch (Divergence e) {
+            return new Result(game, checker.turns, checker.lastChecked, e.turn,
+                    e.expected, e.actual, false);
+        } catch (NoSuchElementException e) {
+            return new Result(game, checker.turns, checker.lastChecked, checker.turns, 0, 0, true);
+        } finally {
+            ANSIUtility.setThreadSink(sink);
+        }
+        final long hash = game.getStateHash();
+        if (checker.turns != record.getTurns() || hash != record.getFinalHash()) {
+            return new Result(game, checker.turns, checker.lastChecked, checker.turns,
+                    record.getFinalHash(), hash, false);
+        }
+        return new Result(game, checker.turns, checker.turns, -1, hash, hash, false);
+    }
+
+    /**
+     * <p>
+     * Checker of the hashes of the state of a replay at the checkpoints.
+     * </p>
+     */
+    private static final class Checker implements GameEventListener {
+
+        /**
+         * The game replayed.
+         */
+        private final Game game;
+
+        /**
+         * The record replayed.
+         */
+        private final GameRecord record;
+
+        /**
+         * The number of turns replayed.
+         */
+        private int turns;
+
+        /**
+         * The turn of the last checkpoint matched.
+         */
+        private int lastChecked;
+
+        /**
+         * <p>
+         * Creates the checker of a replay.
+         * </p>
+         *
+         * @param game the game replayed
+         * @param record the record replayed
+         */
+        Checker(final Game game, final GameRecord record) {
+            this.game = game;
+            this.record = record;
+        }
+
+        @Override
+        public void onTurnEnded(final Player player) {
+            this.turns++;
+            final int interval = this.record.getCheckpointInterval();
+            if (interval == 0 || this.turns % interval != 0) return;
+            final int index = this.turns / interval - 1;
+            if (index >= this.record.getCheckpointCount()) return;
+            final long hash = this.game.getStateHash();
+            if (hash != this.record.getCheckpoint(index)) {
+                throw new Divergence(this.turns, this.record.getCheckpoint(index), hash);
+            }
+            this.lastChecked = this.turns;
+        }
+    }
+
+    /**
+     * <p>
+     * Thrown from the game loop to stop a replay at the first checkpoint that differs.
+     * </p>
+     */
+    private static final class Divergence extends RuntimeException {
+
+        /**
+         * The version of the serialized form.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The turn of the checkpoint.
+         */
+        private final int turn;
+
+        /**
+         * The hash recorded.
+         */
+        private final long expected;
+
+        /**
+         * The hash of the replay.
+         */
+        private final long actual;
+
+        /**
+         * <p>
+         * Creates the divergence found at a checkpoint.
+         * </p>
+         *
+         * @param turn the turn of the checkpoint
+         * @param expected the hash recorded
+         * @param actual the hash of the replay
+         */
+        Divergence(final int turn, final long expected, final long actual) {
+            super("Divergence at turn " + turn, null, false, false);
+            this.turn = turn;
+            this.expected = expected;
+            this.actual = actual;
+        }
+    }
+
+    /**
+     * <p>
+     * Result of a replay.
+     * </p>
+     */
+    public static final class Result {
+
+        /**
+         * The game, as the replay left it.
+         */
+        private final Game game;
+
+        /**
+         * The number of turns replayed.
+         */
+        private final int turns;
+
+        /**
+         * The last turn at which the replay was known to follow the game.
+         */
+        private final int lastMatchingTurn;
+
+        /**
+         * The turn at which the replay was found to differ, -1 if it did not.
+         */
+        private final int divergedTurn;
+
+        /**
+         * The hash recorded at the turn the replay differs.
+         */
+        private final long expectedHash;
+
+        /**
+         * The hash of the replay at the turn it differs.
+         */
+        private final long actualHash;
+
+        /**
+         * Whether the game asked for more decisions than recorded.
+         */
+        private final boolean exhausted;
+
+        /**
+         * <p>
+         * Creates the result of a replay.
+         * </p>
+         *
+         * @param game the game, as the replay left it
+         * @param turns the number of turns replayed
+         * @param lastMatchingTurn the last turn at which the replay was known to follow the game
+         * @param divergedTurn the turn at which the replay was found to differ, -1 if it did not
+         * @param expectedHash the hash recorded at that turn
+         * @param actualHash the hash of the replay at that turn
+         * @param exhausted whether the game asked for more decisions than recorded
+         */
+        Result(final Game game, final int turns, final int lastMatchingTurn, final int divergedTurn,
+               final long expectedHash, final long actualHash, final boolean exhausted) {
+            this.game = game;
+            this.turns = turns;
+            this.lastMatchingTurn = lastMatchingTurn;
+            this.divergedTurn = divergedTurn;
+            this.expectedHash = expectedHash;
+            this.actualHash = actualHash;
+            this.exhausted = exhausted;
+        }
+
+        /**
+         * <p>
+         * Returns whether the replay followed the recorded game to its end.
+         * </p>
+         *
+         * @return true if every checkpoint and the final state matched
+         */
+        public boolean isFaithful() {
+            return this.divergedTurn < 0;
+        }
+
+        /**
+         * <p>
+         * Returns the game, as the replay left it.
+         * </p>
+         *
+         * @return the game
+         */
+        public Game getGame() {
+            return this.game;
+        }
+
+        /**
+         * <p>
+         * Returns the number of turns replayed.
+         * </p>
+         *
+         * @return the number of turns
+         */
+        public int getTurns() {
+            return this.turns;
+        }
+
+        /**
+         * <p>
+         * Returns the last turn at which the replay was known to follow the game.
+         * </p>
+         *
+         * @return the turn of the last checkpoint matched
+         */
+        public int getLastMatchingTurn() {
+            return this.lastMatchingTurn;
+        }
+
+        /**
+         * <p>
+         * Returns the turn at which the replay was found to differ: the
+         * divergence happened after {@link Result#getLastMatchingTurn()} and
+         * not after this turn.
+         * </p>
+         *
+         * @return the turn, -1 if the replay is faithful
+         */
+        public int getDivergedTurn() {
+            return this.divergedTurn;
+        }
+
+        /**
+         * <p>
+         * Returns the hash recorded at the turn the replay differs.
+         * </p>
+         *
+         * @return the hash
+         */
+        public long getExpectedHash() {
+            return this.expectedHash;
+        }
+
+        /**
+         * <p>
+         * Returns the hash of the replay at the turn it differs.
+         * </p>
+         *
+         * @return the hash
+         */
+        public long getActualHash() {
+            return this.actualHash;
+        }
+
+        /**
+         * <p>
+         * Returns whether the game asked for more decisions than recorded.
+         * </p>
+         *
+         * @return true if the decisions ran out
+         */
+        public boolean isExhausted() {
+            return this.exhausted;
+        }
+
+        @Override
+        public String toString() {
+            if (this.isFaithful()) return "Faithful replay of " + this.turns + " turns";
+            if (this.exhausted) return "Decisions ran out at turn " + this.turns;
+            return String.format("Divergence between turns %d and %d: expected %016x, got %016x",
+                    this.lastMatchingTurn, this.divergedTurn, this.expectedHash, this.actualHash);
+        }
+    }
+}
@@ -0,0 +1,632 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Dice;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Deck;
+import ch.supsi.game.monopoly.cells.*;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Compact, versioned binary snapshot of a running {@link Game}.
+ * </p>
+ * <p>
+ * A snapshot is made of a header, an optional setup section and a state section:
+ * </p>
+ * <ul>
+ *     <li>the header holds a magic number, the {@link GameSnapshot#VERSION} of the
+ *     format, some flags and a fingerprint of the setup;</li>
+ *     <li>the setup holds what never changes during a game: the names and symbols
+ *     of the players and the cells of the board. The name of a propriety is written
+ *     as its position in {@link Board#getKnownNames()};</li>
+ *     <li>the state holds everything else: the money, the players, the owners and
+ *     buildings by cell index, the tax evasion cells, the turn, the dices, the order
+ *     of the decks as permutations of their cards, and the state of the
+ *     {@link GameRandom} rolling the dices.</li>
+ * </ul>
+ * <p>
+ * Integers are written as varints; amounts of money that are whole cents
+ * (nearly all of them) are written as zig-zag varints of cents, the others
+ * as the 8 bytes of the double. A full snapshot takes a few hundred bytes,
+ * the state alone about a hundred, and both are written or restored in
+ * a few microseconds, so a game can be saved every turn.
+ * </p>
+ * <p>
+ * A game is rebuilt from a full snapshot with {@link GameSnapshot#load(byte[], InputProvider)},
+ * while {@link GameSnapshot#restore(Game, byte[])} brings an existing game, with the same
+ * setup, back to the saved state, without allocating a new game.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * byte[] saved = GameSnapshot.save(game);                // players, board and state
+ * Game loaded = GameSnapshot.load(saved, input);         // a new game, where the other was
+ * byte[] state = GameSnapshot.saveState(game);           // the state only
+ * GameSnapshot.restore(game, state);                     // back to the saved state
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameSnapshot {
+
+    /**
+     * The version of the format written.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The magic number opening every snapshot.
+     */
+    private static final int MAGIC = 0x4D53;
+
+    /**
+     * Flag telling that the setup section is present.
+     */
+    private static final int FLAG_SETUP = 1;
+
+    /**
+     * Flag telling that the state of the random generator is present.
+     */
+    private static final int FLAG_RANDOM = 2;
+
+    /**
+     * Player flag: the player is in prison.
+     */
+    private static final int PLAYER_IN_PRISON = 1;
+
+    /**
+     * Player flag: the player is a tax evader.
+     */
+    private static final int PLAYER_EVADER = 2;
+
+    /**
+     * Player flag: the player went bankrupt.
+     */
+    private static final int PLAYER_BANKRUPT = 4;
+
+    /**
+     * Number of bits of the building level, in the state of a propriety.
+     */
+    private static final int LEVEL_BITS = 3;
+
+    /**
+     * Type code of the {@link StartCell}.
+     */
+    private static final int START = 0;
+
+    /**
+     * Type code of the {@link ParkingCell}.
+     */
+    private static final int PARKING = 1;
+
+    /**
+     * Type code of the {@link PrisonCell}.
+     */
+    private static final int PRISON = 2;
+
+    /**
+     * Type code of the {@link GoToPrisonCell}.
+     */
+    private static final int GO_TO_PRISON = 3;
+
+    /**
+     * Type code of the {@link LuxuryTaxCell}.
+     */
+    private static final int LUXURY_TAX = 4;
+
+    /**
+     * Type code of the {@link WealthTaxCell}.
+     */
+    private static final int WEALTH_TAX = 5;
+
+    /**
+     * Type code of the {@link ChanceCell}.
+     */
+    private static final int CHANCE = 6;
+
+    /**
+     * Type code of the {@link UnexpectedCell}.
+     */
+    private static final int UNEXPECTED = 7;
+
+    /**
+     * Type code of the {@link TaxEvasionCell}.
+     */
+    private static final int TAX_EVASION = 8;
+
+    /**
+     * Type code of the buildable {@link ProprietyCell}.
+     */
+    private static final int PROPRIETY = 9;
+
+    /**
+     * Type code of the {@link ProprietyCell} that cannot be built upon.
+     */
+    private static final int STATION = 10;
+
+    /**
+     * The names a propriety can have, whose positions are written instead of the names.
+     */
+    private static final ProprietyName[] KNOWN_NAMES = Board.getKnownNames();
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private GameSnapshot() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Saves the whole game: players, board and state.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     * @return the snapshot
+     */
+    public static byte[] save(final Game game) {
+        final ByteWriter out = new ByteWriter();
+        save(game, out, true);
+        return out.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Saves the state of the game only, which can be restored in a game
+     * with the same players and board.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     * @return the snapshot
+     */
+    public static byte[] saveState(final Game game) {
+        final ByteWriter out = new ByteWriter(128);
+        save(game, out, false);
+        return out.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Writes a snapshot of the game, with or without its setup.
+     * </p>
+     * <p>
+     * Writing in a reused {@link ByteWriter} allocates nothing but the
+     * orders of the decks.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     * @param out the writer
+     * @param withSetup whether to write the players and the board too
+     * @throws IllegalStateException if the players of the game are not seated yet
+     */
+    public static void save(final Game game, final ByteWriter out, final boolean withSetup) {
+        final Player[] players = game.getPlayers();
+        for (Player player : players) {
+            if (player == null) throw new IllegalStateException("The players are not seated yet");
+        }
+        final Random random = game.getRandom();
+        out.writeByte(MAGIC >>> 8).writeByte(MAGIC).writeVarInt(VERSION);
+        out.writeVarInt((withSetup ? FLAG_SETUP : 0) | (random instanceof GameRandom ? FLAG_RANDOM : 0));
+        out.writeVarInt(fingerprint(game));
+        if (withSetup) writeSetup(game, out);
+        writeState(game, out);
+    }
+
+    /**
+     * <p>
+     * Rebuilds a game from a full snapshot.
+     * </p>
+     * <p>
+     * The dices of the new game are rolled by a {@link GameRandom}, restored
+     * to the saved state if the snapshot has one.
+     * </p>
+     *
+     * @param data the snapshot, written by {@link GameSnapshot#save(Game)}
+     * @param input the source of the user's input of the new game
+     * @return the game
+     * @throws IllegalArgumentException if the data is not a full snapshot of a known version
+     */
+    public static Game load(final byte[] data, final InputProvider input) {
+        final ByteReader in = new ByteReader(data);
+        final int flags = readHeader(in);
+        if ((flags & FLAG_SETUP) == 0) throw new IllegalArgumentException("The snapshot has no setup");
+        final int fingerprint = in.readVarInt();
+        final int playersNumber = in.readVarInt();
+        final String[] names = new String[playersNumber];
+        final char[] symbols = new char[playersNumber];
+        for (int i = 0; i < playersNumber; i++) {
+            names[i] = in.readString();
+            symbols[i] = (char) in.readVarInt();
+        }
+        final Cell[] cells = new Cell[in.readVarInt()];
+        for (int i = 0; i < cells.length; i++) cells[i] = readCell(in);
+        final Game game = new Game(new Board(cells), playersNumber, input, new GameRandom());
+        game.seat(names, symbols);
+        if (fingerprint(game) != fingerprint) throw new IllegalArgumentException("Corrupted snapshot");
+        readState(game, in, flags);
+        return game;
+    }
+
+    /**
+     * <p>
+     * Restores a snapshot in an existing game, with the same players and board.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     * @param data the snapshot, with or without setup
+     * @throws IllegalArgumentException if the snapshot is of another setup or of an unknown version
+     */
+    public static void restore(final Game game, final byte[] data) {
+        restore(game, new ByteReader(data));
+    }
+
+    /**
+     * <p>
+     * Restores the snapshot read next in an existing game, with the same players and board.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     * @param in the reader, positioned at the start of the snapshot
+     * @throws IllegalArgumentException if the snapshot is of another setup or of an unknown version
+     */
+    public static void restore(final Game game, final ByteReader in) {
+        final int flags = readHeader(in);
+        if (in.readVarInt() != fingerprint(game)) {
+            throw new IllegalArgumentException("The snapshot is of another game");
+        }
+        if ((flags & FLAG_SETUP) != 0) skipSetup(in);
+        readState(game, in, flags);
+    }
+
+    /**
+     * <p>
+     * Reads and checks the magic number and the version.
+     * </p>
+     *
+     * @param in the reader
+     * @return the flags
+     */
+    private static int readHeader(final ByteReader in) {
+        if ((in.readByte() << 8 | in.readByte()) != MAGIC) throw new IllegalArgumentException("Not a game snapshot");
+        final int version = in.readVarInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unknown snapshot version " + version);
+        return in.readVarInt();
+    }
+
+    /**
+     * <p>
+     * Computes a fingerprint of the setup of a game: players and board.
+     * </p>
+     *
+     * @param game the game
+     * @return the fingerprint
+     */
+    private static int fingerprint(final Game game) {
+        int h = game.getPlayers().length;
+        for (Player player : game.getPlayers()) {
+            h = 31 * h + (player == null ? 0 : player.getName().hashCode() * 31 + player.getSymbol());
+        }
+        for (Cell cell : game.getBoard().getCells()) {
+            h = 31 * h + typeOf(cell);
+            if (cell instanceof ProprietyCell pc) {
+                h = 31 * h + pc.getProprietyName().getPlainName().hashCode();
+                h = 31 * h + pc.getColor();
+                h = 31 * h + pc.getRent(0);
+                h = 31 * h + (int) pc.getPurchasePrice();
+                h = 31 * h + pc.getHousePrice();
+                h = 31 * h + pc.getHotelPrice();
+            }
+        }
+        return h;
+    }
+
+    /**
+     * <p>
+     * Writes the setup section: players and board.
+     * </p>
+     *
+     * @param game the game
+     * @param out the writer
+     */
+    private static void writeSetup(final Game game, final ByteWriter out) {
+        final Player[] players = game.getPlayers();
+        out.writeVarInt(players.length);
+        for (Player player : players) {
+            out.writeString(player.getName());
+            out.writeVarInt(player.getSymbol());
+        }
+        final Cell[] cells = game.getBoard().getCells();
+        out.writeVarInt(cells.length);
+        for (Cell cell : cells) {
+            final int type = typeOf(cell);
+            out.writeByte(type);
+            if (cell instanceof ProprietyCell pc) {
+                final int code = nameCodeOf(pc.getProprietyName());
+                out.writeVarInt(code);
+                if (code == 0) {
+                    out.writeString(pc.getProprietyName().getPlainName());
+                    out.writeVarInt(pc.getColor());
+                }
+                out.writeVarInt(pc.getRent(0));
+                out.writeVarInt((int) pc.getPurchasePrice());
+                out.writeVarInt(pc.getHousePrice());
+                out.writeVarInt(pc.getHotelPrice());
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Skips the setup section, already known by the game being restored.
+     * </p>
+     *
+     * @param in the reader
+     */
+    private static void skipSetup(final ByteReader in) {
+        final int playersNumber = in.readVarInt();
+        for (int i = 0; i < playersNumber; i++) {
+            in.readString();
+            in.readVarInt();
+        }
+        final int cellsNumber = in.readVarInt();
+        for (int i = 0; i < cellsNumber; i++) readCell(in);
+    }
+
+    /**
+     * <p>
+     * Returns the type code of a cell.
+     * </p>
+     *
+     * @param cell the cell
+     * @return the type code
+     * @throws IllegalArgumentException if the cell is of an unknown type
+     */
+    private static int typeOf(final Cell cell) {
+        if (cell instanceof StartCell) return START;
+        if (cell instanceof ParkingCell) return PARKING;
+        if (cell instanceof PrisonCell) return PRISON;
+        if (cell instanceof GoToPrisonCell) return GO_TO_PRISON;
+        if (cell instanceof LuxuryTaxCell) return LUXURY_TAX;
+        if (cell instanceof WealthTaxCell) return WEALTH_TAX;
+        if (cell instanceof ChanceCell) return CHANCE;
+        if (cell instanceof UnexpectedCell) return UNEXPECTED;
+        if (cell instanceof TaxEvasionCell) return TAX_EVASION;
+        if (cell instanceof ProprietyCell pc) return pc.isBuildable() ? PROPRIETY : STATION;
+        throw new IllegalArgumentException("Unknown cell type: " + cell.getClass().getSimpleName());
+    }
+
+    /**
+     * <p>
+     * Returns the code of the name of a propriety: its position in the known
+     * names plus one, or 0 if the name is not a known one.
+     * </p>
+     *
+     * @param name the name
+     * @return the code
+     */
+    private static int nameCodeOf(final ProprietyName name) {
+        for (int i = 0; i < KNOWN_NAMES.length; i++) {
+            if (KNOWN_NAMES[i] == name || (KNOWN_NAMES[i].getColor() == name.getColor() &&
+                    KNOWN_NAMES[i].getPlainName().equals(name.getPlainName()))) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Reads a cell of the setup section.
+     * </p>
+     *
+     * @param in the reader
+     * @return the cell
+     */
+    private static Cell readCell(final ByteReader in) {
+        final int type = in.readByte();
+        switch (type) {
+            case START: return new StartCell();
+            case PARKING: return new ParkingCell();
+            case PRISON: return new PrisonCell();
+            case GO_TO_PRISON: return new GoToPrisonCell();
+            case LUXURY_TAX: return new LuxuryTaxCell();
+            case WEALTH_TAX: return new WealthTaxCell();
+            case CHANCE: return new ChanceCell();
+            case UNEXPECTED: return new UnexpectedCell();
+            case TAX_EVASION: return new TaxEvasionCell();
+            case PROPRIETY:
+            case STATION:
+                final int code = in.readVarInt();
+                final ProprietyName name;
+                if (code == 0) {
+                    final String plainName = in.readString();
+                    name = new ProprietyName(plainName, in.readVarInt());
+                } else if (code <= KNOWN_NAMES.length) {
+                    name = KNOWN_NAMES[code - 1];
+                } else {
+                    throw new IllegalArgumentException("Unknown propriety name " + code);
+                }
+                return new ProprietyCell(name, in.readVarInt(), in.readVarInt(),
+                        in.readVarInt(), in.readVarInt(), type == PROPRIETY);
+            default:
+                throw new IllegalArgumentException("Unknown cell type " + type);
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the state section.
+     * </p>
+     *
+     * @param game the game
+     * @param out the writer
+     */
+    private static void writeState(final Game game, final ByteWriter out) {
+        writeMoney(out, game.getBank().getFunds());
+        for (Player player : game.getPlayers()) {
+            writeMoney(out, player.getBalance());
+            out.writeVarInt(player.getPosition());
+            out.writeByte((player.isInPrison() ? PLAYER_IN_PRISON : 0) |
+                    (player.isEvader() ? PLAYER_EVADER : 0) |
+                    (player.isBankrupt() ? PLAYER_BANKRUPT : 0));
+            out.writeVarInt(player.getTimesTriedEvading());
+            writeMoney(out, player.getAmountEvaded());
+        }
+        long evasionCells = 0;
+        int evasionCount = 0;
+        for (Cell cell : game.getBoard().getCells()) {
+            if (cell instanceof ProprietyCell pc) {
+                final int owner = pc.getOwner() == null ? 0 : pc.getOwner().getSeat() + 1;
+                out.writeVarInt(owner << LEVEL_BITS | pc.getBuildingLevel());
+            } else if (cell instanceof TaxEvasionCell tc) {
+                if (tc.isActive()) evasionCells |= 1L << evasionCount;
+                evasionCount++;
+            }
+        }
+        out.writeVarLong(evasionCells);
+        out.writeVarInt(game.getIndexOfCurrentPlayer());
+        out.writeByte(game.isRunning() ? 1 : 0);
+        final Dice[] dices = game.getDices();
+        out.writeVarInt(dices.length);
+        for (Dice dice : dices) out.writeVarInt(dice.getCurrentValue());
+        writeOrder(out, game.getChanceDeck());
+        writeOrder(out, game.getUnexpectedDeck());
+        if (game.getRandom() instanceof GameRandom random) out.writeVarLong(random.getState());
+    }
+
+    /**
+     * <p>
+     * Reads the state section, restoring it in the game.
+     * </p>
+     *
+     * @param game the game
+     * @param in the reader
+     * @param flags the flags of the header
+     */
+    private static void readState(final Game game, final ByteReader in, final int flags) {
+        game.getBank().setFunds(readMoney(in));
+        final Player[] players = game.getPlayers();
+        for (Player player : players) {
+            final double balance = readMoney(in);
+            final int position = in.readVarInt();
+            final int playerFlags = in.readByte();
+            final int timesTriedEvading = in.readVarInt();
+            player.restoreState(balance, position,
+                    (playerFlags & PLAYER_IN_PRISON) != 0,
+                    (playerFlags & PLAYER_EVADER) != 0,
+                    readMoney(in), timesTriedEvading,
+                    (playerFlags & PLAYER_BANKRUPT) != 0);
+            player.clearProprieties();
+        }
+        final Cell[] cells = game.getBoard().getCells();
+        final int[] owners = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] instanceof ProprietyCell pc) {
+                final int code = in.readVarInt();
+                final int owner = code >>> LEVEL_BITS;
+                if (owner > players.length) throw new IllegalArgumentException("Unknown owner " + owner);
+                pc.setOwner(owner == 0 ? null : players[owner - 1]);
+                pc.setBuildingLevel(code & ((1 << LEVEL_BITS) - 1));
+                owners[i] = owner;
+            }
+        }
+        final long evasionCells = in.readVarLong();
+        int evasionCount = 0;
+        for (Cell cell : cells) {
+            if (cell instanceof TaxEvasionCell tc) tc.setActive((evasionCells & 1L << evasionCount++) != 0);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if (owners[i] != 0) players[owners[i] - 1].addPropriety(i, (ProprietyCell) cells[i]);
+        }
+        game.getBoard().placePlayers(players);
+        game.restoreTurn(in.readVarInt(), in.readByte() != 0);
+        final Dice[] dices = game.getDices();
+        if (in.readVarInt() != dices.length) throw new IllegalArgumentException("The snapshot is of another game");
+        for (Dice dice : dices) {
+            dice.setCurrentValue(in.readVarInt());
+        }
+        readOrder(in, game.getChanceDeck());
+        readOrder(in, game.getUnexpectedDeck());
+        if ((flags & FLAG_RANDOM) != 0) {
+            final long state = in.readVarLong();
+            if (!(game.getRandom() instanceof GameRandom random)) {
+                throw new IllegalArgumentException("The random generator of the game cannot be restored");
+            }
+            random.setState(state);
+        }
+        game.getLeaderboard().refresh();
+    }
+
+    /**
+     * <p>
+     * Writes the order of a deck, as a permutation of its cards.
+     * </p>
+     *
+     * @param out the writer
+     * @param deck the deck
+     */
+    private static void writeOrder(final ByteWriter out, final Deck deck) {
+        final int[] order = deck.getOrder();
+        out.writeVarInt(order.length);
+        for (int index : order) out.writeVarInt(index);
+    }
+
+    /**
+     * <p>
+     * Reads the order of a deck, restoring it.
+     * </p>
+     *
+     * @param in the reader
+     * @param deck the deck
+     */
+    private static void readOrder(final ByteReader in, final Deck deck) {
+        final int[] order = new int[in.readVarInt()];
+        for (int i = 0; i < order.length; i++) order[i] = in.readVarInt();
+        deck.setOrder(order);
+    }
+
+    /**
+     * <p>
+     * Writes an amount of money: whole cents as a tagged zig-zag varint,
+     * anything else as a tag followed by the 8 bytes of the double.
+     * </p>
+     *
+     * @param out the writer
+     * @param amount the amount
+     */
+    static void writeMoney(final ByteWriter out, final double amount) {
+        final long cents = Math.round(amount * 100);
+        if (cents / 100.0 == amount && Math.abs(cents) < 1L << 52) {
+            out.writeVarLong(((cents << 1) ^ (cents >> 63)) << 1);
+        } else {
+            out.writeVarLong(1);
+            out.writeLong(Double.doubleToRawLongBits(amount));
+        }
+    }
+
+    /**
+     * <p>
+     * Reads an amount of money written by {@link GameSnapshot#writeMoney(ByteWriter, double)}.
+     * </p>
+     *
+     * @param in the reader
+     * @return the amount
+     */
+    static double readMoney(final ByteReader in) {
+        final long value = in.readVarLong();
+        if ((value & 1) != 0) return Double.longBitsToDouble(in.readLong());
+        final long zigZag = value >>> 1;
+        return ((zigZag >>> 1) ^ -(zigZag & 1)) / 100.0;
+    }
+}
@@ -0,0 +1,258 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.input.InputProvider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Time travel through the journal of a {@link Game}.
+ * </p>
+ * <p>
+ * The segments of the journal are memory-mapped and scanned once, to build
+ * a sparse index from the turns of the checkpoints, the snapshots that
+ * {@link GameJournal} appends every given number of turns, to the segment
+ * and the position of their frame. The state at any turn is then rebuilt by
+ * loading the nearest checkpoint before it and replaying the turns between
+ * them: at most the snapshot interval of the journal, however long the game.
+ * </p>
+ * <p>
+ * The state at turn {@code n} is the state after {@code n} turns were
+ * played: turn 0 is the game as it started.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameTimeline timeline = GameTimeline.open(path, 42);
+ * Game game = timeline.at(3412, input);
+ * System.out.println(game.getBoard());
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameTimeline {
+
+    /**
+     * The id of the game.
+     */
+    private final long gameId;
+
+    /**
+     * The mapped segments of the journal.
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * The turns of the checkpoints, in increasing order.
+     */
+    private int[] checkpointTurns = new int[16];
+
+    /**
+     * The segments of the checkpoints.
+     */
+    private int[] checkpointSegments = new int[16];
+
+    /**
+     * The positions of the checkpoints in their segment.
+     */
+    private int[] checkpointOffsets = new int[16];
+
+    /**
+     * The number of checkpoints.
+     */
+    private int checkpoints;
+
+    /**
+     * The number of turns journaled.
+     */
+    private int lastTurn;
+
+    /**
+     * <p>
+     * Creates the timeline of a game, indexing the segments of its journal.
+     * </p>
+     *
+     * @param gameId the id of the game
+     * @param segments the mapped segments of the journal, in order
+     */
+    private GameTimeline(final long gameId, final ByteBuffer[] segments) {
+        this.gameId = gameId;
+        this.segments = segments;
+        for (int s = 0; s < segments.length; s++) {
+            final JournalReader reader = new JournalReader(segments[s]);
+            while (reader.next()) {
+                if (reader.getGameId() != gameId) continue;
+                if (reader.getKind() == GameJournal.SNAPSHOT) {
+                    this.addCheckpoint(reader.getTurn(), s, reader.getFrameOffset());
+                } else if (reader.getKind() == GameJournal.TURN) {
+                    this.lastTurn = Math.max(this.lastTurn, reader.getTurn() + 1);
+                }
+            }
+        }
+        if (this.checkpoints == 0) throw new IllegalArgumentException("No snapshot of game " + gameId);
+        this.lastTurn = Math.max(this.lastTurn, this.checkpointTurns[this.checkpoints - 1]);
+    }
+
+    /**
+     * <p>
+     * Opens the timeline of a game, mapping the segments of its journal.
+     * </p>
+     *
+     * @param path the first segment of the journal
+     * @param gameId the id of the game
+     * @return the timeline
+     * @throws IOException if a segment cannot be mapped
+     * @throws IllegalArgumentException if the journal holds no snapshot of the game
+     */
+    public static GameTimeline open(final Path path, final long gameId) throws IOException {
+        final List<Path> paths = JournalWriter.segments(path);
+        final ByteBuffer[] segments = new ByteBuffer[paths.size()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = JournalReader.map(paths.get(i));
+        }
+        return new GameTimeline(gameId, segments);
+    }
+
+    /**
+     * <p>
+     * Adds a checkpoint to the index, replacing the one of the same turn.
+     * </p>
+     *
+     * @param turn the turn of the checkpoint
+     * @param segment the segment of the checkpoint
+     * @param offset the position of the checkpoint in its segment
+     */
+    private void addCheckpoint(final int turn, final int segment, final int offset) {
+        if (this.checkpoints > 0 && this.checkpointTurns[this.checkpoints - 1] >= turn) {
+            // a resumed game snapshots again a turn already journaled: the last one wins
+            this.checkpoints = this.find(turn) + 1;
+            if (this.checkpoints > 0 && this.checkpointTurns[this.checkpoints - 1] == turn) this.checkpoints--;
+        }
+        if (this.checkpoints == this.checkpointTurns.length) {
+            this.checkpointTurns = Arrays.copyOf(this.checkpointTurns, this.checkpoints * 2);
+            this.checkpointSegments = Arrays.copyOf(this.checkpointSegments, this.checkpoints * 2);
+            this.checkpointOffsets = Arrays.copyOf(this.checkpointOffsets, this.checkpoints * 2);
+        }
+        this.checkpointTurns[this.checkpoints] = turn;
+        this.checkpointSegments[this.checkpoints] = segment;
+        this.checkpointOffsets[this.checkpoints] = offset;
+        this.checkpoints++;
+    }
+
+    /**
+     * <p>
+     * Finds the last checkpoint not after a turn.
+     * </p>
+     *
+     * @param turn the turn
+     * @return the index of the checkpoint, -1 if there is none
+     */
+    private int find(final int turn) {
+        int low = 0;
+        int high = this.checkpoints - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (this.checkpointTurns[mid] <= turn) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns journaled.
+     * </p>
+     *
+     * @return the number of turns
+     */
+    public int getLastTurn() {
+        return this.lastTurn;
+    }
+
+    /**
+     * <p>
+     * Returns the number of checkpoints indexed.
+     * </p>
+     *
+     * @return the number of checkpoints
+     */
+    public int getCheckpoints() {
+        return this.checkpoints;
+    }
+
+    /**
+     * <p>
+     * Returns the turn of the checkpoint the state at a turn is rebuilt from.
+     * </p>
+     *
+     * @param turn the turn
+     * @return the turn of the nearest checkpoint not after it
+     * @throws IllegalArgumentException if the turn is not journaled
+     */
+    public int getCheckpoint(final int turn) {
+        return this.checkpointTurns[this.checkpointOf(turn)];
+    }
+
+    /**
+     * <p>
+     * Finds the checkpoint the state at a turn is rebuilt from.
+     * </p>
+     *
+     * @param turn the turn
+     * @return the index of the checkpoint
+     * @throws IllegalArgumentException if the turn is not journaled
+     */
+    private int checkpointOf(final int turn) {
+        if (turn < 0 || turn > this.lastTurn) {
+            throw new IllegalArgumentException("Turn " + turn + " is not between 0 and " + this.lastTurn);
+        }
+        final int index = this.find(turn);
+        if (index < 0) throw new IllegalArgumentException("No snapshot before turn " + turn);
+        return index;
+    }
+
+    /**
+     * <p>
+     * Rebuilds the game as it was at a turn.
+     * </p>
+     *
+     * @param turn the number of turns played
+     * @param input the source of the user's input of the rebuilt game
+     * @return a new game, as it was after the given number of turns
+     * @throws IllegalArgumentException if the turn is not journaled
+     */
+    public Game at(final int turn, final InputProvider input) {
+        final int checkpoint = this.checkpointOf(turn);
+        int segment = this.checkpointSegments[checkpoint];
+        final ByteBuffer first = this.segments[segment].duplicate();
+        first.position(this.checkpointOffsets[checkpoint]);
+        JournalReader reader = new JournalReader(first);
+        reader.next();
+        final ByteReader snapshot = reader.getBody();
+        final byte[] saved = new byte[snapshot.remaining()];
+        for (int i = 0; i < saved.length; i++) {
+            saved[i] = (byte) snapshot.readByte();
+        }
+        final Game game = GameSnapshot.load(saved, input);
+        while (true) {
+            while (reader.next()) {
+                if (reader.getGameId() != this.gameId || reader.getKind() != GameJournal.TURN) continue;
+                if (reader.getTurn() >= turn) return game;
+                TurnDelta.apply(game, reader.getBody());
+            }
+            if (++segment == this.segments.length) return game;
+            reader = new JournalReader(this.segments[segment].duplicate());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Reader of the frames of a journal.
+ * </p>
+ * <p>
+ * A frame is a marker byte, the varint length of the payload, the CRC-32 of
+ * the payload and the payload itself: the id of the game, the number of the
+ * turn, the kind of the frame and its body. The frames of many games are
+ * interleaved in the same journal.
+ * </p>
+ * <p>
+ * After a crash, the last frame can be incomplete: reading stops at the
+ * first frame that is truncated or whose checksum does not match, and
+ * {@link JournalReader#getValidLength()} tells where the valid journal ends.
+ * </p>
+ * <p>
+ * The journal is read either from an array or from a buffer, such as a
+ * memory-mapped file: only the body of the current frame is copied out of
+ * a buffer that is not backed by an array.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * JournalReader reader = JournalReader.open(path);
+ * while (reader.next()) {
+ *     if (reader.getGameId() == gameId) handle(reader.getKind(), reader.getBody());
+ * }
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class JournalReader {
+
+    /**
+     * The marker opening every frame.
+     */
+    static final int FRAME_MARKER = 0xA5;
+
+    /**
+     * The bytes of the journal, read at absolute positions.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The view of {@link JournalReader#data} the checksum and the bodies are read through.
+     */
+    private final ByteBuffer view;
+
+    /**
+     * The position after the last byte of the journal.
+     */
+    private final int limit;
+
+    /**
+     * The reader of the body of the current frame.
+     */
+    private final ByteReader body;
+
+    /**
+     * The checksum computer.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The copy of the body of the current frame, if the journal is not backed by an array.
+     */
+    private byte[] scratch;
+
+    /**
+     * The position of the next frame.
+     */
+    private int position;
+
+    /**
+     * The position after the last valid frame read.
+     */
+    private int validLength;
+
+    /**
+     * The position of the current frame.
+     */
+    private int frameOffset;
+
+    /**
+     * The id of the game of the current frame.
+     */
+    private long gameId;
+
+    /**
+     * The turn of the current frame.
+     */
+    private int turn;
+
+    /**
+     * The kind of the current frame.
+     */
+    private int kind;
+
+    /**
+     * <p>
+     * Creates a reader of a whole journal.
+     * </p>
+     *
+     * @param data the bytes of the journal
+     */
+    public JournalReader(final byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * <p>
+     * Creates a reader of the frames in a range of an array.
+     * </p>
+     *
+     * @param data the bytes of the journal
+     * @param offset the position of the first frame
+     * @param length the number of bytes
+     */
+    public JournalReader(final byte[] data, final int offset, final int length) {
+        this(ByteBuffer.wrap(data), offset, offset + length);
+    }
+
+    /**
+     * <p>
+     * Creates a reader of the frames of a buffer, from its position to its limit.
+     * </p>
+     * <p>
+     * The positions returned by the reader are indexes in the buffer.
+     * </p>
+     *
+     * @param data the bytes of the journal
+     */
+    public JournalReader(final ByteBuffer data) {
+        this(data, data.position(), data.limit());
+    }
+
+    /**
+     * <p>
+     * Creates a reader of the frames between two indexes of a buffer.
+     * </p>
+     *
+     * @param data the bytes of the journal
+     * @param from the index of the first frame
+     * @param to the index after the last byte
+     */
+    private JournalReader(final ByteBuffer data, final int from, final int to) {
+        if (from < 0 || from > to || to > data.capacity()) throw new IllegalArgumentException("Invalid range");
+        this.data = data;
+        this.view = data.duplicate();
+        this.limit = to;
+        this.position = from;
+        this.validLength = from;
+        this.body = data.hasArray()
+                ? new ByteReader(data.array(), data.arrayOffset() + from, 0)
+                : new ByteReader(new byte[0], 0, 0);
+    }
+
+    /**
+     * <p>
+     * Opens a journal file, mapping it in memory.
+     * </p>
+     *
+     * @param path the journal file
+     * @return the reader
+     * @throws IOException if the file cannot be read
+     */
+    public static JournalReader open(final Path path) throws IOException {
+        return new JournalReader(map(path));
+    }
+
+    /**
+     * <p>
+     * Maps a journal file in memory, read only.
+     * </p>
+     * <p>
+     * The mapping stays valid after the file is closed, and the pages are
+     * loaded by the operating system only when they are read.
+     * </p>
+     *
+     * @param path the journal file
+     * @return the mapped bytes of the file
+     * @throws IOException if the file cannot be mapped, or is larger than 2 GiB
+     */
+    static ByteBuffer map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Journal segment larger than 2 GiB: " + path);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * <p>
+     * Writes a frame.
+     * </p>
+     *
+     * @param out the writer of the frame
+     * @param gameId the id of the game
+     * @param turn the number of the turn
+     * @param kind the kind of the frame
+     * @param body the body of the frame
+     */
+    static void writeFrame(final ByteWriter out, final long gameId, final int turn,
+                           final int kind, final ByteWriter body) {
+        final ByteWriter header = new ByteWriter(16);
+        header.writeVarLong(gameId).writeVarInt(turn).writeByte(kind);
+        final CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.size());
+        crc.update(body.array(), 0, body.size());
+        out.writeByte(FRAME_MARKER);
+        out.writeVarInt(header.size() + body.size());
+        out.writeInt((int) crc.getValue());
+        out.writeBytes(header.array(), 0, header.size());
+        out.writeBytes(body.array(), 0, body.size());
+    }
+
+    /**
+     * <p>
+     * Reads the next frame.
+     * </p>
+     *
+     * @return true if a valid frame was read, false at the end of the
+     *         journal or at the first truncated or corrupted frame
+     */
+    public boolean next() {
+        final int offset = this.position;
+        if (offset >= this.limit || (this.data.get(offset) & 0xFF) != FRAME_MARKER) return false;
+        int at = offset + 1;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (at >= this.limit || shift > 28) return false;
+            final int b = this.data.get(at++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        if (length < 0 || at + 4 > this.limit || length > this.limit - at - 4) return false;
+        final int checksum = this.data.getInt(at);
+        final int start = at + 4;
+        this.view.limit(start + length).position(start);
+        this.crc.reset();
+        this.crc.update(this.view);
+        if ((int) this.crc.getValue() != checksum) return false;
+        if (this.data.hasArray()) {
+            this.body.reset(this.data.array(), this.data.arrayOffset() + start, length);
+        } else {
+            if (this.scratch == null || this.scratch.length < length) {
+                this.scratch = new byte[Math.max(length, 512)];
+            }
+            this.view.position(start);
+            this.view.get(this.scratch, 0, length);
+            this.body.reset(this.scratch, 0, length);
+        }
+        try {
+            this.gameId = this.body.readVarLong();
+            this.turn = this.body.readVarInt();
+            this.kind = this.body.readByte();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        this.frameOffset = offset;
+        this.position = start + length;
+        this.validLength = this.position;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Returns the id of the game of the current frame.
+     * </p>
+     *
+     * @return the id of the game
+     */
+    public long getGameId() {
+        return this.gameId;
+    }
+
+    /**
+     * <p>
+     * Returns the turn of the current frame.
+     * </p>
+     *
+     * @return the number of the turn
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * <p>
+     * Returns the kind of the current frame.
+     * </p>
+     *
+     * @return the kind
+     */
+    public int getKind() {
+        return this.kind;
+    }
+
+    /**
+     * <p>
+     * Returns the reader of the body of the current frame.
+     * </p>
+     *
+     * @return the reader, positioned at the start of the body
+     */
+    public ByteReader getBody() {
+        return this.body;
+    }
+
+    /**
+     * <p>
+     * Returns the position of the current frame.
+     * </p>
+     *
+     * @return the position of the marker of the frame
+     */
+    public int getFrameOffset() {
+        return this.frameOffset;
+    }
+
+    /**
+     * <p>
+     * Returns the position after the last valid frame read.
+     * </p>
+     *
+     * @return the length of the valid journal
+     */
+    public int getValidLength() {
+        return this.validLength;
+    }
+}
@@ -0,0 +1,418 @@
+package ch.supsi.game.monopoly.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Append-only writer of a journal file, shared by all the games of a host.
+ * </p>
+ * <p>
+ * The games append their frames to an in-memory batch, which costs a copy;
+ * a background thread writes the batch with a single {@link FileChannel#write(ByteBuffer)}
+ * and a single {@link FileChannel#force(boolean)} every commit interval
+ * (group commit), or as soon as the batch grows large, so that the cost
+ * of a disk sync is shared by all the frames, of all the games, appended
+ * in the meantime. While a batch is being written, the next one is filled
+ * in a second buffer.
+ * </p>
+ * <p>
+ * Every append returns the position in the file right after the frame;
+ * {@link JournalWriter#awaitDurable(long)} waits until the file is durable
+ * up to that position, for the callers that cannot go on before. The
+ * positions count the bytes of the whole journal.
+ * </p>
+ * <p>
+ * A journal is split in segments of a given size,
+ * {@link JournalWriter#DEFAULT_SEGMENT_SIZE} unless told otherwise: a commit
+ * that would make the current segment outgrow that size, or that makes it
+ * reach it, goes on in a new file, named after the journal with the number
+ * of the segment appended ({@code journal.bin}, {@code journal.bin.1},
+ * {@code journal.bin.2}, ...). A frame never spans two segments, so every
+ * segment can be read, or memory-mapped, on its own; see
+ * {@link JournalWriter#segments(Path)}. As a mapping cannot exceed 2 GiB,
+ * neither can a segment.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * JournalWriter writer = new JournalWriter(path, 5, true);  // commit every 5 ms, with fsync
+ * long end = writer.append(frame, 0, frame.length);         // returns immediately
+ * writer.awaitDurable(end);                                 // waits for the next commit
+ * writer.close();                                           // commits what is left
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class JournalWriter implements Closeable {
+
+    /**
+     * The size of the segments of a journal, when not given.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size of a batch committed before the end of the commit interval.
+     */
+    private static final int EARLY_COMMIT_SIZE = 1024 * 1024;
+
+    /**
+     * The first segment of the journal.
+     */
+    private final Path path;
+
+    /**
+     * The size after which a segment is closed and the next one is started.
+     */
+    private final long segmentSize;
+
+    /**
+     * The channel of the current segment.
+     */
+    private FileChannel channel;
+
+    /**
+     * The number of the current segment.
+     */
+    private int segment;
+
+    /**
+     * The milliseconds between two commits.
+     */
+    private final long commitInterval;
+
+    /**
+     * Whether every commit forces the file to the disk.
+     */
+    private final boolean fsync;
+
+    /**
+     * The thread committing the batches.
+     */
+    private final Thread committer;
+
+    /**
+     * The batch being filled by the games.
+     */
+    private byte[] batch = new byte[64 * 1024];
+
+    /**
+     * The batch being written by the committer, swapped with {@link JournalWriter#batch}.
+     */
+    private byte[] spare = new byte[64 * 1024];
+
+    /**
+     * The number of bytes in {@link JournalWriter#batch}.
+     */
+    private int batchSize;
+
+    /**
+     * The position in the file after the last byte appended.
+     */
+    private long appended;
+
+    /**
+     * The position in the file up to which everything is durable.
+     */
+    private long durable;
+
+    /**
+     * The number of commits done.
+     */
+    private long commits;
+
+    /**
+     * The error of the last commit, if it failed.
+     */
+    private IOException failure;
+
+    /**
+     * Whether the writer is closed.
+     */
+    private boolean closed;
+
+    /**
+     * <p>
+     * Opens a journal split in segments of {@link JournalWriter#DEFAULT_SEGMENT_SIZE},
+     * appending to its last segment if it exists.
+     * </p>
+     *
+     * @param path the journal file
+     * @param commitInterval the milliseconds between two commits
+     * @param fsync whether every commit forces the file to the disk
+     * @throws IOException if the file cannot be opened
+     */
+    public JournalWriter(final Path path, final long commitInterval, final boolean fsync) throws IOException {
+        this(path, commitInterval, fsync, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * <p>
+     * Opens a journal split in segments, appending to its last segment if it exists.
+     * </p>
+     * <p>
+     * A frame left incomplete at the end of the last segment by a crash is
+     * removed, so that the frames appended after it can be read.
+     * </p>
+     *
+     * @param path the first segment of the journal
+     * @param commitInterval the milliseconds between two commits
+     * @param fsync whether every commit forces the file to the disk
+     * @param segmentSize the size after which a new segment is started, at most {@link Integer#MAX_VALUE}
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the commit interval is not positive, or the segment size is out of range
+     */
+    public JournalWriter(final Path path, final long commitInterval, final boolean fsync,
+                         final long segmentSize) throws IOException {
+        if (commitInterval < 1) throw new IllegalArgumentException("commitInterval must be positive");
+        if (segmentSize < 1) throw new IllegalArgumentException("segmentSize must be positive");
+        if (segmentSize > Integer.MAX_VALUE) throw new IllegalArgumentException("segmentSize cannot exceed 2 GiB");
+        this.path = path;
+        this.segmentSize = segmentSize;
+        final List<Path> segments = segments(path);
+        for (Path existing : segments) {
+            this.appended += Files.size(existing);
+        }
+        this.segment = Math.max(0, segments.size() - 1);
+        this.channel = FileChannel.open(segmentPath(path, this.segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        final long valid = validLength(segmentPath(path, this.segment));
+        if (valid < this.channel.size()) {
+            this.appended -= this.channel.size() - valid;
+            this.channel.truncate(valid);
+        }
+        this.channel.position(valid);
+        this.durable = this.appended;
+        this.commitInterval = commitInterval;
+        this.fsync = fsync;
+        this.committer = new Thread(this::commitLoop, "monopoly-journal");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * <p>
+     * Returns the path of a segment of a journal.
+     * </p>
+     *
+     * @param path the first segment of the journal
+     * @param segment the number of the segment
+     * @return the path of the segment
+     */
+    static Path segmentPath(final Path path, final int segment) {
+        return segment == 0 ? path : path.resolveSibling(path.getFileName() + "." + segment);
+    }
+
+    /**
+     * <p>
+     * Returns the length of the valid frames at the start of a segment.
+     * </p>
+     * <p>
+     * The segment is scanned through a mapping, as {@link GameTimeline} does,
+     * instead of being read into the heap.
+     * </p>
+     *
+     * @param segment the segment
+     * @return the length, 0 if the segment does not exist
+     * @throws IOException if the segment cannot be read
+     */
+    private static long validLength(final Path segment) throws IOException {
+        if (!Files.exists(segment)) return 0;
+        final JournalReader reader = new JournalReader(JournalReader.map(segment));
+        while (reader.next()) {
+            // skip to the end of the valid frames
+        }
+        return reader.getValidLength();
+    }
+
+    /**
+     * <p>
+     * Returns the existing segments of a journal, in order.
+     * </p>
+     *
+     * @param path the first segment of the journal
+     * @return the segments, empty if the journal does not exist
+     */
+    public static List<Path> segments(final Path path) {
+        final List<Path> segments = new ArrayList<>();
+        for (int i = 0; Files.exists(segmentPath(path, i)); i++) {
+            segments.add(segmentPath(path, i));
+        }
+        return segments;
+    }
+
+    /**
+     * <p>
+     * Appends a frame to the journal.
+     * </p>
+     * <p>
+     * The frame is only copied: it is written at the next commit.
+     * </p>
+     *
+     * @param frame the bytes of the frame
+     * @param offset the offset of the frame
+     * @param length the length of the frame
+     * @return the position in the file right after the frame
+     * @throws IllegalStateException if the writer is closed
+     * @throws UncheckedIOException if the last commit failed
+     */
+    public synchronized long append(final byte[] frame, final int offset, final int length) {
+        if (this.closed) throw new IllegalStateException("Journal closed");
+        if (this.failure != null) throw new UncheckedIOException(this.failure);
+        if (this.batchSize + length > this.batch.length) {
+            final byte[] tmp = new byte[Math.max(this.batch.length * 2, this.batchSize + length)];
+            System.arraycopy(this.batch, 0, tmp, 0, this.batchSize);
+            this.batch = tmp;
+        }
+        System.arraycopy(frame, offset, this.batch, this.batchSize, length);
+        this.batchSize += length;
+        this.appended += length;
+        if (this.batchSize >= EARLY_COMMIT_SIZE) this.notifyAll();
+        return this.appended;
+    }
+
+    /**
+     * <p>
+     * Waits until the journal is durable up to the given position.
+     * </p>
+     *
+     * @param position the position, as returned by {@link JournalWriter#append(byte[], int, int)}
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UncheckedIOException if a commit failed
+     */
+    public synchronized void awaitDurable(final long position) throws InterruptedException {
+        while (this.durable < position) {
+            if (this.failure != null) throw new UncheckedIOException(this.failure);
+            if (this.closed && this.batchSize == 0) break;
+            this.wait();
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the position in the file up to which everything is durable.
+     * </p>
+     *
+     * @return the position
+     */
+    public synchronized long getDurablePosition() {
+        return this.durable;
+    }
+
+    /**
+     * <p>
+     * Returns the number of commits done, each costing one write and one sync.
+     * </p>
+     *
+     * @return the number of commits
+     */
+    public synchronized long getCommits() {
+        return this.commits;
+    }
+
+    /**
+     * <p>
+     * Commits the batches, until the writer is closed and everything is written.
+     * </p>
+     */
+    private void commitLoop() {
+        while (true) {
+            final byte[] toWrite;
+            final int size;
+            final long end;
+            synchronized (this) {
+                final long deadline = System.currentTimeMillis() + this.commitInterval;
+                long left = this.commitInterval;
+                while (!this.closed && left > 0 && this.batchSize < EARLY_COMMIT_SIZE) {
+                    try {
+                        this.wait(left);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    left = deadline - System.currentTimeMillis();
+                }
+                if (this.batchSize == 0) {
+                    if (this.closed) return;
+                    continue;
+                }
+                toWrite = this.batch;
+                size = this.batchSize;
+                end = this.appended;
+                this.batch = this.spare;
+                this.spare = toWrite;
+                this.batchSize = 0;
+            }
+            IOException error = null;
+            try {
+                final long current = this.channel.size();
+                if (current > 0 && current + size > this.segmentSize) this.roll();
+                final ByteBuffer buffer = ByteBuffer.wrap(toWrite, 0, size);
+                while (buffer.hasRemaining()) this.channel.write(buffer);
+                if (this.fsync) this.channel.force(false);
+                if (this.channel.size() >= this.segmentSize) this.roll();
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (this) {
+                if (error == null) {
+                    this.durable = end;
+                    this.commits++;
+                } else {
+                    this.failure = error;
+                }
+                this.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Closes the current segment and starts the next one.
+     * </p>
+     *
+     * @throws IOException if a segment cannot be closed or opened
+     */
+    private void roll() throws IOException {
+        final FileChannel next = FileChannel.open(segmentPath(this.path, this.segment + 1),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.close();
+        this.channel = next;
+        this.segment++;
+    }
+
+    /**
+     * <p>
+     * Commits everything appended and closes the journal file.
+     * </p>
+     *
+     * @throws IOException if the last commit or the closing failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) return;
+            this.closed = true;
+            this.notifyAll();
+        }
+        try {
+            this.committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.channel.close();
+        synchronized (this) {
+            if (this.failure != null) throw this.failure;
+        }
+    }
+}
@@ -0,0 +1,771 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Dice;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.Deck;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.cells.TaxEvasionCell;
+import ch.supsi.game.monopoly.exception.EmptyDeckException;
+import ch.supsi.game.monopoly.exception.IllegalCardException;
+
+/**
+ * <p>
+ * Delta encoding of the turns of a {@link Game}.
+ * </p>
+ * <p>
+ * A turn changes little: one position, one or two balances, sometimes an
+ * owner. The encoder remembers the state written last and writes only what
+ * changed since, so a turn takes a handful of bytes:
+ * </p>
+ * <ul>
+ *     <li>a varint header with a bit per touched field: the dices, one bit
+ *     per player, then the rarer fields (proprieties, bank, tax evasion
+ *     cells, decks, turn order), so a common turn fits the header in one byte;</li>
+ *     <li>for every touched player, a bitmask of its touched fields
+ *     (position, balance, flags, tries, amount evaded) and their values;
+ *     a position reached by moving as the dices tell takes no byte;</li>
+ *     <li>changes of money as zig-zag varints of the difference, in whole
+ *     units when possible, else in cents;</li>
+ *     <li>proprieties by their dictionary code, their rank among the
+ *     proprieties of the board, followed by the new owner and level;</li>
+ *     <li>decks by the card on top, the generator by its number of draws,
+ *     only when it is not one per dice rolled, and the bank only when its
+ *     money does not balance the players'.</li>
+ * </ul>
+ * <p>
+ * Decoding reads the previous state from the game itself, so a delta is
+ * applied by {@link TurnDelta#apply(Game, ByteReader)} to any game in the
+ * state it was encoded from: a game loaded from a snapshot, a replica, a
+ * client. The same deltas are used by the journal, the replays and the
+ * synchronization of remote games.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * TurnDelta delta = new TurnDelta(game);  // remembers the current state
+ * // ... a turn is played
+ * delta.encode(out);                      // writes what the turn changed
+ * TurnDelta.apply(replica, in);           // replays it on a copy
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class TurnDelta {
+
+    /**
+     * Header bit of the values of the dices, packed three bits each.
+     */
+    private static final int DICE = 1;
+
+    /**
+     * Position of the first player bit in the header.
+     */
+    private static final int PLAYERS_SHIFT = 1;
+
+    /**
+     * Rare header bit of the changed proprieties, first as the most common.
+     */
+    private static final int CELLS = 1;
+
+    /**
+     * Rare header bit of the money of the bank, when it does not balance the players'.
+     */
+    private static final int BANK = 1 << 1;
+
+    /**
+     * Rare header bit of the active tax evasion cells.
+     */
+    private static final int EVASION = 1 << 2;
+
+    /**
+     * Rare header bit of the top card of the chance deck.
+     */
+    private static final int CHANCE = 1 << 3;
+
+    /**
+     * Rare header bit of the top card of the unexpected deck.
+     */
+    private static final int UNEXPECTED = 1 << 4;
+
+    /**
+     * Rare header bit of a next player that is not the one after the last.
+     */
+    private static final int ORDER = 1 << 5;
+
+    /**
+     * Rare header bit of the game stopping or starting again.
+     */
+    private static final int RUNNING = 1 << 6;
+
+    /**
+     * Rare header bit of the values of dices too large to be packed.
+     */
+    private static final int WIDE_DICE = 1 << 7;
+
+    /**
+     * Rare header bit of a number of draws of the generator other than one per dice rolled.
+     */
+    private static final int DRAWS = 1 << 8;
+
+    /**
+     * Player field bit of the position.
+     */
+    private static final int POSITION = 1;
+
+    /**
+     * Player field bit of the balance.
+     */
+    private static final int BALANCE = 1 << 1;
+
+    /**
+     * Player field bit of the prison, evader and bankrupt flags.
+     */
+    private static final int FLAGS = 1 << 2;
+
+    /**
+     * Player field bit of the times tried evading.
+     */
+    private static final int TRIES = 1 << 3;
+
+    /**
+     * Player field bit of the amount evaded.
+     */
+    private static final int EVADED = 1 << 4;
+
+    /**
+     * Player field bit of a position reached by moving as many cells as the dices tell,
+     * written instead of {@link TurnDelta#POSITION}.
+     */
+    private static final int ROLLED = 1 << 5;
+
+    /**
+     * Player flag of a player in prison.
+     */
+    private static final int IN_PRISON = 1;
+
+    /**
+     * Player flag of a tax evader.
+     */
+    private static final int EVADER = 1 << 1;
+
+    /**
+     * Player flag of a bankrupt player.
+     */
+    private static final int BANKRUPT = 1 << 2;
+
+    /**
+     * The bits of the building level in the code of a propriety.
+     */
+    private static final int LEVEL_BITS = 3;
+
+    /**
+     * Money tag of a difference in whole units.
+     */
+    private static final int UNITS = 0;
+
+    /**
+     * Money tag of a difference in cents.
+     */
+    private static final int CENTS = 1;
+
+    /**
+     * Money tag of a raw value, that is not a whole number of cents.
+     */
+    private static final int RAW = 2;
+
+    /**
+     * The game encoded.
+     */
+    private final Game game;
+
+    /**
+     * The cell index of every propriety, in board order: the dictionary of the proprieties.
+     */
+    private final int[] proprieties;
+
+    /**
+     * The balances written last.
+     */
+    private final double[] balances;
+
+    /**
+     * The positions written last.
+     */
+    private final int[] positions;
+
+    /**
+     * The flags written last.
+     */
+    private final int[] flags;
+
+    /**
+     * The times tried evading written last.
+     */
+    private final int[] tries;
+
+    /**
+     * The amounts evaded written last.
+     */
+    private final double[] evaded;
+
+    /**
+     * The owner and level codes of the proprieties written last.
+     */
+    private final int[] cellCodes;
+
+    /**
+     * The values of the dices written last.
+     */
+    private final int[] dices;
+
+    /**
+     * The money of the bank written last.
+     */
+    private double bank;
+
+    /**
+     * The active tax evasion cells written last.
+     */
+    private long evasionCells;
+
+    /**
+     * The index of the current player written last.
+     */
+    private int index;
+
+    /**
+     * Whether the game was running when last written.
+     */
+    private boolean running;
+
+    /**
+     * The top card of the chance deck written last.
+     */
+    private int chanceTop;
+
+    /**
+     * The top card of the unexpected deck written last.
+     */
+    private int unexpectedTop;
+
+    /**
+     * The draws of the generator written last.
+     */
+    private long draws;
+
+    /**
+     * <p>
+     * Creates the encoder of a game, remembering its current state.
+     * </p>
+     *
+     * @param game the game, with its players seated
+     */
+    public TurnDelta(final Game game) {
+        this.game = game;
+        this.proprieties = proprietiesOf(game);
+        final int playersNumber = game.getPlayers().length;
+        this.balances = new double[playersNumber];
+        this.positions = new int[playersNumber];
+        this.flags = new int[playersNumber];
+        this.tries = new int[playersNumber];
+        this.evaded = new double[playersNumber];
+        this.cellCodes = new int[this.proprieties.length];
+        this.dices = new int[game.getDices().length];
+        this.reset();
+    }
+
+    /**
+     * <p>
+     * Returns the cell index of every propriety of a game, in board order.
+     * </p>
+     *
+     * @param game the game
+     * @return the indexes
+     */
+    private static int[] proprietiesOf(final Game game) {
+        final Cell[] cells = game.getBoard().getCells();
+        int count = 0;
+        for (Cell cell : cells) {
+            if (cell instanceof ProprietyCell) count++;
+        }
+        final int[] proprieties = new int[count];
+        count = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] instanceof ProprietyCell) proprieties[count++] = i;
+        }
+        return proprieties;
+    }
+
+    /**
+     * <p>
+     * Remembers the current state of the game, as after a snapshot.
+     * </p>
+     */
+    public void reset() {
+        final Player[] players = this.game.getPlayers();
+        for (int i = 0; i < players.length; i++) {
+            this.balances[i] = players[i].getBalance();
+            this.positions[i] = players[i].getPosition();
+            this.flags[i] = flagsOf(players[i]);
+            this.tries[i] = players[i].getTimesTriedEvading();
+            this.evaded[i] = players[i].getAmountEvaded();
+        }
+        final Cell[] cells = this.game.getBoard().getCells();
+        for (int i = 0; i < this.proprieties.length; i++) {
+            this.cellCodes[i] = codeOf((ProprietyCell) cells[this.proprieties[i]]);
+        }
+        final Dice[] gameDices = this.game.getDices();
+        for (int i = 0; i < gameDices.length; i++) this.dices[i] = gameDices[i].getCurrentValue();
+        this.bank = this.game.getBank().getFunds();
+        this.evasionCells = evasionCellsOf(this.game);
+        this.index = this.game.getIndexOfCurrentPlayer();
+        this.running = this.game.isRunning();
+        this.chanceTop = this.game.getChanceDeck().getTopIndex();
+        this.unexpectedTop = this.game.getUnexpectedDeck().getTopIndex();
+        this.draws = this.game.getRandom() instanceof GameRandom random ? random.getDraws() : 0;
+    }
+
+    /**
+     * <p>
+     * Writes what changed since the state written last, and remembers the current state.
+     * </p>
+     * <p>
+     * Nothing is allocated.
+     * </p>
+     *
+     * @param out the writer
+     */
+    public void encode(final ByteWriter out) {
+        final Player[] players = this.game.getPlayers();
+        long header = 0;
+        long balanceCents = 0;
+        boolean centsExact = true;
+        for (int i = 0; i < players.length; i++) {
+            if (this.fieldsOf(players[i], i) != 0) header |= 1L << (PLAYERS_SHIFT + i);
+            if (players[i].getBalance() != this.balances[i]) {
+                final long before = cents(this.balances[i]);
+                final long after = cents(players[i].getBalance());
+                if (before == Long.MIN_VALUE || after == Long.MIN_VALUE) centsExact = false;
+                balanceCents += after - before;
+            }
+        }
+        final Dice[] gameDices = this.game.getDices();
+        boolean dicesChanged = false;
+        boolean wide = false;
+        long packed = 0;
+        for (int i = 0; i < gameDices.length; i++) {
+            final int value = gameDices[i].getCurrentValue();
+            if (value != this.dices[i]) dicesChanged = true;
+            if (value < 0 || value > 7 || i > 20) wide = true;
+            else packed |= (long) value << (3 * i);
+        }
+        if (dicesChanged && !wide) header |= DICE;
+        final long currentDraws = this.game.getRandom() instanceof GameRandom random ? random.getDraws() : 0;
+
+        int rare = 0;
+        final double funds = this.game.getBank().getFunds();
+        if (funds != this.bank || balanceCents != 0 || !centsExact) {
+            final long before = cents(this.bank);
+            final long after = cents(funds);
+            if (!centsExact || before == Long.MIN_VALUE || after == Long.MIN_VALUE
+                    || after - before != -balanceCents) {
+                rare |= BANK;
+            }
+        }
+        final Cell[] cells = this.game.getBoard().getCells();
+        int cellsChanged = 0;
+        for (int i = 0; i < this.proprieties.length; i++) {
+            if (codeOf((ProprietyCell) cells[this.proprieties[i]]) != this.cellCodes[i]) cellsChanged++;
+        }
+        if (cellsChanged > 0) rare |= CELLS;
+        final long evasion = evasionCellsOf(this.game);
+        if (evasion != this.evasionCells) rare |= EVASION;
+        final int chance = this.game.getChanceDeck().getTopIndex();
+        if (chance != this.chanceTop) rare |= CHANCE;
+        final int unexpected = this.game.getUnexpectedDeck().getTopIndex();
+        if (unexpected != this.unexpectedTop) rare |= UNEXPECTED;
+        final int next = this.game.getIndexOfCurrentPlayer();
+        if (next != (this.index + 1) % players.length) rare |= ORDER;
+        if (this.game.isRunning() != this.running) rare |= RUNNING;
+        if (dicesChanged && wide) rare |= WIDE_DICE;
+        if (currentDraws - this.draws != (dicesChanged ? gameDices.length : 0)) rare |= DRAWS;
+        header |= (long) rare << (PLAYERS_SHIFT + players.length);
+
+        out.writeVarLong(header);
+        if ((header & DICE) != 0) out.writeVarLong(packed);
+        if ((rare & WIDE_DICE) != 0) {
+            for (Dice dice : gameDices) out.writeZigZag(dice.getCurrentValue());
+        }
+        for (int i = 0; i < players.length; i++) {
+            if ((header & 1L << (PLAYERS_SHIFT + i)) != 0) this.encodePlayer(out, players[i], i);
+        }
+        if ((rare & BANK) != 0) writeMoney(out, this.bank, funds);
+        if ((rare & CELLS) != 0) {
+            for (int i = 0; i < this.proprieties.length; i++) {
+                final int code = codeOf((ProprietyCell) cells[this.proprieties[i]]);
+                if (code != this.cellCodes[i]) {
+                    out.writeVarInt(i << 1 | (--cellsChanged > 0 ? 1 : 0)).writeVarInt(code);
+                    this.cellCodes[i] = code;
+                }
+            }
+        }
+        if ((rare & EVASION) != 0) out.writeVarLong(evasion);
+        if ((rare & CHANCE) != 0) out.writeVarInt(chance + 1);
+        if ((rare & UNEXPECTED) != 0) out.writeVarInt(unexpected + 1);
+        if ((rare & ORDER) != 0) out.writeVarInt(next);
+        if ((rare & DRAWS) != 0) out.writeVarLong(currentDraws - this.draws);
+        for (int i = 0; i < gameDices.length; i++) this.dices[i] = gameDices[i].getCurrentValue();
+        this.bank = funds;
+        this.evasionCells = evasion;
+        this.chanceTop = chance;
+        this.unexpectedTop = unexpected;
+        this.index = next;
+        this.running = this.game.isRunning();
+        this.draws = currentDraws;
+    }
+
+    /**
+     * <p>
+     * Returns the fields of a player changed since written last.
+     * </p>
+     *
+     * @param player the player
+     * @param seat the seat of the player
+     * @return the field bits
+     */
+    private int fieldsOf(final Player player, final int seat) {
+        int fields = 0;
+        if (player.getPosition() != this.positions[seat]) {
+            fields |= player.getPosition() == rolledFrom(this.game, this.positions[seat]) ? ROLLED : POSITION;
+        }
+        if (player.getBalance() != this.balances[seat]) fields |= BALANCE;
+        if (flagsOf(player) != this.flags[seat]) fields |= FLAGS;
+        if (player.getTimesTriedEvading() != this.tries[seat]) fields |= TRIES;
+        if (player.getAmountEvaded() != this.evaded[seat]) fields |= EVADED;
+        return fields;
+    }
+
+    /**
+     * <p>
+     * Writes the changed fields of a player, and remembers them.
+     * </p>
+     *
+     * @param out the writer
+     * @param player the player
+     * @param seat the seat of the player
+     */
+    private void encodePlayer(final ByteWriter out, final Player player, final int seat) {
+        final int fields = this.fieldsOf(player, seat);
+        out.writeByte(fields);
+        if ((fields & POSITION) != 0) out.writeVarInt(player.getPosition());
+        if ((fields & BALANCE) != 0) writeMoney(out, this.balances[seat], player.getBalance());
+        if ((fields & FLAGS) != 0) out.writeByte(flagsOf(player));
+        if ((fields & TRIES) != 0) out.writeVarInt(player.getTimesTriedEvading());
+        if ((fields & EVADED) != 0) writeMoney(out, this.evaded[seat], player.getAmountEvaded());
+        this.positions[seat] = player.getPosition();
+        this.balances[seat] = player.getBalance();
+        this.flags[seat] = flagsOf(player);
+        this.tries[seat] = player.getTimesTriedEvading();
+        this.evaded[seat] = player.getAmountEvaded();
+    }
+
+    /**
+     * <p>
+     * Returns the position reached moving from a cell as many cells as the dices tell.
+     * </p>
+     *
+     * @param game the game
+     * @param from the cell moved from
+     * @return the position reached
+     */
+    private static int rolledFrom(final Game game, final int from) {
+        int sum = 0;
+        for (Dice dice : game.getDices()) sum += dice.getCurrentValue();
+        final int size = game.getBoard().getCells().length;
+        return ((from + sum) % size + size) % size;
+    }
+
+    /**
+     * <p>
+     * Applies a delta to a game in the state it was encoded from.
+     * </p>
+     * <p>
+     * No event is fired, as when a snapshot is restored: the board and the
+     * leaderboard are brought up to date once the delta is applied, and only
+     * if the delta touches them.
+     * </p>
+     *
+     * @param game the game
+     * @param in the reader of the delta
+     * @throws IllegalStateException if the delta does not match the game
+     */
+    public static void apply(final Game game, final ByteReader in) {
+        final Player[] players = game.getPlayers();
+        final long header = in.readVarLong();
+        final int rare = (int) (header >>> (PLAYERS_SHIFT + players.length));
+        final Dice[] gameDices = game.getDices();
+        if ((header & DICE) != 0) {
+            final long packed = in.readVarLong();
+            for (int i = 0; i < gameDices.length; i++) gameDices[i].setCurrentValue((int) (packed >>> (3 * i)) & 7);
+        }
+        if ((rare & WIDE_DICE) != 0) {
+            for (Dice dice : gameDices) dice.setCurrentValue((int) in.readZigZag());
+        }
+        long balanceCents = 0;
+        boolean centsExact = true;
+        boolean moved = false;
+        boolean ranked = false;
+        for (int i = 0; i < players.length; i++) {
+            if ((header & 1L << (PLAYERS_SHIFT + i)) == 0) continue;
+            final Player player = players[i];
+            final int fields = in.readByte();
+            final int position;
+            if ((fields & POSITION) != 0) {
+                position = in.readVarInt();
+            } else {
+                position = (fields & ROLLED) != 0 ? rolledFrom(game, player.getPosition()) : player.getPosition();
+            }
+            double balance = player.getBalance();
+            if ((fields & BALANCE) != 0) {
+                final double before = balance;
+                balance = readMoney(in, before);
+                final long beforeCents = cents(before);
+                final long afterCents = cents(balance);
+                if (beforeCents == Long.MIN_VALUE || afterCents == Long.MIN_VALUE) centsExact = false;
+                balanceCents += afterCents - beforeCents;
+            }
+            final int playerFlags = (fields & FLAGS) != 0 ? in.readByte() : flagsOf(player);
+            final int timesTried = (fields & TRIES) != 0 ? in.readVarInt() : player.getTimesTriedEvading();
+            final double amountEvaded = (fields & EVADED) != 0
+                    ? readMoney(in, player.getAmountEvaded()) : player.getAmountEvaded();
+            ranked |= (fields & (BALANCE | FLAGS)) != 0;
+            final boolean bankrupt = (playerFlags & BANKRUPT) != 0;
+            if (bankrupt && !player.isBankrupt()) player.clearProprieties();
+            moved |= position != player.getPosition() || bankrupt != player.isBankrupt();
+            player.restoreState(balance, position, (playerFlags & IN_PRISON) != 0,
+                    (playerFlags & EVADER) != 0, amountEvaded, timesTried, bankrupt);
+        }
+        if ((rare & BANK) != 0) {
+            game.getBank().setFunds(readMoney(in, game.getBank().getFunds()));
+        } else if (balanceCents != 0) {
+            if (!centsExact) throw new IllegalStateException("Delta out of step with the bank");
+            game.getBank().setFunds((cents(game.getBank().getFunds()) - balanceCents) / 100.0);
+        }
+        if ((rare & CELLS) != 0) applyCells(game, in, players);
+        if ((rare & EVASION) != 0) {
+            final long evasionCells = in.readVarLong();
+            int count = 0;
+            for (Cell cell : game.getBoard().getCells()) {
+                if (cell instanceof TaxEvasionCell tc) tc.setActive((evasionCells & 1L << count++) != 0);
+            }
+        }
+        if ((rare & CHANCE) != 0) rotateTo(game.getChanceDeck(), in.readVarInt() - 1);
+        if ((rare & UNEXPECTED) != 0) rotateTo(game.getUnexpectedDeck(), in.readVarInt() - 1);
+        final int next = (rare & ORDER) != 0
+                ? in.readVarInt() : (game.getIndexOfCurrentPlayer() + 1) % players.length;
+        game.restoreTurn(next, (rare & RUNNING) != 0 ? !game.isRunning() : game.isRunning());
+        final long steps = (rare & DRAWS) != 0
+                ? in.readVarLong() : ((header & DICE) != 0 || (rare & WIDE_DICE) != 0 ? gameDices.length : 0);
+        if (game.getRandom() instanceof GameRandom random) random.advance(steps);
+        if (moved) game.getBoard().placePlayers(players);
+        if (ranked || (rare & CELLS) != 0) game.getLeaderboard().refresh();
+    }
+
+    /**
+     * <p>
+     * Applies the changed proprieties.
+     * </p>
+     * <p>
+     * A propriety bought is appended to the proprieties of its buyer, as
+     * when the game sells it; a propriety passing between two players, which
+     * the rules never do, rebuilds the proprieties of all of them.
+     * </p>
+     *
+     * @param game the game
+     * @param in the reader of the delta
+     * @param players the players of the game
+     */
+    private static void applyCells(final Game game, final ByteReader in, final Player[] players) {
+        final Cell[] cells = game.getBoard().getCells();
+        final int[] proprieties = proprietiesOf(game);
+        boolean rebuild = false;
+        boolean more = true;
+        while (more) {
+            final int entry = in.readVarInt();
+            final int code = entry >>> 1;
+            more = (entry & 1) != 0;
+            if (code < 0 || code >= proprieties.length) throw new IllegalStateException("Unknown propriety " + code);
+            final int cellIndex = proprieties[code];
+            final ProprietyCell pc = (ProprietyCell) cells[cellIndex];
+            final int value = in.readVarInt();
+            final int owner = value >>> LEVEL_BITS;
+            if (owner > players.length) throw new IllegalStateException("Unknown owner " + owner);
+            final Player before = pc.getOwner();
+            final Player after = owner == 0 ? null : players[owner - 1];
+            if (before != after) {
+                pc.setOwner(after);
+                if (before == null) {
+                    after.addPropriety(cellIndex, pc);
+                } else if (!before.isBankrupt()) {
+                    rebuild = true;
+                }
+            }
+            pc.setBuildingLevel(value & ((1 << LEVEL_BITS) - 1));
+        }
+        if (rebuild) {
+            for (Player player : players) player.clearProprieties();
+            for (int cellIndex : proprieties) {
+                final ProprietyCell pc = (ProprietyCell) cells[cellIndex];
+                if (pc.getOwner() != null) pc.getOwner().addPropriety(cellIndex, pc);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Picks and puts back the cards of a deck until the given card is on top,
+     * as the game does when it plays them.
+     * </p>
+     *
+     * @param deck the deck
+     * @param top the index of the card on top
+     * @throws IllegalStateException if the card is not in the deck
+     */
+    private static void rotateTo(final Deck deck, final int top) {
+        try {
+            for (int i = deck.size(); i > 0 && deck.getTopIndex() != top; i--) {
+                final Card card = deck.pick();
+                deck.putBack(card);
+            }
+        } catch (EmptyDeckException | IllegalCardException e) {
+            throw new IllegalStateException("Delta out of step with the deck", e);
+        }
+        if (deck.getTopIndex() != top) throw new IllegalStateException("Delta out of step with the deck");
+    }
+
+    /**
+     * <p>
+     * Returns the flags of a player.
+     * </p>
+     *
+     * @param player the player
+     * @return the flags
+     */
+    private static int flagsOf(final Player player) {
+        return (player.isInPrison() ? IN_PRISON : 0)
+                | (player.isEvader() ? EVADER : 0)
+                | (player.isBankrupt() ? BANKRUPT : 0);
+    }
+
+    /**
+     * <p>
+     * Returns the owner and level code of a propriety.
+     * </p>
+     *
+     * @param pc the propriety
+     * @return the code
+     */
+    private static int codeOf(final ProprietyCell pc) {
+        final int owner = pc.getOwner() == null ? 0 : pc.getOwner().getSeat() + 1;
+        return owner << LEVEL_BITS | pc.getBuildingLevel();
+    }
+
+    /**
+     * <p>
+     * Returns the active flags of the tax evasion cells, one bit per cell, in board order.
+     * </p>
+     *
+     * @param game the game
+     * @return the flags
+     */
+    static long evasionCellsOf(final Game game) {
+        long flags = 0;
+        int count = 0;
+        for (Cell cell : game.getBoard().getCells()) {
+            if (cell instanceof TaxEvasionCell tc) {
+                if (tc.isActive()) flags |= 1L << count;
+                count++;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * <p>
+     * Returns an amount of money in cents.
+     * </p>
+     *
+     * @param amount the amount
+     * @return the cents, {@link Long#MIN_VALUE} if the amount is not a whole number of cents
+     */
+    private static long cents(final double amount) {
+        final long cents = Math.round(amount * 100);
+        return cents / 100.0 == amount && Math.abs(cents) < 1L << 52 ? cents : Long.MIN_VALUE;
+    }
+
+    /**
+     * <p>
+     * Writes a change of money: the difference in whole units or in cents,
+     * or the new amount if either is not a whole number of cents.
+     * </p>
+     *
+     * @param out the writer
+     * @param before the amount before
+     * @param after the amount after
+     */
+    private static void writeMoney(final ByteWriter out, final double before, final double after) {
+        final long beforeCents = cents(before);
+        final long afterCents = cents(after);
+        if (beforeCents == Long.MIN_VALUE || afterCents == Long.MIN_VALUE) {
+            out.writeVarLong(RAW);
+            out.writeLong(Double.doubleToRawLongBits(after));
+            return;
+        }
+        final long difference = afterCents - beforeCents;
+        if (difference % 100 == 0) {
+            out.writeVarLong(zigZag(difference / 100) << 2 | UNITS);
+        } else {
+            out.writeVarLong(zigZag(difference) << 2 | CENTS);
+        }
+    }
+
+    /**
+     * <p>
+     * Reads a change of money written by {@link TurnDelta#writeMoney(ByteWriter, double, double)}.
+     * </p>
+     *
+     * @param in the reader
+     * @param before the amount before
+     * @return the amount after
+     */
+    private static double readMoney(final ByteReader in, final double before) {
+        final long value = in.readVarLong();
+        final int tag = (int) (value & 3);
+        if (tag == RAW) return Double.longBitsToDouble(in.readLong());
+        final long beforeCents = cents(before);
+        if (beforeCents == Long.MIN_VALUE) throw new IllegalStateException("Delta out of step with the money");
+        final long zigZag = value >>> 2;
+        final long difference = (zigZag >>> 1) ^ -(zigZag & 1);
+        return (beforeCents + (tag == UNITS ? difference * 100 : difference)) / 100.0;
+    }
+
+    /**
+     * <p>
+     * Zig-zag encodes a value, so that small negative values are small too.
+     * </p>
+     *
+     * @param value the value
+     * @return the encoded value
+     */
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,437 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * <p>
+ * A client connected to a {@link GameServer}.
+ * </p>
+ * <p>
+ * A connection belongs to one {@link EventLoop} at a time, which reads its
+ * frames and writes its messages: the loop of the table it joined. Frames
+ * are read into a buffer that grows up to the largest frame; messages that
+ * cannot be written at once are queued, and written as the socket drains.
+ * </p>
+ * <p>
+ * The frames sent are shared by all the connections of a table, and never
+ * copied. The queue of a connection is bounded by the
+ * {@link GameServer#setQueueLimit(int) queue limit} of the server: a client
+ * too slow to keep up with its table, such as a spectator on a slow link,
+ * lags instead. Its queued deltas are dropped, and so are the frames that
+ * follow, until it is sent the latest snapshot of the table, from which the
+ * deltas go on. A lagging client skips turns, but its cost to the server
+ * stays bounded.
+ * </p>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+final class Connection {
+
+    /**
+     * The server.
+     */
+    private final GameServer server;
+
+    /**
+     * The socket of the client.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The frames read and not yet handled, in write mode.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(256);
+
+    /**
+     * The messages not yet written.
+     */
+    private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+
+    /**
+     * The bytes of the messages not yet written.
+     */
+    private int queued;
+
+    /**
+     * Whether the frames sent are dropped until the next snapshot.
+     */
+    private boolean lagging;
+
+    /**
+     * The reader of the payload of the frame handled.
+     */
+    private final ByteReader payload = new ByteReader(new byte[0]);
+
+    /**
+     * The loop the connection belongs to.
+     */
+    private EventLoop loop;
+
+    /**
+     * The key of the connection in the selector of its loop.
+     */
+    private SelectionKey key;
+
+    /**
+     * The table joined, null if none.
+     */
+    private GameTable table;
+
+    /**
+     * Whether the players of the connection buy the free proprieties they land on.
+     */
+    private boolean buying;
+
+    /**
+     * Whether the connection is closed.
+     */
+    private boolean closed;
+
+    /**
+     * The move to another loop, done once the frames read are put aside.
+     */
+    private Runnable handoff;
+
+    /**
+     * <p>
+     * Creates a connection.
+     * </p>
+     *
+     * @param server the server
+     * @param channel the socket of the client, non-blocking
+     */
+    Connection(final GameServer server, final SocketChannel channel) {
+        this.server = server;
+        this.channel = channel;
+    }
+
+    /**
+     * <p>
+     * Registers the connection on the selector of a loop. Called by the loop itself.
+     * </p>
+     *
+     * @param next the loop
+     */
+    void attach(final EventLoop next) {
+        if (this.closed) return;
+        this.loop = next;
+        try {
+            this.key = this.channel.register(next.getSelector(),
+                    this.out.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE, this);
+        } catch (IOException e) {
+            this.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the loop the connection belongs to.
+     * </p>
+     *
+     * @return the loop
+     */
+    EventLoop getLoop() {
+        return this.loop;
+    }
+
+    /**
+     * <p>
+     * Returns the table joined.
+     * </p>
+     *
+     * @return the table, null if none
+     */
+    GameTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * <p>
+     * Sets the table joined.
+     * </p>
+     *
+     * @param table the table
+     */
+    void setTable(final GameTable table) {
+        this.table = table;
+    }
+
+    /**
+     * <p>
+     * Returns whether the players of the connection buy the free proprieties they land on.
+     * </p>
+     *
+     * @return true if they buy
+     */
+    boolean isBuying() {
+        return this.buying;
+    }
+
+    /**
+     * <p>
+     * Reads what the client sent, and handles the complete frames.
+     * </p>
+     */
+    void read() {
+        try {
+            if (!this.in.hasRemaining()) this.grow();
+            if (this.channel.read(this.in) < 0) {
+                this.close();
+                return;
+            }
+        } catch (IOException e) {
+            this.close();
+            return;
+        }
+        this.handleFrames();
+    }
+
+    /**
+     * <p>
+     * Doubles the buffer of the frames read, up to the largest frame.
+     * </p>
+     */
+    private void grow() {
+        if (this.in.capacity() > Protocol.MAX_PAYLOAD) {
+            this.close();
+            return;
+        }
+        final ByteBuffer bigger = ByteBuffer.allocate(this.in.capacity() * 2);
+        this.in.flip();
+        bigger.put(this.in);
+        this.in = bigger;
+    }
+
+    /**
+     * <p>
+     * Handles the complete frames read, until one moves the connection to another loop.
+     * </p>
+     */
+    private void handleFrames() {
+        final EventLoop owner = this.loop;
+        this.in.flip();
+        try {
+            int length;
+            while (!this.closed && this.loop == owner && (length = Protocol.readFrameLength(this.in)) >= 0) {
+                final int start = this.in.position();
+                this.in.position(start + length);
+                this.payload.reset(this.in.array(), start, length);
+                this.handle();
+            }
+        } catch (IllegalArgumentException e) {
+            this.error(Protocol.BAD_COMMAND);
+            this.close();
+        }
+        this.in.compact();
+        if (this.handoff != null) {
+            final Runnable move = this.handoff;
+            this.handoff = null;
+            move.run();
+        }
+    }
+
+    /**
+     * <p>
+     * Handles the frame read.
+     * </p>
+     */
+    private void handle() {
+        try {
+            final int opcode = this.payload.readByte();
+            if (opcode == Protocol.JOIN) {
+                final long id = this.payload.readVarLong();
+                final String name = this.payload.readString();
+                final char symbol = (char) this.payload.readVarInt();
+                this.join(id, name, symbol);
+            } else if (opcode == Protocol.BUY) {
+                this.buying = this.payload.readByte() != 0;
+            } else if (this.table == null) {
+                this.error(Protocol.NOT_YOUR_TURN);
+            } else {
+                this.table.command(this, opcode, this.payload);
+            }
+        } catch (IllegalArgumentException e) {
+            this.error(Protocol.BAD_COMMAND);
+        }
+    }
+
+    /**
+     * <p>
+     * Joins a table, moving to its loop if needed.
+     * </p>
+     *
+     * @param id the id of the table
+     * @param name the name of the player
+     * @param symbol the symbol of the player
+     */
+    private void join(final long id, final String name, final char symbol) {
+        final GameTable target = this.server.getTable(id);
+        if (target == null) {
+            this.error(Protocol.NO_TABLE);
+            return;
+        }
+        if (this.table != null && this.table != target) {
+            this.table.leave(this);
+            this.table = null;
+        }
+        if (target.getLoop() == this.loop) {
+            target.join(this, name, symbol);
+            return;
+        }
+        // the table is played on another loop: the connection follows it there,
+        // where the join is done before the frames that follow it are handled
+        this.key.cancel();
+        this.loop = null;
+        final EventLoop next = target.getLoop();
+        this.handoff = () -> next.execute(() -> {
+            this.attach(next);
+            if (this.closed) return;
+            target.join(this, name, symbol);
+            this.handleFrames();
+        });
+    }
+
+    /**
+     * <p>
+     * Sends an error.
+     * </p>
+     *
+     * @param code the error code
+     */
+    void error(final int code) {
+        final ByteWriter message = new ByteWriter(4);
+        message.writeByte(Protocol.ERROR).writeVarInt(code);
+        this.send(Protocol.frame(message));
+    }
+
+    /**
+     * <p>
+     * Sends a frame. The frame is not copied, and can be shared by many connections.
+     * </p>
+     * <p>
+     * If the frame does not fit in the queue of a connection at a table
+     * being played, the connection lags: see {@link Connection#resync(byte[])}.
+     * A client not reading anything else is closed.
+     * </p>
+     *
+     * @param frame the bytes of the frame
+     */
+    void send(final byte[] frame) {
+        if (this.closed || this.lagging) return;
+        if (this.queued + frame.length > this.server.getQueueLimit() && !this.out.isEmpty()) {
+            if (this.table == null || !this.table.isStarted()) {
+                this.close();
+                return;
+            }
+            this.lagging = true;
+            this.drop();
+            this.table.resync(this);
+            return;
+        }
+        this.write(frame);
+    }
+
+    /**
+     * <p>
+     * Sends a snapshot of the table, dropping the frames queued that it
+     * makes useless, and ends the lag of the connection.
+     * </p>
+     *
+     * @param snapshot the bytes of the frame of the snapshot
+     */
+    void resync(final byte[] snapshot) {
+        if (this.closed) return;
+        this.lagging = false;
+        this.drop();
+        this.write(snapshot);
+    }
+
+    /**
+     * <p>
+     * Drops the frames queued, except the one partially written.
+     * </p>
+     */
+    private void drop() {
+        final ByteBuffer head = this.out.peek();
+        final boolean started = head != null && head.position() > 0;
+        this.out.clear();
+        this.queued = 0;
+        if (started) {
+            this.out.add(head);
+            this.queued = head.remaining();
+        }
+    }
+
+    /**
+     * <p>
+     * Writes a frame, or queues what the socket does not take at once.
+     * </p>
+     *
+     * @param frame the bytes of the frame
+     */
+    private void write(final byte[] frame) {
+        final ByteBuffer buffer = ByteBuffer.wrap(frame);
+        if (this.out.isEmpty() && this.key != null && this.key.isValid()) {
+            try {
+                this.channel.write(buffer);
+            } catch (IOException e) {
+                this.close();
+                return;
+            }
+            if (!buffer.hasRemaining()) return;
+        }
+        this.out.add(buffer);
+        this.queued += buffer.remaining();
+        if (this.key != null && this.key.isValid()) {
+            this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * <p>
+     * Writes the messages queued, as far as the socket takes them.
+     * </p>
+     */
+    void flush() {
+        try {
+            while (!this.out.isEmpty()) {
+                final ByteBuffer buffer = this.out.peek();
+                this.queued -= this.channel.write(buffer);
+                if (buffer.hasRemaining()) return;
+                this.out.poll();
+            }
+        } catch (IOException e) {
+            this.close();
+            return;
+        }
+        this.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * <p>
+     * Closes the connection, leaving its table.
+     * </p>
+     */
+    void close() {
+        if (this.closed) return;
+        this.closed = true;
+        if (this.key != null) this.key.cancel();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        if (this.table != null) this.table.leave(this);
+        this.table = null;
+        this.out.clear();
+        this.queued = 0;
+    }
+}
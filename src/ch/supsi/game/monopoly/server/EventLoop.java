@@ -0,0 +1,291 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.mazluc.util.TimingWheel;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>
+ * A thread of a {@link GameServer}, multiplexing many connections and tables on a {@link Selector}.
+ * </p>
+ * <p>
+ * Every table is played by one loop only, and the connections of a table
+ * are served by the same loop, so a table is never touched by two threads
+ * and needs no lock. Other threads hand work to a loop with
+ * {@link EventLoop#execute(Runnable)}, which wakes it up.
+ * </p>
+ * <p>
+ * The deadlines of the tables of the loop wait on its {@link TimingWheel}:
+ * while any is pending, the loop wakes up at least every tick to run the due ones.
+ * </p>
+ * <p>
+ * A task, a deadline or a connection that fails is reported and dropped
+ * alone: the loop goes on serving the others, and ends only with its selector.
+ * </p>
+ * <p>
+ * What the games of the loop print is discarded: the thread of the loop
+ * prints on a {@link DiscardSink} of its own.
+ * </p>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+final class EventLoop implements Runnable {
+
+    /**
+     * The server.
+     */
+    private final GameServer server;
+
+    /**
+     * The selector of the loop.
+     */
+    private final Selector selector;
+
+    /**
+     * The length of a tick of the wheels, in milliseconds.
+     */
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * The deadlines of the tables of the loop.
+     */
+    private final TimingWheel wheel = new TimingWheel(TICK_MILLIS * 1_000_000, System.nanoTime());
+
+    /**
+     * The tasks handed to the loop by other threads.
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The thread of the loop.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the loop is running.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * <p>
+     * Creates a loop.
+     * </p>
+     *
+     * @param server the server
+     * @param index the index of the loop, naming its thread
+     * @throws IOException if the selector cannot be opened
+     */
+    EventLoop(final GameServer server, final int index) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, "game-loop-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * <p>
+     * Starts the thread of the loop.
+     * </p>
+     */
+    void start() {
+        this.thread.start();
+    }
+
+    /**
+     * <p>
+     * Returns the selector of the loop.
+     * </p>
+     *
+     * @return the selector
+     */
+    Selector getSelector() {
+        return this.selector;
+    }
+
+    /**
+     * <p>
+     * Schedules a deadline on the wheel of the loop, to be used on the loop only.
+     * </p>
+     *
+     * @param delayNanos the delay, in nanoseconds
+     * @param task the task, run on the loop
+     * @return the timer, to cancel it
+     */
+    TimingWheel.Timer schedule(final long delayNanos, final Runnable task) {
+        return this.wheel.schedule(delayNanos, () -> this.guard(task));
+    }
+
+    /**
+     * <p>
+     * Runs a task on the loop, as soon as it wakes up.
+     * </p>
+     *
+     * @param task the task
+     */
+    void execute(final Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * <p>
+     * Accepts the clients of a server socket on this loop.
+     * </p>
+     *
+     * @param channel the server socket, non-blocking
+     */
+    void listen(final ServerSocketChannel channel) {
+        this.execute(() -> {
+            try {
+                channel.register(this.selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot accept clients", e);
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Stops the loop, closing its connections, and waits for it.
+     * </p>
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void shutdown() throws InterruptedException {
+        this.running = false;
+        this.selector.wakeup();
+        this.thread.join();
+    }
+
+    @Override
+    public void run() {
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        try {
+            while (this.running) {
+                this.selector.select(this.wheel.isEmpty() ? 0 : TICK_MILLIS);
+                Runnable task;
+                while ((task = this.tasks.poll()) != null) this.guard(task);
+                this.wheel.advance(System.nanoTime());
+                final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        this.accept(key);
+                        continue;
+                    }
+                    final Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) connection.flush();
+                        if (key.isValid() && key.isReadable()) connection.read();
+                    } catch (RuntimeException e) {
+                        report(e);
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // the loop ends with its selector
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                if (key.attachment() instanceof Connection connection) connection.close();
+            }
+            try {
+                this.selector.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Runs a task of the loop, reporting it if it fails instead of ending the loop.
+     * </p>
+     *
+     * @param task the task
+     */
+    private void guard(final Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            report(e);
+        }
+    }
+
+    /**
+     * <p>
+     * Reports an error of the loop to the handler of uncaught exceptions of its thread, which keeps running.
+     * </p>
+     *
+     * @param e the error
+     */
+    static void report(final RuntimeException e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * <p>
+     * Accepts the clients waiting, handing every one to a loop of the server.
+     * </p>
+     * <p>
+     * If the server socket cannot accept, most likely because the process is
+     * out of file descriptors, the key stops accepting for a tick rather than
+     * waking the loop up again and again; a client that cannot be configured
+     * is closed alone.
+     * </p>
+     *
+     * @param key the key of the server socket
+     */
+    private void accept(final SelectionKey key) {
+        final ServerSocketChannel channel = (ServerSocketChannel) key.channel();
+        while (true) {
+            final SocketChannel client;
+            try {
+                client = channel.accept();
+            } catch (IOException e) {
+                key.interestOps(0);
+                this.wheel.schedule(TICK_MILLIS * 1_000_000, () -> {
+                    if (key.isValid()) key.interestOps(SelectionKey.OP_ACCEPT);
+                });
+                return;
+            }
+            if (client == null) return;
+            try {
+                client.configureBlocking(false);
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (this.server.getSendBuffer() > 0) {
+                    client.setOption(StandardSocketOptions.SO_SNDBUF, this.server.getSendBuffer());
+                }
+            } catch (IOException e) {
+                try {
+                    client.close();
+                } catch (IOException ignored) {
+                    // already closed
+                }
+                continue;
+            }
+            final Connection connection = new Connection(this.server, client);
+            final EventLoop loop = this.server.nextLoop();
+            if (loop == this) {
+                connection.attach(this);
+            } else {
+                loop.execute(() -> connection.attach(loop));
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import ch.supsi.game.monopoly.persistence.TurnDelta;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Blocking client of a {@link GameServer}, keeping a copy of the game of its table.
+ * </p>
+ * <p>
+ * The copy is loaded from the first snapshot received and brought up to
+ * date by the delta of every turn; after every delta its hash is checked
+ * against the hash of the server, so a client out of sync knows it at once.
+ * A client too slow for its table is sent a new snapshot instead of the
+ * turns it missed, and loads it in place of its copy.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * try (GameClient client = new GameClient("localhost", 7000)) {
+ *     client.buy(true);
+ *     client.join(table, "Luca", 'L');
+ *     while (client.receive() != Protocol.SNAPSHOT) { }
+ *     client.roll();                      // when it is the turn of a seat of the client
+ *     while (client.receive() != Protocol.DELTA) { }
+ * }
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameClient implements AutoCloseable {
+
+    /**
+     * The socket.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The frames read, in read mode.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+
+    /**
+     * The payload of the messages sent.
+     */
+    private final ByteWriter payload = new ByteWriter();
+
+    /**
+     * The frame of the messages sent.
+     */
+    private final ByteWriter frame = new ByteWriter();
+
+    /**
+     * The seats held, in the order they were taken.
+     */
+    private final List<Integer> seats = new ArrayList<>();
+
+    /**
+     * The copy of the game, null until the first snapshot.
+     */
+    private Game game;
+
+    /**
+     * The id of the table joined, 0 if none.
+     */
+    private long table;
+
+    /**
+     * The number of turns played.
+     */
+    private int turn;
+
+    /**
+     * The code of the last error received, 0 if none.
+     */
+    private int lastError;
+
+    /**
+     * The number of snapshots received.
+     */
+    private int snapshots;
+
+    /**
+     * <p>
+     * Connects to a server.
+     * </p>
+     *
+     * @param host the host of the server
+     * @param port the port of the server
+     * @throws IOException if the server cannot be reached
+     */
+    public GameClient(final String host, final int port) throws IOException {
+        this(host, port, 0);
+    }
+
+    /**
+     * <p>
+     * Connects to a server, with a given receive buffer, as small as a slow link.
+     * </p>
+     *
+     * @param host the host of the server
+     * @param port the port of the server
+     * @param receiveBuffer the size of the receive buffer of the socket, 0 for the default
+     * @throws IOException if the server cannot be reached
+     */
+    public GameClient(final String host, final int port, final int receiveBuffer) throws IOException {
+        this.channel = SocketChannel.open();
+        if (receiveBuffer > 0) this.channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        this.channel.connect(new InetSocketAddress(host, port));
+        this.in.flip();
+    }
+
+    /**
+     * <p>
+     * Joins a table, taking a seat or watching it.
+     * </p>
+     *
+     * @param table the id of the table
+     * @param name the name of the player
+     * @param symbol the symbol of the player
+     * @throws IOException if the message cannot be sent
+     */
+    public void join(final long table, final String name, final char symbol) throws IOException {
+        this.payload.reset();
+        this.payload.writeByte(Protocol.JOIN).writeVarLong(table).writeString(name).writeVarInt(symbol);
+        this.send();
+    }
+
+    /**
+     * <p>
+     * Plays the turn of the current player.
+     * </p>
+     *
+     * @throws IOException if the message cannot be sent
+     */
+    public void roll() throws IOException {
+        this.payload.reset();
+        this.payload.writeByte(Protocol.ROLL);
+        this.send();
+    }
+
+    /**
+     * <p>
+     * Plays the turn of the current player, declining every offer.
+     * </p>
+     *
+     * @throws IOException if the message cannot be sent
+     */
+    public void pass() throws IOException {
+        this.payload.reset();
+        this.payload.writeByte(Protocol.PASS);
+        this.send();
+    }
+
+    /**
+     * <p>
+     * Sets whether the players of the client buy the free proprieties they land on.
+     * </p>
+     *
+     * @param buying true to buy
+     * @throws IOException if the message cannot be sent
+     */
+    public void buy(final boolean buying) throws IOException {
+        this.payload.reset();
+        this.payload.writeByte(Protocol.BUY).writeByte(buying ? 1 : 0);
+        this.send();
+    }
+
+    /**
+     * <p>
+     * Builds upon a propriety at the end of the next turn of the current player, if they can.
+     * </p>
+     *
+     * @param boardIndex the index of the propriety on the board
+     * @throws IOException if the message cannot be sent
+     */
+    public void build(final int boardIndex) throws IOException {
+        this.payload.reset();
+        this.payload.writeByte(Protocol.BUILD).writeVarInt(boardIndex);
+        this.send();
+    }
+
+    /**
+     * <p>
+     * Sends the payload written.
+     * </p>
+     *
+     * @throws IOException if the message cannot be sent
+     */
+    private void send() throws IOException {
+        this.frame.reset();
+        Protocol.writeFrame(this.frame, this.payload);
+        final ByteBuffer buffer = ByteBuffer.wrap(this.frame.array(), 0, this.frame.size());
+        while (buffer.hasRemaining()) this.channel.write(buffer);
+    }
+
+    /**
+     * <p>
+     * Waits for the next message of the server and handles it.
+     * </p>
+     *
+     * @return the opcode of the message
+     * @throws IOException if the connection is lost
+     * @throws IllegalStateException if the copy of the game is out of sync
+     */
+    public int receive() throws IOException {
+        int length;
+        while ((length = Protocol.readFrameLength(this.in)) < 0) this.fill();
+        final int start = this.in.position();
+        this.in.position(start + length);
+        final ByteReader message = new ByteReader(this.in.array(), start, length);
+        final int opcode = message.readByte();
+        switch (opcode) {
+            case Protocol.JOINED -> {
+                this.table = message.readVarLong();
+                final int seat = message.readVarInt() - 1;
+                if (seat >= 0 && !this.seats.contains(seat)) this.seats.add(seat);
+            }
+            case Protocol.SNAPSHOT -> {
+                message.readVarLong();
+                this.turn = message.readVarInt();
+                final byte[] snapshot = new byte[message.remaining()];
+                System.arraycopy(this.in.array(), message.position(), snapshot, 0, snapshot.length);
+                this.game = GameSnapshot.load(snapshot, prompt -> "");
+                this.snapshots++;
+            }
+            case Protocol.DELTA -> {
+                message.readVarLong();
+                final int number = message.readVarInt();
+                final long hash = message.readLong();
+                if (this.game == null || number != this.turn) {
+                    throw new IllegalStateException("Unexpected delta of turn " + number);
+                }
+                TurnDelta.apply(this.game, message);
+                this.turn++;
+                if (this.game.getStateHash() != hash) {
+                    throw new IllegalStateException("Out of sync at turn " + number);
+                }
+            }
+            case Protocol.ERROR -> this.lastError = message.readVarInt();
+            default -> throw new IllegalStateException("Unknown message " + opcode);
+        }
+        return opcode;
+    }
+
+    /**
+     * <p>
+     * Reads more bytes from the server, growing the buffer for a large frame.
+     * </p>
+     *
+     * @throws IOException if the connection is lost
+     */
+    private void fill() throws IOException {
+        this.in.compact();
+        if (!this.in.hasRemaining()) {
+            final ByteBuffer bigger = ByteBuffer.allocate(this.in.capacity() * 2);
+            this.in.flip();
+            bigger.put(this.in);
+            this.in = bigger;
+        }
+        final int read = this.channel.read(this.in);
+        this.in.flip();
+        if (read < 0) throw new EOFException("Connection closed by the server");
+    }
+
+    /**
+     * <p>
+     * Returns the copy of the game.
+     * </p>
+     *
+     * @return the game, null until the first snapshot is received
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Returns the id of the table joined.
+     * </p>
+     *
+     * @return the id, 0 if none
+     */
+    public long getTable() {
+        return this.table;
+    }
+
+    /**
+     * <p>
+     * Returns whether the client holds a seat.
+     * </p>
+     *
+     * @param seat the seat
+     * @return true if the client holds it
+     */
+    public boolean holds(final int seat) {
+        return this.seats.contains(seat);
+    }
+
+    /**
+     * <p>
+     * Returns the number of seats held.
+     * </p>
+     *
+     * @return the number of seats, 0 for a watcher
+     */
+    public int getSeats() {
+        return this.seats.size();
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns played.
+     * </p>
+     *
+     * @return the number of turns
+     */
+    public int getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * <p>
+     * Returns the number of snapshots received: more than one if the client lagged.
+     * </p>
+     *
+     * @return the number of snapshots
+     */
+    public int getSnapshots() {
+        return this.snapshots;
+    }
+
+    /**
+     * <p>
+     * Returns the code of the last error received.
+     * </p>
+     *
+     * @return the error code, 0 if none
+     */
+    public int getLastError() {
+        return this.lastError;
+    }
+
+    /**
+     * <p>
+     * Closes the connection.
+     * </p>
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
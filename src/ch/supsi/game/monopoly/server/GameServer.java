@@ -0,0 +1,306 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardSink;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Non-blocking TCP server hosting many tables of the game "Monopoly".
+ * </p>
+ * <p>
+ * The server runs a small pool of {@link EventLoop}s, each multiplexing
+ * its connections on a selector. Every {@link GameTable} belongs to one
+ * loop, chosen by its id, and a connection moves to the loop of the table
+ * it joins: a table stays single-threaded, and a thread serves thousands
+ * of tables, as a turn takes microseconds and nobody waits for the players.
+ * The clients speak the binary {@link Protocol}.
+ * </p>
+ * <p>
+ * The {@link Hosting} of the server tells whether the loops play the
+ * tables too, or every table is played by a thread of its own, parked
+ * between the commands of its players.
+ * </p>
+ * <p>
+ * As the games print through {@link ANSIUtility}, the loops and the
+ * threads of the tables print on a {@link DiscardSink} of their own, set
+ * with {@link ANSIUtility#setThreadSink}: the output of the rest of the
+ * process is left alone.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * GameServer server = new GameServer(7000, 4, Hosting.EVENT_LOOP);
+ * server.start();
+ * long table = server.openTable(seed, 4);   // the clients join it by its id
+ * ...
+ * server.close();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class GameServer implements AutoCloseable {
+
+    /**
+     * The port to listen on, 0 for any free port.
+     */
+    private final int port;
+
+    /**
+     * How the tables are played.
+     */
+    private final Hosting hosting;
+
+    /**
+     * The loops of the server.
+     */
+    private final EventLoop[] loops;
+
+    /**
+     * The tables, by id.
+     */
+    private final Map<Long, GameTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * The id of the next table.
+     */
+    private final AtomicLong nextTable = new AtomicLong(1);
+
+    /**
+     * The time a player has to ask for their turn, in nanoseconds, 0 for no limit.
+     */
+    private long decisionTimeout;
+
+    /**
+     * The most bytes queued for a connection before it lags.
+     */
+    private volatile int queueLimit = 1 << 16;
+
+    /**
+     * The size of the send buffer of the sockets of the clients, 0 for the default.
+     */
+    private volatile int sendBuffer;
+
+    /**
+     * The server socket, open once started.
+     */
+    private ServerSocketChannel channel;
+
+    /**
+     * The loop the next client is handed to.
+     */
+    private int nextLoop;
+
+    /**
+     * <p>
+     * Creates a server whose loops play the tables.
+     * </p>
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @param loops the number of loops, usually the number of cores
+     * @throws IOException if the selectors cannot be opened
+     */
+    public GameServer(final int port, final int loops) throws IOException {
+        this(port, loops, Hosting.EVENT_LOOP);
+    }
+
+    /**
+     * <p>
+     * Creates a server.
+     * </p>
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @param loops the number of loops, usually the number of cores
+     * @param hosting how the tables are played
+     * @throws IOException if the selectors cannot be opened
+     */
+    public GameServer(final int port, final int loops, final Hosting hosting) throws IOException {
+        if (loops < 1) throw new IllegalArgumentException("There must be at least one loop");
+        if (hosting == null) throw new IllegalArgumentException("hosting cannot be null");
+        this.port = port;
+        this.hosting = hosting;
+        this.loops = new EventLoop[loops];
+        for (int i = 0; i < loops; i++) this.loops[i] = new EventLoop(this, i);
+    }
+
+    /**
+     * <p>
+     * Starts listening and playing.
+     * </p>
+     *
+     * @throws IOException if the server socket cannot be bound
+     */
+    public void start() throws IOException {
+        if (this.channel != null) throw new IllegalStateException("The server is already started");
+        this.channel = ServerSocketChannel.open();
+        this.channel.bind(new InetSocketAddress(this.port), 1024);
+        this.channel.configureBlocking(false);
+        for (EventLoop loop : this.loops) loop.start();
+        this.loops[0].listen(this.channel);
+    }
+
+    /**
+     * <p>
+     * Returns the port the server listens on.
+     * </p>
+     *
+     * @return the port
+     * @throws IOException if the port cannot be read
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) this.channel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * <p>
+     * Sets the time a player has to ask for their turn, for the tables opened
+     * afterwards: once it expires, the player passes, declining every offer.
+     * </p>
+     *
+     * @param millis the time, in milliseconds, 0 for no limit
+     */
+    public void setDecisionTimeout(final long millis) {
+        if (millis < 0) throw new IllegalArgumentException("The timeout cannot be negative");
+        this.decisionTimeout = millis * 1_000_000;
+    }
+
+    /**
+     * <p>
+     * Sets the most bytes queued for a connection that the socket does not
+     * take: a client slower than its table, such as a spectator on a slow
+     * link, skips the turns it cannot keep up with, and is sent the latest
+     * snapshot instead.
+     * </p>
+     *
+     * @param bytes the limit, in bytes
+     */
+    public void setQueueLimit(final int bytes) {
+        if (bytes < 1) throw new IllegalArgumentException("The limit must be positive");
+        this.queueLimit = bytes;
+    }
+
+    /**
+     * <p>
+     * Sets the size of the send buffer of the sockets of the clients accepted
+     * afterwards. With many spectators, small buffers bound the memory the
+     * kernel holds for them, and let the queue limit tell the slow ones sooner.
+     * </p>
+     *
+     * @param bytes the size, in bytes, 0 for the default of the system
+     */
+    public void setSendBuffer(final int bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("The size cannot be negative");
+        this.sendBuffer = bytes;
+    }
+
+    /**
+     * <p>
+     * Returns the size of the send buffer of the sockets of the clients.
+     * </p>
+     *
+     * @return the size, in bytes, 0 for the default of the system
+     */
+    int getSendBuffer() {
+        return this.sendBuffer;
+    }
+
+    /**
+     * <p>
+     * Returns the most bytes queued for a connection before it lags.
+     * </p>
+     *
+     * @return the limit, in bytes
+     */
+    int getQueueLimit() {
+        return this.queueLimit;
+    }
+
+    /**
+     * <p>
+     * Opens a table, whose game starts once all its seats are taken.
+     * </p>
+     * <p>
+     * The game is built from the seed, as {@link GameReplay#newGame(long, int,
+     * ch.supsi.game.monopoly.input.InputProvider)} does.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @return the id of the table
+     */
+    public long openTable(final long seed, final int playersNumber) {
+        final long id = this.nextTable.getAndIncrement();
+        final Game game = GameReplay.newGame(seed, playersNumber, prompt -> "");
+        final EventLoop loop = this.loops[(int) (id % this.loops.length)];
+        this.tables.put(id, new GameTable(id, loop, game, game.getPlayers().length,
+                this.hosting, this.decisionTimeout));
+        return id;
+    }
+
+    /**
+     * <p>
+     * Returns a table.
+     * </p>
+     *
+     * @param id the id of the table
+     * @return the table, null if there is none with that id
+     */
+    public GameTable getTable(final long id) {
+        return this.tables.get(id);
+    }
+
+    /**
+     * <p>
+     * Returns the number of tables.
+     * </p>
+     *
+     * @return the number of tables
+     */
+    public int getTableCount() {
+        return this.tables.size();
+    }
+
+    /**
+     * <p>
+     * Returns the loop the next client is handed to. Called by the loop accepting the clients.
+     * </p>
+     *
+     * @return the loop
+     */
+    EventLoop nextLoop() {
+        this.nextLoop = (this.nextLoop + 1) % this.loops.length;
+        return this.loops[this.nextLoop];
+    }
+
+    /**
+     * <p>
+     * Stops the server, closing all the connections. The players of the
+     * tables played by a thread quit.
+     * </p>
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.channel == null) return;
+        try {
+            for (GameTable table : this.tables.values()) table.close();
+            for (GameTable table : this.tables.values()) table.await(1000);
+            for (EventLoop loop : this.loops) loop.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,815 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.mazluc.util.DiscardSink;
+import ch.mazluc.util.TimingWheel;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import ch.supsi.game.monopoly.persistence.TurnDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>
+ * A table of a {@link GameServer}: a {@link Game}, its seats and the connections watching it.
+ * </p>
+ * <p>
+ * The seats and the connections of the table are handled by one {@link EventLoop}
+ * only. The table is the controller of its game: a turn is played when the
+ * connection holding the current player asks for it, and the decisions the
+ * game asks for during the turn are the ones the connection sent before:
+ * whether to buy and where to build.
+ * </p>
+ * <p>
+ * {@link Hosting#EVENT_LOOP Hosted by the loop}, the table plays the turn
+ * with {@link Game#step()} as soon as it is asked for, and no thread ever
+ * waits for a player. {@link Hosting#THREAD_PER_TABLE Hosted by a thread},
+ * the table runs {@link Game#play()} on a thread of its own, see
+ * {@link TableThreads}, which waits for the commands the loop queues; what
+ * the thread sends goes through the loop, so the connections keep being
+ * touched by the loop only.
+ * </p>
+ * <p>
+ * If the server has a decision timeout, every turn has a deadline on the
+ * {@link TimingWheel} of the loop, cancelled when the turn is asked for:
+ * once it expires, the current player plays the turn declining every
+ * offer, as if they passed, so a slow or gone player does not hold up the table.
+ * </p>
+ * <p>
+ * After every turn, its {@link TurnDelta} is encoded once in a frame sent
+ * to every connection at the table, together with the hash of the state,
+ * so that clients can tell if their copy of the game is out of sync.
+ * </p>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class GameTable implements PlayerController {
+
+    /**
+     * Opcode of the commands queued when the deadline of a turn expires.
+     */
+    private static final int EXPIRED = 0;
+
+    /**
+     * The id of the table.
+     */
+    private final long id;
+
+    /**
+     * The loop serving the table.
+     */
+    private final EventLoop loop;
+
+    /**
+     * The game.
+     */
+    private final Game game;
+
+    /**
+     * The names of the players seated.
+     */
+    private final String[] names;
+
+    /**
+     * The symbols of the players seated.
+     */
+    private final char[] symbols;
+
+    /**
+     * The connection holding every seat, null if nobody holds it.
+     */
+    private final Connection[] holders;
+
+    /**
+     * The board index of the propriety every player builds upon at the end of their next turn, -1 if none.
+     */
+    private final int[] builds;
+
+    /**
+     * The connections at the table, holding seats or watching.
+     */
+    private final List<Connection> connections = new ArrayList<>();
+
+    /**
+     * The commands waiting for the thread playing the table, null if the loop plays it.
+     */
+    private final BlockingQueue<Command> commands;
+
+    /**
+     * The time a player has to ask for their turn, in nanoseconds, 0 for no limit.
+     */
+    private final long timeout;
+
+    /**
+     * The payload of the messages sent by the loop.
+     */
+    private final ByteWriter payload = new ByteWriter();
+
+    /**
+     * The payload of the snapshots and of the deltas, written by whoever plays the table.
+     */
+    private final ByteWriter frames = new ByteWriter();
+
+    /**
+     * The encoder of the turns, created when the game starts.
+     */
+    private TurnDelta delta;
+
+    /**
+     * The thread playing the table, null if the loop plays it or the game is not started.
+     */
+    private Thread thread;
+
+    /**
+     * Whether all the seats were taken and the game started.
+     */
+    private boolean started;
+
+    /**
+     * Whether the thread playing the table is done.
+     */
+    private volatile boolean over;
+
+    /**
+     * Whether the game failed while played by the loop, which closed the table.
+     */
+    private boolean failed;
+
+    /**
+     * The frame of the last snapshot, shared by all the connections it is sent to.
+     */
+    private byte[] snapshot;
+
+    /**
+     * The number of turns played when the last snapshot was taken, -1 if none.
+     */
+    private int snapshotTurn = -1;
+
+    /**
+     * The deadline of the current turn, on the wheel of the loop, null if none.
+     */
+    private TimingWheel.Timer deadline;
+
+    /**
+     * The seat whose turn was played and not sent yet, -1 if none.
+     */
+    private int played = -1;
+
+    /**
+     * The number of seats taken.
+     */
+    private int seated;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * Whether the current player declines every offer.
+     */
+    private boolean passing;
+
+    /**
+     * Whether the connection holding the current player buys.
+     */
+    private boolean buying;
+
+    /**
+     * <p>
+     * Creates a table.
+     * </p>
+     *
+     * @param id the id of the table
+     * @param loop the loop serving the table
+     * @param game the game, whose players are not seated yet
+     * @param seats the number of players
+     * @param hosting how the table is played
+     * @param timeout the time a player has to ask for their turn, in nanoseconds, 0 for no limit
+     */
+    GameTable(final long id, final EventLoop loop, final Game game, final int seats, final Hosting hosting,
+              final long timeout) {
+        if (hosting == Hosting.THREAD_PER_TABLE && seats > Long.SIZE) {
+            throw new IllegalArgumentException("A table played by a thread has at most " + Long.SIZE + " seats");
+        }
+        this.id = id;
+        this.timeout = timeout;
+        this.loop = loop;
+        this.game = game;
+        this.names = new String[seats];
+        this.symbols = new char[seats];
+        this.holders = new Connection[seats];
+        this.builds = new int[seats];
+        Arrays.fill(this.builds, -1);
+        this.commands = hosting == Hosting.THREAD_PER_TABLE ? new LinkedBlockingQueue<>() : null;
+    }
+
+    /**
+     * <p>
+     * Returns the id of the table.
+     * </p>
+     *
+     * @return the id
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * <p>
+     * Returns the game of the table. It must be read by whoever plays the
+     * table, or once the server is closed.
+     * </p>
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Returns whether all the seats were taken and the game started. Called by the loop.
+     * </p>
+     *
+     * @return true once started
+     */
+    boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * <p>
+     * Returns the loop serving the table.
+     * </p>
+     *
+     * @return the loop
+     */
+    EventLoop getLoop() {
+        return this.loop;
+    }
+
+    /**
+     * <p>
+     * Seats a connection, or lets it watch if the table is full.
+     * </p>
+     *
+     * @param connection the connection
+     * @param name the name of the player
+     * @param symbol the symbol of the player
+     */
+    void join(final Connection connection, final String name, final char symbol) {
+        if (this.failed) {
+            connection.error(Protocol.NOT_PLAYING);
+            return;
+        }
+        int seat = -1;
+        for (int i = 0; i < this.seated; i++) {
+            if (this.symbols[i] == symbol) seat = i;
+        }
+        if (seat >= 0 && this.holders[seat] != null && this.holders[seat] != connection) {
+            connection.error(Protocol.SYMBOL_TAKEN);
+            return;
+        }
+        if (seat < 0 && !this.started && this.seated < this.names.length) {
+            if (name.isBlank() || symbol < 21) {
+                connection.error(Protocol.BAD_COMMAND);
+                return;
+            }
+            seat = this.seated++;
+            this.names[seat] = name;
+            this.symbols[seat] = symbol;
+        }
+        if (seat >= 0) this.holders[seat] = connection;
+        connection.setTable(this);
+        this.payload.reset();
+        this.payload.writeByte(Protocol.JOINED).writeVarLong(this.id).writeVarInt(seat + 1);
+        connection.send(Protocol.frame(this.payload));
+        if (this.started) {
+            this.watch(connection);
+            return;
+        }
+        if (!this.connections.contains(connection)) this.connections.add(connection);
+        if (this.seated == this.names.length) this.start();
+    }
+
+    /**
+     * <p>
+     * Starts the game, once all the seats are taken.
+     * </p>
+     */
+    private void start() {
+        this.started = true;
+        this.game.init(this.names, this.symbols);
+        this.game.setController(this);
+        if (this.commands == null) {
+            try {
+                this.game.begin();
+                this.publish();
+            } catch (RuntimeException e) {
+                this.fail(e);
+            }
+        } else {
+            this.thread = TableThreads.start("table-" + this.id, this::run);
+        }
+    }
+
+    /**
+     * <p>
+     * Plays the game, on the thread of the table, and answers the commands
+     * left once it is over. What the game prints is discarded, as on the loops.
+     * </p>
+     */
+    private void run() {
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+        try {
+            this.game.play();
+        } finally {
+            this.publish();
+            this.over = true;
+            Command command;
+            while ((command = this.commands.poll()) != null) this.reject(command);
+        }
+    }
+
+    /**
+     * <p>
+     * Sends a snapshot of the game started to a connection joining it, which
+     * then receives the deltas of the turns that follow.
+     * </p>
+     *
+     * @param connection the connection
+     */
+    private void watch(final Connection connection) {
+        if (this.commands != null && this.submit(new Command(connection, Protocol.SNAPSHOT, 0, 0, false))) return;
+        // played by the loop, or over: nobody changes the game anymore
+        this.serve(connection);
+    }
+
+    /**
+     * <p>
+     * Sends the latest snapshot of the game to a connection that lags, see
+     * {@link Connection#send(byte[])}. Called by the loop.
+     * </p>
+     *
+     * @param connection the connection
+     */
+    void resync(final Connection connection) {
+        this.watch(connection);
+    }
+
+    /**
+     * <p>
+     * Sends a snapshot of the game to a connection, adding it to the ones receiving the deltas.
+     * </p>
+     *
+     * @param connection the connection
+     */
+    private void serve(final Connection connection) {
+        final byte[] frame = this.snapshotFrame();
+        this.post(() -> {
+            if (connection.getTable() != this) return;
+            if (!this.connections.contains(connection)) this.connections.add(connection);
+            connection.resync(frame);
+        });
+    }
+
+    /**
+     * <p>
+     * Queues a command for the thread playing the table.
+     * </p>
+     *
+     * @param command the command
+     * @return false if the thread is done, and will not handle it
+     */
+    private boolean submit(final Command command) {
+        this.commands.add(command);
+        // the thread drains the queue after setting over: either it takes the command, or this removes it
+        return !this.over || !this.commands.remove(command);
+    }
+
+    /**
+     * <p>
+     * Answers a command the game over cannot play.
+     * </p>
+     *
+     * @param command the command
+     */
+    private void reject(final Command command) {
+        if (command.opcode == EXPIRED) return;
+        if (command.opcode == Protocol.SNAPSHOT) {
+            this.serve(command.connection);
+        } else {
+            this.error(command.connection, Protocol.NOT_PLAYING);
+        }
+    }
+
+    /**
+     * <p>
+     * Sends an error to a connection, through the loop.
+     * </p>
+     *
+     * @param connection the connection
+     * @param code the error code
+     */
+    private void error(final Connection connection, final int code) {
+        this.post(() -> {
+            if (connection.getTable() == this) connection.error(code);
+        });
+    }
+
+    /**
+     * <p>
+     * Runs a task touching the connections: at once on the loop, later if
+     * called by the thread playing the table.
+     * </p>
+     *
+     * @param task the task
+     */
+    private void post(final Runnable task) {
+        if (this.commands == null) {
+            task.run();
+        } else {
+            this.loop.execute(task);
+        }
+    }
+
+    /**
+     * <p>
+     * Sends a frame to every connection at the table. A connection whose
+     * write fails leaves the table while the frame is sent, so a copy of the
+     * connections is walked.
+     * </p>
+     *
+     * @param frame the bytes of the frame
+     */
+    private void broadcast(final byte[] frame) {
+        this.post(() -> {
+            for (Connection c : new ArrayList<>(this.connections)) c.send(frame);
+        });
+    }
+
+    /**
+     * <p>
+     * Sends what the game changed: the first snapshot once it began, then the delta of every turn played.
+     * </p>
+     */
+    private void publish() {
+        if (this.delta == null) {
+            this.delta = new TurnDelta(this.game);
+            this.broadcast(this.snapshotFrame());
+            this.arm();
+            return;
+        }
+        if (this.played < 0) return;
+        this.builds[this.played] = -1;
+        this.played = -1;
+        this.passing = false;
+        this.frames.reset();
+        this.frames.writeByte(Protocol.DELTA).writeVarLong(this.id).writeVarInt(this.turns++)
+                .writeLong(this.game.getStateHash());
+        this.delta.encode(this.frames);
+        this.broadcast(Protocol.frame(this.frames));
+        this.arm();
+    }
+
+    /**
+     * <p>
+     * Sets the deadline of the turn about to be played, if the table has a timeout.
+     * </p>
+     */
+    private void arm() {
+        if (this.timeout == 0 || !this.game.isRunning()) return;
+        final int turn = this.turns;
+        this.post(() -> {
+            this.disarm();
+            this.deadline = this.loop.schedule(this.timeout, () -> this.expire(turn));
+        });
+    }
+
+    /**
+     * <p>
+     * Cancels the deadline of the current turn, on the loop.
+     * </p>
+     */
+    private void disarm() {
+        if (this.deadline != null) this.deadline.cancel();
+        this.deadline = null;
+    }
+
+    /**
+     * <p>
+     * Plays a turn whose deadline expired, on the loop, declining every offer.
+     * </p>
+     *
+     * @param turn the number of the turn
+     */
+    private void expire(final int turn) {
+        this.deadline = null;
+        if (this.commands != null) {
+            this.submit(new Command(null, EXPIRED, turn, 0, false));
+        } else if (turn == this.turns && !this.failed && this.game.isRunning()) {
+            this.play(this.game.getIndexOfCurrentPlayer(), true, false);
+        }
+    }
+
+    /**
+     * <p>
+     * Plays the turn of the current player, on the loop.
+     * </p>
+     *
+     * @param seat the seat of the current player
+     * @param passing whether the player declines every offer
+     * @param buying whether the player buys
+     */
+    private void play(final int seat, final boolean passing, final boolean buying) {
+        this.disarm();
+        this.passing = passing;
+        this.buying = buying;
+        this.played = seat;
+        try {
+            this.game.step();
+            this.publish();
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    /**
+     * <p>
+     * Closes the table whose game failed on the loop, and every connection
+     * at it: the other tables of the loop go on.
+     * </p>
+     *
+     * @param e the error of the game
+     */
+    private void fail(final RuntimeException e) {
+        EventLoop.report(e);
+        this.disarm();
+        this.failed = true;
+        for (Connection connection : new ArrayList<>(this.connections)) connection.close();
+        for (Connection connection : this.holders) {
+            if (connection != null) connection.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the frame of a full snapshot of the game, encoded once per
+     * turn however many connections join or lag.
+     * </p>
+     *
+     * @return the bytes of the frame
+     */
+    private byte[] snapshotFrame() {
+        if (this.snapshotTurn == this.turns) return this.snapshot;
+        this.frames.reset();
+        this.frames.writeByte(Protocol.SNAPSHOT).writeVarLong(this.id).writeVarInt(this.turns);
+        GameSnapshot.save(this.game, this.frames, true);
+        this.snapshot = Protocol.frame(this.frames);
+        this.snapshotTurn = this.turns;
+        return this.snapshot;
+    }
+
+    /**
+     * <p>
+     * Removes a connection from the table, freeing its seats.
+     * </p>
+     *
+     * @param connection the connection
+     */
+    void leave(final Connection connection) {
+        this.connections.remove(connection);
+        for (int i = 0; i < this.holders.length; i++) {
+            if (this.holders[i] == connection) this.holders[i] = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Handles a command of a connection.
+     * </p>
+     *
+     * @param connection the connection
+     * @param opcode the opcode of the command
+     * @param in the reader of the arguments of the command
+     */
+    void command(final Connection connection, final int opcode, final ByteReader in) {
+        if (opcode != Protocol.ROLL && opcode != Protocol.PASS && opcode != Protocol.BUILD) {
+            connection.error(Protocol.BAD_COMMAND);
+            return;
+        }
+        final int argument = opcode == Protocol.BUILD ? in.readVarInt() : -1;
+        if (!this.started) {
+            connection.error(Protocol.NOT_PLAYING);
+            return;
+        }
+        if (this.commands != null) {
+            long seats = 0;
+            for (int i = 0; i < this.holders.length; i++) {
+                if (this.holders[i] == connection) seats |= 1L << i;
+            }
+            final Command command = new Command(connection, opcode, argument, seats, connection.isBuying());
+            if (!this.submit(command)) connection.error(Protocol.NOT_PLAYING);
+            return;
+        }
+        if (this.failed || !this.game.isRunning()) {
+            connection.error(Protocol.NOT_PLAYING);
+            return;
+        }
+        final int seat = this.game.getIndexOfCurrentPlayer();
+        if (this.holders[seat] != connection) {
+            connection.error(Protocol.NOT_YOUR_TURN);
+            return;
+        }
+        if (opcode == Protocol.BUILD) {
+            this.builds[seat] = argument;
+            return;
+        }
+        this.play(seat, opcode == Protocol.PASS, connection.isBuying());
+    }
+
+    /**
+     * <p>
+     * Stops the thread playing the table, if any: the current player quits.
+     * </p>
+     */
+    void close() {
+        if (this.thread != null) this.thread.interrupt();
+    }
+
+    /**
+     * <p>
+     * Waits for the thread playing the table to be done.
+     * </p>
+     *
+     * @param millis the longest time to wait
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void await(final long millis) throws InterruptedException {
+        if (this.thread != null) this.thread.join(millis);
+    }
+
+    /**
+     * <p>
+     * Plays the turn asked for. On the thread of the table, sends what the
+     * last turn changed and waits for the command of the current player,
+     * handling the other commands in the meanwhile; if the deadline of the
+     * turn expires first, the player passes; if interrupted, the player quits.
+     * </p>
+     *
+     * @param game the game
+     * @param player the current player
+     * @return {@link PlayerController#ROLL}, or {@link PlayerController#QUIT} if interrupted
+     */
+    @Override
+    public int chooseOption(final Game game, final Player player) {
+        if (this.commands == null) return ROLL;
+        this.publish();
+        final int seat = game.getIndexOfCurrentPlayer();
+        while (true) {
+            final Command command;
+            try {
+                command = this.commands.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.played = seat;
+                return QUIT;
+            }
+            if (command.opcode == EXPIRED) {
+                if (command.argument != this.turns) continue;
+                this.passing = true;
+                this.buying = false;
+                this.played = seat;
+                return ROLL;
+            } else if (command.opcode == Protocol.SNAPSHOT) {
+                this.serve(command.connection);
+            } else if ((command.seats >>> seat & 1) == 0) {
+                this.error(command.connection, Protocol.NOT_YOUR_TURN);
+            } else if (command.opcode == Protocol.BUILD) {
+                this.builds[seat] = command.argument;
+            } else {
+                this.passing = command.opcode == Protocol.PASS;
+                this.buying = command.buying;
+                this.played = seat;
+                if (this.timeout != 0) this.loop.execute(this::disarm);
+                return ROLL;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Buys if the connection asking for the turn buys, and the player is not passing.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return !this.passing && this.buying;
+    }
+
+    /**
+     * <p>
+     * Builds upon the propriety the player asked for, if among the options.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        final int wanted = this.builds[player.getSeat()];
+        if (this.passing || wanted < 0) return -1;
+        for (int i = 0; i < options.length; i++) {
+            if (game.getBoard().indexOf(options[i]) == wanted) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Never evades: the protocol has no command for it.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @return false
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * A command queued for the thread playing the table, with what the loop
+     * knew of its connection when it arrived.
+     * </p>
+     */
+    private static final class Command {
+
+        /**
+         * The connection sending the command, null for {@link GameTable#EXPIRED}.
+         */
+        private final Connection connection;
+
+        /**
+         * The opcode of the command, {@link Protocol#SNAPSHOT} for a connection joining.
+         */
+        private final int opcode;
+
+        /**
+         * The board index of the propriety to build upon for {@link Protocol#BUILD},
+         * the number of the turn for {@link GameTable#EXPIRED}.
+         */
+        private final int argument;
+
+        /**
+         * One bit for every seat held by the connection.
+         */
+        private final long seats;
+
+        /**
+         * Whether the players of the connection buy.
+         */
+        private final boolean buying;
+
+        /**
+         * <p>
+         * Creates a command.
+         * </p>
+         *
+         * @param connection the connection sending the command
+         * @param opcode the opcode of the command
+         * @param argument the board index of the propriety to build upon
+         * @param seats one bit for every seat held by the connection
+         * @param buying whether the players of the connection buy
+         */
+        Command(final Connection connection, final int opcode, final int argument,
+                final long seats, final boolean buying) {
+            this.connection = connection;
+            this.opcode = opcode;
+            this.argument = argument;
+            this.seats = seats;
+            this.buying = buying;
+        }
+    }
+}
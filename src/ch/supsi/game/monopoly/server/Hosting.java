@@ -0,0 +1,29 @@
+package ch.supsi.game.monopoly.server;
+
+/**
+ * <p>
+ * Enum representing how a {@link GameServer} plays its tables.
+ * </p>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public enum Hosting {
+
+    /**
+     * <p>
+     * Every table is played by the event loop of its connections, one turn
+     * per command, and no thread ever waits for a player.
+     * </p>
+     */
+    EVENT_LOOP,
+
+    /**
+     * <p>
+     * Every table is played by a thread of its own, virtual if the runtime
+     * has them, running {@link ch.supsi.game.monopoly.Game#play()} and
+     * parked on a queue of commands fed by the event loops.
+     * </p>
+     */
+    THREAD_PER_TABLE
+}
@@ -0,0 +1,405 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.event.GameEventListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Leader of a game replicated in lockstep: the replicas get the seed and the
+ * decisions of the players, never the state.
+ * </p>
+ * <p>
+ * A game built with {@link ch.supsi.game.monopoly.persistence.GameReplay#newGame(long,
+ * int, ch.supsi.game.monopoly.input.InputProvider) GameReplay.newGame} is
+ * determined by its seed, its players and their decisions, so a
+ * {@link LockstepReplica} given the same plays the same game. The leader is
+ * the {@link PlayerController} of its game: it asks the decisions to the
+ * controller given, and after every step sends them to the replicas, a few
+ * bytes a turn. Every given number of turns it sends the
+ * {@link Game#getStateHash() hash} of the state too, which the replicas
+ * compare with their own, to tell as soon as a replica went its own way.
+ * </p>
+ * <p>
+ * The frames sent are kept, so a replica attached during the game catches
+ * up by replaying them, and a replica that takes over after the leader is
+ * lost goes on from the same point, see {@link LockstepReplica#takeOver(PlayerController)}.
+ * </p>
+ * <p>
+ * The messages are frames as in the {@link Protocol}, whose payload starts with an opcode:
+ * </p>
+ * <ul>
+ *     <li>{@link LockstepLeader#HELLO}: the zigzag seed, the varint number of
+ *     turns between two hashes, the varint number of players, and the name and
+ *     the symbol of every player.</li>
+ *     <li>{@link LockstepLeader#STEP}: the varint number of decisions taken in
+ *     a step of the game, and every decision, zigzag encoded.</li>
+ *     <li>{@link LockstepLeader#HASH}: the varint number of turns played and the
+ *     long hash of the state as the last of them ended, or as the game ended:
+ *     the step ending the game is always followed by a hash.</li>
+ * </ul>
+ * <p>
+ * Writing to a replica blocks the leader while the socket is full, so the
+ * replicas are never more than a socket buffer behind.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Game game = GameReplay.newGame(seed, 4, prompt -> "");
+ * game.init(names, symbols);
+ * LockstepLeader leader = new LockstepLeader(game, seed, controller, 50);
+ * leader.attach(standby);           // a connected SocketChannel
+ * leader.play();
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class LockstepLeader implements PlayerController, GameEventListener, AutoCloseable {
+
+    /**
+     * Opcode: the seed, the hash interval and the players of the game.
+     */
+    public static final int HELLO = 1;
+
+    /**
+     * Opcode: the decisions taken in a step.
+     */
+    public static final int STEP = 2;
+
+    /**
+     * Opcode: the hash of the state after a number of turns.
+     */
+    public static final int HASH = 3;
+
+    /**
+     * The game.
+     */
+    private final Game game;
+
+    /**
+     * The seed of the game.
+     */
+    private final long seed;
+
+    /**
+     * The controller taking the decisions.
+     */
+    private final PlayerController decider;
+
+    /**
+     * The number of turns between two hashes.
+     */
+    private final int hashInterval;
+
+    /**
+     * The replicas.
+     */
+    private final List<SocketChannel> replicas = new ArrayList<>();
+
+    /**
+     * The frames sent after the hello, replayed to the replicas attached later.
+     */
+    private final ByteWriter history;
+
+    /**
+     * The decisions taken in the current step.
+     */
+    private final ByteWriter decisions = new ByteWriter();
+
+    /**
+     * The payload being written.
+     */
+    private final ByteWriter payload = new ByteWriter();
+
+    /**
+     * The number of decisions taken in the current step.
+     */
+    private int count;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * The hash of the state as the last turn ended, 0 if none did.
+     */
+    private long turnHash;
+
+    /**
+     * Whether the game began.
+     */
+    private boolean begun;
+
+    /**
+     * <p>
+     * Creates the leader of a game, which becomes the controller of the game.
+     * </p>
+     *
+     * @param game the game, built from the seed and with its players seated, not played yet
+     * @param seed the seed the game was built from
+     * @param decider the controller taking the decisions of the players
+     * @param hashInterval the number of turns between two hashes sent
+     * @throws IllegalArgumentException if the game or the controller is null, or the interval is not positive
+     */
+    public LockstepLeader(final Game game, final long seed, final PlayerController decider, final int hashInterval) {
+        this(game, seed, decider, hashInterval, new ByteWriter(), 0);
+    }
+
+    /**
+     * <p>
+     * Creates the leader of a game already played for some turns, which
+     * becomes the controller of the game.
+     * </p>
+     *
+     * @param game the game
+     * @param seed the seed the game was built from
+     * @param decider the controller taking the decisions of the players
+     * @param hashInterval the number of turns between two hashes sent
+     * @param history the frames that brought the game from its start to its state
+     * @param turns the number of turns played
+     * @throws IllegalArgumentException if the game or the controller is null, or the interval is not positive
+     */
+    LockstepLeader(final Game game, final long seed, final PlayerController decider, final int hashInterval,
+                   final ByteWriter history, final int turns) {
+        if (game == null) throw new IllegalArgumentException("game cannot be null");
+        if (decider == null) throw new IllegalArgumentException("decider cannot be null");
+        if (hashInterval < 1) throw new IllegalArgumentException("hashInterval must be positive");
+        this.game = game;
+        this.seed = seed;
+        this.decider = decider;
+        this.hashInterval = hashInterval;
+        this.history = history;
+        this.turns = turns;
+        this.begun = turns > 0 || history.size() > 0;
+        game.setController(this);
+        game.getEventBus().register(this);
+    }
+
+    /**
+     * <p>
+     * Attaches a replica: sends it the hello and every frame sent so far, so
+     * that it catches up.
+     * </p>
+     *
+     * @param replica the connection to the replica
+     * @throws IOException if the replica cannot be written to
+     */
+    public void attach(final SocketChannel replica) throws IOException {
+        final Player[] players = this.game.getPlayers();
+        this.payload.reset();
+        this.payload.writeByte(HELLO).writeZigZag(this.seed).writeVarInt(this.hashInterval).writeVarInt(players.length);
+        for (Player player : players) this.payload.writeString(player.getName()).writeVarInt(player.getSymbol());
+        final ByteWriter frame = new ByteWriter(this.payload.size() + 5 + this.history.size());
+        Protocol.writeFrame(frame, this.payload);
+        frame.writeBytes(this.history.array(), 0, this.history.size());
+        write(replica, frame.array(), 0, frame.size());
+        this.replicas.add(replica);
+    }
+
+    /**
+     * <p>
+     * Plays the game until it is over.
+     * </p>
+     *
+     * @throws IOException if a replica cannot be written to
+     */
+    public void play() throws IOException {
+        while (this.step()) {
+            // every step is sent to the replicas
+        }
+    }
+
+    /**
+     * <p>
+     * Plays one step of the game, a decision of the current player and
+     * whatever it leads to, and sends it to the replicas. The first step
+     * begins the game.
+     * </p>
+     *
+     * @return true if the game is still running
+     * @throws IOException if a replica cannot be written to
+     */
+    public boolean step() throws IOException {
+        if (!this.begun) {
+            this.begun = true;
+            this.game.begin();
+        }
+        this.decisions.reset();
+        this.count = 0;
+        final int before = this.turns;
+        final boolean running = this.game.step();
+        final int start = this.history.size();
+        this.payload.reset();
+        this.payload.writeByte(STEP).writeVarInt(this.count);
+        this.payload.writeBytes(this.decisions.array(), 0, this.decisions.size());
+        Protocol.writeFrame(this.history, this.payload);
+        if (!running || this.turns != before && this.turns % this.hashInterval == 0) {
+            this.payload.reset();
+            this.payload.writeByte(HASH).writeVarInt(this.turns).writeLong(running ? this.turnHash : this.game.getStateHash());
+            Protocol.writeFrame(this.history, this.payload);
+        }
+        for (SocketChannel replica : this.replicas) write(replica, this.history.array(), start, this.history.size() - start);
+        return running;
+    }
+
+    /**
+     * <p>
+     * Writes bytes to a replica, waiting until they are all written.
+     * </p>
+     *
+     * @param replica the replica
+     * @param bytes the bytes
+     * @param offset the position of the first byte
+     * @param length the number of bytes
+     * @throws IOException if the replica cannot be written to
+     */
+    private static void write(final SocketChannel replica, final byte[] bytes, final int offset, final int length)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) replica.write(buffer);
+    }
+
+    /**
+     * <p>
+     * Records a decision of the current step.
+     * </p>
+     *
+     * @param decision the decision
+     * @return the decision
+     */
+    private int record(final int decision) {
+        this.decisions.writeZigZag(decision);
+        this.count++;
+        return decision;
+    }
+
+    /**
+     * <p>
+     * Asks the option to the controller, and records it.
+     * </p>
+     *
+     * @param game the game
+     * @param player the current player
+     * @return the option
+     */
+    @Override
+    public int chooseOption(final Game game, final Player player) {
+        return this.record(this.decider.chooseOption(game, player));
+    }
+
+    /**
+     * <p>
+     * Asks the controller whether to buy, and records it.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return this.record(this.decider.buy(game, player, cell) ? 1 : 0) != 0;
+    }
+
+    /**
+     * <p>
+     * Asks the controller where to build, and records it.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        return this.record(this.decider.build(game, player, options));
+    }
+
+    /**
+     * <p>
+     * Asks the controller whether to evade, and records it.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player in prison
+     * @return true to evade
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return this.record(this.decider.evade(game, player) ? 1 : 0) != 0;
+    }
+
+    /**
+     * <p>
+     * Counts the turn, and keeps the hash of the state as it ended.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.turns++;
+        this.turnHash = this.game.getStateHash();
+    }
+
+    /**
+     * <p>
+     * Returns the game.
+     * </p>
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns played.
+     * </p>
+     *
+     * @return the number of turns
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * <p>
+     * Returns the number of bytes sent to every replica attached at the start, hello excluded.
+     * </p>
+     *
+     * @return the number of bytes
+     */
+    public int getBytesSent() {
+        return this.history.size();
+    }
+
+    /**
+     * <p>
+     * Closes the connections to the replicas.
+     * </p>
+     *
+     * @throws IOException if a connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (SocketChannel replica : this.replicas) replica.close();
+        this.replicas.clear();
+    }
+}
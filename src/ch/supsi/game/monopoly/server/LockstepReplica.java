@@ -0,0 +1,380 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * <p>
+ * Replica of a game led by a {@link LockstepLeader}, a standby ready to take
+ * over the table.
+ * </p>
+ * <p>
+ * The replica builds its own game from the seed and the players of the
+ * hello, then plays every step with the decisions received as its
+ * {@link PlayerController}: the dices and the cards being drawn from the
+ * seed, it reaches the very state of the leader without ever receiving it.
+ * Every hash received is compared with the hash of its own state as the
+ * same turn ended, so a replica out of step is found within a few turns,
+ * and not when it takes over.
+ * </p>
+ * <p>
+ * The replica keeps the frames received, so that
+ * {@link LockstepReplica#takeOver(PlayerController)} turns it into a leader
+ * at once: no state to transfer, the game already being there.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * LockstepReplica replica = new LockstepReplica(channel);
+ * try {
+ *     while (replica.receive() != 0) { }
+ * } catch (IOException lost) {
+ *     LockstepLeader leader = replica.takeOver(controller);
+ *     leader.play();
+ * }
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class LockstepReplica implements PlayerController, GameEventListener, AutoCloseable {
+
+    /**
+     * The connection to the leader.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The bytes received and not read yet.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+
+    /**
+     * The frames received after the hello.
+     */
+    private final ByteWriter history = new ByteWriter();
+
+    /**
+     * The reader of the decisions of the step being played.
+     */
+    private final ByteReader decisions = new ByteReader(new byte[0]);
+
+    /**
+     * The number of decisions of the step being played not taken yet.
+     */
+    private int pending;
+
+    /**
+     * The game, null until the hello is received.
+     */
+    private Game game;
+
+    /**
+     * The seed of the game.
+     */
+    private long seed;
+
+    /**
+     * The number of turns between two hashes.
+     */
+    private int hashInterval;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * The hash of the state as the last turn ended, 0 if none did.
+     */
+    private long turnHash;
+
+    /**
+     * Whether the game is over and its final hash was compared.
+     */
+    private boolean finished;
+
+    /**
+     * The number of hashes compared.
+     */
+    private int hashesChecked;
+
+    /**
+     * <p>
+     * Creates the replica of the game led on the other side of a connection.
+     * </p>
+     *
+     * @param channel the connection to the leader, blocking
+     * @throws IllegalArgumentException if the channel is null
+     */
+    public LockstepReplica(final SocketChannel channel) {
+        if (channel == null) throw new IllegalArgumentException("channel cannot be null");
+        this.channel = channel;
+        this.in.flip();
+    }
+
+    /**
+     * <p>
+     * Waits for the next message of the leader and handles it.
+     * </p>
+     *
+     * @return the opcode of the message, 0 once the game is over and its final hash compared
+     * @throws IOException if the connection is lost
+     * @throws IllegalStateException if the replica is out of step with the leader
+     */
+    public int receive() throws IOException {
+        if (this.finished) return 0;
+        int length;
+        while ((length = Protocol.readFrameLength(this.in)) < 0) this.fill();
+        final int start = this.in.position();
+        this.in.position(start + length);
+        final ByteReader message = new ByteReader(this.in.array(), start, length);
+        final int opcode = message.readByte();
+        if (opcode != LockstepLeader.HELLO) {
+            if (this.game == null) throw new IllegalStateException("Message " + opcode + " before the hello");
+            this.history.writeVarInt(length).writeBytes(this.in.array(), start, length);
+        }
+        switch (opcode) {
+            case LockstepLeader.HELLO -> this.hello(message);
+            case LockstepLeader.STEP -> this.step(message);
+            case LockstepLeader.HASH -> {
+                final int turn = message.readVarInt();
+                final long hash = message.readLong();
+                if (turn != this.turns) throw new IllegalStateException("Hash of turn " + turn + " at turn " + this.turns);
+                final boolean over = !this.game.isRunning();
+                if (hash != (over ? this.game.getStateHash() : this.turnHash)) {
+                    throw new IllegalStateException("Out of sync at turn " + turn);
+                }
+                this.hashesChecked++;
+                this.finished = over;
+            }
+            default -> throw new IllegalStateException("Unknown message " + opcode);
+        }
+        return opcode;
+    }
+
+    /**
+     * <p>
+     * Builds the game of a hello and begins it.
+     * </p>
+     *
+     * @param message the hello, after the opcode
+     */
+    private void hello(final ByteReader message) {
+        if (this.game != null) throw new IllegalStateException("Second hello");
+        this.seed = message.readZigZag();
+        this.hashInterval = message.readVarInt();
+        final int players = message.readVarInt();
+        final String[] names = new String[players];
+        final char[] symbols = new char[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = message.readString();
+            symbols[i] = (char) message.readVarInt();
+        }
+        this.game = GameReplay.newGame(this.seed, players, prompt -> "");
+        this.game.init(names, symbols);
+        this.game.setController(this);
+        this.game.getEventBus().register(this);
+        this.game.begin();
+    }
+
+    /**
+     * <p>
+     * Plays a step with the decisions received.
+     * </p>
+     *
+     * @param message the step, after the opcode
+     */
+    private void step(final ByteReader message) {
+        this.pending = message.readVarInt();
+        this.decisions.reset(this.in.array(), message.position(), message.remaining());
+        this.game.step();
+        if (this.pending != 0) {
+            throw new IllegalStateException("Out of sync at turn " + this.turns + ": " + this.pending + " decisions left");
+        }
+    }
+
+    /**
+     * <p>
+     * Reads more bytes from the leader, growing the buffer for a large frame.
+     * </p>
+     *
+     * @throws IOException if the connection is lost
+     */
+    private void fill() throws IOException {
+        this.in.compact();
+        if (!this.in.hasRemaining()) {
+            final ByteBuffer bigger = ByteBuffer.allocate(this.in.capacity() * 2);
+            this.in.flip();
+            bigger.put(this.in);
+            this.in = bigger;
+        }
+        final int read = this.channel.read(this.in);
+        this.in.flip();
+        if (read < 0) throw new EOFException("Connection closed by the leader");
+    }
+
+    /**
+     * <p>
+     * Takes over the game: the replica stops following the leader and
+     * returns the new leader of the game, which goes on from where the
+     * replica is.
+     * </p>
+     *
+     * @param decider the controller taking the decisions of the players from now on
+     * @return the new leader
+     * @throws IllegalStateException if no hello was received
+     * @throws IOException if the connection cannot be closed
+     */
+    public LockstepLeader takeOver(final PlayerController decider) throws IOException {
+        if (this.game == null) throw new IllegalStateException("No game to take over");
+        this.close();
+        this.game.getEventBus().unregister(this);
+        final ByteWriter frames = new ByteWriter(this.history.size() + 64);
+        frames.writeBytes(this.history.array(), 0, this.history.size());
+        return new LockstepLeader(this.game, this.seed, decider, this.hashInterval, frames, this.turns);
+    }
+
+    /**
+     * <p>
+     * Returns the next decision received.
+     * </p>
+     *
+     * @return the decision
+     * @throws IllegalStateException if the step received has no more decisions
+     */
+    private int next() {
+        if (this.pending == 0) throw new IllegalStateException("Out of sync at turn " + this.turns + ": no decision left");
+        this.pending--;
+        return (int) this.decisions.readZigZag();
+    }
+
+    /**
+     * <p>
+     * Returns the option received.
+     * </p>
+     *
+     * @param game the game
+     * @param player the current player
+     * @return the option
+     */
+    @Override
+    public int chooseOption(final Game game, final Player player) {
+        return this.next();
+    }
+
+    /**
+     * <p>
+     * Returns whether to buy, as received.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param cell the propriety
+     * @return true to buy it
+     */
+    @Override
+    public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+        return this.next() != 0;
+    }
+
+    /**
+     * <p>
+     * Returns where to build, as received.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player
+     * @param options the proprieties the player can build upon
+     * @return the index of the propriety in the options, -1 not to build
+     */
+    @Override
+    public int build(final Game game, final Player player, final Cell[] options) {
+        return this.next();
+    }
+
+    /**
+     * <p>
+     * Returns whether to evade, as received.
+     * </p>
+     *
+     * @param game the game
+     * @param player the player in prison
+     * @return true to evade
+     */
+    @Override
+    public boolean evade(final Game game, final Player player) {
+        return this.next() != 0;
+    }
+
+    /**
+     * <p>
+     * Counts the turn, and keeps the hash of the state as it ended.
+     * </p>
+     *
+     * @param player the player whose turn ended
+     */
+    @Override
+    public void onTurnEnded(final Player player) {
+        this.turns++;
+        this.turnHash = this.game.getStateHash();
+    }
+
+    /**
+     * <p>
+     * Returns the game.
+     * </p>
+     *
+     * @return the game, null until the hello is received
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * <p>
+     * Returns the number of turns played.
+     * </p>
+     *
+     * @return the number of turns
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * <p>
+     * Returns the number of hashes of the leader compared with the state of the replica.
+     * </p>
+     *
+     * @return the number of hashes
+     */
+    public int getHashesChecked() {
+        return this.hashesChecked;
+    }
+
+    /**
+     * <p>
+     * Closes the connection to the leader.
+     * </p>
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,370 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.MpmcQueue;
+import ch.supsi.game.monopoly.Game;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ * Matchmaking of the players waiting for a table.
+ * </p>
+ * <p>
+ * Every player asks for a game of a given number of players, from 2 up to
+ * the maximum of the matchmaker, and waits in the lock-free
+ * {@link MpmcQueue} of that number: joining is a compare-and-set, from
+ * any thread, and never waits for the matcher nor for the other players.
+ * The matcher, called by one or more threads, takes the players of every
+ * queue holding enough of them in groups, in the order they joined, and
+ * assembles a {@link Game} for every group, seated at once with
+ * {@link Game#init(String[], char[])}: a symbol already taken in the group
+ * is replaced by the first free one instead of being asked again.
+ * </p>
+ * <p>
+ * A queue is drained by one matcher at a time, the others moving on to the
+ * next queue, so that the groups follow the order the players joined. A
+ * player still being added to a queue cannot be taken yet: the group short
+ * of them is carried over by the queue, and completed first by the next
+ * match, instead of being put back behind the players who joined later.
+ * </p>
+ * <p>
+ * The queues are bounded: a player joining a full queue is refused, so
+ * that the players waiting, and so the time they wait, stay bounded.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Matchmaker matchmaker = new Matchmaker(6, 1 << 16, n -> GameReplay.newGame(seed++, n, input),
+ *         (game, tickets) -> host(game, tickets));
+ * matchmaker.join(new Matchmaker.Ticket("Luca", 'L', 4));    // from any thread
+ * matchmaker.match(64);                                      // on the matcher thread
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class Matchmaker {
+
+    /**
+     * The smallest number of players of a game.
+     */
+    public static final int MIN_PLAYERS = 2;
+
+    /**
+     * The players waiting, by number of players asked for, from {@link Matchmaker#MIN_PLAYERS}.
+     */
+    private final MpmcQueue<Ticket>[] queues;
+
+    /**
+     * Whether a matcher drains the queue of the same index, 1 if so.
+     */
+    private final AtomicIntegerArray draining;
+
+    /**
+     * The group short of players of every queue, null if none; touched only by the matcher draining the queue.
+     */
+    private final Ticket[][] carried;
+
+    /**
+     * The number of players of the group carried over by every queue.
+     */
+    private final AtomicIntegerArray carriedCount;
+
+    /**
+     * The factory of the games, given their number of players.
+     */
+    private final IntFunction<Game> games;
+
+    /**
+     * Told every game assembled, with the tickets of its players by seat.
+     */
+    private final BiConsumer<Game, Ticket[]> onMatched;
+
+    /**
+     * <p>
+     * Creates a matchmaker.
+     * </p>
+     *
+     * @param maxPlayers the largest number of players a game can be asked for
+     * @param capacity the number of players that can wait for every number of players
+     * @param games the factory of the games, given their number of players,
+     *              whose players are not seated yet
+     * @param onMatched told, on the matcher thread, every game assembled and
+     *                  the tickets of its players by seat
+     * @throws IllegalArgumentException if an argument is null, or the maximum is less than 2
+     */
+    @SuppressWarnings("unchecked")
+    public Matchmaker(final int maxPlayers, final int capacity, final IntFunction<Game> games,
+                      final BiConsumer<Game, Ticket[]> onMatched) {
+        if (maxPlayers < MIN_PLAYERS) throw new IllegalArgumentException("maxPlayers must be at least " + MIN_PLAYERS);
+        if (games == null) throw new IllegalArgumentException("games cannot be null");
+        if (onMatched == null) throw new IllegalArgumentException("onMatched cannot be null");
+        this.queues = (MpmcQueue<Ticket>[]) new MpmcQueue<?>[maxPlayers - MIN_PLAYERS + 1];
+        for (int i = 0; i < this.queues.length; i++) this.queues[i] = new MpmcQueue<>(capacity);
+        this.draining = new AtomicIntegerArray(this.queues.length);
+        this.carried = new Ticket[this.queues.length][];
+        this.carriedCount = new AtomicIntegerArray(this.queues.length);
+        this.games = games;
+        this.onMatched = onMatched;
+    }
+
+    /**
+     * <p>
+     * Makes a player wait for a game. Called by any thread.
+     * </p>
+     *
+     * @param ticket the ticket of the player
+     * @return true if the player waits, false if too many players wait for
+     * the same number of players
+     * @throws IllegalArgumentException if the ticket is null or asks for
+     * an unsupported number of players
+     */
+    public boolean join(final Ticket ticket) {
+        if (ticket == null) throw new IllegalArgumentException("ticket cannot be null");
+        if (ticket.players > this.getMaxPlayers()) {
+            throw new IllegalArgumentException("Games have at most " + this.getMaxPlayers() + " players");
+        }
+        return this.queues[ticket.players - MIN_PLAYERS].offer(ticket);
+    }
+
+    /**
+     * <p>
+     * Assembles games from the players waiting, as long as a queue holds
+     * enough of them. Called by the matcher threads.
+     * </p>
+     * <p>
+     * A queue another matcher is draining is skipped.
+     * </p>
+     *
+     * @param maxGames the largest number of games to assemble in this batch
+     * @return the number of games assembled
+     */
+    public int match(final int maxGames) {
+        int matched = 0;
+        for (int q = 0; q < this.queues.length && matched < maxGames; q++) {
+            if (!this.draining.compareAndSet(q, 0, 1)) continue;
+            try {
+                matched += this.drain(q, maxGames - matched);
+            } finally {
+                this.draining.set(q, 0);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * <p>
+     * Assembles games from the players of a queue, completing first the
+     * group it carries over. Called by the matcher draining the queue.
+     * </p>
+     *
+     * @param q the index of the queue
+     * @param maxGames the largest number of games to assemble
+     * @return the number of games assembled
+     */
+    private int drain(final int q, final int maxGames) {
+        final MpmcQueue<Ticket> queue = this.queues[q];
+        final int players = q + MIN_PLAYERS;
+        int matched = 0;
+        while (matched < maxGames) {
+            Ticket[] group = this.carried[q];
+            int taken = this.carriedCount.get(q);
+            if (group == null) {
+                if (queue.size() < players) break;
+                group = new Ticket[players];
+            }
+            while (taken < players && (group[taken] = queue.poll()) != null) taken++;
+            if (taken < players) {
+                // a player is still being added: the group waits for them
+                this.carried[q] = group;
+                this.carriedCount.set(q, taken);
+                break;
+            }
+            this.carried[q] = null;
+            this.carriedCount.set(q, 0);
+            this.assemble(group);
+            matched++;
+        }
+        return matched;
+    }
+
+    /**
+     * <p>
+     * Assembles the game of a group of players, and tells it.
+     * </p>
+     *
+     * @param group the tickets of the players, by seat
+     */
+    private void assemble(final Ticket[] group) {
+        final String[] names = new String[group.length];
+        final char[] symbols = new char[group.length];
+        for (int i = 0; i < group.length; i++) {
+            names[i] = group[i].name;
+            symbols[i] = group[i].symbol;
+            if (isTaken(symbols, i, symbols[i])) symbols[i] = freeSymbol(symbols, i, group);
+        }
+        final Game game = this.games.apply(group.length);
+        game.init(names, symbols);
+        this.onMatched.accept(game, group);
+    }
+
+    /**
+     * <p>
+     * Returns whether a symbol is taken by the first seats.
+     * </p>
+     *
+     * @param symbols the symbols of the seats
+     * @param seats the number of seats to look at
+     * @param symbol the symbol
+     * @return true if one of the seats has the symbol
+     */
+    private static boolean isTaken(final char[] symbols, final int seats, final char symbol) {
+        for (int i = 0; i < seats; i++) {
+            if (symbols[i] == symbol) return true;
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Returns the first letter neither taken by the seats before a seat nor
+     * asked for by the players after it.
+     * </p>
+     *
+     * @param symbols the symbols of the seats
+     * @param seat the seat in need of a symbol
+     * @param group the tickets of the players
+     * @return the symbol
+     */
+    private static char freeSymbol(final char[] symbols, final int seat, final Ticket[] group) {
+        char symbol = 'A';
+        while (true) {
+            boolean free = !isTaken(symbols, seat, symbol);
+            for (int i = seat + 1; i < group.length && free; i++) free = group[i].symbol != symbol;
+            if (free) return symbol;
+            symbol++;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of players waiting for a game of the given number of players.
+     * </p>
+     *
+     * @param players the number of players of the game
+     * @return the number of players waiting, exact only when nobody joins nor is matched
+     * @throws IllegalArgumentException if the number of players is not supported
+     */
+    public int getWaiting(final int players) {
+        if (players < MIN_PLAYERS || players > this.getMaxPlayers()) {
+            throw new IllegalArgumentException("Games have " + MIN_PLAYERS + " to " + this.getMaxPlayers() + " players");
+        }
+        return this.queues[players - MIN_PLAYERS].size() + this.carriedCount.get(players - MIN_PLAYERS);
+    }
+
+    /**
+     * <p>
+     * Returns the largest number of players a game can be asked for.
+     * </p>
+     *
+     * @return the largest number of players
+     */
+    public int getMaxPlayers() {
+        return this.queues.length + MIN_PLAYERS - 1;
+    }
+
+    /**
+     * <p>
+     * Ticket of a player waiting for a game.
+     * </p>
+     */
+    public static final class Ticket {
+
+        /**
+         * The name of the player.
+         */
+        private final String name;
+
+        /**
+         * The symbol the player would like.
+         */
+        private final char symbol;
+
+        /**
+         * The number of players of the game asked for.
+         */
+        private final int players;
+
+        /**
+         * When the player joined, in nanoseconds.
+         */
+        private final long joinedAt;
+
+        /**
+         * <p>
+         * Creates the ticket of a player, joining now.
+         * </p>
+         *
+         * @param name the name of the player
+         * @param symbol the symbol the player would like
+         * @param players the number of players of the game asked for
+         * @throws IllegalArgumentException if the name is blank or there are less than 2 players
+         */
+        public Ticket(final String name, final char symbol, final int players) {
+            if (name == null || name.isBlank()) throw new IllegalArgumentException("name cannot be blank");
+            if (players < MIN_PLAYERS) throw new IllegalArgumentException("A game needs at least " + MIN_PLAYERS + " players");
+            this.name = name;
+            this.symbol = symbol;
+            this.players = players;
+            this.joinedAt = System.nanoTime();
+        }
+
+        /**
+         * <p>
+         * Returns the name of the player.
+         * </p>
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * <p>
+         * Returns the symbol the player would like, which they get unless
+         * a player before them in the same game took it.
+         * </p>
+         *
+         * @return the symbol
+         */
+        public char getSymbol() {
+            return this.symbol;
+        }
+
+        /**
+         * <p>
+         * Returns the number of players of the game asked for.
+         * </p>
+         *
+         * @return the number of players
+         */
+        public int getPlayers() {
+            return this.players;
+        }
+
+        /**
+         * <p>
+         * Returns when the player joined, as given by {@link System#nanoTime()}.
+         * </p>
+         *
+         * @return the time, in nanoseconds
+         */
+        public long getJoinedAt() {
+            return this.joinedAt;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.ByteWriter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * The binary protocol spoken between a {@link GameServer} and its clients.
+ * </p>
+ * <p>
+ * Every message is a frame: the varint length of the payload, then the
+ * payload, whose first byte is the opcode. The clients send:
+ * </p>
+ * <ul>
+ *     <li>{@link Protocol#JOIN}: the varlong id of the table, the name and the
+ *     symbol of a player. The connection takes a free seat, or the seat of the
+ *     player with that symbol if nobody holds it. A connection can hold many
+ *     seats of the same table, or watch the table if all the seats are taken.</li>
+ *     <li>{@link Protocol#ROLL}: the current player, held by the connection, plays their turn.</li>
+ *     <li>{@link Protocol#BUY}: a byte, 1 if the players of the connection buy
+ *     the free proprieties they land on, 0 (the default) if they do not.</li>
+ *     <li>{@link Protocol#BUILD}: the varint board index of a propriety the
+ *     current player builds upon at the end of their next turn, if they can.</li>
+ *     <li>{@link Protocol#PASS}: the current player plays their turn declining every offer.</li>
+ * </ul>
+ * <p>
+ * The server answers:
+ * </p>
+ * <ul>
+ *     <li>{@link Protocol#JOINED}: the varlong id of the table and the varint seat plus one, 0 to watch.</li>
+ *     <li>{@link Protocol#SNAPSHOT}: the varlong id of the table, the varint number
+ *     of turns played and a full {@link ch.supsi.game.monopoly.persistence.GameSnapshot},
+ *     to everybody at the table when the game starts, and to whoever joins it later.</li>
+ *     <li>{@link Protocol#DELTA}: the varlong id of the table, the varint number
+ *     of the turn, the long {@link ch.supsi.game.monopoly.Game#getStateHash() hash}
+ *     of the state after it and the {@link ch.supsi.game.monopoly.persistence.TurnDelta}
+ *     of the turn, to everybody at the table.</li>
+ *     <li>{@link Protocol#ERROR}: a varint error code.</li>
+ * </ul>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class Protocol {
+
+    /**
+     * Client opcode: join a table.
+     */
+    public static final int JOIN = 1;
+
+    /**
+     * Client opcode: roll the dices.
+     */
+    public static final int ROLL = 2;
+
+    /**
+     * Client opcode: buy, or not, the free proprieties landed on.
+     */
+    public static final int BUY = 3;
+
+    /**
+     * Client opcode: build at the end of the next turn.
+     */
+    public static final int BUILD = 4;
+
+    /**
+     * Client opcode: play the turn declining every offer.
+     */
+    public static final int PASS = 5;
+
+    /**
+     * Server opcode: seat taken.
+     */
+    public static final int JOINED = 16;
+
+    /**
+     * Server opcode: full state of a table.
+     */
+    public static final int SNAPSHOT = 17;
+
+    /**
+     * Server opcode: state delta of a turn.
+     */
+    public static final int DELTA = 18;
+
+    /**
+     * Server opcode: error.
+     */
+    public static final int ERROR = 19;
+
+    /**
+     * Error: the message is malformed or unknown.
+     */
+    public static final int BAD_COMMAND = 1;
+
+    /**
+     * Error: the table does not exist.
+     */
+    public static final int NO_TABLE = 2;
+
+    /**
+     * Error: the connection has not joined a table, or does not hold the current player.
+     */
+    public static final int NOT_YOUR_TURN = 3;
+
+    /**
+     * Error: the game is not started yet, or is over.
+     */
+    public static final int NOT_PLAYING = 4;
+
+    /**
+     * Error: the symbol is taken by a player held by another connection.
+     */
+    public static final int SYMBOL_TAKEN = 5;
+
+    /**
+     * The largest payload accepted.
+     */
+    public static final int MAX_PAYLOAD = 1 << 16;
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private Protocol() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Writes a frame.
+     * </p>
+     *
+     * @param out the writer of the frame
+     * @param payload the payload
+     */
+    public static void writeFrame(final ByteWriter out, final ByteWriter payload) {
+        out.writeVarInt(payload.size());
+        out.writeBytes(payload.array(), 0, payload.size());
+    }
+
+    /**
+     * <p>
+     * Returns a frame holding the given payload.
+     * </p>
+     *
+     * @param payload the payload
+     * @return the bytes of the frame
+     */
+    public static byte[] frame(final ByteWriter payload) {
+        final ByteWriter out = new ByteWriter(payload.size() + 5);
+        writeFrame(out, payload);
+        return out.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Reads the header of the frame at the position of a buffer, if complete.
+     * </p>
+     * <p>
+     * If the whole frame is in the buffer, the buffer is positioned at the
+     * start of the payload; otherwise its position is left unchanged.
+     * </p>
+     *
+     * @param in the buffer, in read mode
+     * @return the length of the payload, -1 if the frame is not complete yet
+     * @throws IllegalArgumentException if the length is invalid
+     */
+    public static int readFrameLength(final ByteBuffer in) {
+        int at = in.position();
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (at >= in.limit()) return -1;
+            if (shift > 28) throw new IllegalArgumentException("Invalid frame length");
+            final int b = in.get(at++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        if (length < 1 || length > MAX_PAYLOAD) throw new IllegalArgumentException("Invalid frame length " + length);
+        if (in.limit() - at < length) return -1;
+        in.position(at);
+        return length;
+    }
+}
@@ -0,0 +1,109 @@
+package ch.supsi.game.monopoly.server;
+
+import java.lang.reflect.Method;
+
+/**
+ * <p>
+ * Starts the threads playing the tables: virtual threads when the runtime
+ * has them, small platform threads otherwise.
+ * </p>
+ * <p>
+ * The game is built for Java 17, where virtual threads do not exist: they
+ * are looked up by reflection, once, so the same build hosts hundreds of
+ * thousands of parked tables on a newer runtime, and a few thousand on an
+ * older one.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Thread thread = TableThreads.start("table-42", game::play);
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class TableThreads {
+
+    /**
+     * The stack size of the platform threads, enough for a turn.
+     */
+    private static final long STACK_SIZE = 256 * 1024;
+
+    /**
+     * {@code Thread.ofVirtual()}, null if the runtime has no virtual threads.
+     */
+    private static final Method OF_VIRTUAL;
+
+    /**
+     * {@code Thread.Builder.name(String)}.
+     */
+    private static final Method NAME;
+
+    /**
+     * {@code Thread.Builder.start(Runnable)}.
+     */
+    private static final Method START;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method start = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            start = builder.getMethod("start", Runnable.class);
+            // a preview feature of the runtime throws until enabled
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        START = start;
+    }
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private TableThreads() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Returns whether the tables are played by virtual threads.
+     * </p>
+     *
+     * @return true if the runtime has virtual threads
+     */
+    public static boolean isVirtual() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * <p>
+     * Starts a thread playing a table. A platform thread is a daemon, so it does not keep the JVM alive.
+     * </p>
+     *
+     * @param name the name of the thread
+     * @param task what the thread does
+     * @return the thread, started
+     */
+    public static Thread start(final String name, final Runnable task) {
+        if (OF_VIRTUAL != null) {
+            try {
+                return (Thread) START.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), task);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot start a virtual thread", e);
+            }
+        }
+        final Thread thread = new Thread(null, task, name, STACK_SIZE);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
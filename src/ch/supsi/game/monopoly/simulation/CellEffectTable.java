@@ -0,0 +1,399 @@
+package ch.supsi.game.monopoly.simulation;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.supsi.game.monopoly.Bank;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cells.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Table-driven implementation of the effects of the {@link Cell}s of a board,
+ * used when the game is simulated headless.
+ * </p>
+ * <p>
+ * The board of a {@link Game} is compiled once into a compact table, holding
+ * a type code and a parameter per cell index. The effect of a cell is then
+ * applied by a single {@code switch} on the type code, instead of a virtual
+ * call on one of the many {@link Cell} subclasses, and nothing is printed.
+ * </p>
+ * <p>
+ * The state that changes during the game (owners and rents of proprieties,
+ * the tax evasion cell being active) is still read from, and written to,
+ * the cells themselves, so the table stays valid for the whole game and
+ * its results are exactly the ones of {@link Cell#applyEffect(Player, Game)}.
+ * </p>
+ * <p>
+ * As the simulation cannot ask anything to the user, the choice of becoming
+ * a tax evader is taken by an evasion policy, which by default always refuses.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * CellEffectTable table = CellEffectTable.compile(game);  // compile the board of the game
+ * table.setEvasionPolicy(p -> p.getBalance() < 500);      // decide who evades taxes
+ * table.apply(player.getPosition(), player);              // apply the effect of the cell
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class CellEffectTable {
+
+    /**
+     * Type code of the cells without any effect ({@link ParkingCell}, {@link PrisonCell}).
+     */
+    public static final byte NONE = 0;
+
+    /**
+     * Type code of the {@link StartCell}; the parameter is the amount received.
+     */
+    public static final byte START = 1;
+
+    /**
+     * Type code of the {@link GoToPrisonCell}.
+     */
+    public static final byte GO_TO_PRISON = 2;
+
+    /**
+     * Type code of the {@link LuxuryTaxCell}; the parameter is the tax.
+     */
+    public static final byte LUXURY_TAX = 3;
+
+    /**
+     * Type code of the {@link WealthTaxCell}; the parameter is the percentage.
+     */
+    public static final byte WEALTH_TAX = 4;
+
+    /**
+     * Type code of the {@link ProprietyCell}; rent and owner are read from the cell.
+     */
+    public static final byte PROPRIETY = 5;
+
+    /**
+     * Type code of the {@link ChanceCell}.
+     */
+    public static final byte CHANCE = 6;
+
+    /**
+     * Type code of the {@link UnexpectedCell}.
+     */
+    public static final byte UNEXPECTED = 7;
+
+    /**
+     * Type code of the {@link TaxEvasionCell}; the active flag is read from the cell.
+     */
+    public static final byte TAX_EVASION = 8;
+
+    /**
+     * The game the table was compiled from.
+     */
+    private final Game game;
+
+    /**
+     * The bank of the game.
+     */
+    private final Bank bank;
+
+    /**
+     * The type code of every cell, by index.
+     */
+    private final byte[] types;
+
+    /**
+     * The static parameter of every cell, by index.
+     */
+    private final double[] params;
+
+    /**
+     * The proprieties of the board, by index; {@code null} for other cells.
+     */
+    private final ProprietyCell[] proprieties;
+
+    /**
+     * The tax evasion cells of the board, by index; {@code null} for other cells.
+     */
+    private final TaxEvasionCell[] evasionCells;
+
+    /**
+     * The index of every cell, given its de-colorized lower case title,
+     * used to resolve "goto" cards without scanning the board.
+     */
+    private final Map<String, Integer> indexByName;
+
+    /**
+     * The policy deciding if a player becomes a tax evader.
+     */
+    private Predicate<Player> evasionPolicy = player -> false;
+
+    /**
+     * <p>
+     * Private constructor, use {@link CellEffectTable#compile(Game)}.
+     * </p>
+     *
+     * @param game the game
+     * @param size the number of cells
+     */
+    private CellEffectTable(final Game game, final int size) {
+        this.game = game;
+        this.bank = game.getBank();
+        this.types = new byte[size];
+        this.params = new double[size];
+        this.proprieties = new ProprietyCell[size];
+        this.evasionCells = new TaxEvasionCell[size];
+        this.indexByName = new HashMap<>();
+    }
+
+    /**
+     * <p>
+     * Compiles the board of a game into a table.
+     * </p>
+     *
+     * @param game the game
+     * @return the compiled table
+     * @throws IllegalArgumentException if the game is null or the board contains unknown cells
+     */
+    public static CellEffectTable compile(final Game game) {
+        if (game == null) throw new IllegalArgumentException("game cannot be null");
+        final Cell[] cells = game.getBoard().getCells();
+        final CellEffectTable table = new CellEffectTable(game, cells.length);
+        for (int i = 0; i < cells.length; i++) {
+            table.compileCell(i, cells[i]);
+            table.indexByName.putIfAbsent(nameKey(cells[i].getTitle()), i);
+        }
+        return table;
+    }
+
+    /**
+     * <p>
+     * Compiles a single cell into the table.
+     * </p>
+     *
+     * @param i the index of the cell
+     * @param cell the cell
+     */
+    private void compileCell(final int i, final Cell cell) {
+        if (cell instanceof StartCell sc) {
+            this.types[i] = START;
+            this.params[i] = sc.getReceivedAmount();
+        } else if (cell instanceof GoToPrisonCell) {
+            this.types[i] = GO_TO_PRISON;
+        } else if (cell instanceof LuxuryTaxCell lc) {
+            this.types[i] = LUXURY_TAX;
+            this.params[i] = lc.getTax();
+        } else if (cell instanceof WealthTaxCell wc) {
+            this.types[i] = WEALTH_TAX;
+            this.params[i] = wc.getPercentage();
+        } else if (cell instanceof ProprietyCell pc) {
+            this.types[i] = PROPRIETY;
+            this.proprieties[i] = pc;
+        } else if (cell instanceof ChanceCell) {
+            this.types[i] = CHANCE;
+        } else if (cell instanceof UnexpectedCell) {
+            this.types[i] = UNEXPECTED;
+        } else if (cell instanceof TaxEvasionCell tc) {
+            this.types[i] = TAX_EVASION;
+            this.evasionCells[i] = tc;
+        } else if (cell instanceof ParkingCell || cell instanceof PrisonCell) {
+            this.types[i] = NONE;
+        } else {
+            throw new IllegalArgumentException("Unknown cell type: " + cell.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * <p>
+     * Sets the policy deciding if a player landing on the
+     * {@link TaxEvasionCell} becomes a tax evader.
+     * </p>
+     *
+     * @param evasionPolicy the policy
+     */
+    public void setEvasionPolicy(final Predicate<Player> evasionPolicy) {
+        if (evasionPolicy == null) throw new IllegalArgumentException("evasionPolicy cannot be null");
+        this.evasionPolicy = evasionPolicy;
+    }
+
+    /**
+     * <p>
+     * Returns the type code of the cell at the given index.
+     * </p>
+     *
+     * @param index the index of the cell
+     * @return the type code
+     */
+    public byte getType(final int index) {
+        return this.types[index];
+    }
+
+    /**
+     * <p>
+     * Returns the number of cells in the table.
+     * </p>
+     *
+     * @return the number of cells
+     */
+    public int size() {
+        return this.types.length;
+    }
+
+    /**
+     * <p>
+     * Applies the effect of the cell at the given index on a player.
+     * </p>
+     * <p>
+     * Behaves exactly as {@link Cell#applyEffect(Player, Game)} of the
+     * compiled cell, without printing anything.
+     * </p>
+     *
+     * @param index the index of the cell
+     * @param player the player to apply the effect on
+     */
+    public void apply(final int index, final Player player) {
+        switch (this.types[index]) {
+            case START:
+                player.receive(this.params[index]);
+                this.bank.withdraw(this.params[index]);
+                break;
+            case GO_TO_PRISON:
+                player.setPosition(Constant.PRISON_POSITION);
+                player.setInPrison(true);
+                break;
+            case LUXURY_TAX:
+                this.payTax(player, this.params[index]);
+                break;
+            case WEALTH_TAX:
+                this.payTax(player, player.getBalance() / this.params[index]);
+                break;
+            case PROPRIETY:
+                this.payRent(player, this.proprieties[index]);
+                break;
+            case CHANCE:
+                this.applyCard(player, this.game.pickCardFromChanceDeck());
+                break;
+            case UNEXPECTED:
+                this.applyCard(player, this.game.pickCardFromUnexpectedDeck());
+                break;
+            case TAX_EVASION:
+                this.offerEvasion(player, this.evasionCells[index]);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * <p>
+     * Makes the player pay a tax to the bank, unless they are an evader.
+     * </p>
+     *
+     * @param player the player
+     * @param tax the tax
+     */
+    private void payTax(final Player player, final double tax) {
+        if (player.isEvader()) {
+            player.incrementAmountEvaded(tax);
+            return;
+        }
+        player.pay(tax);
+        this.bank.deposit(tax);
+    }
+
+    /**
+     * <p>
+     * Makes the player pay the rent of a propriety, to its owner or to the bank.
+     * </p>
+     *
+     * @param player the player
+     * @param pc the propriety
+     */
+    private void payRent(final Player player, final ProprietyCell pc) {
+        final int rent = pc.getRent();
+        if (player.isEvader()) {
+            player.incrementAmountEvaded(rent);
+            return;
+        }
+        final Player owner = pc.getOwner();
+        if (owner != null) {
+            if (owner.equals(player)) return;
+            player.pay(rent);
+            owner.receive(rent);
+            this.game.getEventBus().rentPaid(player, player.getPosition(), rent);
+            return;
+        }
+        player.pay(rent);
+        this.bank.deposit(rent);
+        this.game.getEventBus().rentPaid(player, player.getPosition(), rent);
+    }
+
+    /**
+     * <p>
+     * Lets the evasion policy decide if the player becomes a tax evader.
+     * </p>
+     *
+     * @param player the player
+     * @param cell the tax evasion cell
+     */
+    private void offerEvasion(final Player player, final TaxEvasionCell cell) {
+        if (!cell.isActive()) return;
+        player.setEvader(this.evasionPolicy.test(player));
+        if (player.isEvader()) cell.setActive(false);
+    }
+
+    /**
+     * <p>
+     * Returns the key of a cell name in the index of the cells: without
+     * colours and lower-cased, so that a card finds its cell however the
+     * name is written.
+     * </p>
+     *
+     * @param name the name of the cell
+     * @return the key
+     */
+    private static String nameKey(final String name) {
+        return ANSIUtility.decolorize(name).toLowerCase();
+    }
+
+    /**
+     * <p>
+     * Applies the action of a card on the player.
+     * </p>
+     *
+     * @param player the player
+     * @param card the card picked
+     */
+    private void applyCard(final Player player, final Card card) {
+        if (card == null) return;
+        switch (card.getCardAction()) {
+            case GO_TO:
+                final int previousPosition = player.getPosition();
+                if (card.getCellName().equalsIgnoreCase("prison")) {
+                    player.setPosition(Constant.PRISON_POSITION);
+                    player.setInPrison(true);
+                } else {
+                    final Integer target = this.indexByName.get(nameKey(card.getCellName()));
+                    if (target != null) player.setPosition(target);
+                }
+                if (this.game.hasPlayerPassedStart() && this.game.hasPlayerPassedStartWithCards(previousPosition)) {
+                    player.receive(Constant.START_CELL_AMOUNT);
+                    this.bank.withdraw(Constant.START_CELL_AMOUNT);
+                }
+                break;
+            case PAY:
+                player.pay(card.getAmount());
+                this.bank.deposit(card.getAmount());
+                break;
+            case RECEIVE:
+                player.receive(card.getAmount());
+                this.bank.withdraw(card.getAmount());
+                break;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ANSIUtilityTest {
+
+    @Test
+    void decolorize() {
+        final String colored = ANSIUtility.colorize("Via Roma", ANSIUtility.RED) + " " +
+                ANSIUtility.colorize("A", ANSIUtility.BRIGHT_WHITE);
+        assertEquals("Via Roma A", ANSIUtility.decolorize(colored));
+        assertEquals(colored.replaceAll("\u001B\\[[\\d;]*[^\\d;]", ""), ANSIUtility.decolorize(colored));
+        final String plain = "Piazza Dante";
+        assertSame(plain, ANSIUtility.decolorize(plain));
+        assertEquals("\u001B[12", ANSIUtility.decolorize("\u001B[12"));
+    }
+
+    @Test
+    void visibleWidth() {
+        assertEquals(8, ANSIUtility.visibleWidth(ANSIUtility.colorize("Via Roma", ANSIUtility.RED)));
+        assertEquals(3, ANSIUtility.visibleWidth("⇧⇧⇧"));
+        assertEquals(1, ANSIUtility.visibleWidth("□"));
+        assertEquals(2, ANSIUtility.visibleWidth("😈"));
+        assertEquals(0, ANSIUtility.visibleWidth(""));
+    }
+
+    @Test
+    void appendPadded() {
+        final StringBuilder sb = new StringBuilder();
+        ANSIUtility.appendPadded(sb, ANSIUtility.colorize("⇧⇧", ANSIUtility.GREEN), 5);
+        assertEquals(ANSIUtility.colorize("⇧⇧", ANSIUtility.GREEN) + "   ", sb.toString());
+        sb.setLength(0);
+        ANSIUtility.appendPadded(sb, "too long", 3);
+        assertEquals("too long", sb.toString());
+    }
+
+    @Test
+    void equalsIgnoreCaseStripped() {
+        final String title = ANSIUtility.colorize("Piazza Dante", ANSIUtility.BLUE);
+        assertTrue(ANSIUtility.equalsIgnoreCaseStripped(title, "piazza dante"));
+        assertFalse(ANSIUtility.equalsIgnoreCaseStripped(title, "piazza"));
+        assertFalse(ANSIUtility.equalsIgnoreCaseStripped(title, "piazza dante est"));
+    }
+}
@@ -0,0 +1,42 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteWriterTest {
+
+    @Test
+    void roundTrip() {
+        final ByteWriter out = new ByteWriter(1);
+        out.writeVarInt(0).writeVarInt(127).writeVarInt(128).writeVarInt(-1);
+        out.writeVarLong(Long.MAX_VALUE).writeZigZag(-1).writeZigZag(Long.MIN_VALUE);
+        out.writeLong(0x0123456789ABCDEFL).writeString("Piazza Università").writeByte(200);
+        final ByteReader in = new ByteReader(out.toByteArray());
+        assertEquals(0, in.readVarInt());
+        assertEquals(127, in.readVarInt());
+        assertEquals(128, in.readVarInt());
+        assertEquals(-1, in.readVarInt());
+        assertEquals(Long.MAX_VALUE, in.readVarLong());
+        assertEquals(-1, in.readZigZag());
+        assertEquals(Long.MIN_VALUE, in.readZigZag());
+        assertEquals(0x0123456789ABCDEFL, in.readLong());
+        assertEquals("Piazza Università", in.readString());
+        assertEquals(200, in.readByte());
+        assertEquals(0, in.remaining());
+        assertThrows(IllegalArgumentException.class, in::readByte);
+    }
+
+    @Test
+    void smallValuesAreSmall() {
+        final ByteWriter out = new ByteWriter();
+        out.writeVarInt(127);
+        assertEquals(1, out.size());
+        out.writeZigZag(-64);
+        assertEquals(2, out.size());
+        out.writeVarInt(300);
+        assertEquals(4, out.size());
+        out.reset();
+        assertEquals(0, out.size());
+    }
+}
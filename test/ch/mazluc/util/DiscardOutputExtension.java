@@ -0,0 +1,40 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * <p>
+ * Extension making every test of a class print on a {@link DiscardSink}:
+ * the sink of the thread of the test, and of the threads it starts, so the
+ * tests running next to it keep their own output. A test can print on a
+ * sink of its own, such as a {@link CaptureSink}, with
+ * {@link ANSIUtility#setThreadSink(OutputSink)}: the thread prints on the
+ * shared sink again once the test is over.
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * @ExtendWith(DiscardOutputExtension.class)
+ * class GameTest {
+ *     ...
+ * }
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public class DiscardOutputExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(final ExtensionContext context) {
+        ANSIUtility.setThreadSink(DiscardSink.INSTANCE);
+    }
+
+    @Override
+    public void afterEach(final ExtensionContext context) {
+        ANSIUtility.setThreadSink(null);
+    }
+}
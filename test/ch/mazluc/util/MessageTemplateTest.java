@@ -0,0 +1,64 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class MessageTemplateTest {
+
+    private static String render(final MessageTemplate template, final Object... args) {
+        final OutputSink previous = ANSIUtility.getThreadSink();
+        final CaptureSink sink = new CaptureSink();
+        ANSIUtility.setThreadSink(sink);
+        try {
+            final MessageWriter writer = ANSIUtility.print(template);
+            for (Object arg : args) {
+                if (arg instanceof String s) writer.arg(s);
+                else if (arg instanceof Integer i) writer.arg(i.intValue());
+                else if (arg instanceof Long l) writer.arg(l.longValue());
+                else if (arg instanceof Double d) writer.arg(d.doubleValue());
+                else if (arg instanceof Character c) writer.arg(c.charValue());
+            }
+            writer.end();
+            return sink.getCaptured();
+        } finally {
+            ANSIUtility.setThreadSink(previous);
+        }
+    }
+
+    @Test
+    void matchesStringFormat() {
+        final String[] formats = {
+                "%s's Turn [Balance: %.2f]%n", "Dice %d rolled: %s%n", "Player %s (%c) created%n%n",
+                "Paid %s$ to %s%n", "%-20s: %.2f%n", "%2s. %s%n", "100%% %5d|%-5c|%.0f|%f"
+        };
+        final Object[][] args = {
+                {"Luca", 2000.0}, {1, 6}, {"Ivo", 'x'},
+                {96, "Andrea"}, {"Luca", -12.345}, {3, "Via Roma"}, {42L, 'c', 2.5, 0.1}
+        };
+        for (int i = 0; i < formats.length; i++) {
+            assertEquals(String.format(formats[i], args[i]), render(MessageTemplate.compile(formats[i]), args[i]));
+        }
+        final MessageTemplate money = MessageTemplate.compile("%.2f");
+        for (double d : new double[]{0, -0.0, 0.125, 19.999, -0.001, 1234567.891, 1e20}) {
+            assertEquals(String.format("%.2f", d), render(money, d));
+        }
+        assertEquals(String.format("%s", 96.5), render(MessageTemplate.compile("%s"), 96.5));
+    }
+
+    @Test
+    void invalidUsage() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("%x"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("%"));
+        assertThrows(IllegalArgumentException.class, () -> render(MessageTemplate.compile("%d"), "a"));
+        assertThrows(IllegalStateException.class, () -> render(MessageTemplate.compile("%d %d"), 1));
+        assertThrows(IllegalStateException.class, () -> render(MessageTemplate.compile("%d"), 1, 2));
+    }
+
+    @Test
+    void discarded() {
+        assertSame(MessageWriter.DISCARD, ANSIUtility.printcf(MessageTemplate.compile("%d"), ANSIUtility.RED));
+    }
+}
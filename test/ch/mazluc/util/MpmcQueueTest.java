@@ -0,0 +1,61 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpmcQueueTest {
+
+    @Test
+    void keepsOrderAndRefusesWhenFull() {
+        final MpmcQueue<Integer> queue = new MpmcQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) assertTrue(queue.offer(i));
+            assertFalse(queue.offer(4));
+            assertEquals(4, queue.size());
+            for (int i = 0; i < 4; i++) assertEquals(Integer.valueOf(i), queue.poll());
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void passesEveryElementOnceBetweenThreads() throws InterruptedException {
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 50_000;
+        final MpmcQueue<Integer> queue = new MpmcQueue<>(256);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        final Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            final int first = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!queue.offer(i)) Thread.yield();
+                }
+            });
+        }
+        final int[] taken = new int[consumers];
+        for (int c = 0; c < consumers; c++) {
+            final int consumer = c;
+            threads[producers + c] = new Thread(() -> {
+                while (taken[consumer] < perProducer * producers / consumers) {
+                    final Integer element = queue.poll();
+                    if (element == null) {
+                        Thread.yield();
+                    } else {
+                        seen.incrementAndGet(element);
+                        taken[consumer]++;
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join(30_000);
+        for (int i = 0; i < seen.length(); i++) assertEquals(1, seen.get(i), "element " + i);
+        assertTrue(queue.isEmpty());
+    }
+}
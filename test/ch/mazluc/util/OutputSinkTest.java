@@ -0,0 +1,65 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class OutputSinkTest {
+
+    @Test
+    void captureSink() {
+        final CaptureSink sink = new CaptureSink();
+        ANSIUtility.setThreadSink(sink);
+        ANSIUtility.printcf("%s %d", ANSIUtility.RED, "Dice", 6);
+        assertEquals(ANSIUtility.colorize("Dice 6", ANSIUtility.RED), sink.getCaptured());
+        sink.clear();
+        ANSIUtility.print("a");
+        ANSIUtility.println("b");
+        assertEquals("ab" + System.lineSeparator(), sink.getCaptured());
+    }
+
+    @Test
+    void threadSinks() throws InterruptedException {
+        final CaptureSink own = new CaptureSink();
+        final CaptureSink other = new CaptureSink();
+        ANSIUtility.setThreadSink(own);
+        ANSIUtility.print("a");
+        // a thread started afterwards inherits the sink, one setting its own keeps it apart
+        final Thread started = new Thread(() -> ANSIUtility.print("b"));
+        started.start();
+        started.join();
+        final Thread apart = new Thread(() -> {
+            ANSIUtility.setThreadSink(other);
+            ANSIUtility.print("c");
+        });
+        apart.start();
+        apart.join();
+        assertEquals("ab", own.getCaptured());
+        assertEquals("c", other.getCaptured());
+        assertSame(own, ANSIUtility.getThreadSink());
+    }
+
+    @Test
+    void bufferedTerminalSink() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BufferedTerminalSink sink = new BufferedTerminalSink(out);
+        sink.print("Hello");
+        sink.print(' ');
+        sink.print(new StringBuilder("World"));
+        assertEquals(0, out.size());
+        sink.flush();
+        assertEquals("Hello World", out.toString());
+        sink.flush();
+        assertEquals("Hello World", out.toString());
+    }
+
+    @Test
+    void discardSink() {
+        assertTrue(DiscardSink.INSTANCE.isDiscarding());
+        assertFalse(new CaptureSink().isDiscarding());
+    }
+}
@@ -0,0 +1,71 @@
+package ch.mazluc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEveryTimerOnItsTick() {
+        final TimingWheel wheel = new TimingWheel(1, 0);
+        final Random random = new Random(4);
+        final long[] delays = new long[2000];
+        final long[] fired = new long[delays.length];
+        final long[] now = {0};
+        for (int i = 0; i < delays.length; i++) {
+            // from the first level to beyond the span of the wheel
+            final int bits = 1 + random.nextInt(26);
+            delays[i] = 1 + random.nextInt(1 << bits);
+            final int timer = i;
+            wheel.schedule(delays[i], () -> fired[timer] = now[0]);
+        }
+        assertEquals(delays.length, wheel.size());
+        while (!wheel.isEmpty()) wheel.advance(++now[0]);
+        for (int i = 0; i < delays.length; i++) assertEquals(delays[i], fired[i], "timer " + i);
+    }
+
+    @Test
+    void firesAtMostOneTickLate() {
+        final TimingWheel wheel = new TimingWheel(10, 5);
+        final long[] fired = {-1};
+        wheel.schedule(25, () -> fired[0] = 1);
+        assertEquals(0, wheel.advance(34));
+        assertEquals(-1, fired[0]);
+        assertEquals(1, wheel.advance(35));
+        assertEquals(1, fired[0]);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    void cancelsTimers() {
+        final TimingWheel wheel = new TimingWheel(1, 0);
+        final int[] count = {0};
+        final TimingWheel.Timer[] timers = new TimingWheel.Timer[100];
+        for (int i = 0; i < timers.length; i++) timers[i] = wheel.schedule(i * 97L, () -> count[0]++);
+        for (int i = 0; i < timers.length; i += 2) assertTrue(timers[i].cancel());
+        assertFalse(timers[0].cancel());
+        assertEquals(50, wheel.size());
+        assertEquals(50, wheel.advance(100 * 97));
+        assertEquals(50, count[0]);
+        assertFalse(timers[1].isPending());
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    void runsTimersScheduledByTasks() {
+        final TimingWheel wheel = new TimingWheel(1, 0);
+        final long[] now = {0};
+        final long[] fired = new long[3];
+        wheel.schedule(70, () -> {
+            fired[0] = now[0];
+            wheel.schedule(5, () -> fired[1] = now[0]);
+            final TimingWheel.Timer late = wheel.schedule(3, () -> fired[2] = now[0]);
+            wheel.schedule(1, late::cancel);
+        });
+        while (now[0] < 100) wheel.advance(++now[0]);
+        assertArrayEquals(new long[]{70, 75, 0}, fired);
+    }
+}
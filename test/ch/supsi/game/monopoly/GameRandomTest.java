@@ -0,0 +1,43 @@
+package ch.supsi.game.monopoly;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRandomTest {
+
+    @Test
+    void sameValuesAsRandom() {
+        final Random expected = new Random(42);
+        final GameRandom random = new GameRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(expected.nextInt(1, 7), random.nextInt(1, 7));
+            assertEquals(expected.nextLong(), random.nextLong());
+        }
+    }
+
+    @Test
+    void stateRestored() {
+        final GameRandom random = new GameRandom(7);
+        random.nextInt();
+        final long state = random.getState();
+        final int first = random.nextInt(1000);
+        random.nextInt();
+        random.setState(state);
+        assertEquals(first, random.nextInt(1000));
+        assertThrows(IllegalArgumentException.class, () -> random.setState(-1));
+    }
+
+    @Test
+    void advanceSkipsDraws() {
+        final GameRandom drawn = new GameRandom(11);
+        for (int i = 0; i < 1000; i++) drawn.nextInt(6);
+        final GameRandom advanced = new GameRandom(11);
+        advanced.advance(drawn.getDraws());
+        assertEquals(drawn.getDraws(), advanced.getDraws());
+        assertEquals(drawn.getState(), advanced.getState());
+        assertEquals(drawn.nextLong(), advanced.nextLong());
+    }
+}
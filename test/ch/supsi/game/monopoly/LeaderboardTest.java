@@ -0,0 +1,60 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.event.GameEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void ranking() {
+        final int n = 16;
+        final GameEventBus bus = new GameEventBus();
+        final Leaderboard leaderboard = new Leaderboard(n);
+        bus.register(leaderboard);
+        final Player[] players = new Player[n];
+        for (int i = 0; i < n; i++) {
+            players[i] = new Player("P" + i, (char) ('A' + i));
+            players[i].setEventBus(bus);
+            leaderboard.add(players[i]);
+            players[i].receive(1000);
+            assertEquals(i, players[i].getSeat());
+        }
+        assertEquals(n, leaderboard.getAliveCount());
+        final Random random = new Random(3);
+        for (int t = 0; t < 10000; t++) {
+            final Player player = players[random.nextInt(n)];
+            if (random.nextBoolean()) player.pay(random.nextInt(1, 300));
+            else player.receive(random.nextInt(1, 300));
+            int alive = 0;
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    assertTrue(leaderboard.getByBalance(i - 1).getBalance() >= leaderboard.getByBalance(i).getBalance());
+                    assertTrue(leaderboard.getNetWorth(leaderboard.getByNetWorth(i - 1)) >=
+                            leaderboard.getNetWorth(leaderboard.getByNetWorth(i)));
+                }
+                if (players[i].getBalance() > 0) alive++;
+                assertEquals(players[i].getBalance() > 0, leaderboard.isAlive(players[i]));
+            }
+            assertEquals(alive, leaderboard.getAliveCount());
+        }
+        players[0].receive(100000);
+        players[0].setBankrupt(true);
+        bus.bankrupted(players[0]);
+        assertFalse(leaderboard.isAlive(players[0]));
+        assertSame(players[0], leaderboard.getByBalance(0));
+    }
+
+    @Test
+    void initializedGameHasEveryPlayerAlive() {
+        final Game game = new Game(4);
+        game.init(new String[]{"P1", "P2", "P3", "P4"}, new char[]{'A', 'B', 'C', 'D'});
+        assertEquals(4, game.getLeaderboard().getAliveCount());
+        for (Player player : game.getPlayers()) {
+            assertTrue(game.getLeaderboard().isAlive(player));
+        }
+    }
+}
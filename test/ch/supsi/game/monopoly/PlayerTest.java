@@ -1,5 +1,10 @@
 package ch.supsi.game.monopoly;
 
+import ch.mazluc.util.ANSIUtility;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.cells.ProprietyName;
+import ch.supsi.game.monopoly.event.GameEventBus;
+import ch.supsi.game.monopoly.event.GameEventListener;
 import org.junit.jupiter.api.Test;
 
 import java.util.Random;
@@ -59,4 +64,69 @@ class PlayerTest {
             assertTrue(player.getBalance() < amount);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void events() {
+        final Player player = new Player("Test", 't');
+        final GameEventBus bus = new GameEventBus();
+        final int[] fired = new int[4];
+        bus.register(new GameEventListener() {
+            @Override
+            public void onMoved(Player p, int from, int to) {
+                assertSame(player, p);
+                assertEquals((from + 3) % Constant.BOARD_SIZE, to);
+                fired[0]++;
+            }
+
+            @Override
+            public void onPaid(Player p, double amount) {
+                fired[1]++;
+            }
+
+            @Override
+            public void onReceived(Player p, double amount) {
+                fired[2]++;
+            }
+
+            @Override
+            public void onJailed(Player p) {
+                fired[3]++;
+            }
+        });
+        player.setEventBus(bus);
+        player.move(3);
+        player.receive(100);
+        player.pay(50);
+        player.pay(0);
+        player.setInPrison(true);
+        player.setInPrison(true);
+        assertArrayEquals(new int[]{1, 1, 1, 1}, fired);
+        assertThrows(IllegalStateException.class, () -> GameEventBus.NONE.register(new GameEventListener() {}));
+    }
+
+    @Test
+    void ownedProprieties() {
+        final Player player = new Player("Test", 't');
+        final int[] indexes = {12, 3, 27, 8, 39, 1, 20, 15, 33, 5};
+        double value = 0;
+        for (int index : indexes) {
+            final ProprietyCell pc = new ProprietyCell(new ProprietyName("P" + index, ANSIUtility.RED), 10, index, 5, 7);
+            player.addPropriety(index, pc);
+            player.addPropriety(index, pc);
+            value += index;
+        }
+        assertEquals(indexes.length, player.getOwnedCount());
+        for (int i = 1; i < player.getOwnedCount(); i++) {
+            assertTrue(player.getOwnedIndex(i - 1) < player.getOwnedIndex(i));
+            assertEquals(player.getOwnedIndex(i), (int) player.getOwnedPropriety(i).getPurchasePrice());
+        }
+        player.getOwnedPropriety(0).addBuilding(player);
+        assertEquals(value + 5, player.getProprietiesValue());
+        assertTrue(player.getProprietiesListing().startsWith("1 "));
+        assertSame(player.getProprietiesListing(), player.getProprietiesListing());
+        player.clearProprieties();
+        assertEquals(0, player.getOwnedCount());
+        assertEquals("", player.getProprietiesListing());
+        assertFalse(player.canBuild());
+    }
+}
@@ -0,0 +1,54 @@
+package ch.supsi.game.monopoly;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.CaptureSink;
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.input.TranscriptInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class ScannerUtilsTest {
+
+    @Test
+    void transcript() {
+        final CaptureSink sink = new CaptureSink();
+        ANSIUtility.setThreadSink(sink);
+        final ScannerUtils scannerUtils = new ScannerUtils(new TranscriptInputProvider(
+                List.of("", "abc", "9", "3 4", "maybe", "Y", " ", "Luca", "xy", "L", "")));
+        assertEquals(3, scannerUtils.readIntInRange(1, 6, "Number: "));
+        assertTrue(sink.getCaptured().contains("Error: input is not a number."));
+        assertTrue(sink.getCaptured().contains("Error: number not in range."));
+        assertTrue(scannerUtils.readBoolean());
+        assertEquals("Luca", scannerUtils.readNonBlankString("Name: "));
+        assertEquals('L', scannerUtils.readNonBlankChar("Symbol: "));
+        scannerUtils.readKey("Press enter...");
+        assertThrows(NoSuchElementException.class, () -> scannerUtils.readKey("Press enter..."));
+    }
+
+    @Test
+    void promptsAgainAfterBlankLine() {
+        final CaptureSink sink = new CaptureSink();
+        ANSIUtility.setThreadSink(sink);
+        final ScannerUtils scannerUtils = new ScannerUtils(new TranscriptInputProvider(List.of("", " ", "2")));
+        assertEquals(2, scannerUtils.readIntInRange(1, 6, "Number: "));
+        assertEquals("Number: Number: Number: ", sink.getCaptured());
+    }
+
+    @Test
+    void scriptedGame() {
+        ANSIUtility.setThreadSink(new CaptureSink());
+        final TranscriptInputProvider input = new TranscriptInputProvider(List.of(
+                "", "A", "a", "B", "b", "C", "c", "D", "d", "2", "", "4", ""));
+        final Game game = new Game(new Board(new Random(1)), Constant.PLAYER_NUMBER, input, new Random(1));
+        game.start();
+        assertEquals(0, input.remaining());
+        assertEquals(Constant.PLAYER_NUMBER, game.getLeaderboard().getAliveCount());
+    }
+}
@@ -0,0 +1,72 @@
+package ch.supsi.game.monopoly;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.bot.AlwaysBuyStrategy;
+import ch.supsi.game.monopoly.bot.BotController;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.input.IdleWork;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class SpeculatorTest {
+
+    private static void speculate(final Speculator speculator) {
+        final IdleWork work = speculator.restart();
+        int steps = 0;
+        while (work.step()) steps++;
+        assertTrue(steps > 0);
+    }
+
+    @Test
+    void valuesTheNextRollAndSavesAtTheStartOfTurns() {
+        final Game game = GameReplay.newGame(4, 3, prompt -> "");
+        game.init(new String[]{"P1", "P2", "P3"}, new char[]{'A', 'B', 'C'});
+        game.setController(new BotController(new AlwaysBuyStrategy()));
+        final Speculator speculator = game.getSpeculator();
+        assertNull(speculator.getAutosave());
+        game.begin();
+        speculate(speculator);
+
+        final byte[] saved = speculator.getAutosave();
+        assertNotNull(saved);
+        assertEquals(game.getStateHash(), GameSnapshot.load(saved, prompt -> "").getStateHash());
+        final int position = game.getCurrentPlayer().getPosition();
+        for (int sum = 2; sum <= 12; sum++) {
+            if (game.getBoard().getCell((position + sum) % Constant.BOARD_SIZE) instanceof ProprietyCell pc
+                    && pc.getOwner() == null) {
+                assertEquals(Speculator.valuePurchase(pc, 2), speculator.getPurchaseValuation(pc));
+            }
+        }
+
+        // another prompt in the same turn keeps the save
+        speculate(speculator);
+        assertSame(saved, speculator.getAutosave());
+        game.step();
+        speculate(speculator);
+        assertFalse(Arrays.equals(saved, speculator.getAutosave()));
+        assertEquals(game.getStateHash(), GameSnapshot.load(speculator.getAutosave(), prompt -> "").getStateHash());
+    }
+
+    @Test
+    void savesAtTheFirstPromptHoweverSoonTheUserAnswers() {
+        final Game game = GameReplay.newGame(9, 3, prompt -> "");
+        game.init(new String[]{"P1", "P2", "P3"}, new char[]{'A', 'B', 'C'});
+        game.setController(new BotController(new AlwaysBuyStrategy()));
+        final Speculator speculator = game.getSpeculator();
+        game.begin();
+        // the user answers before any step is done
+        speculator.restart();
+        final byte[] saved = speculator.getAutosave();
+        assertNotNull(saved);
+        assertEquals(game.getStateHash(), GameSnapshot.load(saved, prompt -> "").getStateHash());
+        speculator.restart();
+        assertSame(saved, speculator.getAutosave());
+    }
+}
@@ -0,0 +1,105 @@
+package ch.supsi.game.monopoly;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.Deck;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.TaxEvasionCell;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import ch.supsi.game.monopoly.persistence.TurnDelta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class StateHashTest {
+
+    @Test
+    void followsEveryTurn() {
+        final Game game = new Game(new Board(new Random(9)), Constant.PLAYER_NUMBER,
+                new ScriptedInputProvider(400), new GameRandom(9));
+        final Game[] replica = new Game[1];
+        final TurnDelta[] delta = new TurnDelta[1];
+        final ByteWriter out = new ByteWriter();
+        final Set<Long> hashes = new HashSet<>();
+        final int[] turns = {0};
+        game.getEventBus().register(new GameEventListener() {
+            @Override
+            public void onGameStarted() {
+                assertEquals(game.computeStateHash(), game.getStateHash());
+                replica[0] = GameSnapshot.load(GameSnapshot.save(game), new ScriptedInputProvider(0));
+                assertEquals(game.getStateHash(), replica[0].getStateHash());
+                delta[0] = new TurnDelta(game);
+            }
+
+            @Override
+            public void onTurnEnded(final Player player) {
+                turns[0]++;
+                assertEquals(game.computeStateHash(), game.getStateHash(), "turn " + turns[0]);
+                out.reset();
+                delta[0].encode(out);
+                TurnDelta.apply(replica[0], new ByteReader(out.array(), 0, out.size()));
+                assertEquals(game.getStateHash(), replica[0].getStateHash(), "turn " + turns[0]);
+                hashes.add(game.getStateHash());
+            }
+        });
+        game.start();
+        assertTrue(turns[0] > 100);
+        assertEquals(turns[0], hashes.size());
+        assertEquals(game.computeStateHash(), game.getStateHash());
+    }
+
+    @Test
+    void dependsOnStateOnly() throws Exception {
+        final StateHash hash = new StateHash();
+        final Player player = new Player("Luca", 'L');
+        player.setSeat(0);
+        player.setStateHash(hash);
+        final long start = hash.get();
+        player.move(7);
+        player.receive(120);
+        assertNotEquals(start, hash.get());
+        player.move(Constant.BOARD_SIZE - 7);
+        player.pay(120);
+        assertEquals(start, hash.get());
+        player.setStateHash(StateHash.NONE);
+        assertEquals(0, hash.get());
+
+        final Deck deck = new Deck("Probabilita.txt");
+        deck.setStateHash(hash);
+        final long full = hash.get();
+        final int size = deck.size();
+        for (int i = 0; i < size; i++) {
+            final Card card = deck.pick();
+            assertNotEquals(full, hash.get());
+            deck.putBack(card);
+        }
+        assertEquals(full, hash.get());
+    }
+
+    @Test
+    void followsTaxEvasionCells() {
+        final Game game = TestGames.seated(9, Constant.PLAYER_NUMBER);
+        TaxEvasionCell cell = null;
+        for (Cell c : game.getBoard().getCells()) {
+            if (c instanceof TaxEvasionCell tc) cell = tc;
+        }
+        assertNotNull(cell);
+        final long start = game.getStateHash();
+        assertEquals(game.computeStateHash(), start);
+        cell.setActive(false);
+        assertNotEquals(start, game.getStateHash());
+        assertEquals(game.computeStateHash(), game.getStateHash());
+        cell.setActive(true);
+        assertEquals(start, game.getStateHash());
+    }
+}
@@ -0,0 +1,67 @@
+package ch.supsi.game.monopoly;
+
+import ch.supsi.game.monopoly.input.InputProvider;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+
+/**
+ * <p>
+ * The games the tests play: built by {@link GameReplay#newGame(long, int, InputProvider)},
+ * so they are determined by their seed, and seated with the players
+ * "Bot 1", "Bot 2"... whose symbols are 'A', 'B'...
+ * </p>
+ * <b>Usage</b>:
+ * <pre>
+ * {@code
+ * Game game = TestGames.seated(5, 4);
+ * }
+ * </pre>
+ *
+ * @author Luca Mazza
+ * @version 1.5.0
+ */
+public final class TestGames {
+
+    /**
+     * <p>
+     * Private constructor for utility class.
+     * </p>
+     */
+    private TestGames() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * <p>
+     * Builds a game with its players seated, answering every prompt with an empty line.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @return the game, not started
+     */
+    public static Game seated(final long seed, final int playersNumber) {
+        return seated(seed, playersNumber, prompt -> "");
+    }
+
+    /**
+     * <p>
+     * Builds a game with its players seated.
+     * </p>
+     *
+     * @param seed the seed of the board and of the dices
+     * @param playersNumber the number of players
+     * @param input the source of the user's input
+     * @return the game, not started
+     */
+    public static Game seated(final long seed, final int playersNumber, final InputProvider input) {
+        final Game game = GameReplay.newGame(seed, playersNumber, input);
+        final String[] names = new String[playersNumber];
+        final char[] symbols = new char[playersNumber];
+        for (int i = 0; i < playersNumber; i++) {
+            names[i] = "Bot " + (i + 1);
+            symbols[i] = (char) ('A' + i);
+        }
+        game.init(names, symbols);
+        return game;
+    }
+}
@@ -0,0 +1,108 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.TestGames;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class BotStrategyTest {
+
+    /**
+     * Returns the index of the first propriety of a color of three, which can be built upon.
+     */
+    private static int firstOfColorOfThree(final Game game) {
+        final Cell[] cells = game.getBoard().getCells();
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] instanceof ProprietyCell pc && pc.isBuildable() && Player.getColorSize(pc.getColor()) == 3) {
+                return i;
+            }
+        }
+        throw new AssertionError("No color of three");
+    }
+
+    private static int indexOf(final Game game, final Cell cell) {
+        return game.getBoard().indexOf(cell);
+    }
+
+    private static void give(final Game game, final Player player, final ProprietyCell pc) {
+        pc.setOwner(player);
+        player.addPropriety(indexOf(game, pc), pc);
+    }
+
+    @Test
+    void decidesOnCashAndReturn() {
+        final Game game = TestGames.seated(5, 4);
+        final Player player = game.getPlayers()[0];
+        final ProprietyCell pc = (ProprietyCell) game.getBoard().getCell(firstOfColorOfThree(game));
+        final double balance = player.getBalance();
+
+        assertTrue(new AlwaysBuyStrategy().buy(game, player, pc));
+        assertTrue(new AlwaysBuyStrategy().evade(game, player));
+        assertTrue(new CashThresholdStrategy(0).buy(game, player, pc));
+        assertFalse(new CashThresholdStrategy(balance - pc.getPurchasePrice() + 1).buy(game, player, pc));
+        assertFalse(new CashThresholdStrategy(0).evade(game, player));
+        assertTrue(new CashThresholdStrategy(balance + 1).evade(game, player));
+
+        final double valuation = pc.getRent() * 3 / pc.getPurchasePrice();
+        assertTrue(new RoiStrategy(valuation, 0).buy(game, player, pc));
+        assertFalse(new RoiStrategy(valuation * 1.01, 0).buy(game, player, pc));
+        assertFalse(new RoiStrategy(0, balance).buy(game, player, pc));
+        assertFalse(new RoiStrategy(0, 0).evade(game, player));
+        assertThrows(IllegalArgumentException.class, () -> new RoiStrategy(-1, 0));
+    }
+
+    @Test
+    void collectsWholeColors() {
+        final Game game = TestGames.seated(5, 3);
+        final Player player = game.getPlayers()[0];
+        final Player opponent = game.getPlayers()[1];
+        final ProprietyCell first = (ProprietyCell) game.getBoard().getCell(firstOfColorOfThree(game));
+        final ProprietyCell[] color = game.getBoard().getAllProprietiesOfColor(first.getColor())
+                .toArray(new ProprietyCell[0]);
+        assertEquals(3, color.length);
+        final ColorCompletionStrategy strategy = new ColorCompletionStrategy(0);
+
+        assertTrue(strategy.buy(game, player, color[0]));
+        give(game, opponent, color[0]);
+        assertEquals(1, opponent.getOwnedOfColor(first.getColor()));
+        // the opponent holds the color: not worth it, unless they would complete it
+        assertFalse(strategy.buy(game, player, color[1]));
+        give(game, opponent, color[1]);
+        assertTrue(strategy.buy(game, player, color[2]));
+
+        final Game other = TestGames.seated(5, 2);
+        final Player builder = other.getPlayers()[0];
+        final ProprietyCell start = (ProprietyCell) other.getBoard().getCell(firstOfColorOfThree(other));
+        for (Cell cell : other.getBoard().getAllProprietiesOfColor(start.getColor())) {
+            give(other, builder, (ProprietyCell) cell);
+        }
+        final Cell[] options = builder.getBuildOptions(other.getBoard());
+        assertTrue(options.length >= 3);
+        ((ProprietyCell) options[0]).setBuildingLevel(1);
+        final int choice = strategy.build(other, builder, options);
+        assertEquals(0, ((ProprietyCell) options[choice]).getBuildingLevel());
+        assertEquals(-1, new ColorCompletionStrategy(builder.getBalance()).build(other, builder, options));
+        assertEquals(0, new AlwaysBuyStrategy().build(other, builder, options));
+    }
+
+    @Test
+    void botsPlayWholeGames() {
+        final Game game = TestGames.seated(5, 4);
+        final BotController controller = new BotController(2000, new AlwaysBuyStrategy(),
+                new CashThresholdStrategy(300), new RoiStrategy(0.05, 200), new ColorCompletionStrategy(200));
+        game.setController(controller);
+        game.play();
+        assertFalse(game.isRunning());
+        assertTrue(controller.getOptions() <= 2001);
+        int owned = 0;
+        for (Player player : game.getPlayers()) owned += player.getOwnedCount();
+        assertTrue(owned > 0 || game.getLeaderboard().getAliveCount() <= 1);
+    }
+}
@@ -0,0 +1,79 @@
+package ch.supsi.game.monopoly.bot;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.TestGames;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class MctsStrategyTest {
+
+    private static final long BUDGET = 2_000_000;
+
+    @Test
+    void searchesWithoutTouchingTheGame() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final Game game = TestGames.seated(8, 3);
+            final BotController warm = new BotController(30, new AlwaysBuyStrategy());
+            game.setController(warm);
+            game.begin();
+            while (warm.getOptions() < 30 && game.step()) {
+                // a few turns, to have owners and money moved
+            }
+            ProprietyCell free = null;
+            for (Cell cell : game.getBoard().getCells()) {
+                if (cell instanceof ProprietyCell pc && pc.getOwner() == null) free = pc;
+            }
+            assertNotNull(free);
+            final Player player = game.getCurrentPlayer();
+            final byte[] before = GameSnapshot.saveState(game);
+            final long hash = game.getStateHash();
+
+            final MctsStrategy mcts = new MctsStrategy(pool, BUDGET, 20, 1);
+            assertEquals(2, mcts.getWorkers());
+            mcts.buy(game, player, free);
+            final long playouts = mcts.getPlayouts();
+            assertTrue(playouts >= 2, playouts + " playouts");
+            assertEquals(hash, game.getStateHash());
+            assertArrayEquals(before, GameSnapshot.saveState(game));
+
+            final Cell[] none = new Cell[0];
+            assertEquals(-1, mcts.build(game, player, none));
+            assertEquals(playouts, mcts.getPlayouts());
+            assertFalse(mcts.evade(game, player));
+            assertThrows(IllegalArgumentException.class, () -> new MctsStrategy(pool, 0, 20, 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void playsWholeGamesAgainstOtherBots() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final Game game = TestGames.seated(13, 3);
+            final MctsStrategy mcts = new MctsStrategy(pool, BUDGET, 20, 7);
+            final BotController controller = new BotController(300, mcts,
+                    new RoiStrategy(0.05, 200), new ColorCompletionStrategy(200));
+            game.setController(controller);
+            game.begin();
+            while (game.step()) {
+                // the search runs at every buy and build decision of the first seat
+            }
+            assertFalse(game.isRunning());
+            assertTrue(mcts.getPlayouts() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ch.supsi.game.monopoly.cells;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Player;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProprietyCellTest {
+
+    @Test
+    void rentSchedule() {
+        final ProprietyCell pc = new ProprietyCell(new ProprietyName("Via Roma", ANSIUtility.GREEN), 100, 300, 80, 120);
+        final Player player = new Player("Test", 't');
+        player.receive(10000);
+        assertEquals(Constant.MAX_NUMBER_HOUSES + 1, pc.getMaxBuildingLevel());
+        for (int i = 1; i <= Constant.MAX_NUMBER_HOUSES; i++) {
+            pc.addBuilding(player);
+            assertEquals(i, pc.getBuildingLevel());
+            assertEquals(100 + i * Constant.PROPRIETY_HOUSE_RENT_INCREASE, pc.getRent());
+        }
+        assertEquals(10000 - Constant.MAX_NUMBER_HOUSES * 80, player.getBalance());
+        pc.addBuilding(player);
+        assertEquals("□", pc.showBuildings());
+        assertEquals(pc.getRent(Constant.MAX_NUMBER_HOUSES) + Constant.PROPRIETY_HOTEL_RENT_INCREASE, pc.getRent());
+        assertEquals(10000 - Constant.MAX_NUMBER_HOUSES * 80 - 120, player.getBalance());
+        pc.addBuilding(player);
+        assertEquals(pc.getMaxBuildingLevel(), pc.getBuildingLevel());
+        pc.removeBuilding();
+        assertEquals(pc.getRent(Constant.MAX_NUMBER_HOUSES), pc.getRent());
+        pc.removeBuildings();
+        assertEquals(100, pc.getRent());
+        pc.removeBuilding();
+        assertEquals(0, pc.getBuildingLevel());
+        assertThrows(IllegalArgumentException.class, () -> pc.setBuildingLevel(pc.getMaxBuildingLevel() + 1));
+    }
+
+    @Test
+    void notBuildable() {
+        final ProprietyCell station = new ProprietyCell(
+                new ProprietyName("North Station", ANSIUtility.DEFAULT), 100, 300, 80, 120, false);
+        final Player player = new Player("Test", 't');
+        player.receive(1000);
+        station.addBuilding(player);
+        assertEquals(0, station.getBuildingLevel());
+        assertEquals(100, station.getRent());
+        assertEquals(1000, player.getBalance());
+        assertEquals("", station.getBuildingPrice());
+    }
+}
@@ -0,0 +1,164 @@
+package ch.supsi.game.monopoly.event;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class GameEventPublisherTest {
+
+    private static final int TURNS = 150;
+
+    /**
+     * Subscriber recording the events, requesting a batch of them at a time.
+     */
+    private static final class Recorder implements Flow.Subscriber<GameEvent> {
+
+        private final List<GameEvent> events = new ArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final long batch;
+        private Flow.Subscription subscription;
+        private long left;
+        private Throwable error;
+        private boolean completed;
+
+        Recorder(final long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.left = this.batch;
+            subscription.request(this.batch);
+        }
+
+        @Override
+        public void onNext(final GameEvent item) {
+            this.events.add(item);
+            if (--this.left == 0 && this.batch != 1) {
+                this.left = this.batch;
+                this.subscription.request(this.batch);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+            this.terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+            this.terminated.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(this.terminated.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static long published(final List<GameEvent> events) {
+        long count = 0;
+        for (GameEvent event : events) count += event.getType() == GameEvent.Type.DROPPED ? event.getDropped() : 1;
+        return count;
+    }
+
+    @Test
+    void deliversEveryEventInBatches() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Game game = GameReplay.newGame(3, Constant.PLAYER_NUMBER, new ScriptedInputProvider(TURNS));
+            final GameEventPublisher publisher = new GameEventPublisher(game, executor, 1 << 16);
+            final Recorder recorder = new Recorder(16);
+            publisher.subscribe(recorder);
+            assertEquals(1, publisher.getNumberOfSubscribers());
+            final int[] fired = {0};
+            game.getEventBus().register(new GameEventListener() {
+                @Override
+                public void onTurnEnded(final Player player) {
+                    fired[0]++;
+                }
+            });
+            game.start();
+            recorder.await();
+            assertTrue(recorder.completed);
+            assertEquals(0, publisher.getNumberOfSubscribers());
+            final List<GameEvent> events = recorder.events;
+            assertEquals(GameEvent.Type.GAME_ENDED, events.get(events.size() - 1).getType());
+            int turns = 0;
+            int started = 0;
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(i, events.get(i).getSequence());
+                assertNotEquals(GameEvent.Type.DROPPED, events.get(i).getType());
+                if (events.get(i).getType() == GameEvent.Type.TURN_ENDED) turns++;
+                if (events.get(i).getType() == GameEvent.Type.GAME_STARTED) started++;
+            }
+            assertEquals(1, started);
+            assertTrue(turns > 0);
+            assertEquals(fired[0], turns);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void dropsEventsOfSlowSubscriberOnly() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Game game = GameReplay.newGame(3, Constant.PLAYER_NUMBER, new ScriptedInputProvider(TURNS));
+            final GameEventPublisher publisher = new GameEventPublisher(game, executor, 8);
+            final Recorder fast = new Recorder(Long.MAX_VALUE);
+            final Recorder slow = new Recorder(1);
+            publisher.subscribe(fast);
+            publisher.subscribe(slow);
+            game.start();
+            fast.await();
+            assertTrue(fast.completed);
+            // the slow subscriber holds one event and its full ring, until it asks for the rest
+            assertFalse(slow.completed);
+            slow.subscription.request(Long.MAX_VALUE);
+            slow.await();
+            assertTrue(slow.completed);
+            final GameEvent gap = slow.events.get(slow.events.size() - 1);
+            assertEquals(GameEvent.Type.DROPPED, gap.getType());
+            assertEquals(slow.events.size() - 1, gap.getSequence());
+            assertTrue(slow.events.size() <= 1 + publisher.getBufferSize() + 1);
+            assertEquals(published(fast.events), published(slow.events));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveRequest() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Game game = GameReplay.newGame(3, Constant.PLAYER_NUMBER, new ScriptedInputProvider(TURNS));
+            final GameEventPublisher publisher = new GameEventPublisher(game, executor, 8);
+            final Recorder recorder = new Recorder(0);
+            publisher.subscribe(recorder);
+            recorder.await();
+            assertInstanceOf(IllegalArgumentException.class, recorder.error);
+            assertEquals(0, publisher.getNumberOfSubscribers());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
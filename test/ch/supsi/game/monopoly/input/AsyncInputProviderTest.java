@@ -0,0 +1,75 @@
+package ch.supsi.game.monopoly.input;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncInputProviderTest {
+
+    @Test
+    void worksWhileWaiting() {
+        final CountDownLatch typed = new CountDownLatch(1);
+        final AsyncInputProvider input = new AsyncInputProvider(prompt -> {
+            try {
+                typed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "y";
+        });
+        final AtomicInteger steps = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        input.setIdleWork(() -> new IdleWork() {
+            @Override
+            public boolean step() {
+                if (steps.incrementAndGet() == 100) typed.countDown();
+                return true;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.incrementAndGet();
+            }
+        });
+        assertEquals("y", input.readLine("Y/n: "));
+        assertTrue(steps.get() >= 100);
+        assertEquals(1, cancelled.get());
+        input.close();
+    }
+
+    @Test
+    void finishedWorkIsNotCancelled() {
+        final CountDownLatch done = new CountDownLatch(1);
+        final TranscriptInputProvider transcript = new TranscriptInputProvider(List.of("1"));
+        final AsyncInputProvider input = new AsyncInputProvider(prompt -> {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return transcript.readLine(prompt);
+        });
+        final AtomicInteger cancelled = new AtomicInteger();
+        input.setIdleWork(() -> new IdleWork() {
+            @Override
+            public boolean step() {
+                done.countDown();
+                return false;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.incrementAndGet();
+            }
+        });
+        assertEquals("1", input.readLine("Option: "));
+        assertEquals(0, cancelled.get());
+        assertThrows(NoSuchElementException.class, () -> input.readLine("Option: "));
+        input.close();
+    }
+}
@@ -0,0 +1,118 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class GameJournalTest {
+
+    private static List<byte[]> journal(final Game game, final long gameId, final JournalWriter writer) {
+        new GameJournal(game, gameId, writer, 8);
+        final List<byte[]> states = new ArrayList<>();
+        game.getEventBus().register(new GameEventListener() {
+            @Override
+            public void onTurnEnded(final Player player) {
+                states.add(GameSnapshot.saveState(game));
+            }
+        });
+        return states;
+    }
+
+    @Test
+    void recoversLastTurn() throws Exception {
+        final Path path = Files.createTempFile("journal", ".bin");
+        try {
+            final Game game = GameReplay.newGame(11, Constant.PLAYER_NUMBER, new ScriptedInputProvider(60));
+            final List<byte[]> states;
+            try (JournalWriter writer = new JournalWriter(path, 2, false)) {
+                states = journal(game, 7, writer);
+                game.start();
+            }
+            assertFalse(states.isEmpty());
+            final Game recovered = GameJournal.recover(path, 7, new ScriptedInputProvider(0));
+            assertArrayEquals(states.get(states.size() - 1), GameSnapshot.saveState(recovered));
+
+            try (JournalWriter writer = new JournalWriter(path, 2, false)) {
+                final GameJournal resumed = GameJournal.resume(path, 7, new ScriptedInputProvider(0), writer, 8);
+                assertEquals(states.size(), resumed.getTurn());
+                assertArrayEquals(states.get(states.size() - 1), GameSnapshot.saveState(resumed.getGame()));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void recoversFromTruncatedJournal() throws Exception {
+        final Path path = Files.createTempFile("journal", ".bin");
+        try {
+            final Game game = GameReplay.newGame(23, Constant.PLAYER_NUMBER, new ScriptedInputProvider(40));
+            final List<byte[]> states;
+            try (JournalWriter writer = new JournalWriter(path, 2, false)) {
+                states = journal(game, 3, writer);
+                game.start();
+            }
+            final JournalReader reader = JournalReader.open(path);
+            int lastTurn = -1;
+            while (reader.next()) {
+                if (reader.getKind() == GameJournal.TURN) lastTurn = reader.getFrameOffset();
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(lastTurn + 5);
+            }
+            final byte[] recovered = GameSnapshot.saveState(GameJournal.recover(path, 3, new ScriptedInputProvider(0)));
+            assertArrayEquals(states.get(states.size() - 2), recovered);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void sharesCommitsAmongGames() throws Exception {
+        final Path path = Files.createTempFile("journal", ".bin");
+        try {
+            final int games = 6;
+            final List<List<byte[]>> states = new ArrayList<>();
+            final JournalWriter writer = new JournalWriter(path, 20, true);
+            try (writer) {
+                final Thread[] threads = new Thread[games];
+                for (int g = 0; g < games; g++) {
+                    final Game game = GameReplay.newGame(100 + g, Constant.PLAYER_NUMBER,
+                            new ScriptedInputProvider(30));
+                    states.add(journal(game, g, writer));
+                    threads[g] = new Thread(game::start);
+                    threads[g].start();
+                }
+                for (Thread thread : threads) thread.join();
+            }
+            final long commits = writer.getCommits();
+            int frames = 0;
+            final JournalReader reader = JournalReader.open(path);
+            while (reader.next()) frames++;
+            assertEquals(Files.size(path), reader.getValidLength());
+            assertTrue(commits * 4 < frames, commits + " commits for " + frames + " frames");
+            for (int g = 0; g < games; g++) {
+                final List<byte[]> turns = states.get(g);
+                assertArrayEquals(turns.get(turns.size() - 1),
+                        GameSnapshot.saveState(GameJournal.recover(path, g, new ScriptedInputProvider(0))));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.input.InputProvider;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class GameReplayTest {
+
+    private static final int INTERVAL = 25;
+
+    private static GameRecorder record(final long seed, final InputProvider input) {
+        final GameRecorder recorder = new GameRecorder(seed, Constant.PLAYER_NUMBER, input, INTERVAL);
+        recorder.getGame().start();
+        return recorder;
+    }
+
+    @Test
+    void replaysRecordedGame() {
+        final GameRecorder recorder = record(7, new ScriptedInputProvider(300));
+        final byte[] data = recorder.toRecord().encode();
+        final GameRecord record = GameRecord.decode(data);
+        assertTrue(record.getCheckpointCount() > 2);
+        assertTrue(data.length < 100 + 8 * record.getCheckpointCount(), data.length + " bytes");
+        final GameReplay.Result result = GameReplay.replay(record);
+        assertTrue(result.isFaithful(), result.toString());
+        assertEquals(record.getTurns(), result.getTurns());
+        assertArrayEquals(GameSnapshot.saveState(recorder.getGame()), GameSnapshot.saveState(result.getGame()));
+    }
+
+    @Test
+    void reportsChangedDecision() {
+        final GameRecord original = record(11, new ScriptedInputProvider(300)).toRecord();
+        // the same game, but the players stop buying after 60 turns
+        final GameRecord.Encoder encoder = new GameRecord.Encoder();
+        final InputProvider changed = new ScriptedInputProvider(300, 60);
+        record(11, prompt -> {
+            final String line = changed.readLine(prompt);
+            encoder.add(prompt, line);
+            return line;
+        });
+        final long[] checkpoints = new long[original.getCheckpointCount()];
+        for (int i = 0; i < checkpoints.length; i++) checkpoints[i] = original.getCheckpoint(i);
+        final GameRecord tampered = new GameRecord(original.getSeed(), original.getPlayersNumber(), INTERVAL,
+                original.getTurns(), checkpoints, original.getFinalHash(),
+                encoder.getDecisions(), encoder.getRepeats(), encoder.getAnswers());
+        final GameReplay.Result result = GameReplay.replay(GameRecord.decode(tampered.encode()));
+        assertFalse(result.isFaithful());
+        assertTrue(result.getLastMatchingTurn() >= 50, result.toString());
+        assertEquals(result.getLastMatchingTurn() + INTERVAL, result.getDivergedTurn());
+        assertNotEquals(result.getExpectedHash(), result.getActualHash());
+    }
+
+    @Test
+    void reportsFirstDivergentCheckpoint() {
+        final GameRecord record = record(5, new ScriptedInputProvider(300)).toRecord();
+        final long[] checkpoints = new long[record.getCheckpointCount()];
+        for (int i = 0; i < checkpoints.length; i++) checkpoints[i] = record.getCheckpoint(i);
+        checkpoints[2] = ~checkpoints[2];
+        final byte[] data = record.encode();
+        // a record without checkpoints ends with their count, the final hash and no decisions
+        final byte[] header = new GameRecord(record.getSeed(), record.getPlayersNumber(), INTERVAL,
+                record.getTurns(), new long[0], 0, 0, new byte[0], new byte[0]).encode();
+        final int at = header.length - 9 + 8 * 2;
+        for (int i = 0; i < 8; i++) data[at + i] = (byte) ~data[at + i];
+        final GameReplay.Result result = GameReplay.replay(GameRecord.decode(data));
+        assertFalse(result.isFaithful());
+        assertEquals(2 * INTERVAL, result.getLastMatchingTurn());
+        assertEquals(3 * INTERVAL, result.getDivergedTurn());
+        assertEquals(checkpoints[2], result.getExpectedHash());
+    }
+}
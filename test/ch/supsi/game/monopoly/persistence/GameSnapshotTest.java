@@ -0,0 +1,101 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Dice;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.TestGames;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.cells.TaxEvasionCell;
+import ch.supsi.game.monopoly.input.TranscriptInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class GameSnapshotTest {
+
+    private static void play(final Game game, final int turns) {
+        final Cell[] cells = game.getBoard().getCells();
+        for (int t = 0; t < turns; t++) {
+            final Player player = game.getPlayers()[t % game.getPlayers().length];
+            int sum = 0;
+            for (Dice dice : game.getDices()) {
+                dice.roll();
+                sum += dice.getCurrentValue();
+            }
+            player.move(sum);
+            if (cells[player.getPosition()] instanceof ProprietyCell pc) {
+                if (pc.getOwner() == null) {
+                    player.pay(pc.getPurchasePrice());
+                    game.getBank().deposit(pc.getPurchasePrice());
+                    pc.setOwner(player);
+                    player.addPropriety(player.getPosition(), pc);
+                } else if (pc.getOwner() == player && pc.isBuildable()) {
+                    pc.addBuilding(player);
+                } else {
+                    player.pay(pc.getRent());
+                    pc.getOwner().receive(pc.getRent());
+                }
+            }
+            if (t % 5 == 0) game.pickCardFromChanceDeck();
+            if (t % 7 == 0) game.pickCardFromUnexpectedDeck();
+        }
+        game.getPlayers()[1].setInPrison(true);
+        game.getPlayers()[2].setEvader(true);
+        game.getPlayers()[2].incrementAmountEvaded(12.345);
+        for (Cell cell : cells) {
+            if (cell instanceof TaxEvasionCell tc) tc.setActive(false);
+        }
+    }
+
+    @Test
+    void roundTrip() {
+        final Game game = TestGames.seated(5, Constant.PLAYER_NUMBER);
+        play(game, 60);
+        final byte[] saved = GameSnapshot.save(game);
+        assertTrue(saved.length < 400, "snapshot of " + saved.length + " bytes");
+        final Game loaded = GameSnapshot.load(saved, new TranscriptInputProvider(List.of()));
+        assertArrayEquals(saved, GameSnapshot.save(loaded));
+        assertEquals(game.getBoard().toString(), loaded.getBoard().toString());
+        for (int i = 0; i < game.getPlayers().length; i++) {
+            final Player expected = game.getPlayers()[i];
+            final Player actual = loaded.getPlayers()[i];
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getBalance(), actual.getBalance());
+            assertEquals(expected.getAmountEvaded(), actual.getAmountEvaded());
+            assertEquals(expected.getProprietiesListing(), actual.getProprietiesListing());
+            assertEquals(expected.canBuild(), actual.canBuild());
+            assertEquals(game.getLeaderboard().getByNetWorth(i).getName(),
+                    loaded.getLeaderboard().getByNetWorth(i).getName());
+        }
+        assertEquals(game.getLeaderboard().getAliveCount(), loaded.getLeaderboard().getAliveCount());
+        play(game, 30);
+        play(loaded, 30);
+        assertArrayEquals(GameSnapshot.save(game), GameSnapshot.save(loaded));
+    }
+
+    @Test
+    void restoreState() {
+        final Game game = TestGames.seated(9, Constant.PLAYER_NUMBER);
+        play(game, 40);
+        final byte[] state = GameSnapshot.saveState(game);
+        assertTrue(state.length < 160, "state of " + state.length + " bytes");
+        final String board = game.getBoard().toString();
+        play(game, 40);
+        final byte[] later = GameSnapshot.saveState(game);
+        GameSnapshot.restore(game, state);
+        assertArrayEquals(state, GameSnapshot.saveState(game));
+        assertEquals(board, game.getBoard().toString());
+        play(game, 40);
+        assertArrayEquals(later, GameSnapshot.saveState(game));
+        final Game other = TestGames.seated(10, Constant.PLAYER_NUMBER);
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshot.restore(other, state));
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshot.load(state, new TranscriptInputProvider(List.of())));
+    }
+}
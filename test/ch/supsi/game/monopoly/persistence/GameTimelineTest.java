@@ -0,0 +1,111 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class GameTimelineTest {
+
+    private static final int INTERVAL = 8;
+
+    private static List<byte[]> record(final Game game, final List<byte[]> states) {
+        game.getEventBus().register(new GameEventListener() {
+            @Override
+            public void onGameStarted() {
+                if (states.isEmpty()) states.add(GameSnapshot.saveState(game));
+            }
+
+            @Override
+            public void onTurnEnded(final Player player) {
+                states.add(GameSnapshot.saveState(game));
+            }
+        });
+        return states;
+    }
+
+    private static void deleteSegments(final Path path) throws Exception {
+        for (Path segment : JournalWriter.segments(path)) Files.delete(segment);
+    }
+
+    @Test
+    void seeksAnyTurnAcrossSegments() throws Exception {
+        final Path path = Files.createTempFile("timeline", ".bin");
+        try {
+            final Game game = new Game(new Board(new Random(31)), Constant.PLAYER_NUMBER,
+                    new ScriptedInputProvider(70), new GameRandom(31));
+            final List<byte[]> states = new ArrayList<>();
+            try (JournalWriter writer = new JournalWriter(path, 1, false, 1024)) {
+                new GameJournal(game, 9, writer, INTERVAL);
+                record(game, states);
+                game.start();
+            }
+            assertTrue(JournalWriter.segments(path).size() > 1);
+            assertThrows(IllegalArgumentException.class,
+                    () -> new JournalWriter(path, 1, false, Integer.MAX_VALUE + 1L));
+            final GameTimeline timeline = GameTimeline.open(path, 9);
+            assertEquals(states.size() - 1, timeline.getLastTurn());
+            assertTrue(timeline.getCheckpoints() > timeline.getLastTurn() / INTERVAL);
+            for (int turn = 0; turn <= timeline.getLastTurn(); turn++) {
+                assertTrue(turn - timeline.getCheckpoint(turn) < INTERVAL);
+                assertArrayEquals(states.get(turn),
+                        GameSnapshot.saveState(timeline.at(turn, new ScriptedInputProvider(0))), "turn " + turn);
+            }
+            assertThrows(IllegalArgumentException.class,
+                    () -> timeline.at(timeline.getLastTurn() + 1, new ScriptedInputProvider(0)));
+        } finally {
+            deleteSegments(path);
+        }
+    }
+
+    @Test
+    void resumesAfterTornFrame() throws Exception {
+        final Path path = Files.createTempFile("timeline", ".bin");
+        try {
+            final Game game = new Game(new Board(new Random(47)), Constant.PLAYER_NUMBER,
+                    new ScriptedInputProvider(20), new GameRandom(47));
+            final List<byte[]> states = new ArrayList<>();
+            try (JournalWriter writer = new JournalWriter(path, 1, false)) {
+                new GameJournal(game, 5, writer, INTERVAL);
+                record(game, states);
+                game.start();
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+            final int lastTurn = GameTimeline.open(path, 5).getLastTurn();
+            final List<byte[]> resumedStates = new ArrayList<>(states.subList(0, lastTurn + 1));
+            try (JournalWriter writer = new JournalWriter(path, 1, false)) {
+                final GameJournal journal = GameJournal.resume(path, 5, new ScriptedInputProvider(15),
+                        writer, INTERVAL);
+                record(journal.getGame(), resumedStates);
+                journal.getGame().play();
+            }
+            final GameTimeline timeline = GameTimeline.open(path, 5);
+            assertEquals(resumedStates.size() - 1, timeline.getLastTurn());
+            for (int turn = 0; turn <= timeline.getLastTurn(); turn++) {
+                assertArrayEquals(resumedStates.get(turn),
+                        GameSnapshot.saveState(timeline.at(turn, new ScriptedInputProvider(0))), "turn " + turn);
+            }
+        } finally {
+            deleteSegments(path);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ch.supsi.game.monopoly.persistence;
+
+import ch.mazluc.util.ByteReader;
+import ch.mazluc.util.ByteWriter;
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.GameRandom;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.event.GameEventListener;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class TurnDeltaTest {
+
+    @Test
+    void replicaFollowsGame() {
+        final Game game = new Game(new Board(new Random(3)), Constant.PLAYER_NUMBER,
+                new ScriptedInputProvider(400), new GameRandom(3));
+        final Game[] replica = new Game[1];
+        final TurnDelta[] delta = new TurnDelta[1];
+        final ByteWriter out = new ByteWriter();
+        final long[] bytes = new long[2];
+        game.getEventBus().register(new GameEventListener() {
+            @Override
+            public void onGameStarted() {
+                replica[0] = GameSnapshot.load(GameSnapshot.save(game), new ScriptedInputProvider(0));
+                delta[0] = new TurnDelta(game);
+            }
+
+            @Override
+            public void onTurnEnded(final Player player) {
+                out.reset();
+                delta[0].encode(out);
+                bytes[0] += out.size();
+                bytes[1]++;
+                final ByteReader in = new ByteReader(out.array(), 0, out.size());
+                TurnDelta.apply(replica[0], in);
+                assertEquals(0, in.remaining());
+                assertArrayEquals(GameSnapshot.saveState(game), GameSnapshot.saveState(replica[0]), "turn " + bytes[1]);
+            }
+        });
+        game.start();
+        assertTrue(bytes[1] > 100);
+        assertTrue(bytes[0] < 10 * bytes[1], bytes[0] + " bytes for " + bytes[1] + " turns");
+    }
+}
@@ -0,0 +1,270 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+
+    private static final int PLAYERS = 4;
+
+    private static int until(final GameClient client, final int opcode) throws IOException {
+        int received;
+        do {
+            received = client.receive();
+        } while (received != opcode && received != Protocol.ERROR);
+        return received;
+    }
+
+    private static GameClient[] seat(final GameServer server, final long table) throws IOException {
+        final GameClient[] clients = new GameClient[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            clients[i] = new GameClient("localhost", server.getPort());
+            clients[i].buy(true);
+            clients[i].join(table, "Bot " + (i + 1), (char) ('A' + i));
+            assertEquals(Protocol.JOINED, until(clients[i], Protocol.JOINED));
+            assertTrue(clients[i].holds(i));
+        }
+        for (GameClient client : clients) assertEquals(Protocol.SNAPSHOT, until(client, Protocol.SNAPSHOT));
+        return clients;
+    }
+
+    private static void onLoop(final EventLoop loop, final Runnable task) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        loop.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void play(final GameClient[] clients, final int turn) throws IOException {
+        final Game replica = clients[0].getGame();
+        clients[replica.getIndexOfCurrentPlayer()].roll();
+        for (GameClient client : clients) {
+            assertEquals(Protocol.DELTA, until(client, Protocol.DELTA));
+            assertEquals(turn + 1, client.getTurn());
+        }
+    }
+
+    @Test
+    void playsTablesOverLoopback() throws IOException {
+        playTables(Hosting.EVENT_LOOP);
+    }
+
+    @Test
+    void playsTablesOnTheirThreads() throws IOException {
+        playTables(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void playTables(final Hosting hosting) throws IOException {
+        try (GameServer server = new GameServer(0, 2, hosting)) {
+            server.start();
+            final long[] tables = new long[3];
+            final GameClient[][] clients = new GameClient[tables.length][];
+            for (int t = 0; t < tables.length; t++) {
+                tables[t] = server.openTable(t + 1, PLAYERS);
+                clients[t] = seat(server, tables[t]);
+            }
+            for (int turn = 0; turn < 60; turn++) {
+                for (GameClient[] table : clients) {
+                    if (table[0].getGame().isRunning()) play(table, turn);
+                }
+            }
+            for (GameClient[] table : clients) {
+                final byte[] state = GameSnapshot.saveState(table[0].getGame());
+                for (GameClient client : table) {
+                    assertArrayEquals(state, GameSnapshot.saveState(client.getGame()));
+                    client.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidCommands() throws IOException {
+        rejectInvalidCommands(Hosting.EVENT_LOOP);
+        rejectInvalidCommands(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void rejectInvalidCommands(final Hosting hosting) throws IOException {
+        try (GameServer server = new GameServer(0, 2, hosting)) {
+            server.start();
+            final long table = server.openTable(5, PLAYERS);
+            try (GameClient stranger = new GameClient("localhost", server.getPort())) {
+                stranger.join(table + 100, "Nobody", 'Z');
+                assertEquals(Protocol.ERROR, until(stranger, Protocol.JOINED));
+                assertEquals(Protocol.NO_TABLE, stranger.getLastError());
+            }
+            final GameClient[] clients = seat(server, table);
+            final int current = clients[0].getGame().getIndexOfCurrentPlayer();
+            final GameClient other = clients[(current + 1) % PLAYERS];
+            other.roll();
+            assertEquals(Protocol.ERROR, until(other, Protocol.DELTA));
+            assertEquals(Protocol.NOT_YOUR_TURN, other.getLastError());
+            try (GameClient thief = new GameClient("localhost", server.getPort())) {
+                thief.join(table, "Thief", 'A');
+                assertEquals(Protocol.ERROR, until(thief, Protocol.JOINED));
+                assertEquals(Protocol.SYMBOL_TAKEN, thief.getLastError());
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+
+    @Test
+    void letsLateClientsWatch() throws IOException {
+        watchLate(Hosting.EVENT_LOOP);
+        watchLate(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void watchLate(final Hosting hosting) throws IOException {
+        try (GameServer server = new GameServer(0, 3, hosting)) {
+            server.start();
+            final long table = server.openTable(9, PLAYERS);
+            final GameClient[] clients = seat(server, table);
+            for (int turn = 0; turn < 5; turn++) play(clients, turn);
+            try (GameClient watcher = new GameClient("localhost", server.getPort())) {
+                watcher.join(table, "Watcher", 'W');
+                assertEquals(Protocol.JOINED, until(watcher, Protocol.JOINED));
+                assertEquals(0, watcher.getSeats());
+                assertEquals(Protocol.SNAPSHOT, until(watcher, Protocol.SNAPSHOT));
+                assertEquals(5, watcher.getTurn());
+                final GameClient[] all = {clients[0], clients[1], clients[2], clients[3], watcher};
+                for (int turn = 5; turn < 20; turn++) play(all, turn);
+                assertArrayEquals(GameSnapshot.saveState(clients[0].getGame()),
+                        GameSnapshot.saveState(watcher.getGame()));
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+
+    @Test
+    void passesWhenDecisionTimesOut() throws IOException {
+        timeOut(Hosting.EVENT_LOOP);
+        timeOut(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void timeOut(final Hosting hosting) throws IOException {
+        try (GameServer server = new GameServer(0, 2, hosting)) {
+            server.setDecisionTimeout(20);
+            server.start();
+            final GameClient[] clients = seat(server, server.openTable(13, PLAYERS));
+            // nobody asks for a turn: every deadline expires, and the players pass
+            for (int turn = 0; turn < 8; turn++) {
+                for (GameClient client : clients) assertEquals(Protocol.DELTA, until(client, Protocol.DELTA));
+            }
+            for (Cell cell : clients[0].getGame().getBoard().getCells()) assertNull(cell.getOwner());
+            for (GameClient client : clients) {
+                assertEquals(8, client.getTurn());
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    void dropsSlowSpectatorsToSnapshot() throws IOException {
+        lag(Hosting.EVENT_LOOP);
+        lag(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void lag(final Hosting hosting) throws IOException {
+        try (GameServer server = new GameServer(0, 2, hosting)) {
+            server.setQueueLimit(512);
+            server.setSendBuffer(4096);
+            server.start();
+            // a long game: the players buy and never go bankrupt in the turns played
+            final long table = server.openTable(54, PLAYERS);
+            final GameClient[] clients = seat(server, table);
+            try (GameClient spectator = new GameClient("localhost", server.getPort(), 1024)) {
+                spectator.join(table, "Spectator", 'S');
+                assertEquals(Protocol.SNAPSHOT, until(spectator, Protocol.SNAPSHOT));
+                // the spectator reads nothing while the table plays on
+                for (int turn = 0; turn < 1500 && clients[0].getGame().isRunning(); turn++) play(clients, turn);
+                while (spectator.getTurn() < clients[0].getTurn()) spectator.receive();
+                assertTrue(spectator.getSnapshots() > 1, spectator.getSnapshots() + " snapshots");
+                assertArrayEquals(GameSnapshot.saveState(clients[0].getGame()),
+                        GameSnapshot.saveState(spectator.getGame()));
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+
+    @Test
+    void survivesFailingTasks() throws IOException, InterruptedException {
+        final Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        final Queue<Throwable> reported = new ConcurrentLinkedQueue<>();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try (GameServer server = new GameServer(0, 1, Hosting.EVENT_LOOP)) {
+            server.start();
+            final EventLoop loop = server.nextLoop();
+            loop.execute(() -> {
+                throw new IllegalStateException("failing task");
+            });
+            loop.execute(() -> loop.schedule(0, () -> {
+                throw new IllegalStateException("failing deadline");
+            }));
+            // the loop goes on playing its tables
+            final GameClient[] clients = seat(server, server.openTable(1, PLAYERS));
+            for (int turn = 0; turn < 10; turn++) play(clients, turn);
+            for (GameClient client : clients) client.close();
+            for (int i = 0; i < 100 && reported.size() < 2; i++) Thread.sleep(10);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        assertEquals(2, reported.size());
+    }
+
+    @Test
+    void survivesWritesFailingDuringBroadcast() throws IOException, InterruptedException {
+        failWrite(Hosting.EVENT_LOOP);
+        failWrite(Hosting.THREAD_PER_TABLE);
+    }
+
+    private static void failWrite(final Hosting hosting) throws IOException, InterruptedException {
+        try (GameServer server = new GameServer(0, 1, hosting)) {
+            server.start();
+            final EventLoop loop = server.nextLoop();
+            final long table = server.openTable(9, PLAYERS);
+            final GameClient[] clients = seat(server, table);
+            play(clients, 0);
+            final Set<Object> seated = new HashSet<>();
+            onLoop(loop, () -> {
+                for (SelectionKey key : loop.getSelector().keys()) seated.add(key.attachment());
+            });
+            try (GameClient watcher = new GameClient("localhost", server.getPort())) {
+                watcher.join(table, "Watcher", 'W');
+                assertEquals(Protocol.SNAPSHOT, until(watcher, Protocol.SNAPSHOT));
+                // the next write to the watcher fails, closing it in the middle of the broadcast
+                onLoop(loop, () -> {
+                    for (SelectionKey key : loop.getSelector().keys()) {
+                        if (seated.contains(key.attachment())) continue;
+                        try {
+                            ((SocketChannel) key.channel()).shutdownOutput();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+                for (int turn = 1; turn < 6; turn++) play(clients, turn);
+            }
+            for (GameClient client : clients) client.close();
+        }
+    }
+}
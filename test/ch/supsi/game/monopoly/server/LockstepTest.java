@@ -0,0 +1,150 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.PlayerController;
+import ch.supsi.game.monopoly.TestGames;
+import ch.supsi.game.monopoly.cells.Cell;
+import ch.supsi.game.monopoly.cells.ProprietyCell;
+import ch.supsi.game.monopoly.persistence.GameSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class LockstepTest {
+
+    private static final int PLAYERS = 4;
+
+    private static final int HASH_INTERVAL = 10;
+
+    /**
+     * Rolls and buys whatever it can, and quits after the given number of options.
+     */
+    private static PlayerController bot(final int options) {
+        return new PlayerController() {
+            private int chosen;
+
+            @Override
+            public int chooseOption(final Game game, final Player player) {
+                return ++this.chosen > options ? PlayerController.QUIT : PlayerController.ROLL;
+            }
+
+            @Override
+            public boolean buy(final Game game, final Player player, final ProprietyCell cell) {
+                return true;
+            }
+
+            @Override
+            public int build(final Game game, final Player player, final Cell[] options) {
+                return 0;
+            }
+
+            @Override
+            public boolean evade(final Game game, final Player player) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Connects a replica to the leader over loopback, and follows the game on another thread.
+     */
+    private static Thread follow(final ServerSocketChannel server, final LockstepLeader leader,
+                                 final AtomicReference<LockstepReplica> replica,
+                                 final AtomicReference<Exception> failure) throws IOException {
+        final SocketChannel channel = SocketChannel.open(server.getLocalAddress());
+        leader.attach(server.accept());
+        replica.set(new LockstepReplica(channel));
+        final Thread thread = new Thread(() -> {
+            try {
+                while (replica.get().receive() != 0) {
+                    // follows the leader
+                }
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void replicatesFromDecisionsOnly() throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final LockstepLeader leader = new LockstepLeader(TestGames.seated(21, PLAYERS), 21,
+                    bot(300), HASH_INTERVAL);
+            final AtomicReference<LockstepReplica> replica = new AtomicReference<>();
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final Thread thread = follow(server, leader, replica, failure);
+            leader.play();
+            thread.join(30_000);
+            assertNull(failure.get());
+            assertFalse(replica.get().getGame().isRunning());
+            assertEquals(leader.getTurns(), replica.get().getTurns());
+            assertArrayEquals(GameSnapshot.saveState(leader.getGame()), GameSnapshot.saveState(replica.get().getGame()));
+            assertTrue(replica.get().getHashesChecked() >= leader.getTurns() / HASH_INTERVAL);
+            assertTrue(leader.getBytesSent() < leader.getTurns() * 8, leader.getBytesSent() + " bytes sent");
+            leader.close();
+            replica.get().close();
+        }
+    }
+
+    @Test
+    void detectsADivergentReplica() throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            // the replica is told another seed than the one of the game
+            final LockstepLeader leader = new LockstepLeader(TestGames.seated(21, PLAYERS), 22,
+                    bot(300), HASH_INTERVAL);
+            final AtomicReference<LockstepReplica> replica = new AtomicReference<>();
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final Thread thread = follow(server, leader, replica, failure);
+            try {
+                leader.play();
+            } catch (IOException lost) {
+                // the replica may have given up already
+            }
+            thread.join(30_000);
+            assertInstanceOf(IllegalStateException.class, failure.get());
+            leader.close();
+            replica.get().close();
+        }
+    }
+
+    @Test
+    void standbyTakesOverTheTable() throws Exception {
+        try (ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            final LockstepLeader leader = new LockstepLeader(TestGames.seated(33, PLAYERS), 33,
+                    bot(300), HASH_INTERVAL);
+            final AtomicReference<LockstepReplica> standby = new AtomicReference<>();
+            final AtomicReference<Exception> lost = new AtomicReference<>();
+            final Thread thread = follow(server, leader, standby, lost);
+            for (int i = 0; i < 100; i++) assertTrue(leader.step());
+            leader.close();
+            thread.join(30_000);
+            assertInstanceOf(IOException.class, lost.get());
+            assertEquals(leader.getTurns(), standby.get().getTurns());
+
+            final LockstepLeader successor = standby.get().takeOver(bot(200));
+            assertSame(standby.get().getGame(), successor.getGame());
+            final AtomicReference<LockstepReplica> replica = new AtomicReference<>();
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final Thread late = follow(server, successor, replica, failure);
+            successor.play();
+            late.join(30_000);
+            assertNull(failure.get());
+            assertArrayEquals(GameSnapshot.saveState(successor.getGame()), GameSnapshot.saveState(replica.get().getGame()));
+            assertEquals(successor.getTurns(), replica.get().getTurns());
+            successor.close();
+            replica.get().close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ch.supsi.game.monopoly.server;
+
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.input.ScriptedInputProvider;
+import ch.supsi.game.monopoly.persistence.GameReplay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class MatchmakerTest {
+
+    private static final IntFunction<Game> GAMES =
+            players -> GameReplay.newGame(players, players, new ScriptedInputProvider(Integer.MAX_VALUE));
+
+    private static int waiting(final Matchmaker matchmaker) {
+        int waiting = 0;
+        for (int players = Matchmaker.MIN_PLAYERS; players <= matchmaker.getMaxPlayers(); players++) {
+            waiting += matchmaker.getWaiting(players);
+        }
+        return waiting;
+    }
+
+    @Test
+    void assemblesGamesByNumberOfPlayers() {
+        final List<Game> games = new ArrayList<>();
+        final List<Matchmaker.Ticket[]> seats = new ArrayList<>();
+        final Matchmaker matchmaker = new Matchmaker(6, 64, GAMES, (game, tickets) -> {
+            games.add(game);
+            seats.add(tickets);
+        });
+        for (int i = 0; i < 5; i++) assertTrue(matchmaker.join(new Matchmaker.Ticket("Pair " + i, 'P', 2)));
+        for (int i = 0; i < 6; i++) assertTrue(matchmaker.join(new Matchmaker.Ticket("Six " + i, 'S', 6)));
+        assertEquals(1, matchmaker.match(1));
+        assertEquals(2, matchmaker.match(16));
+        assertEquals(0, matchmaker.match(16));
+        assertEquals(1, matchmaker.getWaiting(2));
+        assertEquals(0, matchmaker.getWaiting(6));
+        assertEquals(3, games.size());
+        assertEquals("Pair 0", seats.get(0)[0].getName());
+        assertEquals("Pair 3", seats.get(1)[1].getName());
+        final Game six = games.get(2);
+        final Player[] players = six.getPlayers();
+        assertEquals(6, players.length);
+        final Set<Character> symbols = new HashSet<>();
+        for (int i = 0; i < players.length; i++) {
+            assertEquals("Six " + i, players[i].getName());
+            assertTrue(symbols.add(players[i].getSymbol()));
+        }
+        assertEquals('S', players[0].getSymbol());
+        // more players than the usual game meet on the cells
+        int onStart = 0;
+        for (Player player : six.getBoard().getCell(0).getPlayers()) {
+            if (player != null) onStart++;
+        }
+        assertEquals(6, onStart);
+        six.begin();
+        for (int i = 0; i < 300 && six.step(); i++) {
+            // the bots roll and buy
+        }
+        assertNotEquals(0L, six.getStateHash());
+    }
+
+    @Test
+    void refusesPlayersBeyondCapacity() {
+        final Matchmaker matchmaker = new Matchmaker(4, 2, GAMES, (game, tickets) -> { });
+        assertTrue(matchmaker.join(new Matchmaker.Ticket("A", 'A', 3)));
+        assertTrue(matchmaker.join(new Matchmaker.Ticket("B", 'B', 3)));
+        assertFalse(matchmaker.join(new Matchmaker.Ticket("C", 'C', 3)));
+        assertThrows(IllegalArgumentException.class, () -> matchmaker.join(new Matchmaker.Ticket("D", 'D', 5)));
+        assertThrows(IllegalArgumentException.class, () -> new Matchmaker.Ticket("E", 'E', 1));
+    }
+
+    @Test
+    void matchesEveryPlayerOnceUnderConcurrentJoins() throws InterruptedException {
+        final int joiners = 4;
+        final int perJoiner = 603;
+        final Set<String> matched = ConcurrentHashMap.newKeySet();
+        final AtomicInteger games = new AtomicInteger();
+        // the last ticket matched of every joiner and number of players, a queue being drained by one matcher
+        final int[] last = new int[joiners * 3];
+        Arrays.fill(last, -1);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final Matchmaker matchmaker = new Matchmaker(4, 128, GAMES, (game, tickets) -> {
+            games.incrementAndGet();
+            for (Matchmaker.Ticket ticket : tickets) {
+                assertTrue(matched.add(ticket.getName()));
+                final String[] name = ticket.getName().split("-");
+                final int slot = Integer.parseInt(name[0]) * 3 + ticket.getPlayers() - Matchmaker.MIN_PLAYERS;
+                final int index = Integer.parseInt(name[1]);
+                if (index < last[slot]) outOfOrder.incrementAndGet();
+                last[slot] = index;
+            }
+        });
+        final Thread[] threads = new Thread[joiners + 2];
+        for (int j = 0; j < joiners; j++) {
+            final int joiner = j;
+            threads[j] = new Thread(() -> {
+                for (int i = 0; i < perJoiner; i++) {
+                    final Matchmaker.Ticket ticket = new Matchmaker.Ticket(joiner + "-" + i, 'X', 2 + i % 3);
+                    while (!matchmaker.join(ticket)) Thread.yield();
+                }
+            });
+        }
+        final AtomicInteger running = new AtomicInteger(joiners);
+        for (int j = 0; j < joiners; j++) {
+            final Thread joiner = threads[j];
+            threads[j] = new Thread(() -> {
+                joiner.run();
+                running.decrementAndGet();
+            });
+        }
+        for (int m = 0; m < 2; m++) {
+            threads[joiners + m] = new Thread(() -> {
+                // matches as long as players join, then until nobody waits
+                while (matchmaker.match(16) > 0 || running.get() > 0 || waiting(matchmaker) > 0) Thread.yield();
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join(60_000);
+        assertEquals(joiners * perJoiner, matched.size());
+        assertEquals(0, outOfOrder.get());
+        // as many players ask for 2, 3 and 4 players, a multiple of all of them
+        final int perSize = joiners * perJoiner / 3;
+        assertEquals(perSize / 2 + perSize / 3 + perSize / 4, games.get());
+    }
+}
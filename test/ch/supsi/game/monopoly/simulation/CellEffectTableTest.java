@@ -0,0 +1,104 @@
+package ch.supsi.game.monopoly.simulation;
+
+import ch.mazluc.util.ANSIUtility;
+import ch.mazluc.util.DiscardOutputExtension;
+import ch.supsi.game.monopoly.Board;
+import ch.supsi.game.monopoly.Constant;
+import ch.supsi.game.monopoly.Game;
+import ch.supsi.game.monopoly.Player;
+import ch.supsi.game.monopoly.cards.Card;
+import ch.supsi.game.monopoly.cards.CardAction;
+import ch.supsi.game.monopoly.cards.Deck;
+import ch.supsi.game.monopoly.cells.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DiscardOutputExtension.class)
+class CellEffectTableTest {
+
+    private static final String[] NAMES = {"Piazza Dante", "Corso Magellano", "Piazza Giulio Cesare", "Via Roma"};
+
+    private static Game newGame() {
+        final Cell[] cells = new Cell[Constant.BOARD_SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            final int rent = 50 + i;
+            cells[i] = switch (i % 8) {
+                case 1 -> new LuxuryTaxCell();
+                case 3 -> new WealthTaxCell();
+                case 5 -> new ChanceCell();
+                case 7 -> new UnexpectedCell();
+                default -> new ProprietyCell(
+                        new ProprietyName(NAMES[i % NAMES.length], ANSIUtility.RED), rent, 200, 100, 150);
+            };
+        }
+        cells[Constant.START_POSITION] = new StartCell();
+        cells[Constant.PRISON_POSITION] = new PrisonCell();
+        cells[Constant.PARKING_POSITION] = new ParkingCell();
+        cells[Constant.GO_TO_PRISON_POSITION] = new GoToPrisonCell();
+        cells[Constant.BOARD_SIZE - 1] = new TaxEvasionCell();
+        final Game game = new Game(new Board(cells), Constant.PLAYER_NUMBER);
+        game.init(new String[]{"A", "B", "C", "D"}, new char[]{'a', 'b', 'c', 'd'});
+        ((ProprietyCell) cells[2]).setOwner(game.getPlayers()[1]);
+        ((ProprietyCell) cells[4]).setOwner(game.getPlayers()[0]);
+        return game;
+    }
+
+    @Test
+    void applyMatchesObjectModel() {
+        final Game objectGame = newGame();
+        final Game tableGame = newGame();
+        final CellEffectTable table = CellEffectTable.compile(tableGame);
+        final Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            final int index = random.nextInt(Constant.BOARD_SIZE - 1);
+            if (i == 2500) {
+                objectGame.getPlayers()[0].setEvader(true);
+                tableGame.getPlayers()[0].setEvader(true);
+            }
+            objectGame.getBoard().getCell(index).applyEffect(objectGame.getPlayers()[0], objectGame);
+            table.apply(index, tableGame.getPlayers()[0]);
+            for (int p = 0; p < Constant.PLAYER_NUMBER; p++) {
+                final Player expected = objectGame.getPlayers()[p];
+                final Player actual = tableGame.getPlayers()[p];
+                assertEquals(expected.getBalance(), actual.getBalance());
+                assertEquals(expected.getPosition(), actual.getPosition());
+                assertEquals(expected.isInPrison(), actual.isInPrison());
+                assertEquals(expected.getAmountEvaded(), actual.getAmountEvaded());
+            }
+            assertEquals(objectGame.getBank().getBalance(), tableGame.getBank().getBalance());
+        }
+    }
+
+    @Test
+    void evasionPolicy() {
+        final Game game = newGame();
+        final CellEffectTable table = CellEffectTable.compile(game);
+        final int index = Constant.BOARD_SIZE - 1;
+        assertEquals(CellEffectTable.TAX_EVASION, table.getType(index));
+        table.apply(index, game.getPlayers()[0]);
+        assertFalse(game.getPlayers()[0].isEvader());
+        table.setEvasionPolicy(player -> true);
+        table.apply(index, game.getPlayers()[0]);
+        assertTrue(game.getPlayers()[0].isEvader());
+        table.apply(index, game.getPlayers()[1]);
+        assertFalse(game.getPlayers()[1].isEvader());
+    }
+
+    @Test
+    void goToCardsFindCellsWrittenInAnyCase() throws Exception {
+        final Game game = newGame();
+        final Deck chance = game.getChanceDeck();
+        while (chance.size() > 0) chance.pick();
+        chance.putBack(new Card(CardAction.GO_TO,
+                ANSIUtility.colorize("PIAZZA giulio Cesare", ANSIUtility.RED), "Go to Piazza Giulio Cesare"));
+        final CellEffectTable table = CellEffectTable.compile(game);
+        int chanceCell = 0;
+        while (table.getType(chanceCell) != CellEffectTable.CHANCE) chanceCell++;
+        table.apply(chanceCell, game.getPlayers()[0]);
+        assertEquals(2, game.getPlayers()[0].getPosition());
+    }
+}